@@ -0,0 +1,15 @@
+package com.medifit.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * @Scheduled 작업 활성화 (슬롯 버킷 정리, 배치 작업 등)
+ *
+ * 이 설정 전에는 스케줄링이 꺼져 있어 NotificationService의 복약 알림(매시간)과 약물 만료(매일 자정)가
+ * 한 번도 돌지 않았다. 동작이 바뀌지 않도록 두 작업은 cron 속성(medifit.notification.*-cron)을 지정해야 돈다.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,14 +1,25 @@
 package com.medifit.controller;
 
+import com.medifit.dto.AppointmentListItem;
+import com.medifit.dto.BatchJobReport;
+import com.medifit.dto.ConflictCheckDto;
+import com.medifit.dto.CursorPage;
+import com.medifit.dto.ImportReport;
 import com.medifit.entity.Appointment;
+import com.medifit.service.AppointmentImportService;
 import com.medifit.service.AppointmentService;
+import com.medifit.service.SlotAvailabilityHub;
 import com.medifit.enums.AppointmentStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -20,20 +31,46 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class AppointmentController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private SlotAvailabilityHub slotAvailabilityHub;
+
+    @Autowired
+    private AppointmentImportService appointmentImportService;
+
     // 🔥 모든 예약 조회
+    // cursor나 size를 주면 커서 기반 페이지로 응답한다: data(목록 항목), nextCursor, hasNext (total 없음).
+    // 둘 다 없으면 예전과 같이 페이지 없이 전체 목록과 total로 응답한다 - 예약이 많으면 size를 주어 페이지로 받는다.
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllAppointments(
             @RequestParam(required = false) Long patientId,
             @RequestParam(required = false) Long hospitalId,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String department) {
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
+            if (cursor != null || size != null) {
+                AppointmentStatus appointmentStatus = status != null ? AppointmentStatus.valueOf(status.toUpperCase()) : null;
+                CursorPage<AppointmentListItem> page = appointmentService.findPage(
+                        patientId, hospitalId, appointmentStatus, cursor, size != null ? size : DEFAULT_PAGE_SIZE);
+
+                response.put("success", true);
+                response.put("message", "예약 내역을 조회했습니다.");
+                response.put("data", page.getItems());
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasNext", page.isHasNext());
+
+                return ResponseEntity.ok(response);
+            }
+
             List<Appointment> appointments;
 
             if (patientId != null) {
@@ -57,6 +94,10 @@ public class AppointmentController {
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "잘못된 요청입니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "예약 조회 중 오류가 발생했습니다: " + e.getMessage());
@@ -122,15 +163,15 @@ public class AppointmentController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             }
 
-            // 예약 시간 중복 체크
-            if (appointmentService.isTimeSlotAvailable(appointment.getHospital().getId(),
-                    appointment.getAppointmentDate(), appointment.getEstimatedDuration())) {
+            // 예약 시간 슬롯 선점 후 저장 (중복 예약 방지)
+            Optional<Appointment> booked = appointmentService.bookAppointment(appointment);
+            if (!booked.isPresent()) {
                 response.put("success", false);
                 response.put("message", "해당 시간대에 이미 예약이 있습니다.");
                 return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
             }
 
-            Appointment savedAppointment = appointmentService.save(appointment);
+            Appointment savedAppointment = booked.get();
 
             response.put("success", true);
             response.put("message", "예약이 성공적으로 생성되었습니다.");
@@ -160,6 +201,14 @@ public class AppointmentController {
             }
 
             appointment.setId(id);
+
+            // 일정 변경 시 담당 의사(없으면 병원)의 다른 예약과 겹치는지 확인
+            if (appointmentService.hasScheduleConflict(appointment)) {
+                response.put("success", false);
+                response.put("message", "해당 시간대에 이미 예약이 있습니다.");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
             Appointment updatedAppointment = appointmentService.save(appointment);
 
             response.put("success", true);
@@ -168,6 +217,10 @@ public class AppointmentController {
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "예약 수정 중 오류가 발생했습니다: " + e.getMessage());
@@ -218,6 +271,10 @@ public class AppointmentController {
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "예약 완료 처리 중 오류가 발생했습니다: " + e.getMessage());
@@ -279,12 +336,13 @@ public class AppointmentController {
     @GetMapping("/available-times")
     public ResponseEntity<Map<String, Object>> getAvailableTimes(
             @RequestParam Long hospitalId,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) String date) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) String date,
+            @RequestParam(required = false) Integer duration) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            List<String> availableTimes = appointmentService.getAvailableTimeSlots(hospitalId, date);
+            List<String> availableTimes = appointmentService.getAvailableTimeSlots(hospitalId, date, duration);
 
             response.put("success", true);
             response.put("message", "예약 가능 시간을 조회했습니다.");
@@ -300,6 +358,85 @@ public class AppointmentController {
         }
     }
 
+    // 🔥 기간별 예약 가능 시간 조회 (캘린더 월 보기용)
+    @GetMapping("/available-times/range")
+    public ResponseEntity<Map<String, Object>> getAvailableTimesInRange(
+            @RequestParam Long hospitalId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer duration) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Map<String, List<String>> availability =
+                    appointmentService.getAvailableTimeSlotsInRange(hospitalId, from, to, duration);
+
+            response.put("success", true);
+            response.put("message", "기간별 예약 가능 시간을 조회했습니다.");
+            response.put("data", availability);
+            response.put("from", from);
+            response.put("to", to);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "예약 가능 시간 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 예약 구간 일괄 충돌 검사 (의사 단위, 의사 미지정 시 병원 단위)
+    @PostMapping("/conflicts/check")
+    public ResponseEntity<Map<String, Object>> checkConflicts(@RequestBody ConflictCheckDto request) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<ConflictCheckDto.Result> results = appointmentService.checkConflicts(request);
+            long conflicts = results.stream().filter(ConflictCheckDto.Result::isConflict).count();
+
+            response.put("success", true);
+            response.put("message", "충돌 검사를 완료했습니다. (충돌 " + conflicts + "건)");
+            response.put("data", results);
+            response.put("total", results.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "충돌 검사 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 예약 가능 시간 실시간 스트림 (SSE: snapshot 이후 slots 변화분)
+    @GetMapping(value = "/available-times/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailableTimes(
+            @RequestParam Long hospitalId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Integer duration) {
+        return slotAvailabilityHub.subscribe(hospitalId, date, duration);
+    }
+
+    // 🔥 슬롯 스트림 상태 (구독 토픽/구독자 수, 끊긴 느린 클라이언트 수)
+    @GetMapping("/available-times/stream/status")
+    public ResponseEntity<Map<String, Object>> getStreamStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "슬롯 스트림 상태를 조회했습니다.");
+        response.put("data", slotAvailabilityHub.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
     // 🔥 예약 통계 (월별)
     @GetMapping("/stats/monthly")
     public ResponseEntity<Map<String, Object>> getMonthlyAppointmentStats(
@@ -323,4 +460,125 @@ public class AppointmentController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
-}
\ No newline at end of file
+
+    // 🔥 병원 대시보드 통계 (오늘/이번 주/대기 중 예약, 최근 30일 취소율)
+    @GetMapping("/stats/dashboard")
+    public ResponseEntity<Map<String, Object>> getDashboardStats(@RequestParam(required = false) Long hospitalId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("message", "대시보드 통계를 조회했습니다.");
+            response.put("data", appointmentService.getDashboardStatistics(hospitalId));
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "대시보드 통계 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 예약 패턴 (요일별/시간대별, 최근 3개월)
+    @GetMapping("/stats/patterns")
+    public ResponseEntity<Map<String, Object>> getAppointmentPatterns(@RequestParam(required = false) Long hospitalId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("message", "예약 패턴을 조회했습니다.");
+            response.put("data", appointmentService.getAppointmentPatterns(hospitalId));
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "예약 패턴 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 통계 롤업 재계산
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStats() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            int buckets = appointmentService.rebuildStatistics();
+
+            response.put("success", true);
+            response.put("message", "예약 통계를 다시 계산했습니다.");
+            response.put("total", buckets);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "예약 통계 재계산 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 만료 예약 일괄 취소 (기본: 하루 이상 지난 예정/확정 예약)
+    @PostMapping("/maintenance/expire")
+    public ResponseEntity<Map<String, Object>> expireAppointments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cutoff) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            BatchJobReport report = appointmentService.expireAppointments(
+                    cutoff != null ? cutoff : LocalDateTime.now().minusDays(1));
+
+            response.put("success", true);
+            response.put("message", report.getTotalCancelled() + "건의 만료 예약을 취소했습니다.");
+            response.put("data", report);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "만료 예약 취소 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 예약 일괄 등록 (본문: NDJSON 한 줄에 예약 하나, 또는 헤더가 있는 CSV)
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv", MediaType.TEXT_PLAIN_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> importAppointments(
+            @RequestParam Long hospitalId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            InputStream body) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            ImportReport report = appointmentImportService.importAppointments(
+                    hospitalId, AppointmentImportService.parseFormat(format), body, dryRun);
+
+            response.put("success", true);
+            response.put("message", dryRun
+                    ? report.getImported() + "건이 등록 가능합니다. (검증만 수행)"
+                    : report.getImported() + "건의 예약을 등록했습니다.");
+            response.put("data", report);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "예약 일괄 등록 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
@@ -1,26 +1,65 @@
 package com.medifit.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medifit.dto.CursorPage;
+import com.medifit.dto.DuplicateScanReport;
+import com.medifit.dto.MedicalRecordExportKey;
+import com.medifit.dto.MedicalRecordListItem;
+import com.medifit.dto.SearchPage;
+import com.medifit.entity.DuplicateCandidate;
 import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.PatientDiagnosisCount;
+import com.medifit.service.AiResponseCache;
+import com.medifit.service.AiSummaryPipeline;
+import com.medifit.service.DoctorScorecards;
+import com.medifit.service.MedicalRecordArchiveJob;
+import com.medifit.service.MedicalRecordExportService;
 import com.medifit.service.MedicalRecordService;
+import com.medifit.service.MedicalRecordTextStorage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/medical-records")
 @CrossOrigin(origins = "*")
 public class MedicalRecordController {
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     @Autowired
     private MedicalRecordService medicalRecordService;
 
+    @Autowired
+    private MedicalRecordExportService medicalRecordExportService;
+
+    @Autowired
+    private AiSummaryPipeline aiSummaryPipeline;
+
+    @Autowired
+    private AiResponseCache aiResponseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // 🔥 모든 의료기록 조회
+    // 목록 항목에는 증상/의사 메모/AI 요약이 없다 (MedicalRecordListItem) - 본문은 상세 조회로 받는다
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllMedicalRecords(
             @RequestParam(required = false) Long patientId,
@@ -30,16 +69,16 @@ public class MedicalRecordController {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            List<MedicalRecord> medicalRecords;
+            List<MedicalRecordListItem> medicalRecords;
 
             if (patientId != null) {
-                medicalRecords = medicalRecordService.findByPatientId(patientId);
+                medicalRecords = medicalRecordService.findListByPatientId(patientId);
                 response.put("message", "환자별 의료기록을 조회했습니다.");
             } else if (department != null) {
-                medicalRecords = medicalRecordService.findByDepartment(department);
+                medicalRecords = medicalRecordService.findListByDepartment(department);
                 response.put("message", "진료과별 의료기록을 조회했습니다.");
             } else {
-                medicalRecords = medicalRecordService.getAllMedicalRecords();
+                medicalRecords = medicalRecordService.getMedicalRecordList();
                 response.put("message", "전체 의료기록을 조회했습니다.");
             }
 
@@ -173,6 +212,10 @@ public class MedicalRecordController {
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "의료기록 삭제 중 오류가 발생했습니다: " + e.getMessage());
@@ -189,7 +232,7 @@ public class MedicalRecordController {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            List<MedicalRecord> recentRecords = medicalRecordService.findRecentByPatientId(patientId, limit);
+            List<MedicalRecordListItem> recentRecords = medicalRecordService.findRecentListByPatientId(patientId, limit);
 
             response.put("success", true);
             response.put("message", "환자의 최근 의료기록을 조회했습니다.");
@@ -211,7 +254,7 @@ public class MedicalRecordController {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            List<MedicalRecord> records = medicalRecordService.findByDepartment(department);
+            List<MedicalRecordListItem> records = medicalRecordService.findListByDepartment(department);
 
             response.put("success", true);
             response.put("message", department + " 의료기록을 조회했습니다.");
@@ -227,22 +270,38 @@ public class MedicalRecordController {
         }
     }
 
-    // 🔥 의료기록 검색 (진단명, 치료내용으로 검색)
+    // 🔥 의료기록 검색 (진단명, 증상, 치료내용, 의사 메모, 진료과 - 관련도순)
     @GetMapping("/search")
-    public ResponseEntity<Map<String, Object>> searchMedicalRecords(@RequestParam String keyword) {
+    public ResponseEntity<Map<String, Object>> searchMedicalRecords(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         Map<String, Object> response = new HashMap<>();
 
+        if (page < 0 || size <= 0 || size > MAX_SEARCH_PAGE_SIZE) {
+            response.put("success", false);
+            response.put("message", "page는 0 이상, size는 1~" + MAX_SEARCH_PAGE_SIZE + " 사이여야 합니다.");
+            return ResponseEntity.badRequest().body(response);
+        }
+
         try {
-            List<MedicalRecord> searchResults = medicalRecordService.searchRecords(keyword);
+            SearchPage<MedicalRecordListItem> searchResults = medicalRecordService.searchRecords(keyword, page, size);
 
             response.put("success", true);
             response.put("message", "의료기록 검색 결과입니다.");
-            response.put("data", searchResults);
-            response.put("total", searchResults.size());
+            response.put("data", searchResults.getItems());
+            response.put("total", searchResults.getTotal());
+            response.put("page", page);
+            response.put("size", size);
+            response.put("tookMillis", searchResults.getTookMillis());
             response.put("keyword", keyword);
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "의료기록 검색 중 오류가 발생했습니다: " + e.getMessage());
@@ -250,6 +309,36 @@ public class MedicalRecordController {
         }
     }
 
+    // 🔥 검색 색인 상태 / 재구성
+    @GetMapping("/search/status")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "검색 색인 상태를 조회했습니다.");
+        response.put("data", medicalRecordService.getSearchIndexStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSearchIndex() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            int documents = medicalRecordService.rebuildSearchIndex();
+
+            response.put("success", true);
+            response.put("message", "검색 색인을 재구성했습니다.");
+            response.put("total", documents);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "검색 색인 재구성 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     // 🔥 환자의 진단명별 통계
     @GetMapping("/patient/{patientId}/diagnosis-stats")
     public ResponseEntity<Map<String, Object>> getPatientDiagnosisStats(@PathVariable Long patientId) {
@@ -271,7 +360,7 @@ public class MedicalRecordController {
         }
     }
 
-    // 🔥 의료기록 AI 요약 생성/업데이트
+    // 🔥 의료기록 AI 요약 생성/업데이트 (작업 등록 후 바로 응답)
     @PostMapping("/{id}/ai-summary")
     public ResponseEntity<Map<String, Object>> generateAiSummary(@PathVariable Long id) {
         Map<String, Object> response = new HashMap<>();
@@ -285,21 +374,117 @@ public class MedicalRecordController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            String aiSummary = medicalRecordService.generateAiSummary(id);
+            AiSummaryPipeline.JobStatus job = aiSummaryPipeline.submit(id);
 
             response.put("success", true);
-            response.put("message", "AI 요약이 생성되었습니다.");
-            response.put("data", Map.of("aiSummary", aiSummary));
+            response.put("message", "AI 요약 작업이 등록되었습니다.");
+            response.put("data", job);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
 
         } catch (Exception e) {
             response.put("success", false);
-            response.put("message", "AI 요약 생성 중 오류가 발생했습니다: " + e.getMessage());
+            response.put("message", "AI 요약 작업 등록 중 오류가 발생했습니다: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
 
+    // 🔥 AI 요약 작업 상태 조회
+    @GetMapping("/ai-summary/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getAiSummaryJob(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+
+        Optional<AiSummaryPipeline.JobStatus> job = aiSummaryPipeline.getJob(jobId);
+        if (job.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "해당 AI 요약 작업을 찾을 수 없습니다.");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        response.put("success", true);
+        response.put("data", job.get());
+        return ResponseEntity.ok(response);
+    }
+
+    // 🔥 AI 요약 작업 상태 스트림 (SSE)
+    @GetMapping(value = "/ai-summary/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAiSummaryJob(@PathVariable String jobId) {
+        return aiSummaryPipeline.subscribe(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // 🔥 AI 요약 백필 시작
+    @PostMapping("/ai-summary/backfill")
+    public ResponseEntity<Map<String, Object>> startAiSummaryBackfill(@RequestParam(required = false) Integer limit) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            AiSummaryPipeline.BackfillStatus status = aiSummaryPipeline.startBackfill(limit);
+
+            response.put("success", true);
+            response.put("message", "AI 요약 백필을 시작했습니다.");
+            response.put("data", status);
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "AI 요약 백필 시작 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 AI 요약 백필 상태 조회
+    @GetMapping("/ai-summary/backfill")
+    public ResponseEntity<Map<String, Object>> getAiSummaryBackfill() {
+        Map<String, Object> response = new HashMap<>();
+
+        Optional<AiSummaryPipeline.BackfillStatus> status = aiSummaryPipeline.getBackfillStatus();
+        if (status.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "실행된 AI 요약 백필이 없습니다.");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        response.put("success", true);
+        response.put("data", status.get());
+        return ResponseEntity.ok(response);
+    }
+
+    // 🔥 AI 요약 백필 중단 (현재 페이지까지 처리하고 멈춘다)
+    @PostMapping("/ai-summary/backfill/stop")
+    public ResponseEntity<Map<String, Object>> stopAiSummaryBackfill() {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!aiSummaryPipeline.stopBackfill()) {
+            response.put("success", false);
+            response.put("message", "실행 중인 AI 요약 백필이 없습니다.");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+
+        response.put("success", true);
+        response.put("message", "AI 요약 백필 중단을 요청했습니다.");
+        return ResponseEntity.ok(response);
+    }
+
+    // 🔥 AI 응답 캐시 통계
+    @GetMapping("/ai-cache/stats")
+    public ResponseEntity<Map<String, Object>> getAiCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", aiResponseCache.getStats());
+        return ResponseEntity.ok(response);
+    }
+
     // 🔥 월별 의료기록 통계
     @GetMapping("/stats/monthly")
     public ResponseEntity<Map<String, Object>> getMonthlyStats(
@@ -324,15 +509,270 @@ public class MedicalRecordController {
         }
     }
 
+    // 🔥 치료 효과 분석 (treatment를 여러 번 주면 치료법끼리 비교)
+    @GetMapping("/analytics/treatment-effectiveness")
+    public ResponseEntity<Map<String, Object>> getTreatmentEffectiveness(
+            @RequestParam String diagnosis,
+            @RequestParam(defaultValue = "") List<String> treatment) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        if (diagnosis.isBlank()) {
+            response.put("success", false);
+            response.put("message", "진단명을 입력해주세요.");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            Map<String, Map<String, Object>> comparison = medicalRecordService.compareTreatmentEffectiveness(
+                    diagnosis, treatment.isEmpty() ? List.of("") : treatment);
+
+            response.put("success", true);
+            response.put("message", "치료 효과를 분석했습니다.");
+            response.put("data", comparison);
+            response.put("total", comparison.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "치료 효과 분석 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 대시보드 통계
+    @GetMapping("/stats/dashboard")
+    public ResponseEntity<Map<String, Object>> getDashboardStats(
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(defaultValue = "false") boolean breakdown) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("message", "대시보드 통계를 조회했습니다.");
+            response.put("data", medicalRecordService.getDashboardStatistics(hospitalId, breakdown));
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "대시보드 통계 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/stats/dashboard/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDailyCounters() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            int counters = medicalRecordService.rebuildDailyCounters();
+
+            response.put("success", true);
+            response.put("message", "일별 카운터를 재계산했습니다.");
+            response.put("total", counters);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "일별 카운터 재계산 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 의사 성과 스코어카드 (일별 집계 합산)
+    @GetMapping("/stats/doctors")
+    public ResponseEntity<Map<String, Object>> compareDoctors(
+            @RequestParam(required = false) List<Long> doctorIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<DoctorScorecards.Scorecard> scorecards =
+                    medicalRecordService.compareDoctors(doctorIds, startDate, endDate);
+
+            response.put("success", true);
+            response.put("message", "의사 성과 집계를 조회했습니다.");
+            response.put("data", scorecards);
+            response.put("total", scorecards.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "의사 성과 집계 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/stats/doctors/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDoctorScorecards() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            int scorecards = medicalRecordService.rebuildDoctorScorecards();
+
+            response.put("success", true);
+            response.put("message", "의사 성과 집계를 재계산했습니다.");
+            response.put("total", scorecards);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "의사 성과 집계 재계산 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 만성 질환 환자 (같은 진단 방문 횟수 기준)
+    @GetMapping("/chronic-patients")
+    public ResponseEntity<Map<String, Object>> getChronicPatients(
+            @RequestParam(required = false) Long hospitalId) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<PatientDiagnosisCount> patients = medicalRecordService.findChronicPatients(hospitalId);
+
+            response.put("success", true);
+            response.put("message", "만성 질환 환자를 조회했습니다. (기준 " + medicalRecordService.getChronicThreshold() + "회)");
+            response.put("data", patients);
+            response.put("total", patients.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "만성 질환 환자 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/chronic-patients/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDiagnosisCounts() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            int counts = medicalRecordService.rebuildDiagnosisCounts();
+
+            response.put("success", true);
+            response.put("message", "진단 방문 횟수를 재계산했습니다.");
+            response.put("total", counts);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "진단 방문 횟수 재계산 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 서술형 필드 저장 방식 / 이관
+    // medifit.medical-record.text-storage를 바꾼 뒤 migrate를 호출하면 기존 기록도 그 방식으로 옮긴다.
+    @GetMapping("/text-storage")
+    public ResponseEntity<Map<String, Object>> getTextStorageStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "서술형 필드 저장 상태를 조회했습니다.");
+        response.put("data", medicalRecordService.getTextStorageStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/text-storage/migrate")
+    public ResponseEntity<Map<String, Object>> migrateTextStorage() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            MedicalRecordTextStorage.MigrationReport report = medicalRecordService.migrateTextStorage();
+
+            response.put("success", true);
+            response.put("message", "서술형 필드를 이관했습니다.");
+            response.put("data", report);
+            response.put("total", report.movedRecords());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "서술형 필드 이관 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 보관 (오래된 기록 -> 세그먼트 파일)
+    // 보관한 기록은 날짜 범위 조회(월별 통계, 환자 기록 내보내기)에 archived=true로 함께 나온다.
+    @GetMapping("/archive")
+    public ResponseEntity<Map<String, Object>> getArchiveStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "의료기록 보관 상태를 조회했습니다.");
+        response.put("data", medicalRecordService.getArchiveStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String, Object>> archiveOldRecords() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            MedicalRecordArchiveJob.ArchiveReport report = medicalRecordService.archiveOldRecords();
+
+            response.put("success", true);
+            response.put("message", "오래된 의료기록을 보관했습니다.");
+            response.put("data", report);
+            response.put("total", report.archivedRecords());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "의료기록 보관 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     // 🔥 진료비 통계
     @GetMapping("/stats/medical-fees")
     public ResponseEntity<Map<String, Object>> getMedicalFeeStats(
-            @RequestParam(required = false) Long patientId) {
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) String department) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            Map<String, Object> feeStats = medicalRecordService.getMedicalFeeStatistics(patientId);
+            Map<String, Object> feeStats = medicalRecordService.getMedicalFeeStatistics(patientId, hospitalId, department);
 
             response.put("success", true);
             response.put("message", "진료비 통계를 조회했습니다.");
@@ -346,4 +786,162 @@ public class MedicalRecordController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
-}
\ No newline at end of file
+
+    // 🔥 진료과별 진료비 통계
+    @GetMapping("/stats/medical-fees/departments")
+    public ResponseEntity<Map<String, Object>> getDepartmentFeeStats(
+            @RequestParam(required = false) Long hospitalId) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Map<String, Map<String, Object>> feeStats = medicalRecordService.getDepartmentFeeStatistics(hospitalId);
+
+            response.put("success", true);
+            response.put("message", "진료과별 진료비 통계를 조회했습니다.");
+            response.put("data", feeStats);
+            response.put("total", feeStats.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "진료과별 진료비 통계 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 환자의 중복 의심 기록 (같은 날, 같은 진료과, 같은 진단)
+    @GetMapping("/patient/{patientId}/duplicates")
+    public ResponseEntity<Map<String, Object>> getPotentialDuplicates(@PathVariable Long patientId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<MedicalRecord> duplicates = medicalRecordService.findPotentialDuplicates(patientId);
+
+            response.put("success", true);
+            response.put("message", "중복 의심 기록을 조회했습니다.");
+            response.put("data", duplicates);
+            response.put("total", duplicates.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "중복 의심 기록 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 전체 스캔으로 찾은 중복 의심 묶음 (커서 페이지)
+    @GetMapping("/duplicates")
+    public ResponseEntity<Map<String, Object>> getDuplicateCandidates(
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            CursorPage<DuplicateCandidate> page = medicalRecordService.findDuplicateCandidates(patientId, cursor, size);
+
+            response.put("success", true);
+            response.put("message", "중복 의심 목록을 조회했습니다.");
+            response.put("data", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasNext", page.isHasNext());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "중복 의심 목록 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 전체 의료기록 중복 스캔 실행
+    @PostMapping("/duplicates/scan")
+    public ResponseEntity<Map<String, Object>> scanDuplicates() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            DuplicateScanReport report = medicalRecordService.scanDuplicates();
+
+            response.put("success", true);
+            response.put("message", report.getCandidateGroups() + "개의 중복 의심 묶음을 찾았습니다.");
+            response.put("data", report);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "중복 스캔 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 의료기록 스트리밍 내보내기 (NDJSON/CSV, Accept-Encoding: gzip이면 압축 전송)
+    // 행은 (환자, 진료일시, id) 순이며, 마지막으로 받은 행의 patientId/visitDate/id를 after*로 넘기면 이어받는다
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMedicalRecords(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Long afterPatientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterVisitDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        MedicalRecordExportService.Format exportFormat;
+        MedicalRecordExportService.ExportFilter filter;
+        try {
+            exportFormat = MedicalRecordExportService.Format.parse(format);
+            filter = new MedicalRecordExportService.ExportFilter(patientId, department, startDate, endDate,
+                    MedicalRecordExportKey.of(afterPatientId, afterVisitDate, afterId));
+        } catch (IllegalArgumentException e) {
+            // 스트리밍 핸들러는 StreamingResponseBody 본문만 받으므로 오류 JSON도 직접 쓴다
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, response));
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                // syncFlush: 서비스가 flush할 때마다 압축된 블록을 바로 내보낸다
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024, true);
+                medicalRecordExportService.export(filter, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                medicalRecordExportService.export(filter, exportFormat, out);
+            }
+        };
+
+        String filename = "medical-records-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
+                + "." + exportFormat.getExtension();
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+}
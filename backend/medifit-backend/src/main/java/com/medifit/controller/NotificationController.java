@@ -1,11 +1,14 @@
 package com.medifit.controller;
 
 import com.medifit.dto.ApiResponse;
+import com.medifit.service.AppointmentReminderDispatcher;
 import com.medifit.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -17,6 +20,43 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private AppointmentReminderDispatcher appointmentReminderDispatcher;
+
+    /**
+     * 진료 예약 리마인더 수동 발송 (date 기본값: 내일, shards 미지정 시 담당 샤드 전체)
+     */
+    @PostMapping("/appointment/reminders")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> sendAppointmentReminders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) List<Integer> shards) {
+
+        try {
+            LocalDate targetDate = date != null ? date : LocalDate.now().plusDays(1);
+            Map<String, Object> result = appointmentReminderDispatcher.dispatch(targetDate, shards);
+
+            ApiResponse<Map<String, Object>> response = new ApiResponse<>();
+            response.setSuccess(true);
+            response.setMessage(targetDate + " 진료 예약 알림 " + result.get("sent") + "건을 전송했습니다.");
+            response.setData(result);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            ApiResponse<Map<String, Object>> response = new ApiResponse<>();
+            response.setSuccess(false);
+            response.setMessage(e.getMessage());
+
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            ApiResponse<Map<String, Object>> response = new ApiResponse<>();
+            response.setSuccess(false);
+            response.setMessage("진료 예약 알림 전송에 실패했습니다: " + e.getMessage());
+
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     /**
      * 복약 알림 수동 전송
      */
@@ -1,16 +1,21 @@
 package com.medifit.controller;
 
+import com.medifit.dto.CursorPage;
+import com.medifit.dto.PatientTimelineItem;
 import com.medifit.entity.Patient;
 import com.medifit.service.PatientService;
+import com.medifit.service.PatientTimelineService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/patients")
@@ -20,6 +25,9 @@ public class PatientController {
     @Autowired
     private PatientService patientService;
 
+    @Autowired
+    private PatientTimelineService patientTimelineService;
+
     // 🔥 환자 목록 조회 (검색 기능 포함)
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllPatients(
@@ -259,6 +267,54 @@ public class PatientController {
         }
     }
 
+    // 🔥 환자 타임라인 (시간 역순 커서 페이지)
+    // include에 APPOINTMENT, PRESCRIPTION, MEDICATION을 쉼표로 주면 진료기록과 함께 시간순으로 섞어서 보여준다.
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<Map<String, Object>> getPatientTimeline(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) List<String> include) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            if (!patientService.findById(id).isPresent()) {
+                response.put("success", false);
+                response.put("message", "해당 ID의 환자를 찾을 수 없습니다.");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+
+            Set<PatientTimelineItem.Type> types = EnumSet.noneOf(PatientTimelineItem.Type.class);
+            if (include != null) {
+                for (String type : include) {
+                    if (!type.isBlank()) {
+                        types.add(PatientTimelineItem.Type.valueOf(type.trim().toUpperCase()));
+                    }
+                }
+            }
+
+            CursorPage<PatientTimelineItem> page = patientTimelineService.getTimeline(id, types, cursor, size);
+
+            response.put("success", true);
+            response.put("message", "환자 타임라인을 조회했습니다.");
+            response.put("data", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasNext", page.isHasNext());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "잘못된 요청입니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "타임라인 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     // 🔥 환자 통계 정보 (대시보드용)
     @GetMapping("/{id}/dashboard")
     public ResponseEntity<Map<String, Object>> getPatientDashboard(@PathVariable Long id) {
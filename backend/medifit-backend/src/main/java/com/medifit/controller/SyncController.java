@@ -0,0 +1,65 @@
+package com.medifit.controller;
+
+import com.medifit.service.PatientService;
+import com.medifit.service.SyncChangeLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+@CrossOrigin(origins = "*")
+public class SyncController {
+
+    @Autowired
+    private SyncChangeLog syncChangeLog;
+
+    @Autowired
+    private PatientService patientService;
+
+    // 🔥 증분 동기화 (모바일 앱)
+    // since 없이 호출하면 resetRequired와 첫 토큰을 받는다. 전체를 받은 뒤 그 토큰부터 변경만 받고,
+    // hasMore면 nextToken으로 바로 다시 호출한다.
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getChanges(
+            @RequestParam Long patientId,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            if (!patientService.findById(patientId).isPresent()) {
+                response.put("success", false);
+                response.put("message", "해당 ID의 환자를 찾을 수 없습니다.");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+
+            SyncChangeLog.SyncResult result = syncChangeLog.getChanges(patientId, since, limit);
+
+            response.put("success", true);
+            response.put("message", result.resetRequired()
+                    ? "전체 동기화가 필요합니다." : "변경 내역을 조회했습니다.");
+            response.put("data", result.changes());
+            response.put("total", result.changes().size());
+            response.put("nextToken", result.nextToken());
+            response.put("hasMore", result.hasMore());
+            response.put("resetRequired", result.resetRequired());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "잘못된 요청입니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "동기화 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
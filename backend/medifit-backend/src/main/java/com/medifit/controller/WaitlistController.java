@@ -0,0 +1,214 @@
+package com.medifit.controller;
+
+import com.medifit.dto.WaitlistRequestDto;
+import com.medifit.entity.Appointment;
+import com.medifit.entity.WaitlistEntry;
+import com.medifit.service.WaitlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/waitlist")
+@CrossOrigin(origins = "*")
+public class WaitlistController {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    // 🔥 예약 대기 신청
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> join(@RequestBody WaitlistRequestDto request) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            WaitlistEntry entry = waitlistService.join(request);
+
+            response.put("success", true);
+            response.put("message", "예약 대기 신청이 완료되었습니다. 자리가 나면 알림으로 알려드립니다.");
+            response.put("data", entry);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "예약 대기 신청 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 대기 신청 상태 (순번, 현재 제안)
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getEntry(@PathVariable Long id) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Optional<WaitlistEntry> entryOpt = waitlistService.findById(id);
+
+            if (!entryOpt.isPresent()) {
+                response.put("success", false);
+                response.put("message", "해당 ID의 대기 신청을 찾을 수 없습니다.");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("entry", entryOpt.get());
+            data.put("position", waitlistService.positionOf(entryOpt.get()));
+            waitlistService.findOfferForEntry(id).ifPresent(offer -> data.put("offer", offer));
+
+            response.put("success", true);
+            response.put("message", "대기 신청을 조회했습니다.");
+            response.put("data", data);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "대기 신청 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 환자의 대기 신청 목록
+    @GetMapping("/patient/{patientId}")
+    public ResponseEntity<Map<String, Object>> getPatientEntries(@PathVariable Long patientId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<WaitlistEntry> entries = waitlistService.findByPatientId(patientId);
+
+            response.put("success", true);
+            response.put("message", "대기 신청 목록을 조회했습니다.");
+            response.put("data", entries);
+            response.put("total", entries.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "대기 신청 목록 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 병원/진료과 대기열 (우선순위 순)
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getQueue(@RequestParam Long hospitalId,
+                                                        @RequestParam String department) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<Map<String, Object>> queue = waitlistService.getQueue(hospitalId, department);
+
+            response.put("success", true);
+            response.put("message", "대기열을 조회했습니다.");
+            response.put("data", queue);
+            response.put("total", queue.size());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "대기열 조회 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 대기 신청 취소
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable Long id) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            WaitlistEntry entry = waitlistService.cancel(id);
+
+            response.put("success", true);
+            response.put("message", "예약 대기 신청이 취소되었습니다.");
+            response.put("data", entry);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "대기 신청 취소 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 제안 수락 (선점된 슬롯으로 예약 생성)
+    @PostMapping("/offers/{offerId}/accept")
+    public ResponseEntity<Map<String, Object>> acceptOffer(@PathVariable String offerId,
+                                                           @RequestParam Long patientId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Appointment appointment = waitlistService.accept(offerId, patientId);
+
+            response.put("success", true);
+            response.put("message", "예약이 확정되었습니다.");
+            response.put("data", appointment);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "제안 수락 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 🔥 제안 거절 (다음 대기 환자에게 넘어감)
+    @PostMapping("/offers/{offerId}/decline")
+    public ResponseEntity<Map<String, Object>> declineOffer(@PathVariable String offerId,
+                                                            @RequestParam Long patientId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            waitlistService.decline(offerId, patientId);
+
+            response.put("success", true);
+            response.put("message", "제안을 거절했습니다. 대기 순번은 유지됩니다.");
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "제안 거절 중 오류가 발생했습니다: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.medifit.dto;
+
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.enums.AppointmentType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 예약 목록용 경량 프로젝션 (환자명/병원명을 한 번의 조인으로 조회)
+ */
+public interface AppointmentListItem {
+
+    Long getId();
+
+    LocalDateTime getAppointmentDate();
+
+    String getDepartment();
+
+    AppointmentStatus getStatus();
+
+    AppointmentType getAppointmentType();
+
+    String getRoomNumber();
+
+    Integer getEstimatedDuration();
+
+    Long getPatientId();
+
+    String getPatientName();
+
+    Long getHospitalId();
+
+    String getHospitalName();
+}
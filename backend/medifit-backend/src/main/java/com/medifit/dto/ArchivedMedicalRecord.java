@@ -0,0 +1,54 @@
+package com.medifit.dto;
+
+import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.Patient;
+import com.medifit.entity.User;
+import com.medifit.enums.RecordStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 보관 세그먼트에 저장한 의료기록 한 건 (서술형 필드는 압축 상세에 있던 것도 풀어서 담는다)
+ */
+public record ArchivedMedicalRecord(Long id,
+                                    Long patientId,
+                                    Long doctorId,
+                                    Long appointmentId,
+                                    String department,
+                                    String symptoms,
+                                    String diagnosis,
+                                    String treatment,
+                                    String doctorNotes,
+                                    String aiSummary,
+                                    RecordStatus status,
+                                    LocalDateTime visitDate,
+                                    LocalDateTime createdAt,
+                                    LocalDateTime updatedAt,
+                                    Integer medicalFee,
+                                    String roomNumber) {
+
+    public static ArchivedMedicalRecord of(MedicalRecord record) {
+        return new ArchivedMedicalRecord(record.getId(), record.getPatient().getId(), record.getDoctor().getId(),
+                record.getAppointment() != null ? record.getAppointment().getId() : null,
+                record.getDepartment(), record.getSymptoms(), record.getDiagnosis(), record.getTreatment(),
+                record.getDoctorNotes(), record.getAiSummary(), record.getStatus(), record.getVisitDate(),
+                record.getCreatedAt(), record.getUpdatedAt(), record.getMedicalFee(), record.getRoomNumber());
+    }
+
+    /**
+     * 조회 결과에 섞어 돌려줄 읽기 전용 엔티티. 환자/의사는 호출하는 쪽이 읽어 넘기고 예약 연결은 appointmentId로만 남는다.
+     */
+    public MedicalRecord toEntity(Patient patient, User doctor) {
+        MedicalRecord record = new MedicalRecord(patient, doctor, department, symptoms, diagnosis, treatment, visitDate);
+        record.setId(id);
+        record.setDoctorNotes(doctorNotes);
+        record.setAiSummary(aiSummary);
+        record.setStatus(status);
+        record.setCreatedAt(createdAt);
+        record.setUpdatedAt(updatedAt);
+        record.setMedicalFee(medicalFee);
+        record.setRoomNumber(roomNumber);
+        record.setArchived(true);
+        return record;
+    }
+}
@@ -0,0 +1,162 @@
+package com.medifit.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 청크 단위 배치 작업 결과 (전체 처리 건수와 청크별 소요 시간)
+ */
+public class BatchJobReport {
+
+    private String jobName;
+    private LocalDateTime cutoff;
+    private LocalDateTime startedAt;
+    private long elapsedMillis;
+    private int totalSelected;
+    private int totalCancelled;
+    private List<ChunkResult> chunks = new ArrayList<>();
+
+    public BatchJobReport() {}
+
+    public BatchJobReport(String jobName, LocalDateTime cutoff) {
+        this.jobName = jobName;
+        this.cutoff = cutoff;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    public void addChunk(ChunkResult chunk) {
+        chunks.add(chunk);
+        totalSelected += chunk.getSelected();
+        totalCancelled += chunk.getUpdated();
+    }
+
+    // Getters and Setters
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public LocalDateTime getCutoff() {
+        return cutoff;
+    }
+
+    public void setCutoff(LocalDateTime cutoff) {
+        this.cutoff = cutoff;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getTotalSelected() {
+        return totalSelected;
+    }
+
+    public void setTotalSelected(int totalSelected) {
+        this.totalSelected = totalSelected;
+    }
+
+    public int getTotalCancelled() {
+        return totalCancelled;
+    }
+
+    public void setTotalCancelled(int totalCancelled) {
+        this.totalCancelled = totalCancelled;
+    }
+
+    public List<ChunkResult> getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(List<ChunkResult> chunks) {
+        this.chunks = chunks;
+    }
+
+    /**
+     * 청크 하나의 처리 결과
+     */
+    public static class ChunkResult {
+
+        private int index;
+        private Long firstId;
+        private Long lastId;
+        private int selected;
+        private int updated;
+        private long elapsedMillis;
+
+        public ChunkResult() {}
+
+        public ChunkResult(int index, Long firstId, Long lastId, int selected, int updated, long elapsedMillis) {
+            this.index = index;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.selected = selected;
+            this.updated = updated;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public Long getFirstId() {
+            return firstId;
+        }
+
+        public void setFirstId(Long firstId) {
+            this.firstId = firstId;
+        }
+
+        public Long getLastId() {
+            return lastId;
+        }
+
+        public void setLastId(Long lastId) {
+            this.lastId = lastId;
+        }
+
+        public int getSelected() {
+            return selected;
+        }
+
+        public void setSelected(int selected) {
+            this.selected = selected;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(int updated) {
+            this.updated = updated;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public void setElapsedMillis(long elapsedMillis) {
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.medifit.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 예약 구간 일괄 충돌 검사 요청/결과 DTO
+ */
+public class ConflictCheckDto {
+
+    private Long hospitalId;
+    private Long doctorId;
+    private List<Candidate> candidates = new ArrayList<>();
+
+    public ConflictCheckDto() {}
+
+    // Getters and Setters
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+
+    public void setHospitalId(Long hospitalId) {
+        this.hospitalId = hospitalId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public List<Candidate> getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(List<Candidate> candidates) {
+        this.candidates = candidates;
+    }
+
+    /**
+     * 검사할 후보 구간 (doctorId를 생략하면 요청의 doctorId, 그것도 없으면 병원 전체 기준)
+     */
+    public static class Candidate {
+
+        private LocalDateTime appointmentDate;
+        private Integer duration;
+        private Long doctorId;
+        private Long excludeAppointmentId;
+
+        public Candidate() {}
+
+        public LocalDateTime getAppointmentDate() {
+            return appointmentDate;
+        }
+
+        public void setAppointmentDate(LocalDateTime appointmentDate) {
+            this.appointmentDate = appointmentDate;
+        }
+
+        public Integer getDuration() {
+            return duration;
+        }
+
+        public void setDuration(Integer duration) {
+            this.duration = duration;
+        }
+
+        public Long getDoctorId() {
+            return doctorId;
+        }
+
+        public void setDoctorId(Long doctorId) {
+            this.doctorId = doctorId;
+        }
+
+        public Long getExcludeAppointmentId() {
+            return excludeAppointmentId;
+        }
+
+        public void setExcludeAppointmentId(Long excludeAppointmentId) {
+            this.excludeAppointmentId = excludeAppointmentId;
+        }
+    }
+
+    /**
+     * 후보 구간별 검사 결과 (index는 요청 순서)
+     */
+    public static class Result {
+
+        private int index;
+        private LocalDateTime appointmentDate;
+        private boolean conflict;
+        private List<Long> conflictingAppointmentIds;
+
+        public Result() {}
+
+        public Result(int index, LocalDateTime appointmentDate, List<Long> conflictingAppointmentIds) {
+            this.index = index;
+            this.appointmentDate = appointmentDate;
+            this.conflict = !conflictingAppointmentIds.isEmpty();
+            this.conflictingAppointmentIds = conflictingAppointmentIds;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public LocalDateTime getAppointmentDate() {
+            return appointmentDate;
+        }
+
+        public void setAppointmentDate(LocalDateTime appointmentDate) {
+            this.appointmentDate = appointmentDate;
+        }
+
+        public boolean isConflict() {
+            return conflict;
+        }
+
+        public void setConflict(boolean conflict) {
+            this.conflict = conflict;
+        }
+
+        public List<Long> getConflictingAppointmentIds() {
+            return conflictingAppointmentIds;
+        }
+
+        public void setConflictingAppointmentIds(List<Long> conflictingAppointmentIds) {
+            this.conflictingAppointmentIds = conflictingAppointmentIds;
+        }
+    }
+}
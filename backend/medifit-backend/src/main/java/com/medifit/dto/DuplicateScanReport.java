@@ -0,0 +1,97 @@
+package com.medifit.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 중복 의료기록 스캔 결과
+ */
+public class DuplicateScanReport {
+
+    private LocalDateTime startedAt;
+    private long elapsedMillis;
+    private int chunks;
+    private int patientsScanned;
+    private int recordsScanned;
+    private int candidateGroups;
+    private int duplicateRecords;
+    private int staleRemoved;
+
+    public DuplicateScanReport() {}
+
+    public DuplicateScanReport(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public void addChunk(int patients, int records, int groups, int duplicates) {
+        chunks++;
+        patientsScanned += patients;
+        recordsScanned += records;
+        candidateGroups += groups;
+        duplicateRecords += duplicates;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    public int getPatientsScanned() {
+        return patientsScanned;
+    }
+
+    public void setPatientsScanned(int patientsScanned) {
+        this.patientsScanned = patientsScanned;
+    }
+
+    public int getRecordsScanned() {
+        return recordsScanned;
+    }
+
+    public void setRecordsScanned(int recordsScanned) {
+        this.recordsScanned = recordsScanned;
+    }
+
+    public int getCandidateGroups() {
+        return candidateGroups;
+    }
+
+    public void setCandidateGroups(int candidateGroups) {
+        this.candidateGroups = candidateGroups;
+    }
+
+    public int getDuplicateRecords() {
+        return duplicateRecords;
+    }
+
+    public void setDuplicateRecords(int duplicateRecords) {
+        this.duplicateRecords = duplicateRecords;
+    }
+
+    public int getStaleRemoved() {
+        return staleRemoved;
+    }
+
+    public void setStaleRemoved(int staleRemoved) {
+        this.staleRemoved = staleRemoved;
+    }
+}
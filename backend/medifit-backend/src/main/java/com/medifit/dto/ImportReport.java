@@ -0,0 +1,139 @@
+package com.medifit.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 예약 일괄 등록 결과 (줄 단위 오류 포함)
+ */
+public class ImportReport {
+
+    private boolean dryRun;
+    private int totalLines;
+    private int imported;
+    private int failed;
+    private long elapsedMillis;
+    private boolean errorsTruncated;
+    private List<LineError> errors = new ArrayList<>();
+    // 검증하지 않은 항목 등 줄과 무관한 안내
+    private List<String> notices = new ArrayList<>();
+
+    public ImportReport() {}
+
+    public ImportReport(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    // 오류 목록은 maxErrors개까지만 담고 건수는 모두 센다
+    public void addError(LineError error, int maxErrors) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(error);
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public void addNotice(String notice) {
+        if (!notices.contains(notice)) {
+            notices.add(notice);
+        }
+    }
+
+    // Getters and Setters
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public int getTotalLines() {
+        return totalLines;
+    }
+
+    public void setTotalLines(int totalLines) {
+        this.totalLines = totalLines;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<LineError> errors) {
+        this.errors = errors;
+    }
+
+    public List<String> getNotices() {
+        return notices;
+    }
+
+    public void setNotices(List<String> notices) {
+        this.notices = notices;
+    }
+
+    /**
+     * 입력 줄 번호(1부터, CSV 헤더 포함)와 오류 메시지
+     */
+    public static class LineError {
+
+        private int line;
+        private List<String> messages;
+
+        public LineError() {}
+
+        public LineError(int line, List<String> messages) {
+            this.line = line;
+            this.messages = messages;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public void setLine(int line) {
+            this.line = line;
+        }
+
+        public List<String> getMessages() {
+            return messages;
+        }
+
+        public void setMessages(List<String> messages) {
+            this.messages = messages;
+        }
+    }
+}
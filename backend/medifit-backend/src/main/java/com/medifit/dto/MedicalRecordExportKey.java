@@ -0,0 +1,39 @@
+package com.medifit.dto;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * 의료기록 내보내기 정렬 키 (환자, 진료일시, id) - 보관 세그먼트의 정렬 순서와 같다.
+ * 중단된 내보내기는 마지막으로 받은 행의 키를 넘겨 그 다음부터 이어받는다.
+ */
+public record MedicalRecordExportKey(Long patientId, LocalDateTime visitDate, Long id)
+        implements Comparable<MedicalRecordExportKey> {
+
+    private static final Comparator<MedicalRecordExportKey> ORDER = Comparator
+            .comparing(MedicalRecordExportKey::patientId)
+            .thenComparing(MedicalRecordExportKey::visitDate)
+            .thenComparing(MedicalRecordExportKey::id);
+
+    /**
+     * 요청 파라미터의 이어받기 키. 셋 다 없으면 null (처음부터), 일부만 있으면 IllegalArgumentException.
+     */
+    public static MedicalRecordExportKey of(Long patientId, LocalDateTime visitDate, Long id) {
+        if (patientId == null && visitDate == null && id == null) {
+            return null;
+        }
+        if (patientId == null || visitDate == null || id == null) {
+            throw new IllegalArgumentException("이어받기에는 afterPatientId, afterVisitDate, afterId가 모두 필요합니다.");
+        }
+        return new MedicalRecordExportKey(patientId, visitDate, id);
+    }
+
+    public static MedicalRecordExportKey of(ArchivedMedicalRecord record) {
+        return new MedicalRecordExportKey(record.patientId(), record.visitDate(), record.id());
+    }
+
+    @Override
+    public int compareTo(MedicalRecordExportKey other) {
+        return ORDER.compare(this, other);
+    }
+}
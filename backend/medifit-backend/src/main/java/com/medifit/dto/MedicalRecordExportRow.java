@@ -0,0 +1,37 @@
+package com.medifit.dto;
+
+import com.medifit.enums.RecordStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 의료기록 내보내기용 행 (엔티티를 영속성 컨텍스트에 올리지 않도록 생성자 표현식으로 조회)
+ */
+public record MedicalRecordExportRow(Long id,
+                                     LocalDateTime visitDate,
+                                     Long patientId,
+                                     String patientName,
+                                     String patientNumber,
+                                     String department,
+                                     Long doctorId,
+                                     String doctorName,
+                                     String diagnosis,
+                                     String symptoms,
+                                     String treatment,
+                                     Integer medicalFee,
+                                     String roomNumber,
+                                     RecordStatus status) {
+
+    // 증상이 기록 테이블과 압축 상세 중 한쪽에 있는 조회용
+    public MedicalRecordExportRow(Long id, LocalDateTime visitDate, Long patientId, String patientName,
+                                  String patientNumber, String department, Long doctorId, String doctorName,
+                                  String diagnosis, String symptoms, String detailSymptoms, String treatment,
+                                  Integer medicalFee, String roomNumber, RecordStatus status) {
+        this(id, visitDate, patientId, patientName, patientNumber, department, doctorId, doctorName, diagnosis,
+                detailSymptoms != null ? detailSymptoms : symptoms, treatment, medicalFee, roomNumber, status);
+    }
+
+    public MedicalRecordExportKey key() {
+        return new MedicalRecordExportKey(patientId, visitDate, id);
+    }
+}
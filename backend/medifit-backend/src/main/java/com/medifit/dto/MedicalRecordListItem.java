@@ -0,0 +1,36 @@
+package com.medifit.dto;
+
+import com.medifit.enums.RecordStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 의료기록 목록용 경량 프로젝션 (서술형 본문 제외 - 압축 상세를 읽지 않는다)
+ * 증상, 의사 메모, AI 요약은 단건 조회(GET /api/medical-records/{id})로 받는다.
+ */
+public interface MedicalRecordListItem {
+
+    Long getId();
+
+    LocalDateTime getVisitDate();
+
+    String getDepartment();
+
+    String getDiagnosis();
+
+    String getTreatment();
+
+    RecordStatus getStatus();
+
+    Integer getMedicalFee();
+
+    String getRoomNumber();
+
+    Long getPatientId();
+
+    String getPatientName();
+
+    Long getDoctorId();
+
+    String getDoctorName();
+}
@@ -0,0 +1,76 @@
+package com.medifit.dto;
+
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.enums.AppointmentType;
+import com.medifit.enums.MedicationStatus;
+import com.medifit.enums.PrescriptionStatus;
+import com.medifit.enums.RecordStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 환자 타임라인 항목 - 진료기록/예약/처방전/복약을 한 형태로 담는다.
+ * 출처별 생성자는 JPQL 생성자 표현식용이다 (연관 엔티티를 조인으로 한 번에 읽는다).
+ */
+public record PatientTimelineItem(Type type,
+                                  Long id,
+                                  LocalDateTime occurredAt,
+                                  String title,
+                                  String department,
+                                  String status,
+                                  String statusLabel,
+                                  String providerName,
+                                  String detail,
+                                  Integer medicalFee,
+                                  String aiSummary) {
+
+    /**
+     * 항목 종류. 같은 시각의 항목은 이 순서로 나열한다.
+     */
+    public enum Type {
+        MEDICAL_RECORD, APPOINTMENT, PRESCRIPTION, MEDICATION
+    }
+
+    // 진료기록
+    public PatientTimelineItem(Long id, LocalDateTime visitDate, String department, String diagnosis, String treatment,
+                               RecordStatus status, String doctorName, Integer medicalFee, String aiSummary) {
+        this(Type.MEDICAL_RECORD, id, visitDate, diagnosis, department, name(status),
+                status != null ? status.getDescription() : null,
+                doctorName, treatment, medicalFee, aiSummary != null && !aiSummary.isBlank() ? aiSummary : null);
+    }
+
+    // 진료기록 - AI 요약이 기록 테이블과 압축 상세 중 한쪽에 있는 조회용
+    public PatientTimelineItem(Long id, LocalDateTime visitDate, String department, String diagnosis, String treatment,
+                               RecordStatus status, String doctorName, Integer medicalFee, String aiSummary,
+                               String detailAiSummary) {
+        this(id, visitDate, department, diagnosis, treatment, status, doctorName, medicalFee,
+                detailAiSummary != null ? detailAiSummary : aiSummary);
+    }
+
+    // 예약
+    public PatientTimelineItem(Long id, LocalDateTime appointmentDate, String department, AppointmentType appointmentType,
+                               AppointmentStatus status, String hospitalName, String roomNumber) {
+        this(Type.APPOINTMENT, id, appointmentDate, appointmentType != null ? appointmentType.getDescription() : null,
+                department, name(status), status != null ? status.getDescription() : null, hospitalName, roomNumber, null, null);
+    }
+
+    // 처방전
+    public PatientTimelineItem(Long id, LocalDateTime prescribedDate, String prescriptionNumber,
+                               PrescriptionStatus status, String doctorName, String instructions) {
+        this(Type.PRESCRIPTION, id, prescribedDate, prescriptionNumber, null, name(status),
+                status != null ? status.getDescription() : null,
+                doctorName, instructions, null, null);
+    }
+
+    // 복약 (시작일 0시 기준)
+    public PatientTimelineItem(Long id, LocalDate startDate, String medicationName, String dosage,
+                               MedicationStatus status) {
+        this(Type.MEDICATION, id, startDate.atStartOfDay(), medicationName, null, name(status),
+                status != null ? status.getDescription() : null, null, dosage, null, null);
+    }
+
+    private static String name(Enum<?> status) {
+        return status != null ? status.name() : null;
+    }
+}
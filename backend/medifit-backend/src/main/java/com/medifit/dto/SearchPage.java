@@ -0,0 +1,70 @@
+package com.medifit.dto;
+
+import java.util.List;
+
+/**
+ * 검색 결과 페이지 (관련도순)
+ */
+public class SearchPage<T> {
+
+    private List<T> items;
+    private int total;
+    private int page;
+    private int size;
+    private long tookMillis;
+
+    public SearchPage() {}
+
+    public SearchPage(List<T> items, int total, int page, int size, long tookMillis) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.tookMillis = tookMillis;
+    }
+
+    public static <T> SearchPage<T> empty(int page, int size) {
+        return new SearchPage<>(List.of(), 0, page, size, 0L);
+    }
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getTookMillis() {
+        return tookMillis;
+    }
+
+    public void setTookMillis(long tookMillis) {
+        this.tookMillis = tookMillis;
+    }
+}
@@ -0,0 +1,78 @@
+package com.medifit.dto;
+
+import com.medifit.enums.WaitlistUrgency;
+
+import java.time.LocalDateTime;
+
+/**
+ * 예약 대기 신청 DTO
+ */
+public class WaitlistRequestDto {
+
+    private Long patientId;
+    private Long hospitalId;
+    private String department;
+    private WaitlistUrgency urgency;
+    private LocalDateTime earliestDate;
+    private LocalDateTime latestDate;
+    private Integer estimatedDuration;
+
+    public WaitlistRequestDto() {}
+
+    // Getters and Setters
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+
+    public void setHospitalId(Long hospitalId) {
+        this.hospitalId = hospitalId;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    public WaitlistUrgency getUrgency() {
+        return urgency;
+    }
+
+    public void setUrgency(WaitlistUrgency urgency) {
+        this.urgency = urgency;
+    }
+
+    public LocalDateTime getEarliestDate() {
+        return earliestDate;
+    }
+
+    public void setEarliestDate(LocalDateTime earliestDate) {
+        this.earliestDate = earliestDate;
+    }
+
+    public LocalDateTime getLatestDate() {
+        return latestDate;
+    }
+
+    public void setLatestDate(LocalDateTime latestDate) {
+        this.latestDate = latestDate;
+    }
+
+    public Integer getEstimatedDuration() {
+        return estimatedDuration;
+    }
+
+    public void setEstimatedDuration(Integer estimatedDuration) {
+        this.estimatedDuration = estimatedDuration;
+    }
+}
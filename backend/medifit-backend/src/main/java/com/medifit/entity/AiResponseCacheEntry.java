@@ -0,0 +1,67 @@
+package com.medifit.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * AI 응답 캐시 (영속 계층)
+ *
+ * 키는 작업 종류, 프롬프트 버전, 모델, 정규화한 입력의 SHA-256 해시이다. 만료된 행은 정리 작업이 지운다.
+ */
+@Entity
+@Table(name = "ai_response_cache", indexes = {
+        @Index(name = "idx_ai_cache_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_ai_cache_created_at", columnList = "created_at")
+})
+public class AiResponseCacheEntry {
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(nullable = false, length = 50)
+    private String operation; // summarize-record, explain-prescription, ...
+
+    @Column(name = "prompt_version", nullable = false, length = 20)
+    private String promptVersion;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // 기본 생성자
+    public AiResponseCacheEntry() {}
+
+    public AiResponseCacheEntry(String cacheKey, String operation, String promptVersion, String response,
+                                LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.cacheKey = cacheKey;
+        this.operation = operation;
+        this.promptVersion = promptVersion;
+        this.response = response;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+
+    public String getOperation() { return operation; }
+    public void setOperation(String operation) { this.operation = operation; }
+
+    public String getPromptVersion() { return promptVersion; }
+    public void setPromptVersion(String promptVersion) { this.promptVersion = promptVersion; }
+
+    public String getResponse() { return response; }
+    public void setResponse(String response) { this.response = response; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
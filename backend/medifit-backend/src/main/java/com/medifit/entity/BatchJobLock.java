@@ -0,0 +1,40 @@
+package com.medifit.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 배치 작업 잠금 행
+ *
+ * 여러 인스턴스에서 같은 작업이 겹쳐 돌지 않도록, 작업 동안 이 행을 SELECT ... FOR UPDATE로 잡고 있는다.
+ * 잠금은 트랜잭션에 묶여 있어 인스턴스가 죽으면 연결이 끊기면서 풀린다.
+ */
+@Entity
+@Table(name = "batch_job_locks")
+public class BatchJobLock {
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    private LocalDateTime lastStartedAt; // 마지막으로 잠금을 잡은 시각 (작업이 끝나 커밋된 뒤에 보인다)
+
+    @Column(length = 200)
+    private String lastOwner;
+
+    // 기본 생성자
+    public BatchJobLock() {}
+
+    public BatchJobLock(String jobName) {
+        this.jobName = jobName;
+    }
+
+    // Getters and Setters
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+
+    public LocalDateTime getLastStartedAt() { return lastStartedAt; }
+    public void setLastStartedAt(LocalDateTime lastStartedAt) { this.lastStartedAt = lastStartedAt; }
+
+    public String getLastOwner() { return lastOwner; }
+    public void setLastOwner(String lastOwner) { this.lastOwner = lastOwner; }
+}
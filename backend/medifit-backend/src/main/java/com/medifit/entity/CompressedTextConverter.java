@@ -0,0 +1,110 @@
+package com.medifit.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 긴 텍스트를 Deflate로 압축해 바이트 컬럼에 저장한다.
+ *
+ * 형식은 [코덱 1바이트][원문 UTF-8 길이 4바이트][본문]이다. 짧거나 압축해도 줄지 않는 텍스트는 원문 그대로 둔다.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    static final byte STORED = 0;
+    static final byte DEFLATE = 1;
+
+    private static final int HEADER_BYTES = 5;
+
+    // 이보다 짧으면 압축하지 않는다 (zlib 헤더와 허프만 테이블 때문에 오히려 커진다)
+    static final int MIN_COMPRESS_BYTES = 128;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= MIN_COMPRESS_BYTES) {
+            byte[] compressed = deflate(raw);
+            if (compressed.length < raw.length) {
+                return encode(DEFLATE, raw.length, compressed, compressed.length);
+            }
+        }
+        return encode(STORED, raw.length, raw, raw.length);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length < HEADER_BYTES) {
+            throw new IllegalStateException("압축 텍스트 형식이 올바르지 않습니다.");
+        }
+        ByteBuffer header = ByteBuffer.wrap(stored, 0, HEADER_BYTES);
+        byte codec = header.get();
+        int rawLength = header.getInt();
+        return switch (codec) {
+            case STORED -> new String(stored, HEADER_BYTES, rawLength, StandardCharsets.UTF_8);
+            case DEFLATE -> new String(inflate(stored, rawLength), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("알 수 없는 압축 코덱입니다: " + codec);
+        };
+    }
+
+    private static byte[] encode(byte codec, int rawLength, byte[] body, int bodyLength) {
+        return ByteBuffer.allocate(HEADER_BYTES + bodyLength)
+                .put(codec)
+                .putInt(rawLength)
+                .put(body, 0, bodyLength)
+                .array();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            // 원문보다 커지면 어차피 쓰지 않는다
+            byte[] buffer = new byte[raw.length];
+            int length = 0;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return deflater.finished() ? Arrays.copyOf(buffer, length) : raw;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, HEADER_BYTES, stored.length - HEADER_BYTES);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, rawLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != rawLength) {
+                throw new IllegalStateException("압축 텍스트가 손상되었습니다.");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("압축 텍스트가 손상되었습니다.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
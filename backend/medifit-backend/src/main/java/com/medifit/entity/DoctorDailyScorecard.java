@@ -0,0 +1,83 @@
+package com.medifit.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 의사별 일별 성과 집계 - 진료 건수, 완료 건수, 진료비 합계, 진료 환자 HyperLogLog
+ *
+ * 의료기록 저장/삭제와 같은 트랜잭션에서 갱신한다. 완료율은 completedCount / recordCount,
+ * 재방문율은 recordCount / 고유 환자 수(스케치 합집합)로 임의 기간에 대해 일별 행을 합산해 계산한다.
+ * 같은 (의사, 진료일) 행이 동시에 생성되어 둘 이상일 수 있으므로 읽는 쪽은 합산하고, 재계산 때 하나로 합쳐진다.
+ */
+@Entity
+@Table(name = "doctor_daily_scorecards", indexes = {
+        @Index(name = "idx_doctor_scorecard_doctor_date", columnList = "doctor_id, visit_date")
+})
+public class DoctorDailyScorecard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "visit_date", nullable = false)
+    private LocalDate visitDate;
+
+    @Column(nullable = false)
+    private Long recordCount = 0L;
+
+    @Column(nullable = false)
+    private Long completedCount = 0L; // 완료(COMPLETED) 상태 기록 수
+
+    @Column(nullable = false)
+    private Long feeTotal = 0L; // 진료비 합계 (원)
+
+    @Column(nullable = false)
+    private Long feeCount = 0L; // 진료비가 입력된 기록 수
+
+    @Column(length = 2048)
+    private byte[] patientSketch; // 진료 환자 HyperLogLog 레지스터
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // 기본 생성자
+    public DoctorDailyScorecard() {}
+
+    public DoctorDailyScorecard(Long doctorId, LocalDate visitDate, LocalDateTime updatedAt) {
+        this.doctorId = doctorId;
+        this.visitDate = visitDate;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+    public LocalDate getVisitDate() { return visitDate; }
+    public void setVisitDate(LocalDate visitDate) { this.visitDate = visitDate; }
+
+    public Long getRecordCount() { return recordCount; }
+    public void setRecordCount(Long recordCount) { this.recordCount = recordCount; }
+
+    public Long getCompletedCount() { return completedCount; }
+    public void setCompletedCount(Long completedCount) { this.completedCount = completedCount; }
+
+    public Long getFeeTotal() { return feeTotal; }
+    public void setFeeTotal(Long feeTotal) { this.feeTotal = feeTotal; }
+
+    public Long getFeeCount() { return feeCount; }
+    public void setFeeCount(Long feeCount) { this.feeCount = feeCount; }
+
+    public byte[] getPatientSketch() { return patientSketch; }
+    public void setPatientSketch(byte[] patientSketch) { this.patientSketch = patientSketch; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
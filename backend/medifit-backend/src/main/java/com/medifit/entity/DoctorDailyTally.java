@@ -0,0 +1,75 @@
+package com.medifit.entity;
+
+import com.medifit.enums.ScorecardDimension;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 의사별 일별 진료과/진단명 건수 (성과 집계의 분포 항목)
+ *
+ * DoctorDailyScorecard와 같은 트랜잭션에서 갱신한다. 건수가 0이 되어도 행은 재계산 때까지 남는다.
+ */
+@Entity
+@Table(name = "doctor_daily_tallies", indexes = {
+        @Index(name = "idx_doctor_tally_doctor_date", columnList = "doctor_id, visit_date")
+})
+public class DoctorDailyTally {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "visit_date", nullable = false)
+    private LocalDate visitDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ScorecardDimension dimension;
+
+    @Column(nullable = false)
+    private String label; // 진료과 또는 진단명
+
+    @Column(nullable = false)
+    private Long recordCount = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // 기본 생성자
+    public DoctorDailyTally() {}
+
+    public DoctorDailyTally(Long doctorId, LocalDate visitDate, ScorecardDimension dimension, String label,
+                            long recordCount, LocalDateTime updatedAt) {
+        this.doctorId = doctorId;
+        this.visitDate = visitDate;
+        this.dimension = dimension;
+        this.label = label;
+        this.recordCount = recordCount;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+    public LocalDate getVisitDate() { return visitDate; }
+    public void setVisitDate(LocalDate visitDate) { this.visitDate = visitDate; }
+
+    public ScorecardDimension getDimension() { return dimension; }
+    public void setDimension(ScorecardDimension dimension) { this.dimension = dimension; }
+
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+
+    public Long getRecordCount() { return recordCount; }
+    public void setRecordCount(Long recordCount) { this.recordCount = recordCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,87 @@
+package com.medifit.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 중복 의심 의료기록 묶음 - 같은 환자, 같은 진료일, 같은 진료과, 같은 (정규화된) 진단명
+ */
+@Entity
+@Table(name = "duplicate_candidates", indexes = {
+        @Index(name = "idx_duplicate_candidate_patient", columnList = "patient_id"),
+        @Index(name = "idx_duplicate_candidate_detected", columnList = "detected_at")
+})
+public class DuplicateCandidate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(nullable = false)
+    private LocalDate visitDate;
+
+    @Column(nullable = false)
+    private String department;
+
+    @Column(nullable = false)
+    private String diagnosisKey; // 정규화된 진단명
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String recordIds; // 쉼표로 구분한 의료기록 ID (오름차순)
+
+    @Column(nullable = false)
+    private Integer recordCount;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+
+    // 기본 생성자
+    public DuplicateCandidate() {}
+
+    public DuplicateCandidate(Long patientId, LocalDate visitDate, String department, String diagnosisKey,
+                              List<Long> recordIds, LocalDateTime detectedAt) {
+        this.patientId = patientId;
+        this.visitDate = visitDate;
+        this.department = department;
+        this.diagnosisKey = diagnosisKey;
+        this.recordIds = String.join(",", recordIds.stream().sorted().map(String::valueOf).toList());
+        this.recordCount = recordIds.size();
+        this.detectedAt = detectedAt;
+    }
+
+    @JsonIgnore
+    public List<Long> getRecordIdList() {
+        return Arrays.stream(recordIds.split(",")).map(Long::valueOf).toList();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public LocalDate getVisitDate() { return visitDate; }
+    public void setVisitDate(LocalDate visitDate) { this.visitDate = visitDate; }
+
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    public String getDiagnosisKey() { return diagnosisKey; }
+    public void setDiagnosisKey(String diagnosisKey) { this.diagnosisKey = diagnosisKey; }
+
+    public String getRecordIds() { return recordIds; }
+    public void setRecordIds(String recordIds) { this.recordIds = recordIds; }
+
+    public Integer getRecordCount() { return recordCount; }
+    public void setRecordCount(Integer recordCount) { this.recordCount = recordCount; }
+
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+    public void setDetectedAt(LocalDateTime detectedAt) { this.detectedAt = detectedAt; }
+}
@@ -1,11 +1,18 @@
 package com.medifit.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.medifit.enums.RecordStatus;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "medical_records")
+// 파티션 테이블(PostgreSQL)에서는 db/postgresql/medical_records_partitioning.sql이 같은 이름으로 만든다
+@Table(name = "medical_records", indexes = {
+        @Index(name = "idx_medical_record_patient_visit", columnList = "patient_id, visit_date"),
+        @Index(name = "idx_medical_record_doctor_visit", columnList = "doctor_id, visit_date"),
+        @Index(name = "idx_medical_record_visit", columnList = "visit_date")
+})
 public class MedicalRecord {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,6 +29,7 @@ public class MedicalRecord {
     @Column(nullable = false)
     private String department; // 진료과목 (내과, 외과 등)
 
+    // 증상, 의사 메모, AI 요약은 저장 방식(TextStorageMode)에 따라 이 테이블 또는 detail에 있다 (한쪽만 값이 있다)
     @Column(columnDefinition = "TEXT")
     private String symptoms; // 증상
 
@@ -58,6 +66,15 @@ public class MedicalRecord {
     @JoinColumn(name = "appointment_id")
     private Appointment appointment;
 
+    @JsonIgnore
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "detail_id", unique = true)
+    private MedicalRecordDetail detail; // 압축 저장한 서술형 필드
+
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Boolean archived; // 보관 세그먼트에서 읽은 기록이면 true (읽기 전용)
+
     // 기본 생성자
     public MedicalRecord() {}
 
@@ -80,6 +97,55 @@ public class MedicalRecord {
         this.updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * 서술형 필드를 압축 상세 테이블로 옮긴다. 옮길 내용이 없으면 상세 행을 만들지 않는다.
+     *
+     * @return 옮겼으면 true
+     */
+    public boolean moveTextToDetail() {
+        if (detail != null || (symptoms == null && doctorNotes == null && aiSummary == null)) {
+            return false;
+        }
+        detail = new MedicalRecordDetail(symptoms, doctorNotes, aiSummary);
+        symptoms = null;
+        doctorNotes = null;
+        aiSummary = null;
+        return true;
+    }
+
+    /**
+     * 요청 본문으로 만든 기록(상세 없음)을 저장할 때 기존 상세 행에 서술형 필드를 옮겨 적는다.
+     * 상세를 비워 둔 채 저장하면 orphanRemoval로 기존 상세 행이 지워지고 새로 만들어진다.
+     */
+    public void reuseDetail(MedicalRecordDetail existing) {
+        if (detail != null || existing == null) {
+            return;
+        }
+        existing.setSymptoms(symptoms);
+        existing.setDoctorNotes(doctorNotes);
+        existing.setAiSummary(aiSummary);
+        detail = existing;
+        symptoms = null;
+        doctorNotes = null;
+        aiSummary = null;
+    }
+
+    /**
+     * 서술형 필드를 기록 테이블로 되돌린다 (상세 행은 orphanRemoval로 지워진다).
+     *
+     * @return 옮겼으면 true
+     */
+    public boolean moveTextInline() {
+        if (detail == null) {
+            return false;
+        }
+        symptoms = detail.getSymptoms();
+        doctorNotes = detail.getDoctorNotes();
+        aiSummary = detail.getAiSummary();
+        detail = null;
+        return true;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -93,8 +159,10 @@ public class MedicalRecord {
     public String getDepartment() { return department; }
     public void setDepartment(String department) { this.department = department; }
 
-    public String getSymptoms() { return symptoms; }
-    public void setSymptoms(String symptoms) { this.symptoms = symptoms; }
+    public String getSymptoms() { return detail != null ? detail.getSymptoms() : symptoms; }
+    public void setSymptoms(String symptoms) {
+        if (detail != null) detail.setSymptoms(symptoms); else this.symptoms = symptoms;
+    }
 
     public String getDiagnosis() { return diagnosis; }
     public void setDiagnosis(String diagnosis) { this.diagnosis = diagnosis; }
@@ -102,11 +170,15 @@ public class MedicalRecord {
     public String getTreatment() { return treatment; }
     public void setTreatment(String treatment) { this.treatment = treatment; }
 
-    public String getDoctorNotes() { return doctorNotes; }
-    public void setDoctorNotes(String doctorNotes) { this.doctorNotes = doctorNotes; }
+    public String getDoctorNotes() { return detail != null ? detail.getDoctorNotes() : doctorNotes; }
+    public void setDoctorNotes(String doctorNotes) {
+        if (detail != null) detail.setDoctorNotes(doctorNotes); else this.doctorNotes = doctorNotes;
+    }
 
-    public String getAiSummary() { return aiSummary; }
-    public void setAiSummary(String aiSummary) { this.aiSummary = aiSummary; }
+    public String getAiSummary() { return detail != null ? detail.getAiSummary() : aiSummary; }
+    public void setAiSummary(String aiSummary) {
+        if (detail != null) detail.setAiSummary(aiSummary); else this.aiSummary = aiSummary;
+    }
 
     public RecordStatus getStatus() { return status; }
     public void setStatus(RecordStatus status) { this.status = status; }
@@ -129,6 +201,12 @@ public class MedicalRecord {
     public Appointment getAppointment() { return appointment; }
     public void setAppointment(Appointment appointment) { this.appointment = appointment; }
 
+    public MedicalRecordDetail getDetail() { return detail; }
+    public void setDetail(MedicalRecordDetail detail) { this.detail = detail; }
+
+    public Boolean getArchived() { return archived; }
+    public void setArchived(Boolean archived) { this.archived = archived; }
+
     @Override
     public String toString() {
         return "MedicalRecord{" +
@@ -0,0 +1,74 @@
+package com.medifit.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 의료기록 보관 세그먼트 목록
+ *
+ * 세그먼트 파일은 한 달치 기록을 담고 한 번 쓰면 바뀌지 않는다. 기록 테이블에서 지우는 트랜잭션에서 이 행을 추가하므로,
+ * 행이 있는 파일만 조회 대상이다 (커밋 전에 실패해 남은 파일은 유예 시간이 지난 뒤 보관 작업이 지운다).
+ */
+@Entity
+@Table(name = "medical_record_archive_segments", indexes = {
+        @Index(name = "idx_archive_segment_month", columnList = "month_start")
+})
+public class MedicalRecordArchiveSegment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart; // 담은 진료월의 1일
+
+    @Column(name = "file_name", nullable = false, unique = true, length = 100)
+    private String fileName;
+
+    @Column(nullable = false)
+    private int recordCount;
+
+    @Column(nullable = false)
+    private long rawBytes; // 압축 전 블록 크기 합
+
+    @Column(nullable = false)
+    private long fileBytes;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // 기본 생성자
+    public MedicalRecordArchiveSegment() {}
+
+    public MedicalRecordArchiveSegment(LocalDate monthStart, String fileName, int recordCount, long rawBytes,
+                                       long fileBytes, LocalDateTime createdAt) {
+        this.monthStart = monthStart;
+        this.fileName = fileName;
+        this.recordCount = recordCount;
+        this.rawBytes = rawBytes;
+        this.fileBytes = fileBytes;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getMonthStart() { return monthStart; }
+    public void setMonthStart(LocalDate monthStart) { this.monthStart = monthStart; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public int getRecordCount() { return recordCount; }
+    public void setRecordCount(int recordCount) { this.recordCount = recordCount; }
+
+    public long getRawBytes() { return rawBytes; }
+    public void setRawBytes(long rawBytes) { this.rawBytes = rawBytes; }
+
+    public long getFileBytes() { return fileBytes; }
+    public void setFileBytes(long fileBytes) { this.fileBytes = fileBytes; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
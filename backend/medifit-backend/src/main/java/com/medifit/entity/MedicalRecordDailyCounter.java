@@ -0,0 +1,68 @@
+package com.medifit.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 병원별 일별 의료기록 카운터 - 진료 건수와 방문 환자 HyperLogLog 스케치
+ *
+ * 의료기록 저장/삭제와 같은 트랜잭션에서 갱신한다.
+ * 같은 (병원, 진료일) 행이 동시에 생성되어 둘 이상일 수 있으므로 읽는 쪽은 합산하고, 재계산 때 하나로 합쳐진다.
+ */
+@Entity
+@Table(name = "medical_record_daily_counters", indexes = {
+        @Index(name = "idx_record_counter_hospital_date", columnList = "hospital_id, visit_date"),
+        @Index(name = "idx_record_counter_visit_date", columnList = "visit_date")
+})
+public class MedicalRecordDailyCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hospital_id", nullable = false)
+    private Long hospitalId; // 담당 병원(의사) 사용자 ID
+
+    @Column(name = "visit_date", nullable = false)
+    private LocalDate visitDate;
+
+    @Column(nullable = false)
+    private Long recordCount = 0L;
+
+    @Column(length = 2048)
+    private byte[] patientSketch; // 방문 환자 HyperLogLog 레지스터
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // 기본 생성자
+    public MedicalRecordDailyCounter() {}
+
+    public MedicalRecordDailyCounter(Long hospitalId, LocalDate visitDate, long recordCount, byte[] patientSketch,
+                                     LocalDateTime updatedAt) {
+        this.hospitalId = hospitalId;
+        this.visitDate = visitDate;
+        this.recordCount = recordCount;
+        this.patientSketch = patientSketch;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getHospitalId() { return hospitalId; }
+    public void setHospitalId(Long hospitalId) { this.hospitalId = hospitalId; }
+
+    public LocalDate getVisitDate() { return visitDate; }
+    public void setVisitDate(LocalDate visitDate) { this.visitDate = visitDate; }
+
+    public Long getRecordCount() { return recordCount; }
+    public void setRecordCount(Long recordCount) { this.recordCount = recordCount; }
+
+    public byte[] getPatientSketch() { return patientSketch; }
+    public void setPatientSketch(byte[] patientSketch) { this.patientSketch = patientSketch; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
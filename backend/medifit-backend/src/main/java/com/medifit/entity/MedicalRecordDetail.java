@@ -0,0 +1,57 @@
+package com.medifit.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+
+/**
+ * 의료기록의 긴 서술형 필드 (증상, 의사 메모, AI 요약) - 압축 저장
+ *
+ * MedicalRecord가 지연 로딩으로 참조하므로 목록/통계 조회는 이 테이블을 읽지 않는다 (API 목록은 본문 없는 프로젝션).
+ * 단건 조회는 리포지토리에서 함께 읽고, 엔티티 목록에서 본문을 읽는 경로는 프록시를 batch-size 단위로 초기화한다.
+ */
+@Entity
+@Table(name = "medical_record_details")
+@BatchSize(size = 50)
+public class MedicalRecordDetail {
+
+    // 압축 후 필드 하나의 최대 크기
+    static final int MAX_STORED_BYTES = 1_000_000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(length = MAX_STORED_BYTES)
+    private String symptoms; // 증상
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(length = MAX_STORED_BYTES)
+    private String doctorNotes; // 의사 메모
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(length = MAX_STORED_BYTES)
+    private String aiSummary; // AI 요약
+
+    // 기본 생성자
+    public MedicalRecordDetail() {}
+
+    public MedicalRecordDetail(String symptoms, String doctorNotes, String aiSummary) {
+        this.symptoms = symptoms;
+        this.doctorNotes = doctorNotes;
+        this.aiSummary = aiSummary;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSymptoms() { return symptoms; }
+    public void setSymptoms(String symptoms) { this.symptoms = symptoms; }
+
+    public String getDoctorNotes() { return doctorNotes; }
+    public void setDoctorNotes(String doctorNotes) { this.doctorNotes = doctorNotes; }
+
+    public String getAiSummary() { return aiSummary; }
+    public void setAiSummary(String aiSummary) { this.aiSummary = aiSummary; }
+}
@@ -0,0 +1,68 @@
+package com.medifit.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 환자별 진단(정규화) 방문 횟수 - 만성 질환 환자 식별용
+ *
+ * 의료기록 저장/삭제와 같은 트랜잭션에서 갱신한다. 진단 키는 DiagnosisNormalizer 결과이고,
+ * diagnosis는 그 키로 마지막에 저장된 진단명 원문(화면 표시용)이다. 횟수가 0이 되면 행을 지운다.
+ */
+@Entity
+@Table(name = "patient_diagnosis_counts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_patient_diagnosis_count", columnNames = {"patient_id", "diagnosis_key"})
+}, indexes = {
+        @Index(name = "idx_patient_diagnosis_count_visits", columnList = "visit_count, patient_id")
+})
+public class PatientDiagnosisCount {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "diagnosis_key", nullable = false)
+    private String diagnosisKey;
+
+    @Column(nullable = false)
+    private String diagnosis;
+
+    @Column(name = "visit_count", nullable = false)
+    private Long visitCount = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // 기본 생성자
+    public PatientDiagnosisCount() {}
+
+    public PatientDiagnosisCount(Long patientId, String diagnosisKey, String diagnosis, long visitCount,
+                                 LocalDateTime updatedAt) {
+        this.patientId = patientId;
+        this.diagnosisKey = diagnosisKey;
+        this.diagnosis = diagnosis;
+        this.visitCount = visitCount;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public String getDiagnosisKey() { return diagnosisKey; }
+    public void setDiagnosisKey(String diagnosisKey) { this.diagnosisKey = diagnosisKey; }
+
+    public String getDiagnosis() { return diagnosis; }
+    public void setDiagnosis(String diagnosis) { this.diagnosis = diagnosis; }
+
+    public Long getVisitCount() { return visitCount; }
+    public void setVisitCount(Long visitCount) { this.visitCount = visitCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,72 @@
+package com.medifit.entity;
+
+import com.medifit.dto.PatientTimelineItem;
+import com.medifit.enums.SyncOperation;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 환자별 변경 로그 - 모바일 앱 증분 동기화용
+ *
+ * 엔티티 쓰기와 같은 트랜잭션에서 추가한다. id가 증가하는 순서가 동기화 순서이며,
+ * 같은 엔티티의 오래된 행과 보존 기간이 지난 행은 압축 작업이 지운다.
+ */
+@Entity
+@Table(name = "sync_changes", indexes = {
+        @Index(name = "idx_sync_change_patient_id", columnList = "patient_id, id"),
+        @Index(name = "idx_sync_change_patient_changed_at", columnList = "patient_id, changed_at"),
+        @Index(name = "idx_sync_change_entity", columnList = "entity_type, entity_id")
+})
+public class SyncChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private PatientTimelineItem.Type entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private SyncOperation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    // 기본 생성자
+    public SyncChange() {}
+
+    public SyncChange(Long patientId, PatientTimelineItem.Type entityType, Long entityId, SyncOperation operation,
+                      LocalDateTime changedAt) {
+        this.patientId = patientId;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.changedAt = changedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public PatientTimelineItem.Type getEntityType() { return entityType; }
+    public void setEntityType(PatientTimelineItem.Type entityType) { this.entityType = entityType; }
+
+    public Long getEntityId() { return entityId; }
+    public void setEntityId(Long entityId) { this.entityId = entityId; }
+
+    public SyncOperation getOperation() { return operation; }
+    public void setOperation(SyncOperation operation) { this.operation = operation; }
+
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
+}
@@ -0,0 +1,112 @@
+package com.medifit.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.medifit.enums.WaitlistStatus;
+import com.medifit.enums.WaitlistUrgency;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+        @Index(name = "idx_waitlist_queue", columnList = "hospital_id, department, status")
+})
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", nullable = false)
+    private Patient patient;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "hospital_id", nullable = false)
+    private User hospital;
+
+    @Column(nullable = false)
+    private String department; // 희망 진료과
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistUrgency urgency = WaitlistUrgency.NORMAL;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    // 희망 예약 기간 [earliestDate, latestDate]
+    @Column(nullable = false)
+    private LocalDateTime earliestDate;
+
+    @Column(nullable = false)
+    private LocalDateTime latestDate;
+
+    private Integer estimatedDuration; // 예상 진료 시간 (분)
+
+    private Integer missedOffers = 0; // 응답 없이 만료된 제안 수
+
+    private Long appointmentId; // 배정된 예약
+
+    @Column(nullable = false)
+    private LocalDateTime requestedAt = LocalDateTime.now();
+
+    private LocalDateTime updatedAt;
+
+    // 기본 생성자
+    public WaitlistEntry() {}
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // 희망 기간 안의 시각인지
+    public boolean accepts(LocalDateTime appointmentDate) {
+        return !appointmentDate.isBefore(earliestDate) && !appointmentDate.isAfter(latestDate);
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Patient getPatient() { return patient; }
+    public void setPatient(Patient patient) { this.patient = patient; }
+
+    public User getHospital() { return hospital; }
+    public void setHospital(User hospital) { this.hospital = hospital; }
+
+    public Long getPatientId() { return patient != null ? patient.getId() : null; }
+    public Long getHospitalId() { return hospital != null ? hospital.getId() : null; }
+
+    public String getDepartment() { return department; }
+    public void setDepartment(String department) { this.department = department; }
+
+    public WaitlistUrgency getUrgency() { return urgency; }
+    public void setUrgency(WaitlistUrgency urgency) { this.urgency = urgency; }
+
+    public WaitlistStatus getStatus() { return status; }
+    public void setStatus(WaitlistStatus status) { this.status = status; }
+
+    public LocalDateTime getEarliestDate() { return earliestDate; }
+    public void setEarliestDate(LocalDateTime earliestDate) { this.earliestDate = earliestDate; }
+
+    public LocalDateTime getLatestDate() { return latestDate; }
+    public void setLatestDate(LocalDateTime latestDate) { this.latestDate = latestDate; }
+
+    public Integer getEstimatedDuration() { return estimatedDuration; }
+    public void setEstimatedDuration(Integer estimatedDuration) { this.estimatedDuration = estimatedDuration; }
+
+    public Integer getMissedOffers() { return missedOffers; }
+    public void setMissedOffers(Integer missedOffers) { this.missedOffers = missedOffers; }
+
+    public Long getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+
+    public LocalDateTime getRequestedAt() { return requestedAt; }
+    public void setRequestedAt(LocalDateTime requestedAt) { this.requestedAt = requestedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
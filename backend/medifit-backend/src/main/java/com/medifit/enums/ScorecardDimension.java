@@ -0,0 +1,16 @@
+package com.medifit.enums;
+
+public enum ScorecardDimension {
+    DEPARTMENT("진료과"),
+    DIAGNOSIS("진단명");
+
+    private final String description;
+
+    ScorecardDimension(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
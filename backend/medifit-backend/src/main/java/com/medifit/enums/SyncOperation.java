@@ -0,0 +1,16 @@
+package com.medifit.enums;
+
+public enum SyncOperation {
+    UPSERT("추가/수정"),
+    DELETE("삭제");
+
+    private final String description;
+
+    SyncOperation(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
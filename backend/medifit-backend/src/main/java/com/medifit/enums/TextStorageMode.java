@@ -0,0 +1,16 @@
+package com.medifit.enums;
+
+public enum TextStorageMode {
+    INLINE("기록 테이블에 그대로 저장"),
+    DETAIL("상세 테이블에 압축 저장");
+
+    private final String description;
+
+    TextStorageMode(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,19 @@
+package com.medifit.enums;
+
+public enum WaitlistStatus {
+    WAITING("대기 중"),
+    OFFERED("자리 제안됨"),
+    BOOKED("예약 완료"),
+    CANCELLED("취소됨"),
+    EXPIRED("만료됨");
+
+    private final String description;
+
+    WaitlistStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
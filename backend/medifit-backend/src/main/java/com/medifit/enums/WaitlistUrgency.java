@@ -0,0 +1,18 @@
+package com.medifit.enums;
+
+// 선언 순서가 대기열 우선순위 (앞쪽이 먼저 배정)
+public enum WaitlistUrgency {
+    URGENT("긴급"),
+    HIGH("높음"),
+    NORMAL("보통");
+
+    private final String description;
+
+    WaitlistUrgency(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,16 @@
+package com.medifit.event;
+
+import java.util.List;
+
+/**
+ * 예약 변경 이벤트 - 단건 변경과 배치 작업 모두 변경 목록 하나로 발행한다.
+ * before가 null이면 생성, after가 null이면 삭제.
+ */
+public record AppointmentChangedEvent(List<Change> changes) {
+
+    public record Change(AppointmentSnapshot before, AppointmentSnapshot after) {}
+
+    public static AppointmentChangedEvent of(AppointmentSnapshot before, AppointmentSnapshot after) {
+        return new AppointmentChangedEvent(List.of(new Change(before, after)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.medifit.event;
+
+import com.medifit.entity.Appointment;
+import com.medifit.enums.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 예약의 특정 시점 상태 (이벤트 전달용, 지연 로딩 없이 ID만 보관)
+ */
+public record AppointmentSnapshot(Long id,
+                                  Long patientId,
+                                  Long hospitalId,
+                                  Long doctorId,
+                                  String department,
+                                  LocalDateTime appointmentDate,
+                                  Integer estimatedDuration,
+                                  AppointmentStatus status,
+                                  LocalDateTime createdAt) {
+
+    public static AppointmentSnapshot of(Appointment appointment) {
+        if (appointment.getHospital() == null || appointment.getAppointmentDate() == null) {
+            return null;
+        }
+        return new AppointmentSnapshot(
+                appointment.getId(),
+                appointment.getPatient() != null ? appointment.getPatient().getId() : null,
+                appointment.getHospital().getId(),
+                appointment.getDoctor() != null ? appointment.getDoctor().getId() : null,
+                appointment.getDepartment(),
+                appointment.getAppointmentDate(),
+                appointment.getEstimatedDuration(),
+                appointment.getStatus(),
+                appointment.getCreatedAt());
+    }
+
+    public AppointmentSnapshot withStatus(AppointmentStatus newStatus) {
+        return new AppointmentSnapshot(id, patientId, hospitalId, doctorId, department,
+                appointmentDate, estimatedDuration, newStatus, createdAt);
+    }
+
+    // 취소되지 않은 예약만 시간 슬롯을 점유한다
+    public boolean occupiesSlot() {
+        return occupiesSlot(status);
+    }
+
+    public static boolean occupiesSlot(AppointmentStatus status) {
+        return status != AppointmentStatus.CANCELLED;
+    }
+}
@@ -0,0 +1,8 @@
+package com.medifit.event;
+
+/**
+ * 환자의 같은 진단 방문 횟수가 만성 기준을 넘었거나(chronic=true) 다시 기준 아래로 내려간(chronic=false) 이벤트.
+ * 의료기록 저장 트랜잭션 안에서 발행되므로 받는 쪽은 커밋 후(@TransactionalEventListener)에 처리한다.
+ */
+public record ChronicConditionEvent(Long patientId, String diagnosisKey, String diagnosis, long visitCount,
+                                    boolean chronic) {}
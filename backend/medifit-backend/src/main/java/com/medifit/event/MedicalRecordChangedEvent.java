@@ -0,0 +1,19 @@
+package com.medifit.event;
+
+/**
+ * 의료기록 변경 이벤트. after가 null이면 삭제.
+ */
+public record MedicalRecordChangedEvent(Long recordId, MedicalRecordSnapshot after) {
+
+    public static MedicalRecordChangedEvent saved(MedicalRecordSnapshot after) {
+        return new MedicalRecordChangedEvent(after.id(), after);
+    }
+
+    public static MedicalRecordChangedEvent deleted(Long recordId) {
+        return new MedicalRecordChangedEvent(recordId, null);
+    }
+
+    public boolean isDeleted() {
+        return after == null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.medifit.event;
+
+import com.medifit.entity.MedicalRecord;
+import com.medifit.enums.RecordStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 의료기록의 특정 시점 상태 (이벤트 전달용, 지연 로딩 없이 ID만 보관)
+ */
+public record MedicalRecordSnapshot(Long id,
+                                    Long patientId,
+                                    Long doctorId,
+                                    String department,
+                                    String diagnosis,
+                                    String symptoms,
+                                    String treatment,
+                                    String doctorNotes,
+                                    RecordStatus status,
+                                    LocalDateTime visitDate) {
+
+    public static MedicalRecordSnapshot of(MedicalRecord record) {
+        return new MedicalRecordSnapshot(
+                record.getId(),
+                record.getPatient() != null ? record.getPatient().getId() : null,
+                record.getDoctor() != null ? record.getDoctor().getId() : null,
+                record.getDepartment(),
+                record.getDiagnosis(),
+                record.getSymptoms(),
+                record.getTreatment(),
+                record.getDoctorNotes(),
+                record.getStatus(),
+                record.getVisitDate());
+    }
+}
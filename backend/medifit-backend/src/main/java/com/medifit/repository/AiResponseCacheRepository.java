@@ -0,0 +1,29 @@
+package com.medifit.repository;
+
+import com.medifit.entity.AiResponseCacheEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AiResponseCacheRepository extends JpaRepository<AiResponseCacheEntry, String> {
+
+    Optional<AiResponseCacheEntry> findByCacheKeyAndExpiresAtAfter(String cacheKey, LocalDateTime now);
+
+    // 🔥 정리
+
+    @Modifying
+    @Query("DELETE FROM AiResponseCacheEntry e WHERE e.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // 오래된 순 키 (개수 제한을 넘은 만큼 지우기용)
+    @Query("SELECT e.cacheKey FROM AiResponseCacheEntry e ORDER BY e.createdAt ASC")
+    List<String> findOldestKeys(Limit limit);
+}
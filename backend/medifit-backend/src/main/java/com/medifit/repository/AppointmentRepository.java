@@ -1,20 +1,31 @@
 package com.medifit.repository;
 
+import com.medifit.dto.AppointmentListItem;
+import com.medifit.dto.PatientTimelineItem;
 import com.medifit.entity.Appointment;
 import com.medifit.enums.AppointmentStatus;
 import com.medifit.entity.Patient;
 import com.medifit.entity.User;
+import com.medifit.event.AppointmentSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>,
+        JpaSpecificationExecutor<Appointment> {
 
     // 🔥 기본 조회 메서드들
 
@@ -74,12 +85,40 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
     // 🔥 알림 관련
 
-    // 알림이 필요한 예약 (리마인더)
+    // 알림이 필요한 예약 (리마인더) - 알림 문구에 쓰는 환자/병원을 함께 로딩
+    @EntityGraph(attributePaths = {"patient", "hospital"})
     List<Appointment> findByAppointmentDateBetweenAndReminderSentFalseAndStatusIn(
             LocalDateTime startDate, LocalDateTime endDate, List<AppointmentStatus> statuses);
 
+    // 리마인더 발송 페이지 (병원 ID 기준 샤드, id 키셋, 시드 데이터처럼 reminderSent가 NULL인 행 포함)
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.hospital h " +
+            "WHERE a.appointmentDate >= :startDate AND a.appointmentDate < :endDate AND " +
+            "(a.reminderSent = false OR a.reminderSent IS NULL) AND a.status IN :statuses AND " +
+            "MOD(h.id, :shardCount) = :shard AND a.id > :afterId ORDER BY a.id")
+    List<Appointment> findReminderPage(@Param("startDate") LocalDateTime startDate,
+                                       @Param("endDate") LocalDateTime endDate,
+                                       @Param("statuses") Collection<AppointmentStatus> statuses,
+                                       @Param("shardCount") int shardCount,
+                                       @Param("shard") int shard,
+                                       @Param("afterId") Long afterId,
+                                       Limit limit);
+
+    // 발송 완료 일괄 표시 (이미 표시된 행은 건너뛴다)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Appointment a SET a.reminderSent = true, a.reminderSentAt = :sentAt " +
+            "WHERE a.id IN :ids AND (a.reminderSent = false OR a.reminderSent IS NULL)")
+    int markRemindersSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
     // 🔥 통계 관련
 
+    // 통계 롤업 재계산용 집계 (병원, 생성일, 예약일, 예약 시각(시), 진료과, 상태, 건수)
+    @Query("SELECT a.hospital.id, CAST(a.createdAt AS LocalDate), CAST(a.appointmentDate AS LocalDate), " +
+            "EXTRACT(HOUR FROM a.appointmentDate), a.department, a.status, COUNT(a) FROM Appointment a " +
+            "WHERE a.hospital IS NOT NULL AND a.appointmentDate IS NOT NULL " +
+            "GROUP BY a.hospital.id, CAST(a.createdAt AS LocalDate), CAST(a.appointmentDate AS LocalDate), " +
+            "EXTRACT(HOUR FROM a.appointmentDate), a.department, a.status")
+    List<Object[]> countRollupBuckets();
+
     // 병원별 상태별 개수
     long countByHospitalIdAndStatus(Long hospitalId, AppointmentStatus status);
 
@@ -89,6 +128,45 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // 날짜 범위 내 개수
     long countByAppointmentDateBetween(LocalDateTime startDate, LocalDateTime endDate);
 
+    // 🔥 키셋 페이지네이션 (appointmentDate DESC, id DESC)
+
+    String LIST_ITEM_SELECT = "SELECT a.id AS id, a.appointmentDate AS appointmentDate, " +
+            "a.department AS department, a.status AS status, a.appointmentType AS appointmentType, " +
+            "a.roomNumber AS roomNumber, a.estimatedDuration AS estimatedDuration, " +
+            "p.id AS patientId, p.name AS patientName, h.id AS hospitalId, h.hospitalName AS hospitalName " +
+            "FROM Appointment a JOIN a.patient p JOIN a.hospital h ";
+
+    String KEYSET_BEFORE = "(a.appointmentDate < :cursorDate OR (a.appointmentDate = :cursorDate AND a.id < :cursorId)) ";
+
+    String KEYSET_ORDER = "ORDER BY a.appointmentDate DESC, a.id DESC";
+
+    // 전체 예약 페이지
+    @Query(LIST_ITEM_SELECT + "WHERE " + KEYSET_BEFORE + KEYSET_ORDER)
+    List<AppointmentListItem> findPageBefore(@Param("cursorDate") LocalDateTime cursorDate,
+                                             @Param("cursorId") Long cursorId,
+                                             Limit limit);
+
+    // 환자별 예약 페이지
+    @Query(LIST_ITEM_SELECT + "WHERE p.id = :patientId AND " + KEYSET_BEFORE + KEYSET_ORDER)
+    List<AppointmentListItem> findPageByPatientBefore(@Param("patientId") Long patientId,
+                                                      @Param("cursorDate") LocalDateTime cursorDate,
+                                                      @Param("cursorId") Long cursorId,
+                                                      Limit limit);
+
+    // 병원별 예약 페이지
+    @Query(LIST_ITEM_SELECT + "WHERE h.id = :hospitalId AND " + KEYSET_BEFORE + KEYSET_ORDER)
+    List<AppointmentListItem> findPageByHospitalBefore(@Param("hospitalId") Long hospitalId,
+                                                       @Param("cursorDate") LocalDateTime cursorDate,
+                                                       @Param("cursorId") Long cursorId,
+                                                       Limit limit);
+
+    // 상태별 예약 페이지
+    @Query(LIST_ITEM_SELECT + "WHERE a.status = :status AND " + KEYSET_BEFORE + KEYSET_ORDER)
+    List<AppointmentListItem> findPageByStatusBefore(@Param("status") AppointmentStatus status,
+                                                     @Param("cursorDate") LocalDateTime cursorDate,
+                                                     @Param("cursorId") Long cursorId,
+                                                     Limit limit);
+
     // 🔥 검색 기능
 
     // 통합 검색
@@ -103,21 +181,7 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
     // 🔥 복합 필터링
 
-    // 다중 조건 필터링
-    @Query("SELECT a FROM Appointment a WHERE " +
-            "(:patientId IS NULL OR a.patient.id = :patientId) AND " +
-            "(:hospitalId IS NULL OR a.hospital.id = :hospitalId) AND " +
-            "(:status IS NULL OR a.status = :status) AND " +
-            "(:department IS NULL OR LOWER(a.department) = LOWER(:department)) AND " +
-            "(:startDate IS NULL OR a.appointmentDate >= :startDate) AND " +
-            "(:endDate IS NULL OR a.appointmentDate <= :endDate) " +
-            "ORDER BY a.appointmentDate DESC")
-    List<Appointment> findWithFilters(@Param("patientId") Long patientId,
-                                      @Param("hospitalId") Long hospitalId,
-                                      @Param("status") AppointmentStatus status,
-                                      @Param("department") String department,
-                                      @Param("startDate") LocalDateTime startDate,
-                                      @Param("endDate") LocalDateTime endDate);
+    // 다중 조건 필터링은 AppointmentSpecifications + findAll(Specification, Sort)
 
     // 🔥 시간 충돌 체크
 
@@ -130,14 +194,77 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
                                                   @Param("startTime") LocalDateTime startTime,
                                                   @Param("endTime") LocalDateTime endTime);
 
+    // 슬롯 점유 복원용 (예약 일시, 예상 진료 시간)
+    @Query("SELECT a.appointmentDate, a.estimatedDuration FROM Appointment a " +
+            "WHERE a.hospital.id = :hospitalId AND " +
+            "a.appointmentDate >= :startTime AND a.appointmentDate < :endTime AND " +
+            "a.status <> com.medifit.enums.AppointmentStatus.CANCELLED")
+    List<Object[]> findOccupiedSlots(@Param("hospitalId") Long hospitalId,
+                                     @Param("startTime") LocalDateTime startTime,
+                                     @Param("endTime") LocalDateTime endTime);
+
+    // 충돌 검사 인덱스 복원용 (예약 ID, 의사 ID, 예약 일시, 예상 진료 시간)
+    @Query("SELECT a.id, d.id, a.appointmentDate, a.estimatedDuration FROM Appointment a LEFT JOIN a.doctor d " +
+            "WHERE a.hospital.id = :hospitalId AND a.appointmentDate >= :fromTime AND " +
+            "a.status <> com.medifit.enums.AppointmentStatus.CANCELLED")
+    List<Object[]> findActiveIntervals(@Param("hospitalId") Long hospitalId,
+                                       @Param("fromTime") LocalDateTime fromTime);
+
+    // 🔥 변경 이벤트용 스냅샷
+
+    String SNAPSHOT_SELECT = "SELECT new com.medifit.event.AppointmentSnapshot(" +
+            "a.id, a.patient.id, a.hospital.id, d.id, a.department, a.appointmentDate, " +
+            "a.estimatedDuration, a.status, a.createdAt) " +
+            "FROM Appointment a LEFT JOIN a.doctor d ";
+
+    @Query(SNAPSHOT_SELECT + "WHERE a.id = :id")
+    Optional<AppointmentSnapshot> findSnapshotById(@Param("id") Long id);
+
     // 🔥 만료/과거 예약 관리
 
     // 과거 예약 (특정 상태들)
     List<Appointment> findByAppointmentDateBeforeAndStatusIn(
             LocalDateTime beforeDate, List<AppointmentStatus> statuses);
 
+    // 만료 대상 청크 (id 키셋, 처리된 행은 상태 조건에서 빠지므로 재실행해도 이어서 진행된다)
+    @Query(SNAPSHOT_SELECT + "WHERE a.appointmentDate < :cutoff AND a.status IN :statuses AND a.id > :afterId " +
+            "ORDER BY a.id")
+    List<AppointmentSnapshot> findExpiredChunk(@Param("cutoff") LocalDateTime cutoff,
+                                               @Param("statuses") Collection<AppointmentStatus> statuses,
+                                               @Param("afterId") Long afterId,
+                                               Limit limit);
+
+    // 청크의 행 중 아직 만료 대상 상태인 것을 잠그고 현재 값으로 읽는다 (커밋까지 다른 쓰기가 끼어들지 못한다)
+    // 의사는 외래키로만 읽는다 - PostgreSQL은 외부 조인의 nullable 쪽에 FOR UPDATE를 걸 수 없다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.medifit.event.AppointmentSnapshot(a.id, a.patient.id, a.hospital.id, a.doctor.id, " +
+            "a.department, a.appointmentDate, a.estimatedDuration, a.status, a.createdAt) FROM Appointment a " +
+            "WHERE a.id IN :ids AND a.status IN :statuses ORDER BY a.id")
+    List<AppointmentSnapshot> lockByIdInAndStatusIn(@Param("ids") Collection<Long> ids,
+                                                    @Param("statuses") Collection<AppointmentStatus> statuses);
+
+    // 잠근 행 일괄 취소
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = com.medifit.enums.AppointmentStatus.CANCELLED, a.updatedAt = :now " +
+            "WHERE a.id IN :ids")
+    int cancelByIdIn(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
     // 🔥 환자 전용 - 내 예약 조회
 
+    String TIMELINE_SELECT = "SELECT new com.medifit.dto.PatientTimelineItem(a.id, a.appointmentDate, a.department, " +
+            "a.appointmentType, a.status, h.hospitalName, a.roomNumber) FROM Appointment a JOIN a.hospital h ";
+
+    // 환자 타임라인 페이지 (appointmentDate DESC, id DESC)
+    @Query(TIMELINE_SELECT + "WHERE a.patient.id = :patientId AND " + KEYSET_BEFORE + KEYSET_ORDER)
+    List<PatientTimelineItem> findTimelineBefore(@Param("patientId") Long patientId,
+                                                 @Param("cursorDate") LocalDateTime cursorDate,
+                                                 @Param("cursorId") Long cursorId,
+                                                 Limit limit);
+
+    // 동기화 응답용 - 환자의 예약 중 ids에 해당하는 것
+    @Query(TIMELINE_SELECT + "WHERE a.patient.id = :patientId AND a.id IN :ids")
+    List<PatientTimelineItem> findTimelineItems(@Param("patientId") Long patientId, @Param("ids") Collection<Long> ids);
+
     // 환자의 다가오는 예약 (환자 앱용)
     @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId " +
             "AND a.appointmentDate > CURRENT_TIMESTAMP " +
@@ -0,0 +1,57 @@
+package com.medifit.repository;
+
+import com.medifit.entity.Appointment;
+import com.medifit.enums.AppointmentStatus;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * 예약 동적 필터 조건 - 값이 없는 조건은 SQL에 넣지 않는다 (MedicalRecordSpecifications 참고)
+ *
+ * 병원 + 예약일 (+ 상태) 조건은 (hospital_id, appointment_date, status) 인덱스를 탄다.
+ */
+public final class AppointmentSpecifications {
+
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("appointmentDate"), Sort.Order.desc("id"));
+
+    private AppointmentSpecifications() {}
+
+    /**
+     * findWithFilters 조건 (모두 선택). 예약일은 [startDate, endDate] 범위이다.
+     */
+    public static Specification<Appointment> filter(Long patientId, Long hospitalId, AppointmentStatus status,
+                                                    String department, LocalDateTime startDate,
+                                                    LocalDateTime endDate) {
+        return Specification.allOf(patientIdEquals(patientId), hospitalIdEquals(hospitalId), statusEquals(status),
+                departmentEqualsIgnoreCase(department), scheduledFrom(startDate), scheduledUntil(endDate));
+    }
+
+    public static Specification<Appointment> patientIdEquals(Long patientId) {
+        return patientId == null ? null : (root, query, cb) -> cb.equal(root.get("patient").get("id"), patientId);
+    }
+
+    public static Specification<Appointment> hospitalIdEquals(Long hospitalId) {
+        return hospitalId == null ? null : (root, query, cb) -> cb.equal(root.get("hospital").get("id"), hospitalId);
+    }
+
+    public static Specification<Appointment> statusEquals(AppointmentStatus status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Appointment> departmentEqualsIgnoreCase(String department) {
+        return MedicalRecordSpecifications.isBlank(department) ? null : (root, query, cb) ->
+                cb.equal(cb.lower(root.get("department")), department.trim().toLowerCase());
+    }
+
+    public static Specification<Appointment> scheduledFrom(LocalDateTime startDate) {
+        return startDate == null ? null : (root, query, cb) ->
+                cb.greaterThanOrEqualTo(root.get("appointmentDate"), startDate);
+    }
+
+    public static Specification<Appointment> scheduledUntil(LocalDateTime endDate) {
+        return endDate == null ? null : (root, query, cb) ->
+                cb.lessThanOrEqualTo(root.get("appointmentDate"), endDate);
+    }
+}
@@ -0,0 +1,20 @@
+package com.medifit.repository;
+
+import com.medifit.entity.BatchJobLock;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BatchJobLockRepository extends JpaRepository<BatchJobLock, String> {
+
+    // 다른 인스턴스가 잡고 있으면 기다리지 않고 실패한다 (PostgreSQL: FOR UPDATE NOWAIT)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    Optional<BatchJobLock> findByJobName(String jobName);
+}
@@ -0,0 +1,59 @@
+package com.medifit.repository;
+
+import com.medifit.entity.DoctorDailyScorecard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DoctorDailyScorecardRepository extends JpaRepository<DoctorDailyScorecard, Long> {
+
+    // 🔥 쓰기 경로
+
+    // 같은 (의사, 진료일) 집계를 잠그고 조회 - 의료기록 저장 트랜잭션 안에서 사용
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DoctorDailyScorecard> findByDoctorIdAndVisitDate(Long doctorId, LocalDate visitDate);
+
+    // 🔥 기간 조회 (의사, 진료일 인덱스)
+
+    @Query("SELECT s FROM DoctorDailyScorecard s WHERE s.doctorId IN :doctorIds " +
+            "AND s.visitDate BETWEEN :fromDate AND :toDate")
+    List<DoctorDailyScorecard> findInWindow(@Param("doctorIds") Collection<Long> doctorIds,
+                                            @Param("fromDate") LocalDate fromDate,
+                                            @Param("toDate") LocalDate toDate);
+
+    // 기간 안에 진료가 있는 의사 ID
+    @Query("SELECT DISTINCT s.doctorId FROM DoctorDailyScorecard s " +
+            "WHERE s.visitDate BETWEEN :fromDate AND :toDate AND s.recordCount > 0 ORDER BY s.doctorId")
+    List<Long> findDoctorIdsInWindow(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    // 🔥 재계산
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM DoctorDailyScorecard s WHERE s.doctorId = :doctorId")
+    int deleteByDoctorId(@Param("doctorId") Long doctorId);
+
+    // fromDate 이전(보관한 진료월)의 집계는 남긴다
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM DoctorDailyScorecard s WHERE s.doctorId = :doctorId AND s.visitDate >= :fromDate")
+    int deleteByDoctorIdFrom(@Param("doctorId") Long doctorId, @Param("fromDate") LocalDate fromDate);
+
+    // 이번 재계산에서 다시 만들어지지 않은 집계 (기록이 모두 삭제된 의사 등) 삭제
+    @Modifying
+    @Query("DELETE FROM DoctorDailyScorecard s WHERE s.updatedAt < :rebuildStartedAt")
+    int deleteUpdatedBefore(@Param("rebuildStartedAt") LocalDateTime rebuildStartedAt);
+
+    @Modifying
+    @Query("DELETE FROM DoctorDailyScorecard s WHERE s.updatedAt < :rebuildStartedAt AND s.visitDate >= :fromDate")
+    int deleteUpdatedBeforeFrom(@Param("rebuildStartedAt") LocalDateTime rebuildStartedAt,
+                                @Param("fromDate") LocalDate fromDate);
+}
@@ -0,0 +1,55 @@
+package com.medifit.repository;
+
+import com.medifit.entity.DoctorDailyTally;
+import com.medifit.enums.ScorecardDimension;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DoctorDailyTallyRepository extends JpaRepository<DoctorDailyTally, Long> {
+
+    // 🔥 쓰기 경로
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DoctorDailyTally> findByDoctorIdAndVisitDateAndDimensionAndLabel(Long doctorId, LocalDate visitDate,
+                                                                          ScorecardDimension dimension, String label);
+
+    // 🔥 기간 조회
+
+    // row: doctorId, dimension, label, 건수
+    @Query("SELECT t.doctorId, t.dimension, t.label, SUM(t.recordCount) FROM DoctorDailyTally t " +
+            "WHERE t.doctorId IN :doctorIds AND t.visitDate BETWEEN :fromDate AND :toDate " +
+            "GROUP BY t.doctorId, t.dimension, t.label HAVING SUM(t.recordCount) > 0")
+    List<Object[]> sumInWindow(@Param("doctorIds") Collection<Long> doctorIds,
+                               @Param("fromDate") LocalDate fromDate,
+                               @Param("toDate") LocalDate toDate);
+
+    // 🔥 재계산
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM DoctorDailyTally t WHERE t.doctorId = :doctorId")
+    int deleteByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM DoctorDailyTally t WHERE t.doctorId = :doctorId AND t.visitDate >= :fromDate")
+    int deleteByDoctorIdFrom(@Param("doctorId") Long doctorId, @Param("fromDate") LocalDate fromDate);
+
+    @Modifying
+    @Query("DELETE FROM DoctorDailyTally t WHERE t.updatedAt < :rebuildStartedAt")
+    int deleteUpdatedBefore(@Param("rebuildStartedAt") LocalDateTime rebuildStartedAt);
+
+    @Modifying
+    @Query("DELETE FROM DoctorDailyTally t WHERE t.updatedAt < :rebuildStartedAt AND t.visitDate >= :fromDate")
+    int deleteUpdatedBeforeFrom(@Param("rebuildStartedAt") LocalDateTime rebuildStartedAt,
+                                @Param("fromDate") LocalDate fromDate);
+}
@@ -0,0 +1,35 @@
+package com.medifit.repository;
+
+import com.medifit.entity.DuplicateCandidate;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DuplicateCandidateRepository extends JpaRepository<DuplicateCandidate, Long> {
+
+    // 🔥 목록 (id 키셋)
+
+    List<DuplicateCandidate> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<DuplicateCandidate> findByPatientIdAndIdGreaterThanOrderByIdAsc(Long patientId, Long afterId, Limit limit);
+
+    // 🔥 스캔 결과 교체
+
+    // 스캔한 환자들의 이전 결과 삭제
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM DuplicateCandidate d WHERE d.patientId IN :patientIds")
+    int deleteByPatientIds(@Param("patientIds") Collection<Long> patientIds);
+
+    // 이번 스캔에서 다시 발견되지 않은 결과 (기록이 모두 삭제된 환자 등) 삭제
+    @Modifying
+    @Query("DELETE FROM DuplicateCandidate d WHERE d.detectedAt < :scanStartedAt")
+    int deleteDetectedBefore(@Param("scanStartedAt") LocalDateTime scanStartedAt);
+}
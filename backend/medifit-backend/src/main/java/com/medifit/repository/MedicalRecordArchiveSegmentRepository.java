@@ -0,0 +1,19 @@
+package com.medifit.repository;
+
+import com.medifit.entity.MedicalRecordArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MedicalRecordArchiveSegmentRepository extends JpaRepository<MedicalRecordArchiveSegment, Long> {
+
+    List<MedicalRecordArchiveSegment> findAllByOrderByMonthStartAscIdAsc();
+
+    Optional<MedicalRecordArchiveSegment> findFirstByOrderByMonthStartDesc();
+
+    long countByMonthStart(LocalDate monthStart);
+}
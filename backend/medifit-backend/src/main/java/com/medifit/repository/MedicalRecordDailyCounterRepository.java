@@ -0,0 +1,54 @@
+package com.medifit.repository;
+
+import com.medifit.entity.MedicalRecordDailyCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MedicalRecordDailyCounterRepository extends JpaRepository<MedicalRecordDailyCounter, Long> {
+
+    // 🔥 쓰기 경로
+
+    // 같은 (병원, 진료일) 카운터를 잠그고 조회 - 의료기록 저장 트랜잭션 안에서 사용
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<MedicalRecordDailyCounter> findByHospitalIdAndVisitDate(Long hospitalId, LocalDate visitDate);
+
+    // 🔥 메모리 적재
+
+    List<MedicalRecordDailyCounter> findByVisitDateGreaterThanEqual(LocalDate fromDate);
+
+    // 병원별 전체 진료 건수
+    @Query("SELECT c.hospitalId, SUM(c.recordCount) FROM MedicalRecordDailyCounter c GROUP BY c.hospitalId")
+    List<Object[]> sumRecordCountByHospital();
+
+    // 🔥 재계산
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM MedicalRecordDailyCounter c WHERE c.hospitalId = :hospitalId")
+    int deleteByHospitalId(@Param("hospitalId") Long hospitalId);
+
+    // fromDate 이전(보관한 진료월)의 카운터는 남긴다
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM MedicalRecordDailyCounter c WHERE c.hospitalId = :hospitalId AND c.visitDate >= :fromDate")
+    int deleteByHospitalIdFrom(@Param("hospitalId") Long hospitalId, @Param("fromDate") LocalDate fromDate);
+
+    // 이번 재계산에서 다시 만들어지지 않은 카운터 (기록이 모두 삭제된 병원 등) 삭제
+    @Modifying
+    @Query("DELETE FROM MedicalRecordDailyCounter c WHERE c.updatedAt < :rebuildStartedAt")
+    int deleteUpdatedBefore(@Param("rebuildStartedAt") LocalDateTime rebuildStartedAt);
+
+    @Modifying
+    @Query("DELETE FROM MedicalRecordDailyCounter c WHERE c.updatedAt < :rebuildStartedAt " +
+            "AND c.visitDate >= :fromDate")
+    int deleteUpdatedBeforeFrom(@Param("rebuildStartedAt") LocalDateTime rebuildStartedAt,
+                                @Param("fromDate") LocalDate fromDate);
+}
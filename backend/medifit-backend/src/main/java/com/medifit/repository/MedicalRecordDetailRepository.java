@@ -0,0 +1,9 @@
+package com.medifit.repository;
+
+import com.medifit.entity.MedicalRecordDetail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MedicalRecordDetailRepository extends JpaRepository<MedicalRecordDetail, Long> {
+}
@@ -0,0 +1,41 @@
+package com.medifit.repository;
+
+import com.medifit.dto.MedicalRecordExportKey;
+import com.medifit.dto.MedicalRecordExportRow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 선택 조건 조회 - 주어진 조건만 WHERE에 넣어 조건별 인덱스를 쓰게 한다 (MedicalRecordRepository 조각)
+ */
+public interface MedicalRecordFilterQueries {
+
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * 내보내기 행 ((환자, 진료일시, id) 순, 전진 전용 스트림). 호출 측 트랜잭션 안에서 소비하고 닫아야 한다.
+     * after가 있으면 그 키 다음부터 읽어 중단된 내보내기를 이어받으며, 나머지 조건은 null이면 걸지 않는다.
+     * endDate는 포함하지 않는다.
+     */
+    Stream<MedicalRecordExportRow> streamExportRows(Long patientId, String department, LocalDateTime startDate,
+                                                   LocalDateTime endDate, MedicalRecordExportKey after);
+
+    /**
+     * 보관 세그먼트에 있는 내보내기 행. 순서와 조건은 streamExportRows와 같고, 세그먼트를 병합하며 읽으므로
+     * 건수와 관계없이 메모리 사용량이 일정하다.
+     */
+    Stream<MedicalRecordExportRow> streamArchivedExportRows(Long patientId, String department, LocalDateTime startDate,
+                                                           LocalDateTime endDate, MedicalRecordExportKey after);
+
+    /**
+     * 진료비 값별 건수 (통계 누산용, row: medicalFee, 건수) - 엔티티를 읽지 않고 DB에서 집계한다. 조건은 모두 선택이다.
+     */
+    List<Object[]> getMedicalFeeHistogram(Long patientId, Long hospitalId, String department);
+
+    /**
+     * 진료과별 진료비 값별 건수 (row: department, medicalFee, 건수, 진료과순). hospitalId는 선택이다.
+     */
+    List<Object[]> getDepartmentMedicalFeeHistogram(Long hospitalId);
+}
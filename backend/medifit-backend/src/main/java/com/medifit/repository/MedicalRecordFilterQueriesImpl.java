@@ -0,0 +1,182 @@
+package com.medifit.repository;
+
+import com.medifit.dto.ArchivedMedicalRecord;
+import com.medifit.dto.MedicalRecordExportKey;
+import com.medifit.dto.MedicalRecordExportRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+class MedicalRecordFilterQueriesImpl implements MedicalRecordFilterQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MedicalRecordSegmentStore segmentStore;
+
+    @Override
+    public Stream<MedicalRecordExportRow> streamExportRows(Long patientId, String department, LocalDateTime startDate,
+                                                          LocalDateTime endDate, MedicalRecordExportKey after) {
+        StringBuilder jpql = new StringBuilder("SELECT new com.medifit.dto.MedicalRecordExportRow(mr.id, " +
+                "mr.visitDate, p.id, p.name, p.patientNumber, mr.department, d.id, " +
+                "COALESCE(d.hospitalName, d.username), mr.diagnosis, mr.symptoms, dt.symptoms, mr.treatment, " +
+                "mr.medicalFee, mr.roomNumber, mr.status) " +
+                "FROM MedicalRecord mr JOIN mr.patient p JOIN mr.doctor d LEFT JOIN mr.detail dt " +
+                "WHERE 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (after != null) {
+            // (환자, 진료일시, id) 키셋 - (patient_id, visit_date) 인덱스를 따라 읽는다
+            jpql.append(" AND (p.id > :afterPatientId OR (p.id = :afterPatientId AND (mr.visitDate > :afterVisitDate" +
+                    " OR (mr.visitDate = :afterVisitDate AND mr.id > :afterId))))");
+            params.put("afterPatientId", after.patientId());
+            params.put("afterVisitDate", after.visitDate());
+            params.put("afterId", after.id());
+        }
+        if (patientId != null) {
+            jpql.append(" AND p.id = :patientId");
+            params.put("patientId", patientId);
+        }
+        if (department != null) {
+            jpql.append(" AND mr.department = :department");
+            params.put("department", department);
+        }
+        if (startDate != null) {
+            jpql.append(" AND mr.visitDate >= :startDate");
+            params.put("startDate", startDate);
+        }
+        if (endDate != null) {
+            jpql.append(" AND mr.visitDate < :endDate");
+            params.put("endDate", endDate);
+        }
+        jpql.append(" ORDER BY p.id, mr.visitDate, mr.id");
+
+        TypedQuery<MedicalRecordExportRow> query = entityManager.createQuery(jpql.toString(),
+                MedicalRecordExportRow.class);
+        params.forEach(query::setParameter);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query.getResultStream();
+    }
+
+    @Override
+    public Stream<MedicalRecordExportRow> streamArchivedExportRows(Long patientId, String department,
+                                                                  LocalDateTime startDate, LocalDateTime endDate,
+                                                                  MedicalRecordExportKey after) {
+        LocalDateTime archivedUntil = segmentStore.archivedUntil();
+        if (archivedUntil == null || (startDate != null && !startDate.isBefore(archivedUntil))) {
+            return Stream.empty();
+        }
+        Iterator<ArchivedMedicalRecord> records = segmentStore.scan(patientId, startDate, endDate, after);
+
+        // EXPORT_FETCH_SIZE건씩 읽어 환자/의사 이름을 IN 조회로 붙인다 - 한 번에 그 건수만 메모리에 둔다
+        Iterator<MedicalRecordExportRow> rows = new Iterator<>() {
+            private Iterator<MedicalRecordExportRow> batch = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!batch.hasNext() && records.hasNext()) {
+                    List<ArchivedMedicalRecord> chunk = new ArrayList<>(EXPORT_FETCH_SIZE);
+                    while (chunk.size() < EXPORT_FETCH_SIZE && records.hasNext()) {
+                        ArchivedMedicalRecord record = records.next();
+                        if (department == null || department.equals(record.department())) {
+                            chunk.add(record);
+                        }
+                    }
+                    batch = toExportRows(chunk).iterator();
+                }
+                return batch.hasNext();
+            }
+
+            @Override
+            public MedicalRecordExportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false);
+    }
+
+    // 환자/의사 이름은 기록 테이블 조회처럼 현재 값을 붙인다
+    private List<MedicalRecordExportRow> toExportRows(List<ArchivedMedicalRecord> archived) {
+        if (archived.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Object[]> patients = lookup("SELECT p.id, p.name, p.patientNumber FROM Patient p WHERE p.id IN :ids",
+                archived.stream().map(ArchivedMedicalRecord::patientId).distinct().toList());
+        Map<Long, Object[]> doctors = lookup("SELECT u.id, COALESCE(u.hospitalName, u.username) FROM User u WHERE u.id IN :ids",
+                archived.stream().map(ArchivedMedicalRecord::doctorId).distinct().toList());
+
+        List<MedicalRecordExportRow> rows = new ArrayList<>(archived.size());
+        for (ArchivedMedicalRecord record : archived) {
+            Object[] patient = patients.get(record.patientId());
+            Object[] doctor = doctors.get(record.doctorId());
+            // 기록 테이블 조회의 내부 조인과 같이 환자/의사가 없는 기록은 뺀다
+            if (patient == null || doctor == null) {
+                continue;
+            }
+            rows.add(new MedicalRecordExportRow(record.id(), record.visitDate(), record.patientId(), (String) patient[1],
+                    (String) patient[2], record.department(), record.doctorId(), (String) doctor[1], record.diagnosis(),
+                    record.symptoms(), record.treatment(), record.medicalFee(), record.roomNumber(), record.status()));
+        }
+        return rows;
+    }
+
+    // row[0]이 id인 조회를 id별로 묶는다
+    private Map<Long, Object[]> lookup(String jpql, List<Long> ids) {
+        Map<Long, Object[]> result = new HashMap<>();
+        for (Object[] row : entityManager.createQuery(jpql, Object[].class).setParameter("ids", ids).getResultList()) {
+            result.put((Long) row[0], row);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Object[]> getMedicalFeeHistogram(Long patientId, Long hospitalId, String department) {
+        StringBuilder jpql = new StringBuilder("SELECT mr.medicalFee, COUNT(mr) FROM MedicalRecord mr " +
+                "WHERE mr.medicalFee IS NOT NULL AND mr.medicalFee > 0");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (patientId != null) {
+            jpql.append(" AND mr.patient.id = :patientId");
+            params.put("patientId", patientId);
+        }
+        if (hospitalId != null) {
+            jpql.append(" AND mr.doctor.id = :hospitalId");
+            params.put("hospitalId", hospitalId);
+        }
+        if (department != null) {
+            jpql.append(" AND mr.department = :department");
+            params.put("department", department);
+        }
+        jpql.append(" GROUP BY mr.medicalFee");
+        return list(jpql, params);
+    }
+
+    @Override
+    public List<Object[]> getDepartmentMedicalFeeHistogram(Long hospitalId) {
+        StringBuilder jpql = new StringBuilder("SELECT mr.department, mr.medicalFee, COUNT(mr) FROM MedicalRecord mr " +
+                "WHERE mr.medicalFee IS NOT NULL AND mr.medicalFee > 0");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (hospitalId != null) {
+            jpql.append(" AND mr.doctor.id = :hospitalId");
+            params.put("hospitalId", hospitalId);
+        }
+        jpql.append(" GROUP BY mr.department, mr.medicalFee ORDER BY mr.department");
+        return list(jpql, params);
+    }
+
+    private List<Object[]> list(StringBuilder jpql, Map<String, Object> params) {
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        params.forEach(query::setParameter);
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,18 @@
+package com.medifit.repository;
+
+import com.medifit.entity.MedicalRecord;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 진료일시 범위 조회 - 기록 테이블과 보관 세그먼트를 함께 본다 (MedicalRecordRepository 조각)
+ */
+public interface MedicalRecordRangeQueries {
+
+    /**
+     * 진료일시가 [startDate, endDate]인 기록 (진료일시, id 내림차순). patientId와 endDate는 선택이다.
+     * startDate가 보관 시점보다 이르면 세그먼트의 기록도 읽기 전용 엔티티(archived = true)로 섞어 돌려준다.
+     */
+    List<MedicalRecord> findByVisitDateRange(Long patientId, LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -0,0 +1,126 @@
+package com.medifit.repository;
+
+import com.medifit.dto.ArchivedMedicalRecord;
+import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.Patient;
+import com.medifit.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class MedicalRecordRangeQueriesImpl implements MedicalRecordRangeQueries {
+
+    private static final Comparator<MedicalRecord> NEWEST_FIRST = Comparator
+            .comparing(MedicalRecord::getVisitDate)
+            .thenComparing(MedicalRecord::getId)
+            .reversed();
+
+    private static final int LOOKUP_CHUNK = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MedicalRecordSegmentStore segmentStore;
+
+    @Override
+    public List<MedicalRecord> findByVisitDateRange(Long patientId, LocalDateTime startDate, LocalDateTime endDate) {
+        List<MedicalRecord> records = findHot(patientId, startDate, endDate);
+
+        LocalDateTime archivedUntil = segmentStore.archivedUntil();
+        if (archivedUntil == null || (startDate != null && !startDate.isBefore(archivedUntil))) {
+            return records;
+        }
+
+        // 보관 작업이 남겨 둔 기록(처방전이 참조하는 기록)은 테이블에만 있지만, 같은 id가 두 번 나오지 않도록 거른다
+        Set<Long> hotIds = new HashSet<>();
+        records.forEach(record -> hotIds.add(record.getId()));
+        List<ArchivedMedicalRecord> archivedRecords = new ArrayList<>();
+        for (ArchivedMedicalRecord archived : segmentStore.find(patientId, startDate, endDate)) {
+            if (hotIds.add(archived.id())) {
+                archivedRecords.add(archived);
+            }
+        }
+        if (archivedRecords.isEmpty()) {
+            return records;
+        }
+
+        // 환자/의사는 프록시 대신 실제로 읽어 둔다 - 트랜잭션 밖에서 이름을 읽어도 되고, 그사이 지워진 환자/의사여도
+        // 초기화에 실패하지 않는다 (지워진 쪽은 id만 있는 빈 객체)
+        Map<Long, Patient> patients = findByIds("SELECT p FROM Patient p WHERE p.id IN :ids", Patient.class,
+                archivedRecords.stream().map(ArchivedMedicalRecord::patientId).collect(Collectors.toSet()),
+                Patient::getId);
+        Map<Long, User> doctors = findByIds("SELECT u FROM User u WHERE u.id IN :ids", User.class,
+                archivedRecords.stream().map(ArchivedMedicalRecord::doctorId).collect(Collectors.toSet()),
+                User::getId);
+
+        List<MedicalRecord> merged = new ArrayList<>(records);
+        for (ArchivedMedicalRecord archived : archivedRecords) {
+            Patient patient = patients.computeIfAbsent(archived.patientId(), id -> {
+                Patient missing = new Patient();
+                missing.setId(id);
+                return missing;
+            });
+            User doctor = doctors.computeIfAbsent(archived.doctorId(), id -> {
+                User missing = new User();
+                missing.setId(id);
+                return missing;
+            });
+            merged.add(archived.toEntity(patient, doctor));
+        }
+        merged.sort(NEWEST_FIRST);
+        return merged;
+    }
+
+    // id 목록을 LOOKUP_CHUNK개씩 나눠 IN 조회
+    private <T> Map<Long, T> findByIds(String jpql, Class<T> type, Collection<Long> ids, Function<T, Long> idOf) {
+        List<Long> idList = new ArrayList<>(ids);
+        Map<Long, T> found = new HashMap<>();
+        for (int from = 0; from < idList.size(); from += LOOKUP_CHUNK) {
+            List<Long> chunk = idList.subList(from, Math.min(from + LOOKUP_CHUNK, idList.size()));
+            for (T entity : entityManager.createQuery(jpql, type).setParameter("ids", chunk).getResultList()) {
+                found.put(idOf.apply(entity), entity);
+            }
+        }
+        return found;
+    }
+
+    private List<MedicalRecord> findHot(Long patientId, LocalDateTime startDate, LocalDateTime endDate) {
+        StringBuilder jpql = new StringBuilder("SELECT mr FROM MedicalRecord mr WHERE 1 = 1");
+        if (patientId != null) {
+            jpql.append(" AND mr.patient.id = :patientId");
+        }
+        if (startDate != null) {
+            jpql.append(" AND mr.visitDate >= :startDate");
+        }
+        if (endDate != null) {
+            jpql.append(" AND mr.visitDate <= :endDate");
+        }
+        jpql.append(" ORDER BY mr.visitDate DESC, mr.id DESC");
+
+        TypedQuery<MedicalRecord> query = entityManager.createQuery(jpql.toString(), MedicalRecord.class);
+        if (patientId != null) {
+            query.setParameter("patientId", patientId);
+        }
+        if (startDate != null) {
+            query.setParameter("startDate", startDate);
+        }
+        if (endDate != null) {
+            query.setParameter("endDate", endDate);
+        }
+        return query.getResultList();
+    }
+}
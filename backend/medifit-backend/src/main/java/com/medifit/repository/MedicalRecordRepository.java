@@ -1,24 +1,65 @@
 package com.medifit.repository;
 
+import com.medifit.dto.MedicalRecordListItem;
+import com.medifit.dto.PatientTimelineItem;
 import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.MedicalRecordDetail;
 import com.medifit.entity.Patient;
 import com.medifit.enums.RecordStatus;
 import com.medifit.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
+public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long>,
+        JpaSpecificationExecutor<MedicalRecord>, MedicalRecordRangeQueries,
+        MedicalRecordFilterQueries {
 
     // 🔥 기본 조회 메서드들 (기존)
 
-    // 환자별 진료기록 조회 (최신순)
+    // 단건 조회는 본문까지 직렬화하므로 압축 상세를 함께 읽는다
+    // (API 목록은 본문 없는 MedicalRecordListItem으로, 그 밖의 엔티티 목록은 상세를 지연 로딩한다)
+    @Override
+    @EntityGraph(attributePaths = "detail")
+    Optional<MedicalRecord> findById(Long id);
+
+    // 🔥 API 목록 조회 (본문 제외 프로젝션)
+
+    String LIST_ITEM_SELECT = "SELECT mr.id AS id, mr.visitDate AS visitDate, mr.department AS department, " +
+            "mr.diagnosis AS diagnosis, mr.treatment AS treatment, mr.status AS status, " +
+            "mr.medicalFee AS medicalFee, mr.roomNumber AS roomNumber, p.id AS patientId, p.name AS patientName, " +
+            "d.id AS doctorId, COALESCE(d.hospitalName, d.username) AS doctorName " +
+            "FROM MedicalRecord mr JOIN mr.patient p JOIN mr.doctor d ";
+
+    @Query(LIST_ITEM_SELECT + "ORDER BY mr.visitDate DESC, mr.id DESC")
+    List<MedicalRecordListItem> findListItems();
+
+    @Query(LIST_ITEM_SELECT + "WHERE p.id = :patientId ORDER BY mr.visitDate DESC, mr.id DESC")
+    List<MedicalRecordListItem> findListItemsByPatientId(@Param("patientId") Long patientId, Limit limit);
+
+    @Query(LIST_ITEM_SELECT + "WHERE mr.department = :department ORDER BY mr.visitDate DESC, mr.id DESC")
+    List<MedicalRecordListItem> findListItemsByDepartment(@Param("department") String department);
+
+    // 검색 결과 (순서는 호출하는 쪽에서 관련도순으로 맞춘다)
+    @Query(LIST_ITEM_SELECT + "WHERE mr.id IN :ids")
+    List<MedicalRecordListItem> findListItemsByIdIn(@Param("ids") Collection<Long> ids);
+
     List<MedicalRecord> findByPatientOrderByVisitDateDesc(Patient patient);
 
     // 환자 ID로 진료기록 조회
@@ -47,19 +88,7 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
 
     // 🔥 새로 추가된 메서드들
 
-    // 날짜 범위 조회
-    List<MedicalRecord> findByVisitDateBetweenOrderByVisitDateDesc(LocalDateTime startDate, LocalDateTime endDate);
-
-    // 환자의 날짜 범위 조회
-    List<MedicalRecord> findByPatientIdAndVisitDateBetweenOrderByVisitDateDesc(
-            Long patientId, LocalDateTime startDate, LocalDateTime endDate);
-
-    // 특정 날짜 이후의 진료기록
-    List<MedicalRecord> findByVisitDateAfterOrderByVisitDateDesc(LocalDateTime afterDate);
-
-    // 환자의 특정 날짜 이후 진료기록
-    List<MedicalRecord> findByPatientIdAndVisitDateAfterOrderByVisitDateDesc(
-            Long patientId, LocalDateTime afterDate);
+    // 날짜 범위 조회는 보관 세그먼트까지 보는 findByVisitDateRange (MedicalRecordRangeQueries)
 
     // 🔥 검색 기능
 
@@ -70,15 +99,61 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
     List<MedicalRecord> findByPatientIdAndDiagnosisContainingIgnoreCaseOrderByVisitDateAsc(
             Long patientId, String diagnosis);
 
-    // 통합 검색 (진단명, 증상, 치료법, 의사 메모 등)
-    @Query("SELECT mr FROM MedicalRecord mr WHERE " +
-            "LOWER(mr.diagnosis) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(mr.symptoms) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(mr.treatment) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(mr.doctorNotes) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(mr.department) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-            "ORDER BY mr.visitDate DESC")
-    List<MedicalRecord> searchMedicalRecords(@Param("keyword") String keyword);
+    // 검색 색인 재구성용 (id 키셋, 연관 엔티티 없이 검색 대상 컬럼만)
+    // 증상/의사 메모는 기록 테이블(4, 6)과 압축 상세(7, 8) 중 한쪽에만 값이 있다
+    @Query("SELECT mr.id, mr.visitDate, mr.department, mr.diagnosis, mr.symptoms, mr.treatment, mr.doctorNotes, " +
+            "dt.symptoms, dt.doctorNotes " +
+            "FROM MedicalRecord mr LEFT JOIN mr.detail dt WHERE mr.id > :afterId ORDER BY mr.id")
+    List<Object[]> findSearchDocuments(@Param("afterId") Long afterId, Limit limit);
+
+    // 🔥 중복 기록 탐지
+
+    // 기록이 있는 환자 ID (키셋)
+    @Query("SELECT DISTINCT mr.patient.id FROM MedicalRecord mr WHERE mr.patient.id > :afterPatientId " +
+            "ORDER BY mr.patient.id")
+    List<Long> findPatientIdsAfter(@Param("afterPatientId") Long afterPatientId, Limit limit);
+
+    // 중복 판정에 필요한 컬럼만 (id, patientId, visitDate, department, diagnosis)
+    @Query("SELECT mr.id, mr.patient.id, mr.visitDate, mr.department, mr.diagnosis FROM MedicalRecord mr " +
+            "WHERE mr.patient.id IN :patientIds")
+    List<Object[]> findDuplicateKeyRows(@Param("patientIds") Collection<Long> patientIds);
+
+    // 🔥 일별 카운터
+
+    // 카운터 키 (병원, 환자, 진료일, 진단명, 진료과, 상태, 진료비) - 저장 전 DB 상태를 읽어야 하므로 자동 flush 하지 않는다
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT mr.doctor.id, mr.patient.id, mr.visitDate, mr.diagnosis, mr.department, mr.status, mr.medicalFee " +
+            "FROM MedicalRecord mr WHERE mr.id = :id")
+    List<Object[]> findCounterKey(@Param("id") Long id);
+
+    // 기록이 있는 병원(담당 의사) ID
+    @Query("SELECT DISTINCT mr.doctor.id FROM MedicalRecord mr ORDER BY mr.doctor.id")
+    List<Long> findRecordHospitalIds();
+
+    // 병원의 카운터 재계산용 행 (id, patientId, visitDate) - id 키셋
+    @Query("SELECT mr.id, mr.patient.id, mr.visitDate FROM MedicalRecord mr " +
+            "WHERE mr.doctor.id = :hospitalId AND mr.id > :afterId ORDER BY mr.id")
+    List<Object[]> findCounterRows(@Param("hospitalId") Long hospitalId, @Param("afterId") Long afterId,
+                                   Limit limit);
+
+    // 보관한 진료월이 있을 때 - fromDate 이후 진료만
+    @Query("SELECT mr.id, mr.patient.id, mr.visitDate FROM MedicalRecord mr " +
+            "WHERE mr.doctor.id = :hospitalId AND mr.id > :afterId AND mr.visitDate >= :fromDate ORDER BY mr.id")
+    List<Object[]> findCounterRowsFrom(@Param("hospitalId") Long hospitalId, @Param("afterId") Long afterId,
+                                       @Param("fromDate") LocalDateTime fromDate, Limit limit);
+
+    // 의사 성과 집계 재계산용 행 (id, patientId, visitDate, department, diagnosis, status, medicalFee) - id 키셋
+    @Query("SELECT mr.id, mr.patient.id, mr.visitDate, mr.department, mr.diagnosis, mr.status, mr.medicalFee " +
+            "FROM MedicalRecord mr WHERE mr.doctor.id = :doctorId AND mr.id > :afterId ORDER BY mr.id")
+    List<Object[]> findScorecardRows(@Param("doctorId") Long doctorId, @Param("afterId") Long afterId,
+                                     Limit limit);
+
+    // 보관한 진료월이 있을 때 - fromDate 이후 진료만
+    @Query("SELECT mr.id, mr.patient.id, mr.visitDate, mr.department, mr.diagnosis, mr.status, mr.medicalFee " +
+            "FROM MedicalRecord mr WHERE mr.doctor.id = :doctorId AND mr.id > :afterId " +
+            "AND mr.visitDate >= :fromDate ORDER BY mr.id")
+    List<Object[]> findScorecardRowsFrom(@Param("doctorId") Long doctorId, @Param("afterId") Long afterId,
+                                         @Param("fromDate") LocalDateTime fromDate, Limit limit);
 
     // 🔥 상태별 통계
 
@@ -196,8 +271,30 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
             "ORDER BY mr.createdAt DESC")
     List<MedicalRecord> findIncompleteRecords();
 
-    // AI 요약이 없는 기록
-    List<MedicalRecord> findByAiSummaryIsNullOrderByVisitDateDesc();
+    // AI 요약이 없는 기록 (id, visitDate) - 최근 진료 순 첫 페이지
+    @Query("SELECT mr.id, mr.visitDate FROM MedicalRecord mr LEFT JOIN mr.detail dt " +
+            "WHERE mr.aiSummary IS NULL AND dt.aiSummary IS NULL " +
+            "ORDER BY mr.visitDate DESC, mr.id DESC")
+    List<Object[]> findWithoutAiSummary(Limit limit);
+
+    // 다음 페이지 - (진료일, ID)가 이전 페이지 마지막 행보다 작은 기록
+    @Query("SELECT mr.id, mr.visitDate FROM MedicalRecord mr LEFT JOIN mr.detail dt " +
+            "WHERE mr.aiSummary IS NULL AND dt.aiSummary IS NULL " +
+            "AND (mr.visitDate < :beforeVisitDate OR (mr.visitDate = :beforeVisitDate AND mr.id < :beforeId)) " +
+            "ORDER BY mr.visitDate DESC, mr.id DESC")
+    List<Object[]> findWithoutAiSummaryBefore(@Param("beforeVisitDate") LocalDateTime beforeVisitDate,
+                                              @Param("beforeId") Long beforeId, Limit limit);
+
+    // 변경 로그용 환자 ID
+    @Query("SELECT mr.patient.id FROM MedicalRecord mr WHERE mr.id = :id")
+    Optional<Long> findPatientIdById(@Param("id") Long id);
+
+    // AI 요약만 갱신 - 서술형 필드가 기록 테이블에 있는 경우만
+    @Modifying
+    @Query("UPDATE MedicalRecord mr SET mr.aiSummary = :aiSummary, mr.updatedAt = :updatedAt " +
+            "WHERE mr.id = :id AND mr.detail IS NULL")
+    int updateAiSummary(@Param("id") Long id, @Param("aiSummary") String aiSummary,
+                        @Param("updatedAt") LocalDateTime updatedAt);
 
     // 진료비가 0원인 기록 (의심 케이스)
     List<MedicalRecord> findByMedicalFeeIsNullOrMedicalFee(Integer medicalFee);
@@ -223,11 +320,11 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
             "ORDER BY mr.visitDate DESC LIMIT 1")
     Optional<MedicalRecord> findLatestByPatientId(@Param("patientId") Long patientId);
 
-    // 만성 질환 환자 식별 (같은 진단으로 3회 이상 방문)
-    @Query("SELECT mr.patient.id, mr.diagnosis, COUNT(mr) as visitCount " +
-            "FROM MedicalRecord mr GROUP BY mr.patient.id, mr.diagnosis " +
-            "HAVING COUNT(mr) >= 3 ORDER BY COUNT(mr) DESC")
-    List<Object[]> findChronicPatients();
+    // 만성 질환 환자 식별은 PatientDiagnosisCountRepository (ChronicConditionTracker가 저장/삭제 때 갱신)
+
+    // 진단 방문 횟수 재계산용 행 (id, patientId, diagnosis) - id 키셋
+    @Query("SELECT mr.id, mr.patient.id, mr.diagnosis FROM MedicalRecord mr WHERE mr.id > :afterId ORDER BY mr.id")
+    List<Object[]> findDiagnosisRows(@Param("afterId") Long afterId, Limit limit);
 
     // 🔥 응급 상황 분석
 
@@ -244,31 +341,7 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
 
     // 🔥 의료진 성과 분석
 
-    // 의사별 환자 만족도 (재방문율 기반) - hospitalName 사용
-    @Query("SELECT d.id, " +
-            "COALESCE(d.hospitalName, d.username) as doctorName, " +
-            "COUNT(DISTINCT mr.patient.id) as uniquePatients, " +
-            "COUNT(mr) as totalVisits, " +
-            "(COUNT(mr) * 1.0 / COUNT(DISTINCT mr.patient.id)) as revisitRate " +
-            "FROM MedicalRecord mr JOIN mr.doctor d " +
-            "WHERE mr.visitDate >= :startDate " +
-            "GROUP BY d.id, d.hospitalName, d.username " +
-            "HAVING COUNT(DISTINCT mr.patient.id) >= 10 " +
-            "ORDER BY revisitRate DESC")
-    List<Object[]> getDoctorRevisitRates(@Param("startDate") LocalDateTime startDate);
-
-    // 의사별 치료 효과 (완료 상태 비율) - hospitalName 사용
-    @Query("SELECT d.id, " +
-            "COALESCE(d.hospitalName, d.username) as doctorName, " +
-            "SUM(CASE WHEN mr.status = 'COMPLETED' THEN 1 ELSE 0 END) as completed, " +
-            "COUNT(mr) as total, " +
-            "(SUM(CASE WHEN mr.status = 'COMPLETED' THEN 1 ELSE 0 END) * 1.0 / COUNT(mr)) as completionRate " +
-            "FROM MedicalRecord mr JOIN mr.doctor d " +
-            "WHERE mr.visitDate >= :startDate " +
-            "GROUP BY d.id, d.hospitalName, d.username " +
-            "HAVING COUNT(mr) >= 10 " +
-            "ORDER BY completionRate DESC")
-    List<Object[]> getDoctorCompletionRates(@Param("startDate") LocalDateTime startDate);
+    // 의사별 재방문율/완료율/진료비/진료과·진단 분포는 DoctorScorecards (일별 집계 합산)
 
     // 🔥 환자 전용 - 내 의료기록
 
@@ -277,6 +350,25 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
             "ORDER BY mr.visitDate DESC")
     List<MedicalRecord> findMyMedicalRecords(@Param("patientId") Long patientId);
 
+    // 타임라인 항목 - 담당 의사를 조인해서 한 번에 읽는다
+    String TIMELINE_SELECT = "SELECT new com.medifit.dto.PatientTimelineItem(mr.id, mr.visitDate, mr.department, " +
+            "mr.diagnosis, mr.treatment, mr.status, COALESCE(d.hospitalName, d.username), mr.medicalFee, " +
+            "mr.aiSummary, dt.aiSummary) " +
+            "FROM MedicalRecord mr JOIN mr.doctor d LEFT JOIN mr.detail dt ";
+
+    // 환자 타임라인 페이지 (visitDate DESC, id DESC)
+    @Query(TIMELINE_SELECT + "WHERE mr.patient.id = :patientId AND " +
+            "(mr.visitDate < :cursorDate OR (mr.visitDate = :cursorDate AND mr.id < :cursorId)) " +
+            "ORDER BY mr.visitDate DESC, mr.id DESC")
+    List<PatientTimelineItem> findTimelineBefore(@Param("patientId") Long patientId,
+                                                 @Param("cursorDate") LocalDateTime cursorDate,
+                                                 @Param("cursorId") Long cursorId,
+                                                 Limit limit);
+
+    // 동기화 응답용 - 환자의 기록 중 ids에 해당하는 것
+    @Query(TIMELINE_SELECT + "WHERE mr.patient.id = :patientId AND mr.id IN :ids")
+    List<PatientTimelineItem> findTimelineItems(@Param("patientId") Long patientId, @Param("ids") Collection<Long> ids);
+
     // 내 최근 진료기록
     @Query("SELECT mr FROM MedicalRecord mr WHERE mr.patient.id = :patientId " +
             "ORDER BY mr.visitDate DESC LIMIT 5")
@@ -303,19 +395,7 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
 
     // 🔥 서비스에서 사용하는 누락된 메서드들
 
-    // 복합 필터링 (진단명과 치료법 동시 검색)
-    @Query("SELECT mr FROM MedicalRecord mr WHERE " +
-            "(:patientId IS NULL OR mr.patient.id = :patientId) AND " +
-            "(:department IS NULL OR LOWER(mr.department) = LOWER(:department)) AND " +
-            "(:diagnosis IS NULL OR LOWER(mr.diagnosis) LIKE LOWER(CONCAT('%', :diagnosis, '%'))) AND " +
-            "(:startDate IS NULL OR mr.visitDate >= :startDate) AND " +
-            "(:endDate IS NULL OR mr.visitDate <= :endDate) " +
-            "ORDER BY mr.visitDate DESC")
-    List<MedicalRecord> findWithFilters(@Param("patientId") Long patientId,
-                                        @Param("department") String department,
-                                        @Param("diagnosis") String diagnosis,
-                                        @Param("startDate") LocalDateTime startDate,
-                                        @Param("endDate") LocalDateTime endDate);
+    // 복합 필터링은 MedicalRecordSpecifications + findAll(Specification, Sort)
 
     // 진단명과 치료법으로 동시 검색
     @Query("SELECT mr FROM MedicalRecord mr WHERE " +
@@ -324,4 +404,82 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
             "ORDER BY mr.visitDate DESC")
     List<MedicalRecord> findByDiagnosisContainingIgnoreCaseAndTreatmentContainingIgnoreCaseOrderByVisitDateDesc(
             @Param("diagnosis") String diagnosis, @Param("treatment") String treatment);
-}
\ No newline at end of file
+
+    // 🔥 코호트 분석
+
+    // 환자별 진료 경과 (patientId, visits, firstVisit, lastVisit, finalStatus) - 패턴은 소문자, '!'로 이스케이프
+    @Query(value = "SELECT c.patient_id, c.visits, c.first_visit, c.visit_date, c.status FROM (" +
+            "SELECT mr.patient_id, mr.visit_date, mr.status, " +
+            "COUNT(*) OVER (PARTITION BY mr.patient_id) AS visits, " +
+            "MIN(mr.visit_date) OVER (PARTITION BY mr.patient_id) AS first_visit, " +
+            "ROW_NUMBER() OVER (PARTITION BY mr.patient_id ORDER BY mr.visit_date DESC, mr.id DESC) AS rn " +
+            "FROM medical_records mr " +
+            "WHERE LOWER(mr.diagnosis) LIKE :diagnosisPattern ESCAPE '!' " +
+            "AND LOWER(mr.treatment) LIKE :treatmentPattern ESCAPE '!') c " +
+            "WHERE c.rn = 1",
+            nativeQuery = true)
+    List<Object[]> findTreatmentCohort(@Param("diagnosisPattern") String diagnosisPattern,
+                                       @Param("treatmentPattern") String treatmentPattern);
+
+    // 🔥 서술형 필드 저장 방식 이관 (MedicalRecordTextStorage)
+
+    // 기록 테이블에 서술형 필드가 남은 기록 (id, 증상, 의사 메모, AI 요약) - 이관하는 동안 잠근다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT mr.id, mr.symptoms, mr.doctorNotes, mr.aiSummary FROM MedicalRecord mr " +
+            "WHERE mr.id > :afterId AND mr.detail IS NULL " +
+            "AND (mr.symptoms IS NOT NULL OR mr.doctorNotes IS NOT NULL OR mr.aiSummary IS NOT NULL) " +
+            "ORDER BY mr.id")
+    List<Object[]> findInlineTextForUpdate(@Param("afterId") Long afterId, Limit limit);
+
+    // 압축 상세가 있는 기록 (id, 상세 id, 증상, 의사 메모, AI 요약) - 이관하는 동안 잠근다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT mr.id, dt.id, dt.symptoms, dt.doctorNotes, dt.aiSummary FROM MedicalRecord mr JOIN mr.detail dt " +
+            "WHERE mr.id > :afterId ORDER BY mr.id")
+    List<Object[]> findDetailTextForUpdate(@Param("afterId") Long afterId, Limit limit);
+
+    // updatedAt은 내용 변경이 아니므로 건드리지 않는다
+    @Modifying
+    @Query("UPDATE MedicalRecord mr SET mr.detail = :detail, mr.symptoms = NULL, mr.doctorNotes = NULL, " +
+            "mr.aiSummary = NULL WHERE mr.id = :id")
+    int attachDetail(@Param("id") Long id, @Param("detail") MedicalRecordDetail detail);
+
+    @Modifying
+    @Query("UPDATE MedicalRecord mr SET mr.detail = NULL, mr.symptoms = :symptoms, mr.doctorNotes = :doctorNotes, " +
+            "mr.aiSummary = :aiSummary WHERE mr.id = :id")
+    int detachDetail(@Param("id") Long id, @Param("symptoms") String symptoms,
+                     @Param("doctorNotes") String doctorNotes, @Param("aiSummary") String aiSummary);
+
+    // 수정 저장 시 기존 압축 상세를 그대로 쓰기 위해 (요청 본문에는 상세가 없다)
+    @Query("SELECT dt FROM MedicalRecord mr JOIN mr.detail dt WHERE mr.id = :id")
+    Optional<MedicalRecordDetail> findDetailByRecordId(@Param("id") Long id);
+
+    long countByDetailIsNotNull();
+
+    @Query("SELECT COUNT(mr) FROM MedicalRecord mr WHERE mr.detail IS NULL " +
+            "AND (mr.symptoms IS NOT NULL OR mr.doctorNotes IS NOT NULL OR mr.aiSummary IS NOT NULL)")
+    long countInlineText();
+
+    // 🔥 보관 (MedicalRecordArchiveJob)
+
+    // 처방전이 참조하지 않는 기록 중 가장 이른 진료일시
+    @Query("SELECT MIN(mr.visitDate) FROM MedicalRecord mr WHERE mr.visitDate < :before " +
+            "AND NOT EXISTS (SELECT p.id FROM Prescription p WHERE p.medicalRecord = mr)")
+    Optional<LocalDateTime> findEarliestArchivableVisitDate(@Param("before") LocalDateTime before);
+
+    // 진료월의 보관 대상 - 세그먼트 정렬 순서 (환자, 진료일시, id) 키셋. 세그먼트를 쓰고 지울 때까지 잠근다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT mr FROM MedicalRecord mr LEFT JOIN FETCH mr.detail " +
+            "WHERE mr.visitDate >= :monthStart AND mr.visitDate < :monthEnd " +
+            "AND NOT EXISTS (SELECT p.id FROM Prescription p WHERE p.medicalRecord = mr) " +
+            "AND (mr.patient.id > :afterPatientId OR (mr.patient.id = :afterPatientId " +
+            "AND (mr.visitDate > :afterVisitDate OR (mr.visitDate = :afterVisitDate AND mr.id > :afterId)))) " +
+            "ORDER BY mr.patient.id, mr.visitDate, mr.id")
+    List<MedicalRecord> findArchivableForUpdate(@Param("monthStart") LocalDateTime monthStart,
+                                                @Param("monthEnd") LocalDateTime monthEnd,
+                                                @Param("afterPatientId") Long afterPatientId,
+                                                @Param("afterVisitDate") LocalDateTime afterVisitDate,
+                                                @Param("afterId") Long afterId,
+                                                Limit limit);
+
+    long countByVisitDateBefore(LocalDateTime before);
+}
@@ -0,0 +1,441 @@
+package com.medifit.repository;
+
+import com.medifit.dto.ArchivedMedicalRecord;
+import com.medifit.enums.RecordStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 의료기록 보관 세그먼트 파일 형식 (한 달치, 쓰고 나면 바뀌지 않는다)
+ *
+ * [헤더 16B: 매직, 버전, 진료월] [블록...] [블록 색인] [트레일러 16B: 색인 위치, 색인 CRC, 매직]
+ * 기록은 (환자, 진료일시, id) 순으로 정렬해 blockRecords건씩 Deflate로 압축한다. 블록 색인은 블록마다
+ * 첫/마지막 환자 id와 위치를 담는 희소 색인이라, 환자 조건이 있으면 해당 환자가 걸친 블록만 읽는다.
+ */
+final class MedicalRecordSegmentFile {
+
+    static final int MAGIC = 0x4D465347; // "MFSG"
+    static final short VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 40;
+    private static final int TRAILER_BYTES = 16;
+
+    static final Comparator<ArchivedMedicalRecord> ORDER = Comparator
+            .comparing(ArchivedMedicalRecord::patientId)
+            .thenComparing(ArchivedMedicalRecord::visitDate)
+            .thenComparing(ArchivedMedicalRecord::id);
+
+    private MedicalRecordSegmentFile() {}
+
+    /**
+     * 블록 색인 항목. offset/compressedBytes는 파일 안 위치, crc는 압축 전 블록의 CRC32.
+     */
+    record Block(long firstPatientId, long lastPatientId, long offset, int compressedBytes, int rawBytes,
+                 int records, int crc) {}
+
+    /**
+     * 다 쓴 세그먼트 요약
+     */
+    record Summary(int records, int blocks, long rawBytes, long fileBytes) {}
+
+    // 🔥 쓰기
+
+    /**
+     * 정렬 순서(ORDER)대로 append한 뒤 finish()로 색인과 트레일러를 쓴다. 임시 파일에 쓰고 옮기는 것은 호출 측 몫이다.
+     */
+    static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final int blockRecords;
+        private final List<Block> blocks = new ArrayList<>();
+        private final List<ArchivedMedicalRecord> pending = new ArrayList<>();
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private ArchivedMedicalRecord last;
+        private long position;
+        private long rawBytes;
+        private int records;
+
+        Writer(Path path, LocalDate monthStart, int blockRecords) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.blockRecords = blockRecords;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(monthStart.toEpochDay()).flip();
+            write(header);
+        }
+
+        void append(ArchivedMedicalRecord record) throws IOException {
+            if (last != null && ORDER.compare(last, record) >= 0) {
+                throw new IllegalArgumentException("세그먼트 기록은 (환자, 진료일시, id) 순이어야 합니다: " + record.id());
+            }
+            last = record;
+            pending.add(record);
+            records++;
+            if (pending.size() >= blockRecords) {
+                flushBlock();
+            }
+        }
+
+        Summary finish() throws IOException {
+            flushBlock();
+            long indexOffset = position;
+            ByteBuffer index = ByteBuffer.allocate(4 + blocks.size() * INDEX_ENTRY_BYTES);
+            index.putInt(blocks.size());
+            for (Block block : blocks) {
+                index.putLong(block.firstPatientId()).putLong(block.lastPatientId()).putLong(block.offset())
+                        .putInt(block.compressedBytes()).putInt(block.rawBytes()).putInt(block.records())
+                        .putInt(block.crc());
+            }
+            index.flip();
+            int indexCrc = crc(index.array(), index.limit());
+            write(index);
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            trailer.putLong(indexOffset).putInt(indexCrc).putInt(MAGIC).flip();
+            write(trailer);
+            channel.force(true);
+            return new Summary(records, blocks.size(), rawBytes, position);
+        }
+
+        private void flushBlock() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(raw);
+            for (ArchivedMedicalRecord record : pending) {
+                writeRecord(out, record);
+            }
+            out.flush();
+            byte[] bytes = raw.toByteArray();
+
+            deflater.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 3 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+
+            byte[] body = compressed.toByteArray();
+            blocks.add(new Block(pending.get(0).patientId(), pending.get(pending.size() - 1).patientId(), position,
+                    body.length, bytes.length, pending.size(), crc(bytes, bytes.length)));
+            write(ByteBuffer.wrap(body));
+            rawBytes += bytes.length;
+            pending.clear();
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    // 🔥 읽기
+
+    /**
+     * 열어 둔 세그먼트. 블록 색인만 메모리에 두고 블록은 위치 지정 읽기로 그때그때 읽으므로 여러 스레드가 함께 써도 된다.
+     */
+    static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final LocalDate monthStart;
+        private final List<Block> blocks;
+
+        private Reader(FileChannel channel, LocalDate monthStart, List<Block> blocks) {
+            this.channel = channel;
+            this.monthStart = monthStart;
+            this.blocks = blocks;
+        }
+
+        static Reader open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < HEADER_BYTES + TRAILER_BYTES) {
+                    throw corrupt(path, "크기");
+                }
+                ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+                if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+                    throw corrupt(path, "헤더");
+                }
+                header.getShort();
+                LocalDate monthStart = LocalDate.ofEpochDay(header.getLong());
+
+                ByteBuffer trailer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+                long indexOffset = trailer.getLong();
+                int indexCrc = trailer.getInt();
+                if (trailer.getInt() != MAGIC || indexOffset < HEADER_BYTES || indexOffset > size - TRAILER_BYTES - 4) {
+                    throw corrupt(path, "트레일러");
+                }
+                ByteBuffer index = readFully(channel, indexOffset, (int) (size - TRAILER_BYTES - indexOffset));
+                if (crc(index.array(), index.limit()) != indexCrc) {
+                    throw corrupt(path, "블록 색인");
+                }
+                int count = index.getInt();
+                List<Block> blocks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    blocks.add(new Block(index.getLong(), index.getLong(), index.getLong(), index.getInt(),
+                            index.getInt(), index.getInt(), index.getInt()));
+                }
+                return new Reader(channel, monthStart, List.copyOf(blocks));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        LocalDate getMonthStart() { return monthStart; }
+
+        List<Block> getBlocks() { return blocks; }
+
+        /**
+         * 진료일시가 [from, to]인 기록 (patientId, from, to 모두 선택). 세그먼트 정렬 순서로 돌려준다.
+         */
+        List<ArchivedMedicalRecord> read(Long patientId, LocalDateTime from, LocalDateTime to) throws IOException {
+            List<ArchivedMedicalRecord> result = new ArrayList<>();
+            for (int i = patientId != null ? firstBlockFor(patientId) : 0; i < blocks.size(); i++) {
+                Block block = blocks.get(i);
+                if (patientId != null && block.firstPatientId() > patientId) {
+                    break;
+                }
+                for (ArchivedMedicalRecord record : readBlock(block)) {
+                    if ((patientId == null || record.patientId().equals(patientId))
+                            && (from == null || !record.visitDate().isBefore(from))
+                            && (to == null || !record.visitDate().isAfter(to))) {
+                        result.add(record);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * fromPatientId가 걸친 첫 블록부터 세그먼트 정렬 순서로 기록을 하나씩 돌려준다. 블록은 다음 기록이 필요할 때
+         * 하나씩 풀고, toPatientId가 있으면 그 환자보다 뒤에서 시작하는 블록은 읽지 않는다.
+         */
+        Iterator<ArchivedMedicalRecord> iterator(long fromPatientId, Long toPatientId) {
+            return new Iterator<>() {
+                private int nextBlock = firstBlockFor(fromPatientId);
+                private Iterator<ArchivedMedicalRecord> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && nextBlock < blocks.size()) {
+                        Block block = blocks.get(nextBlock++);
+                        if (toPatientId != null && block.firstPatientId() > toPatientId) {
+                            nextBlock = blocks.size();
+                            break;
+                        }
+                        try {
+                            current = readBlock(block).iterator();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public ArchivedMedicalRecord next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+
+        // lastPatientId >= patientId인 첫 블록 (블록은 환자 순이라 이진 탐색)
+        private int firstBlockFor(long patientId) {
+            int low = 0;
+            int high = blocks.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (blocks.get(mid).lastPatientId() < patientId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        List<ArchivedMedicalRecord> readBlock(Block block) throws IOException {
+            byte[] compressed = readFully(channel, block.offset(), block.compressedBytes()).array();
+            byte[] raw = new byte[block.rawBytes()];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                int read = 0;
+                while (read < raw.length && !inflater.finished()) {
+                    int n = inflater.inflate(raw, read, raw.length - read);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    read += n;
+                }
+                if (read != raw.length || crc(raw, raw.length) != block.crc()) {
+                    throw new IllegalStateException("보관 세그먼트 블록이 손상되었습니다 (offset " + block.offset() + ")");
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("보관 세그먼트 블록이 손상되었습니다 (offset " + block.offset() + ")", e);
+            } finally {
+                inflater.end();
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+            List<ArchivedMedicalRecord> records = new ArrayList<>(block.records());
+            for (int i = 0; i < block.records(); i++) {
+                records.add(readRecord(in));
+            }
+            return records;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // 🔥 기록 직렬화
+
+    private static void writeRecord(DataOutputStream out, ArchivedMedicalRecord record) throws IOException {
+        out.writeLong(record.id());
+        out.writeLong(record.patientId());
+        out.writeLong(record.doctorId());
+        writeNullableLong(out, record.appointmentId());
+        writeString(out, record.department());
+        writeString(out, record.symptoms());
+        writeString(out, record.diagnosis());
+        writeString(out, record.treatment());
+        writeString(out, record.doctorNotes());
+        writeString(out, record.aiSummary());
+        writeString(out, record.status() != null ? record.status().name() : null);
+        writeDateTime(out, record.visitDate());
+        writeDateTime(out, record.createdAt());
+        writeDateTime(out, record.updatedAt());
+        writeNullableLong(out, record.medicalFee() != null ? record.medicalFee().longValue() : null);
+        writeString(out, record.roomNumber());
+    }
+
+    private static ArchivedMedicalRecord readRecord(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        long patientId = in.readLong();
+        long doctorId = in.readLong();
+        Long appointmentId = readNullableLong(in);
+        String department = readString(in);
+        String symptoms = readString(in);
+        String diagnosis = readString(in);
+        String treatment = readString(in);
+        String doctorNotes = readString(in);
+        String aiSummary = readString(in);
+        String status = readString(in);
+        LocalDateTime visitDate = readDateTime(in);
+        LocalDateTime createdAt = readDateTime(in);
+        LocalDateTime updatedAt = readDateTime(in);
+        Long medicalFee = readNullableLong(in);
+        String roomNumber = readString(in);
+        return new ArchivedMedicalRecord(id, patientId, doctorId, appointmentId, department, symptoms, diagnosis,
+                treatment, doctorNotes, aiSummary, status != null ? RecordStatus.valueOf(status) : null, visitDate,
+                createdAt, updatedAt, medicalFee != null ? medicalFee.intValue() : null, roomNumber);
+    }
+
+    // 길이 -1이 null (writeUTF는 64KB 제한이 있어 쓰지 않는다)
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    // 🔥 공통
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("보관 세그먼트가 예상보다 짧습니다.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static IllegalStateException corrupt(Path path, String part) {
+        return new IllegalStateException("보관 세그먼트 " + part + "이(가) 손상되었습니다: " + path.getFileName());
+    }
+}
@@ -0,0 +1,366 @@
+package com.medifit.repository;
+
+import com.medifit.dto.ArchivedMedicalRecord;
+import com.medifit.dto.MedicalRecordExportKey;
+import com.medifit.entity.MedicalRecordArchiveSegment;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 의료기록 보관 세그먼트 파일 저장소 (콜드 계층)
+ *
+ * 세그먼트 목록은 medical_record_archive_segments에 있고, 파일은 처음 읽을 때 열어 블록 색인만 메모리에 둔다.
+ * 목록은 월마다 몇 행뿐이라 조회할 때마다 다시 읽는다 (다른 인스턴스가 보관한 세그먼트도 바로 보인다).
+ *
+ * 세그먼트 목록은 DB에 하나뿐이므로 디렉터리는 모든 인스턴스가 같이 보는 공유 스토리지(NFS 등)여야 한다.
+ * 시작할 때 목록에 있는 세그먼트 파일이 디렉터리에 모두 있는지 확인하고, 없으면 시작하지 않는다.
+ */
+@Repository
+public class MedicalRecordSegmentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordSegmentStore.class);
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Autowired
+    private MedicalRecordArchiveSegmentRepository segmentRepository;
+
+    // 모든 인스턴스가 같이 보는 공유 스토리지여야 한다
+    @Value("${medifit.medical-record.archive.dir:archive/medical-records}")
+    private Path directory;
+
+    // 블록 하나에 담는 기록 수 - 환자 조회는 해당 환자가 걸친 블록만 풀므로 작을수록 읽는 양이 적다
+    @Value("${medifit.medical-record.archive.block-records:256}")
+    private int blockRecords;
+
+    // 목록에 없는 파일이라도 이 시간 안에 쓴 것은 지우지 않는다 - 다른 실행이 쓰고 아직 커밋하지 않은 세그먼트일 수 있다
+    @Value("${medifit.medical-record.archive.orphan-grace-minutes:1440}")
+    private long orphanGraceMinutes;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Map<String, MedicalRecordSegmentFile.Reader> readers = new ConcurrentHashMap<>();
+
+    // 이 인스턴스에서 쓰는 중인 세그먼트 이름 - 정리 대상에서 뺀다
+    private final Set<String> writing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 쓰는 중인 세그먼트. commit()하면 임시 파일을 세그먼트 이름으로 원자적으로 옮기고 읽기 전용으로 만든다.
+     * commit하지 않고 닫으면 임시 파일을 지운다.
+     */
+    public final class PendingSegment implements AutoCloseable {
+
+        private final LocalDate monthStart;
+        private final String fileName;
+        private final Path temp;
+        private final MedicalRecordSegmentFile.Writer writer;
+        private boolean committed;
+
+        private PendingSegment(LocalDate monthStart, String fileName) throws IOException {
+            this.monthStart = monthStart;
+            this.fileName = fileName;
+            this.temp = directory.resolve(fileName + TEMP_SUFFIX);
+            writing.add(fileName);
+            try {
+                this.writer = new MedicalRecordSegmentFile.Writer(temp, monthStart, blockRecords);
+            } catch (IOException e) {
+                writing.remove(fileName);
+                throw e;
+            }
+        }
+
+        /**
+         * (환자, 진료일시, id) 순으로 추가해야 한다.
+         */
+        public void append(ArchivedMedicalRecord record) {
+            try {
+                writer.append(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return 세그먼트 목록에 추가할 행 (저장은 기록 삭제와 같은 트랜잭션에서 호출 측이 한다)
+         */
+        public MedicalRecordArchiveSegment commit() {
+            try {
+                MedicalRecordSegmentFile.Summary summary = writer.finish();
+                writer.close();
+                Path target = directory.resolve(fileName);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                target.toFile().setReadOnly();
+                committed = true;
+                return new MedicalRecordArchiveSegment(monthStart, fileName, summary.records(), summary.rawBytes(),
+                        summary.fileBytes(), LocalDateTime.now());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            writing.remove(fileName);
+            if (committed) {
+                return;
+            }
+            try {
+                writer.close();
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                logger.warn("보관 세그먼트 임시 파일 정리 실패 - {}: {}", temp, e.getMessage());
+            }
+        }
+    }
+
+    // 🔥 쓰기
+
+    /**
+     * 진료월의 새 세그먼트를 연다. 같은 달을 여러 번 보관하면 (늦게 들어온 기록 등) 일련번호가 붙은 세그먼트가 더 생긴다.
+     */
+    public PendingSegment create(LocalDate monthStart) {
+        try {
+            Files.createDirectories(directory);
+            long sequence = segmentRepository.countByMonthStart(monthStart) + 1;
+            String fileName;
+            // 남아 있는 임시 파일은 다른 실행이 쓰는 중일 수 있으므로 지우지 않고 다음 번호를 쓴다
+            do {
+                fileName = monthStart.format(MONTH) + "-" + sequence++ + SEGMENT_SUFFIX;
+            } while (Files.exists(directory.resolve(fileName)) || Files.exists(directory.resolve(fileName + TEMP_SUFFIX)));
+            return new PendingSegment(monthStart, fileName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 목록에 없는 세그먼트(기록 삭제 트랜잭션이 롤백된 경우)와 남은 임시 파일을 지운다.
+     * orphan-grace-minutes 안에 고친 파일과 이 인스턴스가 쓰는 중인 파일은 남긴다.
+     *
+     * @return 지운 파일 수
+     */
+    public int removeOrphans() {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        Set<String> known = new HashSet<>();
+        segmentRepository.findAll().forEach(segment -> known.add(segment.getFileName()));
+        Instant modifiedBefore = clock.instant().minus(Duration.ofMinutes(orphanGraceMinutes));
+
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean orphan = name.endsWith(TEMP_SUFFIX)
+                        ? !writing.contains(name.substring(0, name.length() - TEMP_SUFFIX.length()))
+                        : name.endsWith(SEGMENT_SUFFIX) && !known.contains(name) && !writing.contains(name);
+                if (orphan && Files.getLastModifiedTime(file).toInstant().isBefore(modifiedBefore)) {
+                    closeReader(name);
+                    file.toFile().setWritable(true);
+                    Files.deleteIfExists(file);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return removed;
+    }
+
+    /**
+     * 목록에 있는 세그먼트 파일이 모두 디렉터리에 있는지 확인한다. 없으면 이 인스턴스가 다른 디렉터리를 보고 있는 것이다
+     * (공유 스토리지가 아니거나 마운트되지 않음) - 시작할 때와 보관 작업 전에 확인한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyDirectory() {
+        List<String> missing = segmentRepository.findAll().stream()
+                .map(MedicalRecordArchiveSegment::getFileName)
+                .filter(name -> !Files.isRegularFile(directory.resolve(name)))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("보관 세그먼트 " + missing.size() + "개가 " + directory.toAbsolutePath()
+                    + "에 없습니다 (예: " + missing.get(0) + "). medifit.medical-record.archive.dir는 모든 인스턴스가 같이 보는 공유 스토리지여야 합니다.");
+        }
+    }
+
+    // 🔥 조회
+
+    /**
+     * 보관이 끝난 시점 - 이보다 이른 진료월은 (남겨 둔 기록을 빼면) 세그먼트에만 있다. 보관한 적이 없으면 null.
+     */
+    public LocalDateTime archivedUntil() {
+        return segmentRepository.findFirstByOrderByMonthStartDesc()
+                .map(segment -> segment.getMonthStart().plusMonths(1).atStartOfDay())
+                .orElse(null);
+    }
+
+    /**
+     * 진료일시가 [startDate, endDate]인 보관 기록 (모두 선택 조건). 진료월이 겹치는 세그먼트만 연다.
+     */
+    public List<ArchivedMedicalRecord> find(Long patientId, LocalDateTime startDate, LocalDateTime endDate) {
+        List<ArchivedMedicalRecord> result = new ArrayList<>();
+        for (MedicalRecordArchiveSegment segment : segmentRepository.findAllByOrderByMonthStartAscIdAsc()) {
+            if (!overlaps(segment, startDate, endDate)) {
+                continue;
+            }
+            try {
+                result.addAll(reader(segment.getFileName()).read(patientId, startDate, endDate));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 진료일시가 [startDate, endDate)이고 정렬 키가 after보다 뒤인 보관 기록을 (환자, 진료일시, id) 순으로 하나씩 넘긴다
+     * (patientId, startDate, endDate, after 모두 선택). 진료월이 겹치는 세그먼트마다 블록 하나씩만 풀어 두고
+     * k-way 병합하므로, 메모리 사용량은 기록 수가 아니라 겹치는 세그먼트 수에 비례한다.
+     */
+    public Iterator<ArchivedMedicalRecord> scan(Long patientId, LocalDateTime startDate, LocalDateTime endDate,
+                                                MedicalRecordExportKey after) {
+        long fromPatientId = Math.max(patientId != null ? patientId : Long.MIN_VALUE,
+                after != null ? after.patientId() : Long.MIN_VALUE);
+        PriorityQueue<SegmentCursor> heads = new PriorityQueue<>();
+        for (MedicalRecordArchiveSegment segment : segmentRepository.findAllByOrderByMonthStartAscIdAsc()) {
+            if (!overlaps(segment, startDate, endDate)) {
+                continue;
+            }
+            Iterator<ArchivedMedicalRecord> records = reader(segment.getFileName()).iterator(fromPatientId, patientId);
+            SegmentCursor cursor = new SegmentCursor(records, record ->
+                    (patientId == null || record.patientId().equals(patientId))
+                            && (startDate == null || !record.visitDate().isBefore(startDate))
+                            && (endDate == null || record.visitDate().isBefore(endDate))
+                            && (after == null || MedicalRecordExportKey.of(record).compareTo(after) > 0));
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public ArchivedMedicalRecord next() {
+                SegmentCursor cursor = heads.poll();
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+                ArchivedMedicalRecord record = cursor.head;
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+                return record;
+            }
+        };
+    }
+
+    // 세그먼트 하나의 다음 기록 - 병합 큐에서 head의 정렬 순서로 비교한다
+    private static final class SegmentCursor implements Comparable<SegmentCursor> {
+
+        private final Iterator<ArchivedMedicalRecord> records;
+        private final Predicate<ArchivedMedicalRecord> filter;
+        private ArchivedMedicalRecord head;
+
+        private SegmentCursor(Iterator<ArchivedMedicalRecord> records, Predicate<ArchivedMedicalRecord> filter) {
+            this.records = records;
+            this.filter = filter;
+        }
+
+        // 조건에 맞는 다음 기록으로 옮긴다. 없으면 false
+        private boolean advance() {
+            while (records.hasNext()) {
+                ArchivedMedicalRecord record = records.next();
+                if (filter.test(record)) {
+                    head = record;
+                    return true;
+                }
+            }
+            head = null;
+            return false;
+        }
+
+        @Override
+        public int compareTo(SegmentCursor other) {
+            return MedicalRecordSegmentFile.ORDER.compare(head, other.head);
+        }
+    }
+
+    private static boolean overlaps(MedicalRecordArchiveSegment segment, LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDateTime monthStart = segment.getMonthStart().atStartOfDay();
+        return (endDate == null || !monthStart.isAfter(endDate))
+                && (startDate == null || monthStart.plusMonths(1).isAfter(startDate));
+    }
+
+    /**
+     * 모든 보관 기록을 세그먼트/블록 순서대로 넘긴다 (재계산용 - 메모리에는 블록 하나씩만 올린다)
+     */
+    public void forEach(Consumer<ArchivedMedicalRecord> action) {
+        for (MedicalRecordArchiveSegment segment : segmentRepository.findAllByOrderByMonthStartAscIdAsc()) {
+            try {
+                MedicalRecordSegmentFile.Reader reader = reader(segment.getFileName());
+                for (MedicalRecordSegmentFile.Block block : reader.getBlocks()) {
+                    reader.readBlock(block).forEach(action);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private MedicalRecordSegmentFile.Reader reader(String fileName) {
+        return readers.computeIfAbsent(fileName, name -> {
+            try {
+                return MedicalRecordSegmentFile.Reader.open(directory.resolve(name));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (String fileName : List.copyOf(readers.keySet())) {
+            closeReader(fileName);
+        }
+    }
+
+    private void closeReader(String fileName) throws IOException {
+        MedicalRecordSegmentFile.Reader reader = readers.remove(fileName);
+        if (reader != null) {
+            reader.close();
+        }
+    }
+}
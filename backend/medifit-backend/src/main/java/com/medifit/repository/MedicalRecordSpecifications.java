@@ -0,0 +1,65 @@
+package com.medifit.repository;
+
+import com.medifit.entity.MedicalRecord;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * 의료기록 동적 필터 조건
+ *
+ * 값이 없는 조건은 null(조건 없음)을 돌려주므로, 실제로 준 조건만 SQL에 들어간다.
+ * (:param IS NULL OR ...) 한 쿼리로 모든 조합을 처리하면 DB가 인덱스를 고르지 못하고 모든 조합이 같은 계획을 쓴다.
+ * 환자/의사 + 진료일 조건은 (patient_id, visit_date), (doctor_id, visit_date) 인덱스를 탄다.
+ */
+public final class MedicalRecordSpecifications {
+
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("visitDate"), Sort.Order.desc("id"));
+
+    private MedicalRecordSpecifications() {}
+
+    /**
+     * findWithFilters 조건 (모두 선택). 진료일은 [startDate, endDate] 범위이다.
+     */
+    public static Specification<MedicalRecord> filter(Long patientId, String department, String diagnosis,
+                                                      LocalDateTime startDate, LocalDateTime endDate) {
+        return Specification.allOf(patientIdEquals(patientId), departmentEqualsIgnoreCase(department),
+                diagnosisContains(diagnosis), visitedFrom(startDate), visitedUntil(endDate));
+    }
+
+    public static Specification<MedicalRecord> patientIdEquals(Long patientId) {
+        return patientId == null ? null : (root, query, cb) -> cb.equal(root.get("patient").get("id"), patientId);
+    }
+
+    public static Specification<MedicalRecord> doctorIdEquals(Long doctorId) {
+        return doctorId == null ? null : (root, query, cb) -> cb.equal(root.get("doctor").get("id"), doctorId);
+    }
+
+    public static Specification<MedicalRecord> departmentEqualsIgnoreCase(String department) {
+        return isBlank(department) ? null : (root, query, cb) ->
+                cb.equal(cb.lower(root.get("department")), department.trim().toLowerCase());
+    }
+
+    public static Specification<MedicalRecord> diagnosisContains(String diagnosis) {
+        return isBlank(diagnosis) ? null : (root, query, cb) ->
+                cb.like(cb.lower(root.get("diagnosis")), "%" + escapeLike(diagnosis.trim().toLowerCase()) + "%", '!');
+    }
+
+    public static Specification<MedicalRecord> visitedFrom(LocalDateTime startDate) {
+        return startDate == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("visitDate"), startDate);
+    }
+
+    public static Specification<MedicalRecord> visitedUntil(LocalDateTime endDate) {
+        return endDate == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("visitDate"), endDate);
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // LIKE 패턴 문자를 '!'로 이스케이프 (검색어의 %, _를 글자 그대로 찾는다)
+    static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
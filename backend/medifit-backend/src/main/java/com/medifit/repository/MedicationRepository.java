@@ -1,16 +1,22 @@
 package com.medifit.repository;
 
+import com.medifit.dto.PatientTimelineItem;
 import com.medifit.entity.Medication;
 import com.medifit.entity.Patient;
 import com.medifit.enums.MedicationStatus;
 import com.medifit.enums.MedicationTime;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +31,27 @@ public interface MedicationRepository extends JpaRepository<Medication, Long> {
     // 환자 ID로 복약 조회
     List<Medication> findByPatientIdOrderByCreatedAtDesc(Long patientId);
 
+    String TIMELINE_SELECT = "SELECT new com.medifit.dto.PatientTimelineItem(m.id, m.startDate, m.medicationName, " +
+            "m.dosage, m.status) FROM Medication m ";
+
+    // 환자 타임라인 페이지 (startDate DESC, id DESC)
+    @Query(TIMELINE_SELECT + "WHERE m.patient.id = :patientId AND " +
+            "(m.startDate < :cursorDate OR (m.startDate = :cursorDate AND m.id < :cursorId)) " +
+            "ORDER BY m.startDate DESC, m.id DESC")
+    List<PatientTimelineItem> findTimelineBefore(@Param("patientId") Long patientId,
+                                                 @Param("cursorDate") LocalDate cursorDate,
+                                                 @Param("cursorId") Long cursorId,
+                                                 Limit limit);
+
+    // 동기화 응답용 - 환자의 복약 중 ids에 해당하는 것
+    @Query(TIMELINE_SELECT + "WHERE m.patient.id = :patientId AND m.id IN :ids")
+    List<PatientTimelineItem> findTimelineItems(@Param("patientId") Long patientId, @Param("ids") Collection<Long> ids);
+
+    // 저장/삭제 전 DB의 환자 ID (변경 로그용) - 저장 전 상태를 읽어야 하므로 자동 flush 하지 않는다
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT m.patient.id FROM Medication m WHERE m.id = :id")
+    Optional<Long> findPatientIdById(@Param("id") Long id);
+
     // 상태별 복약 조회
     List<Medication> findByStatusOrderByCreatedAtDesc(MedicationStatus status);
 
@@ -0,0 +1,36 @@
+package com.medifit.repository;
+
+import com.medifit.entity.PatientDiagnosisCount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PatientDiagnosisCountRepository extends JpaRepository<PatientDiagnosisCount, Long> {
+
+    // 🔥 쓰기 경로
+
+    // 같은 (환자, 진단 키) 행을 잠그고 조회 - 의료기록 저장 트랜잭션 안에서 사용
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<PatientDiagnosisCount> findByPatientIdAndDiagnosisKey(Long patientId, String diagnosisKey);
+
+    // 🔥 만성 질환 환자 조회 (visit_count 인덱스)
+
+    @Query("SELECT c FROM PatientDiagnosisCount c WHERE c.visitCount >= :threshold " +
+            "ORDER BY c.visitCount DESC, c.patientId")
+    List<PatientDiagnosisCount> findChronic(@Param("threshold") long threshold);
+
+    // 병원(담당 의사)에서 진료받은 적이 있는 환자만 - 만성 행마다 환자 인덱스로 확인한다
+    @Query("SELECT c FROM PatientDiagnosisCount c WHERE c.visitCount >= :threshold " +
+            "AND EXISTS (SELECT 1 FROM MedicalRecord mr WHERE mr.patient.id = c.patientId " +
+            "AND mr.doctor.id = :hospitalId) " +
+            "ORDER BY c.visitCount DESC, c.patientId")
+    List<PatientDiagnosisCount> findChronicByHospital(@Param("threshold") long threshold,
+                                                      @Param("hospitalId") Long hospitalId);
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -154,4 +155,8 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
                                           @Param("bloodType") String bloodType,
                                           @Param("gender") Gender gender,
                                           @Param("hospitalId") Long hospitalId);
-}
\ No newline at end of file
+
+    // 일괄 등록 검증용 - 존재하는 ID만 반환
+    @Query("SELECT p.id FROM Patient p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+}
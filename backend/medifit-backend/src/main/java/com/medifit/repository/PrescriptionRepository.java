@@ -1,15 +1,18 @@
 package com.medifit.repository;
 
+import com.medifit.dto.PatientTimelineItem;
 import com.medifit.entity.Patient;
 import com.medifit.entity.Prescription;
 import com.medifit.enums.PrescriptionStatus;
 import com.medifit.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +28,23 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     // 환자 ID로 처방전 조회
     List<Prescription> findByPatientIdOrderByPrescribedDateDesc(Long patientId);
 
+    String TIMELINE_SELECT = "SELECT new com.medifit.dto.PatientTimelineItem(p.id, p.prescribedDate, " +
+            "p.prescriptionNumber, p.status, COALESCE(d.hospitalName, d.username), p.instructions) " +
+            "FROM Prescription p JOIN p.doctor d ";
+
+    // 환자 타임라인 페이지 (prescribedDate DESC, id DESC)
+    @Query(TIMELINE_SELECT + "WHERE p.patient.id = :patientId AND " +
+            "(p.prescribedDate < :cursorDate OR (p.prescribedDate = :cursorDate AND p.id < :cursorId)) " +
+            "ORDER BY p.prescribedDate DESC, p.id DESC")
+    List<PatientTimelineItem> findTimelineBefore(@Param("patientId") Long patientId,
+                                                 @Param("cursorDate") LocalDateTime cursorDate,
+                                                 @Param("cursorId") Long cursorId,
+                                                 Limit limit);
+
+    // 동기화 응답용 - 환자의 처방전 중 ids에 해당하는 것
+    @Query(TIMELINE_SELECT + "WHERE p.patient.id = :patientId AND p.id IN :ids")
+    List<PatientTimelineItem> findTimelineItems(@Param("patientId") Long patientId, @Param("ids") Collection<Long> ids);
+
     // 의사별 처방전 조회
     List<Prescription> findByDoctorOrderByPrescribedDateDesc(User doctor);
 
@@ -65,6 +85,8 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     // 진료기록과 연관된 처방전 조회
     Optional<Prescription> findByMedicalRecordId(Long medicalRecordId);
 
+    boolean existsByMedicalRecordId(Long medicalRecordId);
+
     // 약국 메모가 있는 처방전 조회
     List<Prescription> findByPharmacyNotesIsNotNullOrderByPrescribedDateDesc();
 
@@ -0,0 +1,45 @@
+package com.medifit.repository;
+
+import com.medifit.entity.SyncChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SyncChangeRepository extends JpaRepository<SyncChange, Long> {
+
+    // 🔥 동기화 조회
+
+    // 토큰 이후 변경 (id 순)
+    List<SyncChange> findByPatientIdAndIdGreaterThanOrderByIdAsc(Long patientId, Long afterId, Limit limit);
+
+    // 토큰 이전 id로 늦게 커밋된 변경 - 재조회 구간(rescanFrom 이후)만 본다
+    @Query("SELECT c FROM SyncChange c WHERE c.patientId = :patientId AND c.id <= :afterId " +
+            "AND c.changedAt >= :rescanFrom ORDER BY c.id ASC")
+    List<SyncChange> findLateCommitted(@Param("patientId") Long patientId,
+                                       @Param("afterId") Long afterId,
+                                       @Param("rescanFrom") LocalDateTime rescanFrom);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM SyncChange c")
+    long findMaxId();
+
+    // 🔥 압축
+
+    // 같은 엔티티의 더 최신 행이 있는 오래된 행
+    @Modifying
+    @Query("DELETE FROM SyncChange c WHERE c.changedAt < :before AND EXISTS (" +
+            "SELECT n.id FROM SyncChange n WHERE n.patientId = c.patientId AND n.entityType = c.entityType " +
+            "AND n.entityId = c.entityId AND n.id > c.id)")
+    int deleteSuperseded(@Param("before") LocalDateTime before);
+
+    // 보존 기간이 지난 행
+    @Modifying
+    @Query("DELETE FROM SyncChange c WHERE c.changedAt < :cutoff")
+    int deleteChangedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,38 @@
+package com.medifit.repository;
+
+import com.medifit.entity.WaitlistEntry;
+import com.medifit.enums.WaitlistStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // 🔥 대기열 조회 (엔티티의 getPatientId/getHospitalId와 구분하기 위해 연관 경로를 _로 지정)
+
+    // 병원/진료과 대기열 복원용
+    List<WaitlistEntry> findByHospital_IdAndDepartmentAndStatusIn(Long hospitalId, String department,
+                                                                 Collection<WaitlistStatus> statuses);
+
+    // 환자의 대기 신청 목록
+    List<WaitlistEntry> findByPatient_IdOrderByRequestedAtDesc(Long patientId);
+
+    // 같은 병원/진료과 중복 신청 여부
+    boolean existsByPatient_IdAndHospital_IdAndDepartmentAndStatusIn(Long patientId, Long hospitalId, String department,
+                                                                   Collection<WaitlistStatus> statuses);
+
+    // 🔥 상태 관리
+
+    // 희망 기간이 지난 대기 신청 일괄 만료
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = com.medifit.enums.WaitlistStatus.EXPIRED, w.updatedAt = :now " +
+            "WHERE w.status IN :statuses AND w.latestDate < :now")
+    int expireOutdated(@Param("statuses") Collection<WaitlistStatus> statuses, @Param("now") LocalDateTime now);
+}
@@ -1,44 +1,201 @@
 package com.medifit.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
 @Service
 public class AIService {
 
     private static final Logger logger = LoggerFactory.getLogger(AIService.class);
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AiResponseCache aiResponseCache;
+
+    // OpenAI 호환 Chat Completions 서버 주소 (비어 있으면 LLM을 호출하지 않고 규칙 기반으로 만든다)
+    @Value("${medifit.ai.base-url:}")
+    private String baseUrl;
+
+    @Value("${medifit.ai.api-key:}")
+    private String apiKey;
+
+    @Value("${medifit.ai.model:gpt-4o-mini}")
+    private String model;
+
+    // 호출 제한을 나눠 적용할 제공자 이름
+    @Value("${medifit.ai.provider:openai}")
+    private String provider;
+
+    @Value("${medifit.ai.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    // 제공자별 초당 호출 수 한도
+    @Value("${medifit.ai.rate-limit-per-second:5}")
+    private double rateLimitPerSecond;
+
+    private volatile HttpClient httpClient;
+
     /**
-     * 진료 기록을 AI로 요약
+     * LLM 호출 실패. retryable이면 잠시 후 다시 시도할 수 있다 (네트워크 오류, 429, 5xx).
      */
-    public String summarizeMedicalRecord(String symptoms, String diagnosis, String treatment, String doctorNotes) {
+    public static class AiCallException extends RuntimeException {
+        private final boolean retryable;
+        private final Duration retryAfter;
+
+        public AiCallException(String message, boolean retryable, Duration retryAfter, Throwable cause) {
+            super(message, cause);
+            this.retryable = retryable;
+            this.retryAfter = retryAfter;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+
+        // 서버가 Retry-After로 알려준 대기 시간 (없으면 null)
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+
+    // 🔥 LLM 호출
+
+    public boolean isLlmConfigured() {
+        return baseUrl != null && !baseUrl.isBlank();
+    }
+
+    public String getProviderName() {
+        return isLlmConfigured() ? provider : "local";
+    }
+
+    public double getRateLimitPerSecond() {
+        return rateLimitPerSecond;
+    }
+
+    /**
+     * Chat Completions 한 번 호출. 실패하면 AiCallException
+     */
+    public String completeChat(String systemPrompt, String userPrompt) {
+        if (!isLlmConfigured()) {
+            throw new AiCallException("LLM 서버가 설정되지 않았습니다.", false, null, null);
+        }
+
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("model", model);
+        body.put("temperature", 0.2);
+        body.putArray("messages")
+                .add(objectMapper.createObjectNode().put("role", "system").put("content", systemPrompt))
+                .add(objectMapper.createObjectNode().put("role", "user").put("content", userPrompt));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl.replaceAll("/+$", "") + "/v1/chat/completions"))
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8));
+        if (apiKey != null && !apiKey.isBlank()) {
+            request.header("Authorization", "Bearer " + apiKey);
+        }
+
+        HttpResponse<String> response;
         try {
-            // TODO: ChatGPT API 연동하여 진료 기록 요약 생성
+            response = httpClient().send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new AiCallException("LLM 서버 연결 실패: " + e.getMessage(), true, null, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiCallException("LLM 호출이 중단되었습니다.", false, null, e);
+        }
 
-            StringBuilder summary = new StringBuilder();
-            summary.append("【AI 진료 요약】\n");
+        int status = response.statusCode();
+        if (status == 429 || status >= 500) {
+            throw new AiCallException("LLM 서버 응답 " + status, true, retryAfter(response), null);
+        }
+        if (status != 200) {
+            throw new AiCallException("LLM 서버 응답 " + status + ": " + response.body(), false, null, null);
+        }
 
-            if (symptoms != null && !symptoms.isEmpty()) {
-                summary.append("증상: ").append(symptoms).append("\n");
+        try {
+            JsonNode content = objectMapper.readTree(response.body()).path("choices").path(0).path("message").path("content");
+            if (!content.isTextual() || content.asText().isBlank()) {
+                throw new AiCallException("LLM 응답에 내용이 없습니다.", false, null, null);
             }
+            return content.asText().trim();
+        } catch (IOException e) {
+            throw new AiCallException("LLM 응답을 읽을 수 없습니다.", false, null, e);
+        }
+    }
 
-            if (diagnosis != null && !diagnosis.isEmpty()) {
-                summary.append("진단: ").append(diagnosis).append("\n");
+    private HttpClient httpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                if (httpClient == null) {
+                    httpClient = HttpClient.newBuilder()
+                            .connectTimeout(Duration.ofSeconds(Math.min(timeoutSeconds, 10)))
+                            .build();
+                }
+                client = httpClient;
             }
+        }
+        return client;
+    }
 
-            if (treatment != null && !treatment.isEmpty()) {
-                summary.append("치료: ").append(treatment).append("\n");
+    private static Duration retryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After").map(value -> {
+            try {
+                return Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                return null;
             }
+        }).orElse(null);
+    }
 
-            if (doctorNotes != null && !doctorNotes.isEmpty()) {
-                summary.append("의사 소견: ").append(doctorNotes).append("\n");
-            }
+    // 🔥 캐시되는 생성 작업
+    // 프롬프트나 규칙 기반 문구를 바꾸면 해당 버전을 올려서 이전 캐시를 쓰지 않게 한다
+
+    static final String RECORD_SUMMARY_OPERATION = "summarize-record";
+    static final String RECORD_SUMMARY_VERSION = "2";
+    private static final String PRESCRIPTION_VERSION = "1";
+    private static final String MEDICATION_GUIDANCE_VERSION = "1";
+
+    private static final String RECORD_SUMMARY_PROMPT = "당신은 의료진을 돕는 진료 기록 요약 도우미입니다. "
+            + "주어진 진료 기록을 환자와 의료진이 빠르게 읽을 수 있도록 한국어로 5줄 이내로 요약하세요. "
+            + "기록에 없는 내용은 추측하지 마세요.";
+    private static final String PRESCRIPTION_PROMPT = "당신은 약사입니다. "
+            + "주어진 약물과 용량, 복용 방법을 환자가 이해하기 쉬운 한국어로 설명하세요. 진단이나 처방 변경은 권하지 마세요.";
+    private static final String MEDICATION_GUIDANCE_PROMPT = "당신은 복약 지도를 하는 약사입니다. "
+            + "주어진 약물에 대해 환자 연령과 알레르기를 고려한 복용 주의사항을 한국어로 안내하세요.";
+
+    // 같은 입력이라도 모델이 다르면 결과가 다르므로 키에 포함한다
+    private String cacheScope() {
+        return isLlmConfigured() ? provider + "/" + model : "local";
+    }
 
-            summary.append("\n※ AI가 생성한 요약으로, 정확한 내용은 담당 의사에게 확인하시기 바랍니다.");
+    /**
+     * 진료 기록을 AI로 요약
+     */
+    public String summarizeMedicalRecord(String symptoms, String diagnosis, String treatment, String doctorNotes) {
+        // 실패 문구는 캐시 밖에서 돌려준다 - 로더가 던진 예외는 캐시에 저장되지 않는다
+        try {
+            String summary = summarizeRecord(null, symptoms, diagnosis, treatment, doctorNotes, () -> {});
 
             logger.info("AI 진료 기록 요약 생성 완료");
-            return summary.toString();
+            return summary;
 
         } catch (Exception e) {
             logger.error("AI 진료 기록 요약 생성 실패", e);
@@ -46,26 +203,47 @@ public class AIService {
         }
     }
 
+    /**
+     * 진료 기록 요약 - summarizeMedicalRecord와 AI 요약 파이프라인이 같은 캐시 키와 프롬프트를 쓴다.
+     * 실패는 AiCallException 그대로 던지며 캐시하지 않는다. beforeLlmCall은 캐시에 없어서 LLM을 실제로 부르기 직전에만 실행한다.
+     */
+    public String summarizeRecord(String department, String symptoms, String diagnosis, String treatment,
+                                  String doctorNotes, Runnable beforeLlmCall) {
+        String dep = AiResponseCache.normalize(department);
+        String s = AiResponseCache.normalize(symptoms);
+        String d = AiResponseCache.normalize(diagnosis);
+        String t = AiResponseCache.normalize(treatment);
+        String n = AiResponseCache.normalize(doctorNotes);
+        return aiResponseCache.get(RECORD_SUMMARY_OPERATION, RECORD_SUMMARY_VERSION, () -> {
+            if (!isLlmConfigured()) {
+                return ruleBasedRecordSummary(s, d, t, n);
+            }
+            beforeLlmCall.run();
+            return completeChat(RECORD_SUMMARY_PROMPT, recordSummaryPrompt(dep, s, d, t, n));
+        }, cacheScope(), dep, s, d, t, n);
+    }
+
+    // 진료일은 넣지 않는다 - 내용이 같은 기록끼리 같은 키를 쓰게 하기 위해서
+    static String recordSummaryPrompt(String department, String symptoms, String diagnosis, String treatment, String doctorNotes) {
+        return labeled("진료과", department) + labeled("증상", symptoms) + labeled("진단", diagnosis)
+                + labeled("치료", treatment) + labeled("의사 소견", doctorNotes);
+    }
+
     /**
      * 처방전 설명을 AI로 생성
      */
     public String explainPrescription(String medicationName, String dosage, String instructions) {
+        String m = AiResponseCache.normalize(medicationName);
+        String d = AiResponseCache.normalize(dosage);
+        String i = AiResponseCache.normalize(instructions);
         try {
-            // TODO: ChatGPT API 연동하여 처방전 설명 생성
-
-            StringBuilder explanation = new StringBuilder();
-            explanation.append("【AI 처방전 설명】\n");
-            explanation.append("약물명: ").append(medicationName).append("\n");
-            explanation.append("용량: ").append(dosage).append("\n");
-
-            if (instructions != null && !instructions.isEmpty()) {
-                explanation.append("복용 방법: ").append(instructions).append("\n");
-            }
-
-            explanation.append("\n※ 상세한 복용법은 약사 또는 담당 의사에게 문의하시기 바랍니다.");
+            String explanation = aiResponseCache.get("explain-prescription", PRESCRIPTION_VERSION, () -> isLlmConfigured()
+                            ? completeChat(PRESCRIPTION_PROMPT, labeled("약물명", m) + labeled("용량", d) + labeled("복용 방법", i))
+                            : ruleBasedPrescription(m, d, i),
+                    cacheScope(), m, d, i);
 
             logger.info("AI 처방전 설명 생성 완료: {}", medicationName);
-            return explanation.toString();
+            return explanation;
 
         } catch (Exception e) {
             logger.error("AI 처방전 설명 생성 실패: {}", medicationName, e);
@@ -77,25 +255,17 @@ public class AIService {
      * 복약 지도를 AI로 생성
      */
     public String generateMedicationGuidance(String medicationName, String patientAge, String allergies) {
+        String m = AiResponseCache.normalize(medicationName);
+        String a = AiResponseCache.normalize(patientAge);
+        String al = AiResponseCache.normalize(allergies);
         try {
-            // TODO: ChatGPT API 연동하여 복약 지도 생성
-
-            StringBuilder guidance = new StringBuilder();
-            guidance.append("【AI 복약 지도】\n");
-            guidance.append("약물: ").append(medicationName).append("\n\n");
-
-            guidance.append("주의사항:\n");
-            guidance.append("- 정해진 시간에 규칙적으로 복용하세요\n");
-            guidance.append("- 충분한 물과 함께 복용하세요\n");
-
-            if (allergies != null && !allergies.isEmpty()) {
-                guidance.append("- 알레르기 주의: ").append(allergies).append("\n");
-            }
-
-            guidance.append("\n부작용 발생 시 즉시 담당 의사나 약사에게 연락하세요.");
+            String guidance = aiResponseCache.get("medication-guidance", MEDICATION_GUIDANCE_VERSION, () -> isLlmConfigured()
+                            ? completeChat(MEDICATION_GUIDANCE_PROMPT, labeled("약물", m) + labeled("환자 연령", a) + labeled("알레르기", al))
+                            : ruleBasedMedicationGuidance(m, al),
+                    cacheScope(), m, a, al);
 
             logger.info("AI 복약 지도 생성 완료: {}", medicationName);
-            return guidance.toString();
+            return guidance;
 
         } catch (Exception e) {
             logger.error("AI 복약 지도 생성 실패: {}", medicationName, e);
@@ -103,6 +273,67 @@ public class AIService {
         }
     }
 
+    private static String labeled(String label, String value) {
+        return value != null && !value.isEmpty() ? label + ": " + value + "\n" : "";
+    }
+
+    // 🔥 규칙 기반 생성 (LLM 미설정 시)
+
+    private static String ruleBasedRecordSummary(String symptoms, String diagnosis, String treatment, String doctorNotes) {
+        StringBuilder summary = new StringBuilder();
+        summary.append("【AI 진료 요약】\n");
+
+        if (symptoms != null && !symptoms.isEmpty()) {
+            summary.append("증상: ").append(symptoms).append("\n");
+        }
+
+        if (diagnosis != null && !diagnosis.isEmpty()) {
+            summary.append("진단: ").append(diagnosis).append("\n");
+        }
+
+        if (treatment != null && !treatment.isEmpty()) {
+            summary.append("치료: ").append(treatment).append("\n");
+        }
+
+        if (doctorNotes != null && !doctorNotes.isEmpty()) {
+            summary.append("의사 소견: ").append(doctorNotes).append("\n");
+        }
+
+        summary.append("\n※ AI가 생성한 요약으로, 정확한 내용은 담당 의사에게 확인하시기 바랍니다.");
+        return summary.toString();
+    }
+
+    private static String ruleBasedPrescription(String medicationName, String dosage, String instructions) {
+        StringBuilder explanation = new StringBuilder();
+        explanation.append("【AI 처방전 설명】\n");
+        explanation.append("약물명: ").append(medicationName).append("\n");
+        explanation.append("용량: ").append(dosage).append("\n");
+
+        if (instructions != null && !instructions.isEmpty()) {
+            explanation.append("복용 방법: ").append(instructions).append("\n");
+        }
+
+        explanation.append("\n※ 상세한 복용법은 약사 또는 담당 의사에게 문의하시기 바랍니다.");
+        return explanation.toString();
+    }
+
+    private static String ruleBasedMedicationGuidance(String medicationName, String allergies) {
+        StringBuilder guidance = new StringBuilder();
+        guidance.append("【AI 복약 지도】\n");
+        guidance.append("약물: ").append(medicationName).append("\n\n");
+
+        guidance.append("주의사항:\n");
+        guidance.append("- 정해진 시간에 규칙적으로 복용하세요\n");
+        guidance.append("- 충분한 물과 함께 복용하세요\n");
+
+        if (allergies != null && !allergies.isEmpty()) {
+            guidance.append("- 알레르기 주의: ").append(allergies).append("\n");
+        }
+
+        guidance.append("\n부작용 발생 시 즉시 담당 의사나 약사에게 연락하세요.");
+        return guidance.toString();
+    }
+
     /**
      * 건강 상담을 AI로 제공
      */
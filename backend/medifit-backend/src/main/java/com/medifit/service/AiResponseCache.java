@@ -0,0 +1,295 @@
+package com.medifit.service;
+
+import com.medifit.entity.AiResponseCacheEntry;
+import com.medifit.repository.AiResponseCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * AI 응답 캐시
+ *
+ * 키는 (작업 종류, 프롬프트 버전, 정규화한 입력)의 SHA-256 해시이다. 메모리 LRU를 먼저 보고, 없으면 DB 계층을 본 뒤
+ * 그래도 없을 때만 생성한다. 같은 키를 동시에 요청하면 한 번만 생성하고 나머지는 그 결과를 기다린다.
+ * 생성 중 예외가 나면 캐시하지 않는다.
+ */
+@Service
+public class AiResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiResponseCache.class);
+
+    @Autowired
+    private AiResponseCacheRepository aiResponseCacheRepository;
+
+    @Value("${medifit.ai.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${medifit.ai.cache.ttl-hours:168}")
+    private long ttlHours;
+
+    // DB 계층 사용 여부 - 재시작 후에도 LLM 결과를 다시 쓰기 위한 것
+    @Value("${medifit.ai.cache.persistent:true}")
+    private boolean persistent;
+
+    @Value("${medifit.ai.cache.max-persistent-entries:100000}")
+    private int maxPersistentEntries;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    // 접근 순서 LRU - memory 자체로 동기화
+    private final LinkedHashMap<String, CachedResponse> memory = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // 생성 중인 키 - 같은 키의 동시 요청은 이 결과를 기다린다
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong sharedLoads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    private record CachedResponse(String response, LocalDateTime expiresAt) {}
+
+    /**
+     * 캐시 통계. hitRate는 (메모리 + DB 적중) / 전체 조회
+     */
+    public record CacheStats(long memoryHits, long persistentHits, long misses, long sharedLoads, long loadFailures,
+                             long evictions, long expirations, int memoryEntries, boolean persistent, double hitRate) {}
+
+    // 🔥 조회
+
+    /**
+     * 캐시된 응답을 돌려주고, 없으면 loader로 만들어 저장한다.
+     *
+     * @param inputs 정규화한 입력 ({@link #normalize})과 모델 등 결과에 영향을 주는 값
+     */
+    public String get(String operation, String promptVersion, Supplier<String> loader, String... inputs) {
+        String key = keyOf(operation, promptVersion, inputs);
+
+        String cached = fromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            sharedLoads.incrementAndGet();
+            return join(existing);
+        }
+
+        try {
+            String response = load(key, operation, promptVersion, loader);
+            created.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            loadFailures.incrementAndGet();
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private String load(String key, String operation, String promptVersion, Supplier<String> loader) {
+        // 기다리는 사이에 먼저 끝난 요청이 있을 수 있다
+        String cached = fromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        Optional<AiResponseCacheEntry> stored = findPersistent(key, now);
+        if (stored.isPresent()) {
+            persistentHits.incrementAndGet();
+            putMemory(key, new CachedResponse(stored.get().getResponse(), stored.get().getExpiresAt()));
+            return stored.get().getResponse();
+        }
+
+        misses.incrementAndGet();
+        String response = loader.get();
+        if (response == null) {
+            return null;
+        }
+        LocalDateTime expiresAt = now.plus(Duration.ofHours(ttlHours));
+        putMemory(key, new CachedResponse(response, expiresAt));
+        savePersistent(new AiResponseCacheEntry(key, operation, promptVersion, response, now, expiresAt));
+        return response;
+    }
+
+    private String fromMemory(String key) {
+        synchronized (memory) {
+            CachedResponse cached = memory.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (!cached.expiresAt().isAfter(LocalDateTime.now(clock))) {
+                memory.remove(key);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return cached.response();
+        }
+    }
+
+    private void putMemory(String key, CachedResponse response) {
+        synchronized (memory) {
+            memory.put(key, response);
+        }
+    }
+
+    // DB 계층 오류는 캐시 미스로 보고 생성은 계속한다
+    private Optional<AiResponseCacheEntry> findPersistent(String key, LocalDateTime now) {
+        if (!persistent) {
+            return Optional.empty();
+        }
+        try {
+            return aiResponseCacheRepository.findByCacheKeyAndExpiresAtAfter(key, now);
+        } catch (RuntimeException e) {
+            logger.warn("AI 응답 캐시 조회 실패: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void savePersistent(AiResponseCacheEntry entry) {
+        if (!persistent) {
+            return;
+        }
+        try {
+            aiResponseCacheRepository.save(entry);
+        } catch (RuntimeException e) {
+            logger.warn("AI 응답 캐시 저장 실패: {}", e.getMessage());
+        }
+    }
+
+    private static String join(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // 🔥 키
+
+    /**
+     * 입력 정규화 - 유니코드 NFC, 앞뒤 공백 제거, 연속 공백은 하나로. null은 그대로 둔다.
+     * 같은 키로 묶인 요청은 같은 응답을 받으므로 생성에도 정규화한 값을 써야 한다.
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        return Normalizer.normalize(value, Normalizer.Form.NFC).strip().replaceAll("\\s+", " ");
+    }
+
+    static String keyOf(String operation, String promptVersion, String... inputs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, operation);
+            update(digest, promptVersion);
+            for (String input : inputs) {
+                update(digest, input);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 길이를 앞에 붙여서 ("ab", "c")와 ("a", "bc"), null과 ""가 같은 키가 되지 않게 한다
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update("-1:".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+        digest.update(bytes);
+    }
+
+    // 🔥 통계 / 정리
+
+    public CacheStats getStats() {
+        long hits = memoryHits.get() + persistentHits.get();
+        long total = hits + misses.get();
+        int entries;
+        synchronized (memory) {
+            entries = memory.size();
+        }
+        double hitRate = total > 0 ? Math.round((double) hits / total * 10000) / 100.0 : 0;
+        return new CacheStats(memoryHits.get(), persistentHits.get(), misses.get(), sharedLoads.get(),
+                loadFailures.get(), evictions.get(), expirations.get(), entries, persistent, hitRate);
+    }
+
+    public void clearMemory() {
+        synchronized (memory) {
+            memory.clear();
+        }
+    }
+
+    /**
+     * 만료된 항목 정리, DB 계층은 개수 제한을 넘은 만큼 오래된 것부터 지운다
+     */
+    @Scheduled(fixedDelayString = "${medifit.ai.cache.cleanup-millis:600000}")
+    @Transactional
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        synchronized (memory) {
+            int before = memory.size();
+            memory.values().removeIf(cached -> !cached.expiresAt().isAfter(now));
+            expirations.addAndGet(before - memory.size());
+        }
+        if (!persistent) {
+            return;
+        }
+        int expired = aiResponseCacheRepository.deleteExpired(now);
+        long overflow = aiResponseCacheRepository.count() - maxPersistentEntries;
+        if (overflow > 0) {
+            List<String> oldest = aiResponseCacheRepository.findOldestKeys(Limit.of((int) Math.min(overflow, 10_000)));
+            aiResponseCacheRepository.deleteAllByIdInBatch(oldest);
+        }
+        if (expired > 0 || overflow > 0) {
+            logger.info("AI 응답 캐시 정리 - 만료 {}건, 초과 {}건", expired, Math.max(overflow, 0));
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.medifit.service;
+
+import com.medifit.entity.MedicalRecord;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AI 요약 작업 파이프라인
+ *
+ * 요청 스레드는 작업을 등록하고 작업 ID만 돌려받는다. 작업은 가상 스레드에서 실행하며
+ * 동시 실행 수는 세마포어로, LLM 호출 수는 제공자별 토큰 버킷으로 제한한다.
+ * 재시도할 수 있는 실패(네트워크 오류, 429, 5xx)는 지수 백오프로 다시 시도하고, 대기 중에는 동시 실행 슬롯을 놓아 준다.
+ * LLM 요약은 AIService.summarizeRecord를 거쳐 AI 응답 캐시를 같이 쓴다.
+ * 작업 상태는 메모리에만 두며 끝난 작업은 job-retention-minutes 후 지운다.
+ * 백필은 요약 없는 기록을 최근 진료 순 페이지로 읽어 한 페이지씩 등록하고 끝나기를 기다린다.
+ */
+@Service
+public class AiSummaryPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiSummaryPipeline.class);
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+
+    @Autowired
+    private AIService aiService;
+
+    @Value("${medifit.ai-summary.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${medifit.ai-summary.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${medifit.ai-summary.initial-backoff-millis:500}")
+    private long initialBackoffMillis;
+
+    @Value("${medifit.ai-summary.max-backoff-millis:30000}")
+    private long maxBackoffMillis;
+
+    @Value("${medifit.ai-summary.backfill-page-size:100}")
+    private int backfillPageSize;
+
+    @Value("${medifit.ai-summary.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    @Value("${medifit.ai-summary.sse-timeout-minutes:10}")
+    private long sseTimeoutMinutes;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile Semaphore permits;
+
+    private final ConcurrentHashMap<String, TokenBucketRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    // 기록별 진행 중인 작업 - 같은 기록을 여러 번 요청하면 같은 작업을 돌려준다
+    private final ConcurrentHashMap<Long, Job> activeByRecord = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean(false);
+    private volatile Backfill backfill;
+
+    public enum State {
+        QUEUED, RUNNING, RETRY_WAIT, SUCCEEDED, FAILED;
+
+        public boolean isTerminal() {
+            return this == SUCCEEDED || this == FAILED;
+        }
+    }
+
+    /**
+     * 작업 상태 (조회/SSE 응답용)
+     */
+    public record JobStatus(String jobId, Long recordId, State state, int attempts, String error,
+                            String summary, LocalDateTime createdAt, LocalDateTime updatedAt,
+                            LocalDateTime nextAttemptAt) {}
+
+    /**
+     * 백필 진행 상태
+     */
+    public record BackfillStatus(boolean running, boolean stopRequested, LocalDateTime startedAt,
+                                 LocalDateTime finishedAt, Integer limit, int pages, int submitted,
+                                 int succeeded, int failed) {}
+
+    private final class Job {
+        final String id = UUID.randomUUID().toString();
+        final Long recordId;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final CompletableFuture<State> done = new CompletableFuture<>();
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        State state = State.QUEUED;
+        int attempts;
+        String error;
+        String summary;
+        LocalDateTime updatedAt = createdAt;
+        LocalDateTime nextAttemptAt;
+
+        Job(Long recordId) {
+            this.recordId = recordId;
+        }
+
+        synchronized JobStatus status() {
+            return new JobStatus(id, recordId, state, attempts, error, summary, createdAt, updatedAt, nextAttemptAt);
+        }
+
+        void transition(State next, String error, String summary, LocalDateTime nextAttemptAt) {
+            JobStatus status;
+            synchronized (this) {
+                this.state = next;
+                this.error = error;
+                this.summary = summary;
+                this.nextAttemptAt = nextAttemptAt;
+                this.updatedAt = LocalDateTime.now();
+                if (next == State.RUNNING) {
+                    attempts++;
+                }
+                status = status();
+            }
+            publish(status);
+            if (next.isTerminal()) {
+                activeByRecord.remove(recordId, this);
+                emitters.forEach(SseEmitter::complete);
+                emitters.clear();
+                done.complete(next);
+            }
+        }
+
+        void publish(JobStatus status) {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name("status").data(status, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    // 클라이언트가 연결을 끊은 경우
+                    emitters.remove(emitter);
+                }
+            }
+        }
+    }
+
+    private static final class Backfill {
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final Integer limit;
+        final AtomicInteger pages = new AtomicInteger();
+        final AtomicInteger submitted = new AtomicInteger();
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        volatile boolean stopRequested;
+        volatile LocalDateTime finishedAt;
+
+        Backfill(Integer limit) {
+            this.limit = limit;
+        }
+
+        BackfillStatus status() {
+            return new BackfillStatus(finishedAt == null, stopRequested, startedAt, finishedAt, limit, pages.get(),
+                    submitted.get(), succeeded.get(), failed.get());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        Backfill current = backfill;
+        if (current != null) {
+            current.stopRequested = true;
+        }
+        executor.shutdownNow();
+    }
+
+    // 🔥 작업 등록 / 조회
+
+    /**
+     * 기록 요약 작업 등록. 같은 기록의 작업이 진행 중이면 그 작업을 돌려준다.
+     */
+    public JobStatus submit(Long recordId) {
+        return enqueue(recordId).status();
+    }
+
+    private Job enqueue(Long recordId) {
+        Job created = new Job(recordId);
+        Job job = activeByRecord.computeIfAbsent(recordId, id -> created);
+        if (job == created) {
+            jobs.put(job.id, job);
+            executor.submit(() -> execute(job));
+        }
+        return job;
+    }
+
+    public Optional<JobStatus> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+    }
+
+    /**
+     * 작업 상태 스트림. 현재 상태를 먼저 보내고 상태가 바뀔 때마다 보내며, 작업이 끝나면 닫는다.
+     */
+    public Optional<SseEmitter> subscribe(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(sseTimeoutMinutes));
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+
+        job.emitters.add(emitter);
+        JobStatus status = job.status();
+        try {
+            emitter.send(SseEmitter.event().name("status").data(status, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            job.emitters.remove(emitter);
+            emitter.completeWithError(e);
+            return Optional.of(emitter);
+        }
+        // 등록하는 사이에 끝났으면 여기서 닫는다
+        if (status.state().isTerminal() && job.emitters.remove(emitter)) {
+            emitter.complete();
+        }
+        return Optional.of(emitter);
+    }
+
+    // 🔥 실행
+
+    private void execute(Job job) {
+        for (int attempt = 1; ; attempt++) {
+            Duration retryDelay;
+            try {
+                permits().acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.transition(State.FAILED, "작업이 중단되었습니다.", null, null);
+                return;
+            }
+            try {
+                job.transition(State.RUNNING, null, null, null);
+                String summary = summarize(job.recordId);
+                if (!medicalRecordService.saveAiSummary(job.recordId, summary)) {
+                    job.transition(State.FAILED, "의료기록을 찾을 수 없습니다.", null, null);
+                } else {
+                    job.transition(State.SUCCEEDED, null, summary, null);
+                }
+                return;
+            } catch (AIService.AiCallException e) {
+                if (!e.isRetryable() || attempt >= maxAttempts) {
+                    logger.warn("AI 요약 실패 - 기록 {}, {}회 시도: {}", job.recordId, attempt, e.getMessage());
+                    job.transition(State.FAILED, e.getMessage(), null, null);
+                    return;
+                }
+                retryDelay = backoff(attempt, e.getRetryAfter());
+                job.transition(State.RETRY_WAIT, e.getMessage(), null, LocalDateTime.now().plus(retryDelay));
+            } catch (RuntimeException e) {
+                logger.error("AI 요약 작업 실패 - 기록 {}", job.recordId, e);
+                job.transition(State.FAILED, e.getMessage(), null, null);
+                return;
+            } finally {
+                permits().release();
+            }
+
+            // 백오프 동안에는 동시 실행 슬롯을 잡지 않는다
+            try {
+                Thread.sleep(retryDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.transition(State.FAILED, "작업이 중단되었습니다.", null, null);
+                return;
+            }
+        }
+    }
+
+    private String summarize(Long recordId) {
+        MedicalRecord record = medicalRecordService.findById(recordId)
+                .orElseThrow(() -> new IllegalArgumentException("의료기록을 찾을 수 없습니다."));
+        if (!aiService.isLlmConfigured()) {
+            return MedicalRecordService.buildRuleBasedSummary(record);
+        }
+        // 캐시 적중이면 LLM을 부르지 않으므로 호출 제한도 실제 호출 직전에만 기다린다
+        TokenBucketRateLimiter limiter = rateLimiter(aiService.getProviderName());
+        return aiService.summarizeRecord(record.getDepartment(), record.getSymptoms(), record.getDiagnosis(),
+                record.getTreatment(), record.getDoctorNotes(), () -> {
+                    try {
+                        limiter.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new AIService.AiCallException("작업이 중단되었습니다.", false, null, e);
+                    }
+                });
+    }
+
+    // 지수 백오프 (최대값 제한, ±20% 흔들기). 서버가 Retry-After를 주면 그보다 짧게 기다리지 않는다
+    Duration backoff(int attempt, Duration retryAfter) {
+        long base = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        long jittered = (long) (base * (0.8 + ThreadLocalRandom.current().nextDouble() * 0.4));
+        Duration delay = Duration.ofMillis(Math.min(maxBackoffMillis, jittered));
+        return retryAfter != null && retryAfter.compareTo(delay) > 0 ? retryAfter : delay;
+    }
+
+    private Semaphore permits() {
+        Semaphore current = permits;
+        if (current == null) {
+            synchronized (this) {
+                if (permits == null) {
+                    permits = new Semaphore(Math.max(1, maxConcurrency));
+                }
+                current = permits;
+            }
+        }
+        return current;
+    }
+
+    private TokenBucketRateLimiter rateLimiter(String provider) {
+        return rateLimiters.computeIfAbsent(provider, p -> {
+            double perSecond = aiService.getRateLimitPerSecond();
+            return new TokenBucketRateLimiter(perSecond, (int) Math.max(1, Math.ceil(perSecond)));
+        });
+    }
+
+    // 🔥 백필
+
+    /**
+     * 요약 없는 기록 백필 시작 (limit이 null이면 전부)
+     */
+    public BackfillStatus startBackfill(Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("limit은 1 이상이어야 합니다.");
+        }
+        if (!backfillRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("AI 요약 백필이 이미 실행 중입니다.");
+        }
+        Backfill run = new Backfill(limit);
+        backfill = run;
+        executor.submit(() -> runBackfill(run));
+        return run.status();
+    }
+
+    public Optional<BackfillStatus> getBackfillStatus() {
+        return Optional.ofNullable(backfill).map(Backfill::status);
+    }
+
+    public boolean stopBackfill() {
+        Backfill current = backfill;
+        if (current == null || current.finishedAt != null) {
+            return false;
+        }
+        current.stopRequested = true;
+        return true;
+    }
+
+    private void runBackfill(Backfill run) {
+        try {
+            LocalDateTime beforeVisitDate = null;
+            Long beforeId = null;
+            while (!run.stopRequested) {
+                int size = backfillPageSize;
+                if (run.limit != null) {
+                    size = Math.min(size, run.limit - run.submitted.get());
+                    if (size <= 0) {
+                        break;
+                    }
+                }
+                // row: id, visitDate
+                List<Object[]> page = medicalRecordService.findRecordsWithoutAiSummary(beforeVisitDate, beforeId, size);
+                if (page.isEmpty()) {
+                    break;
+                }
+                run.pages.incrementAndGet();
+
+                List<Job> submitted = new ArrayList<>(page.size());
+                for (Object[] row : page) {
+                    submitted.add(enqueue((Long) row[0]));
+                }
+                run.submitted.addAndGet(submitted.size());
+                for (Job job : submitted) {
+                    State result = job.done.join();
+                    (result == State.SUCCEEDED ? run.succeeded : run.failed).incrementAndGet();
+                }
+
+                Object[] last = page.get(page.size() - 1);
+                beforeId = (Long) last[0];
+                beforeVisitDate = (LocalDateTime) last[1];
+            }
+            logger.info("AI 요약 백필 {} - {}", run.stopRequested ? "중단" : "완료", run.status());
+        } catch (RuntimeException e) {
+            logger.error("AI 요약 백필 실패", e);
+        } finally {
+            run.finishedAt = LocalDateTime.now();
+            backfillRunning.set(false);
+        }
+    }
+
+    // 🔥 정리
+
+    @Scheduled(fixedDelayString = "${medifit.ai-summary.cleanup-millis:60000}")
+    public void evictFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> {
+            JobStatus status = job.status();
+            return status.state().isTerminal() && status.updatedAt().isBefore(threshold);
+        });
+    }
+}
@@ -0,0 +1,146 @@
+package com.medifit.service;
+
+import com.medifit.dto.BatchJobReport;
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 만료 예약 일괄 취소 배치
+ *
+ * 엔티티를 읽어 saveAll 하는 대신 id 키셋으로 청크를 나누고, 청크마다 별도 트랜잭션에서 아직 만료 대상인 행을
+ * 잠근 뒤 그 행들만 UPDATE로 취소한다. 잠근 행이 곧 취소된 행이라 이벤트에 실린 변경과 실제 반영이 어긋나지 않는다.
+ * 처리된 행은 상태 조건에서 빠지므로 중간에 중단되어도 다시 실행하면 남은 청크부터 이어진다.
+ * 실행하는 동안 batch_job_locks의 잠금 행을 잡고 있어, 다른 인스턴스의 실행과 겹치지 않는다.
+ */
+@Service
+public class AppointmentExpiryJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentExpiryJob.class);
+
+    static final String LOCK_NAME = "appointment-expiry";
+
+    private static final List<AppointmentStatus> EXPIRABLE_STATUSES =
+            List.of(AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private BatchJobLocks batchJobLocks;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${medifit.appointment.expiry.chunk-size:1000}")
+    private int chunkSize;
+
+    // 청크마다 따로 커밋하는 트랜잭션 (잠금 트랜잭션 안에서 새로 연다)
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public AppointmentExpiryJob(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 매일 새벽 3시 - 하루 이상 지난 예정/확정 예약 취소
+     */
+    @Scheduled(cron = "${medifit.appointment.expiry.cron:0 0 3 * * *}")
+    public void runNightly() {
+        try {
+            run(LocalDateTime.now().minusDays(1));
+        } catch (IllegalStateException e) {
+            logger.warn(e.getMessage());
+        }
+    }
+
+    /**
+     * cutoff 이전의 예정/확정 예약을 취소한다. 다른 인스턴스가 실행 중이면 IllegalStateException.
+     */
+    public BatchJobReport run(LocalDateTime cutoff) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("만료 예약 취소 작업이 이미 실행 중입니다.");
+        }
+        try {
+            return batchJobLocks.runLocked(LOCK_NAME, "다른 인스턴스에서 만료 예약 취소 작업이 실행 중입니다.",
+                    () -> runLocked(cutoff));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private BatchJobReport runLocked(LocalDateTime cutoff) {
+        BatchJobReport report = new BatchJobReport("appointment-expiry", cutoff);
+        long jobStart = System.nanoTime();
+        try {
+            long afterId = 0L;
+            int index = 0;
+            while (true) {
+                BatchJobReport.ChunkResult chunk = processChunk(cutoff, afterId, index);
+                if (chunk == null) {
+                    break;
+                }
+                report.addChunk(chunk);
+                afterId = chunk.getLastId();
+                index++;
+            }
+        } finally {
+            report.setElapsedMillis((System.nanoTime() - jobStart) / 1_000_000);
+        }
+
+        logger.info("만료 예약 취소 완료 - 대상 {}건, 취소 {}건, 청크 {}개, {}ms",
+                report.getTotalSelected(), report.getTotalCancelled(), report.getChunks().size(),
+                report.getElapsedMillis());
+        return report;
+    }
+
+    // 청크 하나를 자체 트랜잭션에서 처리 (대상이 없으면 null)
+    private BatchJobReport.ChunkResult processChunk(LocalDateTime cutoff, long afterId, int index) {
+        long chunkStart = System.nanoTime();
+        return transactionTemplate.execute(status -> {
+            List<AppointmentSnapshot> targets = appointmentRepository.findExpiredChunk(
+                    cutoff, EXPIRABLE_STATUSES, afterId, Limit.of(chunkSize));
+            if (targets.isEmpty()) {
+                return null;
+            }
+
+            List<Long> ids = targets.stream().map(AppointmentSnapshot::id).toList();
+            // 읽은 뒤 완료 처리 등으로 대상에서 빠진 행은 건너뛰고, 남은 행은 커밋까지 잠가 둔다
+            List<AppointmentSnapshot> locked = appointmentRepository.lockByIdInAndStatusIn(ids, EXPIRABLE_STATUSES);
+            int updated = locked.isEmpty() ? 0
+                    : appointmentRepository.cancelByIdIn(locked.stream().map(AppointmentSnapshot::id).toList(),
+                            LocalDateTime.now());
+
+            List<AppointmentChangedEvent.Change> changes = new ArrayList<>(locked.size());
+            for (AppointmentSnapshot before : locked) {
+                changes.add(new AppointmentChangedEvent.Change(before, before.withStatus(AppointmentStatus.CANCELLED)));
+            }
+            if (!changes.isEmpty()) {
+                eventPublisher.publishEvent(new AppointmentChangedEvent(changes));
+            }
+
+            return new BatchJobReport.ChunkResult(index, ids.get(0), ids.get(ids.size() - 1),
+                    targets.size(), updated, (System.nanoTime() - chunkStart) / 1_000_000);
+        });
+    }
+}
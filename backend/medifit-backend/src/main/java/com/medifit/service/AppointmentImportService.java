@@ -0,0 +1,581 @@
+package com.medifit.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medifit.dto.ImportReport;
+import com.medifit.entity.Appointment;
+import com.medifit.entity.Patient;
+import com.medifit.entity.User;
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.enums.AppointmentType;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.PatientRepository;
+import com.medifit.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * 예약 일괄 등록 (NDJSON / CSV)
+ *
+ * 입력을 한 줄씩 읽어 청크 단위로 검증하고, 청크마다 별도 트랜잭션에서 JDBC 배치 INSERT 한 번으로 저장한다.
+ * 예약 ID가 IDENTITY 전략이라 Hibernate 배치 INSERT가 동작하지 않으므로 JdbcTemplate 배치를 쓴다.
+ * 저장된 예약은 AppointmentChangedEvent로 발행되어 슬롯/충돌 인덱스/통계에 그대로 반영된다.
+ * 앞으로의 예약은 슬롯 비트맵과 같은 기준(취소 외 모든 상태)으로 단건 예약과 같이 병원 슬롯을 먼저 선점하고
+ * (커밋 이벤트는 선점된 비트를 그대로 둔다), 청크 저장이 실패하면 선점을 되돌린다.
+ * 지난 이력은 같은 시각에 여러 건이 있을 수 있으므로 선점 없이 저장한다.
+ * 의사-병원 소속 정보가 없어 doctorId는 사용자 존재 여부만 확인하며, 이 사실을 결과의 notices로 알린다.
+ */
+@Service
+public class AppointmentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentImportService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO appointments (patient_id, hospital_id, doctor_id, appointment_date, department, status, " +
+            "appointment_type, notes, symptoms, room_number, estimated_duration, reminder_sent, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // 이 상태의 예약은 이미 지난 이력이어도 등록할 수 있다
+    private static final Set<AppointmentStatus> HISTORICAL_STATUSES =
+            EnumSet.of(AppointmentStatus.COMPLETED, AppointmentStatus.CANCELLED, AppointmentStatus.NO_SHOW);
+
+    // 의사 일정 충돌을 검사하는 상태
+    private static final Set<AppointmentStatus> ACTIVE_STATUSES =
+            EnumSet.of(AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED, AppointmentStatus.IN_PROGRESS);
+
+    static final String DOCTOR_AFFILIATION_NOTICE =
+            "담당 의사의 병원 소속은 확인하지 않았습니다 (doctorId는 사용자 존재 여부만 확인합니다).";
+
+    public enum Format { NDJSON, CSV }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentIntervalIndex intervalIndex;
+
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${medifit.appointment.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${medifit.appointment.import.max-errors:1000}")
+    private int maxErrors;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AppointmentImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public static Format parseFormat(String format) {
+        try {
+            return Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("지원하지 않는 형식입니다: " + format);
+        }
+    }
+
+    // 🔥 일괄 등록
+
+    /**
+     * 입력 스트림의 예약을 등록한다. 잘못된 줄은 건너뛰고 줄 번호와 사유를 보고한다.
+     *
+     * @param dryRun true면 검증만 하고 저장하지 않는다
+     */
+    public ImportReport importAppointments(Long hospitalId, Format format, InputStream input, boolean dryRun)
+            throws IOException {
+        if (!userRepository.existsById(hospitalId)) {
+            throw new IllegalArgumentException("병원을 찾을 수 없습니다.");
+        }
+
+        ImportReport report = new ImportReport(dryRun);
+        long start = System.nanoTime();
+        ImportedIntervals imported = new ImportedIntervals();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String[] header = null;
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            int lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line).stream()
+                            .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                            .toArray(String[]::new);
+                    continue;
+                }
+
+                report.setTotalLines(report.getTotalLines() + 1);
+                try {
+                    Map<String, String> fields = format == Format.CSV
+                            ? csvFields(header, parseCsvLine(line))
+                            : jsonFields(line);
+                    chunk.add(Row.parse(lineNumber, fields));
+                } catch (IllegalArgumentException e) {
+                    report.addError(new ImportReport.LineError(lineNumber, List.of(e.getMessage())), maxErrors);
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    processChunk(hospitalId, chunk, imported, report);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(hospitalId, chunk, imported, report);
+            }
+        }
+
+        // 파싱 오류는 읽는 즉시, 검증 오류는 청크 단위로 쌓이므로 줄 번호순으로 정리
+        report.getErrors().sort(Comparator.comparingInt(ImportReport.LineError::getLine));
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        logger.info("예약 일괄 등록 완료 - 병원 {}, {}줄 중 {}건 등록, {}건 실패{} ({}ms)", hospitalId,
+                report.getTotalLines(), report.getImported(), report.getFailed(),
+                dryRun ? " (dry-run)" : "", report.getElapsedMillis());
+        return report;
+    }
+
+    private void processChunk(Long hospitalId, List<Row> chunk, ImportedIntervals imported, ImportReport report) {
+        // 1. 참조 존재 여부를 청크당 IN 쿼리로 확인
+        Set<Long> patientIds = new HashSet<>();
+        Set<Long> doctorIds = new HashSet<>();
+        for (Row row : chunk) {
+            patientIds.add(row.patientId());
+            if (row.doctorId() != null) {
+                doctorIds.add(row.doctorId());
+            }
+        }
+        Set<Long> existingPatients = new HashSet<>(patientRepository.findExistingIds(patientIds));
+        Set<Long> existingDoctors = doctorIds.isEmpty()
+                ? Set.of() : new HashSet<>(userRepository.findExistingIds(doctorIds));
+        if (!doctorIds.isEmpty()) {
+            report.addNotice(DOCTOR_AFFILIATION_NOTICE);
+        }
+
+        // 2. DB를 건드리지 않는 필드 검사는 병렬로
+        List<List<String>> fieldErrors = chunk.parallelStream()
+                .map(row -> validate(hospitalId, row, existingPatients, existingDoctors))
+                .toList();
+
+        // 3. 일정 충돌과 슬롯 선점은 입력 순서대로 (앞 줄이 먼저 자리를 차지한다). 지난 이력은 바로 저장 대상이다
+        List<Row> accepted = new ArrayList<>();
+        List<Row> reserved = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Row row = chunk.get(i);
+            List<String> errors = fieldErrors.get(i);
+            if (errors.isEmpty() && checksConflicts(row) && (imported.overlaps(row) || intervalIndex.hasConflict(
+                    hospitalId, row.doctorId(), row.appointmentDate(), row.estimatedDuration(), null))) {
+                errors = List.of("해당 시간대에 담당 의사의 다른 예약이 있습니다.");
+            } else if (errors.isEmpty() && reservesSlot(row)) {
+                if (reserveSlot(hospitalId, row, imported, report.isDryRun())) {
+                    imported.add(row);
+                    reserved.add(row);
+                } else {
+                    errors = List.of("해당 시간대에 이미 예약이 있습니다.");
+                }
+            }
+
+            if (errors.isEmpty()) {
+                accepted.add(row);
+            } else {
+                report.addError(new ImportReport.LineError(row.line(), errors), maxErrors);
+            }
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+        if (report.isDryRun()) {
+            report.setImported(report.getImported() + accepted.size());
+            return;
+        }
+
+        // 4. 청크 하나 = 트랜잭션 하나 = 배치 INSERT 한 번
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(hospitalId, accepted));
+            report.setImported(report.getImported() + accepted.size());
+        } catch (RuntimeException e) {
+            logger.warn("예약 일괄 등록 청크 저장 실패 - {}~{}번째 줄", accepted.get(0).line(),
+                    accepted.get(accepted.size() - 1).line(), e);
+            for (Row row : reserved) {
+                imported.remove(row);
+                slotReservationService.release(hospitalId, row.appointmentDate(), row.estimatedDuration());
+            }
+            for (Row row : accepted) {
+                report.addError(new ImportReport.LineError(row.line(), List.of("저장 실패: " + e.getMessage())),
+                        maxErrors);
+            }
+        }
+    }
+
+    private List<String> validate(Long hospitalId, Row row, Set<Long> existingPatients, Set<Long> existingDoctors) {
+        Appointment appointment = new Appointment();
+        Patient patient = new Patient();
+        patient.setId(row.patientId());
+        appointment.setPatient(patient);
+        User hospital = new User();
+        hospital.setId(hospitalId);
+        appointment.setHospital(hospital);
+        appointment.setAppointmentDate(row.appointmentDate());
+        appointment.setDepartment(row.department());
+
+        List<String> errors = appointmentService.validateFields(appointment,
+                HISTORICAL_STATUSES.contains(row.status()));
+        if (!existingPatients.contains(row.patientId())) {
+            errors.add("환자를 찾을 수 없습니다.");
+        }
+        if (row.doctorId() != null && !existingDoctors.contains(row.doctorId())) {
+            errors.add("담당 의사를 찾을 수 없습니다.");
+        }
+        if (row.estimatedDuration() != null
+                && (row.estimatedDuration() <= 0 || row.estimatedDuration() > 24 * 60)) {
+            errors.add("예상 진료 시간이 올바르지 않습니다.");
+        }
+        return errors;
+    }
+
+    /**
+     * 병원 슬롯 확인 (AppointmentService.bookAppointment와 같은 기준).
+     * 저장할 때는 선점하고, dry-run은 선점하지 않으므로 이번 요청의 앞 줄이 차지한 슬롯을 따로 확인한다.
+     */
+    private boolean reserveSlot(Long hospitalId, Row row, ImportedIntervals imported, boolean dryRun) {
+        if (dryRun) {
+            return !imported.claimsSlot(row)
+                    && slotReservationService.isAvailable(hospitalId, row.appointmentDate(), row.estimatedDuration());
+        }
+        return slotReservationService.tryReserve(hospitalId, row.appointmentDate(), row.estimatedDuration());
+    }
+
+    // 지난 예약은 충돌 인덱스 보관 범위 밖이므로 앞으로의 활성 예약만 의사 일정 충돌을 검사한다
+    private static boolean checksConflicts(Row row) {
+        return ACTIVE_STATUSES.contains(row.status()) && row.appointmentDate().isAfter(LocalDateTime.now());
+    }
+
+    // 커밋 이벤트가 슬롯을 점유하는 예약(AppointmentSnapshot.occupiesSlot) 중 앞으로의 것은 먼저 선점한다
+    private static boolean reservesSlot(Row row) {
+        return AppointmentSnapshot.occupiesSlot(row.status()) && row.appointmentDate().isAfter(LocalDateTime.now());
+    }
+
+    private void insert(Long hospitalId, List<Row> rows) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Row row = rows.get(i);
+                        ps.setLong(1, row.patientId());
+                        ps.setLong(2, hospitalId);
+                        if (row.doctorId() != null) {
+                            ps.setLong(3, row.doctorId());
+                        } else {
+                            ps.setNull(3, Types.BIGINT);
+                        }
+                        ps.setObject(4, row.appointmentDate());
+                        ps.setString(5, row.department());
+                        ps.setString(6, row.status().name());
+                        ps.setString(7, row.appointmentType().name());
+                        ps.setString(8, row.notes());
+                        ps.setString(9, row.symptoms());
+                        ps.setString(10, row.roomNumber());
+                        if (row.estimatedDuration() != null) {
+                            ps.setInt(11, row.estimatedDuration());
+                        } else {
+                            ps.setNull(11, Types.INTEGER);
+                        }
+                        ps.setBoolean(12, false);
+                        ps.setObject(13, createdAt);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != rows.size()) {
+            throw new IllegalStateException("생성된 예약 ID 수가 일치하지 않습니다.");
+        }
+
+        List<AppointmentChangedEvent.Change> changes = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            AppointmentSnapshot created = new AppointmentSnapshot(generatedId(keys.get(i)), row.patientId(),
+                    hospitalId, row.doctorId(), row.department(), row.appointmentDate(), row.estimatedDuration(),
+                    row.status(), createdAt);
+            changes.add(new AppointmentChangedEvent.Change(null, created));
+        }
+        eventPublisher.publishEvent(new AppointmentChangedEvent(changes));
+    }
+
+    // 드라이버에 따라 키 컬럼명이 ID / id 로 달라진다
+    private static Long generatedId(Map<String, Object> key) {
+        for (Map.Entry<String, Object> entry : key.entrySet()) {
+            if ("id".equalsIgnoreCase(entry.getKey())) {
+                return ((Number) entry.getValue()).longValue();
+            }
+        }
+        if (key.size() == 1) {
+            return ((Number) key.values().iterator().next()).longValue();
+        }
+        throw new IllegalStateException("생성된 예약 ID를 찾을 수 없습니다.");
+    }
+
+    // 🔥 입력 파싱
+
+    private Map<String, String> jsonFields(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON 형식이 올바르지 않습니다.");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("JSON 객체가 아닙니다.");
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        node.fields().forEachRemaining(field -> {
+            if (!field.getValue().isNull()) {
+                fields.put(field.getKey().toLowerCase(Locale.ROOT), field.getValue().asText());
+            }
+        });
+        return fields;
+    }
+
+    private static Map<String, String> csvFields(String[] header, List<String> values) {
+        if (values.size() > header.length) {
+            throw new IllegalArgumentException("컬럼 수가 헤더보다 많습니다.");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                fields.put(header[i], values.get(i));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * RFC 4180 형식의 한 줄 파싱 (따옴표 안의 쉼표와 "" 이스케이프 지원, 줄바꿈은 미지원)
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("닫히지 않은 따옴표가 있습니다.");
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+
+    record Row(int line, Long patientId, Long doctorId, LocalDateTime appointmentDate, String department,
+               AppointmentStatus status, AppointmentType appointmentType, String notes, String symptoms,
+               String roomNumber, Integer estimatedDuration) {
+
+        static Row parse(int line, Map<String, String> fields) {
+            Long patientId = parseLong(fields.get("patientid"), "patientId");
+            if (patientId == null) {
+                throw new IllegalArgumentException("patientId가 필요합니다.");
+            }
+            return new Row(line, patientId,
+                    parseLong(fields.get("doctorid"), "doctorId"),
+                    parseDateTime(fields.get("appointmentdate")),
+                    fields.get("department"),
+                    parseEnum(AppointmentStatus.class, fields.get("status"), AppointmentStatus.SCHEDULED),
+                    parseEnum(AppointmentType.class, fields.get("appointmenttype"), AppointmentType.CONSULTATION),
+                    fields.get("notes"),
+                    fields.get("symptoms"),
+                    fields.get("roomnumber"),
+                    parseInteger(fields.get("estimatedduration")));
+        }
+
+        private static Long parseLong(String value, String name) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + " 값이 올바르지 않습니다: " + value);
+            }
+        }
+
+        private static Integer parseInteger(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("estimatedDuration 값이 올바르지 않습니다: " + value);
+            }
+        }
+
+        // ISO 형식과 "yyyy-MM-dd HH:mm[:ss]" 모두 허용
+        private static LocalDateTime parseDateTime(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return LocalDateTime.parse(value.trim().replace(' ', 'T'));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("appointmentDate 값이 올바르지 않습니다: " + value);
+            }
+        }
+
+        private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, E defaultValue) {
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(type.getSimpleName() + " 값이 올바르지 않습니다: " + value);
+            }
+        }
+    }
+
+    /**
+     * 이번 등록 요청에서 받아들인 예약 구간 (아직 커밋되지 않은 앞 청크/앞 줄과의 충돌 검사용)
+     */
+    private static final class ImportedIntervals {
+
+        private static final long UNASSIGNED = 0L;
+
+        // 의사별 시작 분 -> 종료 분. 충돌을 걸러낸 뒤에만 넣으므로 구간끼리 겹치지 않는다
+        private final Map<Long, TreeMap<Long, Long>> byDoctor = new HashMap<>();
+
+        // 날짜별 병원 슬롯 비트 (SlotReservationService와 같은 30분 단위). 역시 겹치는 줄은 넣지 않는다
+        private final Map<LocalDate, Long> slots = new HashMap<>();
+
+        boolean overlaps(Row row) {
+            long from = toMinute(row.appointmentDate());
+            long to = from + durationOf(row.estimatedDuration());
+            if (row.doctorId() != null) {
+                TreeMap<Long, Long> intervals = byDoctor.get(row.doctorId());
+                return intervals != null && overlaps(intervals, from, to);
+            }
+            for (TreeMap<Long, Long> intervals : byDoctor.values()) {
+                if (overlaps(intervals, from, to)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean overlaps(TreeMap<Long, Long> intervals, long from, long to) {
+            Map.Entry<Long, Long> before = intervals.lowerEntry(to);
+            return before != null && before.getValue() > from;
+        }
+
+        boolean claimsSlot(Row row) {
+            return (slots.getOrDefault(row.appointmentDate().toLocalDate(), 0L) & slotMask(row)) != 0;
+        }
+
+        void add(Row row) {
+            long from = toMinute(row.appointmentDate());
+            byDoctor.computeIfAbsent(doctorKey(row), k -> new TreeMap<>())
+                    .put(from, from + durationOf(row.estimatedDuration()));
+            slots.merge(row.appointmentDate().toLocalDate(), slotMask(row), (a, b) -> a | b);
+        }
+
+        void remove(Row row) {
+            TreeMap<Long, Long> intervals = byDoctor.get(doctorKey(row));
+            if (intervals != null) {
+                intervals.remove(toMinute(row.appointmentDate()));
+            }
+            slots.computeIfPresent(row.appointmentDate().toLocalDate(), (date, bits) -> bits & ~slotMask(row));
+        }
+
+        private static long slotMask(Row row) {
+            return SlotReservationService.slotMask(row.appointmentDate().toLocalTime(), row.estimatedDuration());
+        }
+
+        private static Long doctorKey(Row row) {
+            return row.doctorId() != null ? row.doctorId() : UNASSIGNED;
+        }
+
+        private static long toMinute(LocalDateTime dateTime) {
+            return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+        }
+
+        private static int durationOf(Integer duration) {
+            return (duration == null || duration <= 0) ? SlotReservationService.DEFAULT_DURATION : duration;
+        }
+    }
+}
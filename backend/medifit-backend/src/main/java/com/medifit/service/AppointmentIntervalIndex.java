@@ -0,0 +1,240 @@
+package com.medifit.service;
+
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 병원/의사별 예약 구간 인덱스
+ *
+ * 의사마다 예약 구간을 시작 시각 순으로 정렬해 두고, 지금까지의 최대 진료 시간만큼만 앞으로 거슬러 올라가 겹침을 찾는다.
+ * 따라서 [start, start + duration) 검사는 O(log n + 겹칠 수 있는 구간 수)로 끝난다.
+ * 병원 단위로 처음 사용할 때 DB에서 복원하며, 보관 기간(horizon) 이전 구간은 매일 정리한다.
+ */
+@Service
+public class AppointmentIntervalIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentIntervalIndex.class);
+
+    // 의사가 지정되지 않은 예약의 키
+    private static final Long UNASSIGNED = 0L;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    // 오늘로부터 며칠 전 예약까지 인덱스에 유지할지
+    @Value("${medifit.appointment.conflict.horizon-days:1}")
+    private int horizonDays;
+
+    private final ConcurrentHashMap<Long, HospitalIntervals> hospitals = new ConcurrentHashMap<>();
+
+    /**
+     * 예약 구간 (분 단위, [start, end))
+     */
+    record Interval(long start, long end, Long appointmentId) {}
+
+    private static final Comparator<Interval> BY_START =
+            Comparator.comparingLong(Interval::start).thenComparing(Interval::appointmentId);
+
+    // 🔥 충돌 조회
+
+    /**
+     * [start, start + duration)과 겹치는 예약 ID 목록. doctorId가 null이면 병원 전체 의사를 검사한다.
+     *
+     * @param excludeAppointmentId 일정 변경 시 자기 자신은 제외
+     */
+    public List<Long> findConflicts(Long hospitalId, Long doctorId, LocalDateTime start, Integer duration,
+                                    Long excludeAppointmentId) {
+        return collect(hospitalId, doctorId, start, duration, excludeAppointmentId, Integer.MAX_VALUE);
+    }
+
+    public boolean hasConflict(Long hospitalId, Long doctorId, LocalDateTime start, Integer duration,
+                               Long excludeAppointmentId) {
+        return !collect(hospitalId, doctorId, start, duration, excludeAppointmentId, 1).isEmpty();
+    }
+
+    private List<Long> collect(Long hospitalId, Long doctorId, LocalDateTime start, Integer duration,
+                               Long excludeAppointmentId, int limit) {
+        HospitalIntervals intervals = hospital(hospitalId);
+        long from = toMinute(start);
+        long to = from + durationOf(duration);
+
+        List<Long> conflicts = new ArrayList<>();
+        if (doctorId != null) {
+            DoctorIntervals doctor = intervals.doctors.get(doctorId);
+            if (doctor != null) {
+                doctor.collectOverlaps(from, to, excludeAppointmentId, conflicts, limit);
+            }
+            return conflicts;
+        }
+        for (DoctorIntervals doctor : intervals.doctors.values()) {
+            doctor.collectOverlaps(from, to, excludeAppointmentId, conflicts, limit);
+            if (conflicts.size() >= limit) {
+                break;
+            }
+        }
+        return conflicts;
+    }
+
+    // 🔥 변경 반영
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        for (AppointmentChangedEvent.Change change : event.changes()) {
+            AppointmentSnapshot before = change.before();
+            AppointmentSnapshot after = change.after();
+
+            // 아직 복원하지 않은 병원은 처음 사용할 때 DB에서 읽으므로 건너뛴다
+            if (before != null) {
+                HospitalIntervals intervals = hospitals.get(before.hospitalId());
+                if (intervals != null) {
+                    intervals.remove(before.id());
+                }
+            }
+            if (after != null && after.occupiesSlot()) {
+                HospitalIntervals intervals = hospitals.get(after.hospitalId());
+                if (intervals != null && !after.appointmentDate().isBefore(horizon())) {
+                    intervals.add(after.id(), after.doctorId(), after.appointmentDate(), after.estimatedDuration());
+                }
+            }
+        }
+    }
+
+    // 🔥 인덱스 관리
+
+    private HospitalIntervals hospital(Long hospitalId) {
+        return hospitals.computeIfAbsent(hospitalId, this::load);
+    }
+
+    private HospitalIntervals load(Long hospitalId) {
+        List<Object[]> rows = appointmentRepository.findActiveIntervals(hospitalId, horizon());
+        HospitalIntervals intervals = new HospitalIntervals();
+        for (Object[] row : rows) {
+            intervals.add((Long) row[0], (Long) row[1], (LocalDateTime) row[2], (Integer) row[3]);
+        }
+        return intervals;
+    }
+
+    /**
+     * 보관 기간 이전 구간 정리 (매일 00:20)
+     */
+    @Scheduled(cron = "0 20 0 * * *")
+    public void evictPastIntervals() {
+        long cutoff = toMinute(horizon());
+        int removed = 0;
+        for (HospitalIntervals intervals : hospitals.values()) {
+            removed += intervals.evictEndingBefore(cutoff);
+        }
+        logger.info("지난 예약 구간 정리 완료 - {}개 제거", removed);
+    }
+
+    private LocalDateTime horizon() {
+        return LocalDate.now().minusDays(horizonDays).atStartOfDay();
+    }
+
+    private static long toMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static int durationOf(Integer duration) {
+        return (duration == null || duration <= 0) ? SlotReservationService.DEFAULT_DURATION : duration;
+    }
+
+    private static final class HospitalIntervals {
+        final ConcurrentHashMap<Long, DoctorIntervals> doctors = new ConcurrentHashMap<>();
+        // 예약 ID -> 소속 의사 키 (삭제/이동 시 사용)
+        final ConcurrentHashMap<Long, Long> doctorOf = new ConcurrentHashMap<>();
+
+        void add(Long appointmentId, Long doctorId, LocalDateTime start, Integer duration) {
+            Long key = doctorId != null ? doctorId : UNASSIGNED;
+            remove(appointmentId);
+            long from = toMinute(start);
+            doctors.computeIfAbsent(key, k -> new DoctorIntervals())
+                    .add(appointmentId, new Interval(from, from + durationOf(duration), appointmentId));
+            doctorOf.put(appointmentId, key);
+        }
+
+        void remove(Long appointmentId) {
+            Long key = doctorOf.remove(appointmentId);
+            if (key != null) {
+                DoctorIntervals doctor = doctors.get(key);
+                if (doctor != null) {
+                    doctor.remove(appointmentId);
+                }
+            }
+        }
+
+        int evictEndingBefore(long cutoff) {
+            int removed = 0;
+            for (DoctorIntervals doctor : doctors.values()) {
+                for (Long id : doctor.endingBefore(cutoff)) {
+                    remove(id);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+    }
+
+    private static final class DoctorIntervals {
+        final ConcurrentSkipListSet<Interval> byStart = new ConcurrentSkipListSet<>(BY_START);
+        final ConcurrentHashMap<Long, Interval> byId = new ConcurrentHashMap<>();
+        // 한 번이라도 들어온 가장 긴 구간 길이 (줄이지 않는다)
+        final AtomicInteger maxLength = new AtomicInteger();
+
+        void add(Long appointmentId, Interval interval) {
+            maxLength.accumulateAndGet((int) (interval.end() - interval.start()), Math::max);
+            byId.put(appointmentId, interval);
+            byStart.add(interval);
+        }
+
+        void remove(Long appointmentId) {
+            Interval interval = byId.remove(appointmentId);
+            if (interval != null) {
+                byStart.remove(interval);
+            }
+        }
+
+        // [from, to)와 겹치는 구간: 시작이 (from - 최대 길이, to) 안에 있고 끝이 from보다 뒤인 구간
+        void collectOverlaps(long from, long to, Long excludeId, List<Long> out, int limit) {
+            Interval lower = new Interval(from - maxLength.get(), 0, Long.MIN_VALUE);
+            Interval upper = new Interval(to, 0, Long.MIN_VALUE);
+            for (Interval interval : byStart.subSet(lower, true, upper, false)) {
+                if (interval.end() > from && !interval.appointmentId().equals(excludeId)) {
+                    out.add(interval.appointmentId());
+                    if (out.size() >= limit) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        List<Long> endingBefore(long cutoff) {
+            List<Long> ids = new ArrayList<>();
+            for (Interval interval : byStart.headSet(new Interval(cutoff, 0, Long.MIN_VALUE))) {
+                if (interval.end() <= cutoff) {
+                    ids.add(interval.appointmentId());
+                }
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.medifit.service;
+
+import com.medifit.entity.Appointment;
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * 진료 예약 리마인더 일괄 발송
+ *
+ * 병원 ID로 N개 샤드를 나누고, 샤드마다 id 키셋 페이지 단위로 환자/병원을 fetch join 해 읽는다.
+ * 발송은 가상 스레드에서 동시 발송 수를 제한해 처리하고, 성공한 예약만 페이지마다 UPDATE 한 번으로 표시한다.
+ * 하나의 큰 트랜잭션을 잡지 않으므로 중단되면 다음 실행이 미발송 예약부터 이어서 보낸다.
+ */
+@Service
+public class AppointmentReminderDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentReminderDispatcher.class);
+
+    private static final List<AppointmentStatus> REMINDER_STATUSES =
+            List.of(AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // 전체 샤드 수 (병원 ID % shardCount)
+    @Value("${medifit.reminder.shard-count:1}")
+    private int shardCount;
+
+    // 이 인스턴스가 담당하는 샤드 (비어 있으면 전체)
+    @Value("${medifit.reminder.shards:}")
+    private List<Integer> ownedShards;
+
+    @Value("${medifit.reminder.page-size:500}")
+    private int pageSize;
+
+    // 동시에 진행할 수 있는 발송 수
+    @Value("${medifit.reminder.max-concurrency:200}")
+    private int maxConcurrency;
+
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+
+    public AppointmentReminderDispatcher(PlatformTransactionManager transactionManager) {
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 내일 예약 리마인더 발송 (매일 오전 9시)
+     */
+    @Scheduled(cron = "${medifit.reminder.cron:0 0 9 * * *}")
+    public void sendTomorrowReminders() {
+        try {
+            dispatch(LocalDate.now().plusDays(1), null);
+        } catch (Exception e) {
+            logger.error("진료 예약 알림 전송 중 오류 발생", e);
+        }
+    }
+
+    /**
+     * 지정한 날짜의 예약 리마인더를 발송한다.
+     *
+     * @param shards 처리할 샤드 목록 (null이면 설정된 담당 샤드)
+     */
+    public Map<String, Object> dispatch(LocalDate targetDate, List<Integer> shards) {
+        List<Integer> targets = resolveShards(shards);
+        LocalDateTime startDate = targetDate.atStartOfDay();
+        LocalDateTime endDate = startDate.plusDays(1);
+
+        Counters counters = new Counters();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        long start = System.nanoTime();
+
+        // 샤드와 개별 발송 모두 가상 스레드에서 실행하고, 동시 발송 수는 세마포어로 제한한다
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> shardRuns = new ArrayList<>();
+            for (Integer shard : targets) {
+                shardRuns.add(executor.submit(() -> runShard(shard, startDate, endDate, executor, permits, counters)));
+            }
+            for (Future<?> run : shardRuns) {
+                try {
+                    run.get();
+                } catch (Exception e) {
+                    logger.error("리마인더 샤드 처리 실패", e);
+                }
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("targetDate", targetDate);
+        result.put("shardCount", shardCount);
+        result.put("shards", targets);
+        result.put("selected", counters.selected.get());
+        result.put("sent", counters.sent.get());
+        result.put("failed", counters.failed.get());
+        result.put("marked", counters.marked.get());
+        result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+
+        logger.info("진료 예약 알림 전송 완료 - {}", result);
+        return result;
+    }
+
+    private void runShard(int shard, LocalDateTime startDate, LocalDateTime endDate,
+                          ExecutorService executor, Semaphore permits, Counters counters) {
+        long afterId = 0L;
+        while (true) {
+            long cursor = afterId;
+            List<Appointment> page = readTemplate.execute(status -> appointmentRepository.findReminderPage(
+                    startDate, endDate, REMINDER_STATUSES, shardCount, shard, cursor, Limit.of(pageSize)));
+            if (page == null || page.isEmpty()) {
+                return;
+            }
+            counters.selected.addAndGet(page.size());
+
+            ConcurrentLinkedQueue<Long> delivered = new ConcurrentLinkedQueue<>();
+            List<Future<?>> deliveries = new ArrayList<>(page.size());
+            for (Appointment appointment : page) {
+                permits.acquireUninterruptibly();
+                deliveries.add(executor.submit(() -> {
+                    try {
+                        if (notificationService.sendAppointmentNotification(appointment)) {
+                            delivered.add(appointment.getId());
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> delivery : deliveries) {
+                try {
+                    delivery.get();
+                } catch (Exception e) {
+                    logger.error("리마인더 발송 작업 실패", e);
+                }
+            }
+
+            counters.sent.addAndGet(delivered.size());
+            counters.failed.addAndGet(page.size() - delivered.size());
+            if (!delivered.isEmpty()) {
+                List<Long> ids = new ArrayList<>(delivered);
+                Integer marked = writeTemplate.execute(status ->
+                        appointmentRepository.markRemindersSent(ids, LocalDateTime.now()));
+                counters.marked.addAndGet(marked != null ? marked : 0);
+            }
+
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private List<Integer> resolveShards(List<Integer> requested) {
+        List<Integer> shards = requested != null && !requested.isEmpty() ? requested : ownedShards;
+        if (shards == null || shards.isEmpty()) {
+            return IntStream.range(0, shardCount).boxed().toList();
+        }
+        for (Integer shard : shards) {
+            if (shard < 0 || shard >= shardCount) {
+                throw new IllegalArgumentException("샤드 번호는 0 이상 " + shardCount + " 미만이어야 합니다: " + shard);
+            }
+        }
+        return shards.stream().distinct().sorted().toList();
+    }
+
+    private static final class Counters {
+        final AtomicInteger selected = new AtomicInteger();
+        final AtomicInteger sent = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger marked = new AtomicInteger();
+    }
+}
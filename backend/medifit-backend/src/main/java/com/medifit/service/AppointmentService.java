@@ -1,16 +1,29 @@
 package com.medifit.service;
 
+import com.medifit.dto.AppointmentListItem;
+import com.medifit.dto.BatchJobReport;
+import com.medifit.dto.ConflictCheckDto;
+import com.medifit.dto.CursorPage;
 import com.medifit.entity.Appointment;
 import com.medifit.entity.Patient;
 import com.medifit.entity.User;
 import com.medifit.enums.AppointmentStatus;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
 import com.medifit.repository.AppointmentRepository;
+import com.medifit.repository.AppointmentSpecifications;
 import com.medifit.repository.PatientRepository;
 import com.medifit.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -31,6 +44,21 @@ public class AppointmentService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Autowired
+    private AppointmentExpiryJob appointmentExpiryJob;
+
+    @Autowired
+    private AppointmentStatsRollup appointmentStatsRollup;
+
+    @Autowired
+    private AppointmentIntervalIndex appointmentIntervalIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // 🔥 기본 CRUD 메서드들
 
     public List<Appointment> getAllAppointments() {
@@ -53,67 +81,223 @@ public class AppointmentService {
         return appointmentRepository.findByStatusOrderByAppointmentDateDesc(status);
     }
 
+    /**
+     * 예약 저장. 기존 예약의 수정이면 새로 필요해진 슬롯을 먼저 선점하고, 이미 점유되어 있으면 IllegalStateException.
+     * 새 예약은 bookAppointment를 쓰거나 호출자가 슬롯을 미리 선점해 두어야 한다 (대기열 제안 수락 등).
+     */
     public Appointment save(Appointment appointment) {
+        AppointmentSnapshot previous = null;
         if (appointment.getId() != null) {
             appointment.setUpdatedAt(LocalDateTime.now());
+            previous = appointmentRepository.findSnapshotById(appointment.getId()).orElse(null);
+            reserveChange(previous, AppointmentSnapshot.of(appointment));
         }
-        return appointmentRepository.save(appointment);
+        Appointment saved = appointmentRepository.save(appointment);
+        publishChange(previous, AppointmentSnapshot.of(saved));
+        return saved;
     }
 
     public void deleteById(Long id) {
+        AppointmentSnapshot previous = appointmentRepository.findSnapshotById(id).orElse(null);
         appointmentRepository.deleteById(id);
+        publishChange(previous, null);
+    }
+
+    // 🔥 커서 기반 예약 목록 (total 없이 appointmentDate DESC, id DESC 순)
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // 첫 페이지용 커서 (DB가 표현할 수 있는 범위의 최대 일시)
+    private static final LocalDateTime FIRST_PAGE_CURSOR_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentListItem> findPage(Long patientId, Long hospitalId, AppointmentStatus status,
+                                                    String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        LocalDateTime cursorDate = FIRST_PAGE_CURSOR_DATE;
+        Long cursorId = Long.MAX_VALUE;
+
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split("\\|");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("잘못된 커서입니다.");
+                }
+                cursorDate = LocalDateTime.parse(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("잘못된 커서입니다.");
+            }
+        }
+
+        // 다음 페이지 존재 여부 확인을 위해 한 건 더 조회
+        Limit limit = Limit.of(pageSize + 1);
+        List<AppointmentListItem> rows;
+        if (patientId != null) {
+            rows = appointmentRepository.findPageByPatientBefore(patientId, cursorDate, cursorId, limit);
+        } else if (hospitalId != null) {
+            rows = appointmentRepository.findPageByHospitalBefore(hospitalId, cursorDate, cursorId, limit);
+        } else if (status != null) {
+            rows = appointmentRepository.findPageByStatusBefore(status, cursorDate, cursorId, limit);
+        } else {
+            rows = appointmentRepository.findPageBefore(cursorDate, cursorId, limit);
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        List<AppointmentListItem> items = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            AppointmentListItem last = items.get(items.size() - 1);
+            String raw = last.getAppointmentDate() + "|" + last.getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        return new CursorPage<>(new ArrayList<>(items), nextCursor, hasNext);
+    }
+
+    // 🔥 예약 생성 (슬롯 선점 후 저장)
+
+    /**
+     * 슬롯을 먼저 원자적으로 선점한 뒤 예약을 저장한다.
+     * 슬롯이 이미 점유되어 있으면 빈 Optional을 반환하고, 트랜잭션이 롤백되면 선점을 되돌린다.
+     */
+    public Optional<Appointment> bookAppointment(Appointment appointment) {
+        Long hospitalId = appointment.getHospital().getId();
+        LocalDateTime appointmentDate = appointment.getAppointmentDate();
+        Integer duration = appointment.getEstimatedDuration();
+
+        if (!slotReservationService.tryReserve(hospitalId, appointmentDate, duration)) {
+            return Optional.empty();
+        }
+
+        Runnable rollback = () -> slotReservationService.release(hospitalId, appointmentDate, duration);
+        releaseOnRollback(rollback);
+
+        try {
+            Appointment saved = appointmentRepository.save(appointment);
+            publishChange(null, AppointmentSnapshot.of(saved));
+            return Optional.of(saved);
+        } catch (RuntimeException e) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                rollback.run();
+            }
+            throw e;
+        }
     }
 
     // 🔥 예약 시간 검증
 
     public boolean isTimeSlotAvailable(Long hospitalId, LocalDateTime appointmentDate, Integer duration) {
-        if (duration == null) duration = 30; // 기본 30분
+        return slotReservationService.isAvailable(hospitalId, appointmentDate, duration);
+    }
 
-        LocalDateTime endTime = appointmentDate.plusMinutes(duration);
+    /**
+     * [appointmentDate, appointmentDate + duration)과 겹치는 예약 ID (doctorId가 null이면 병원 전체 기준)
+     */
+    public List<Long> findConflictingAppointments(Long hospitalId, Long doctorId, LocalDateTime appointmentDate,
+                                                  Integer duration, Long excludeAppointmentId) {
+        return appointmentIntervalIndex.findConflicts(hospitalId, doctorId, appointmentDate, duration, excludeAppointmentId);
+    }
 
-        // 해당 병원의 같은 시간대 예약 확인
-        List<Appointment> conflictingAppointments = appointmentRepository
-                .findByHospitalIdAndAppointmentDateBetweenOrderByAppointmentDateAsc(
-                        hospitalId, appointmentDate.minusMinutes(duration), endTime);
+    // 예약 자신을 제외하고 담당 의사(없으면 병원)의 다른 예약과 겹치는지 확인 (일정 변경용)
+    public boolean hasScheduleConflict(Appointment appointment) {
+        if (appointment.getHospital() == null || appointment.getAppointmentDate() == null
+                || appointment.getStatus() == AppointmentStatus.CANCELLED) {
+            return false;
+        }
+        Long doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : null;
+        return appointmentIntervalIndex.hasConflict(appointment.getHospital().getId(), doctorId,
+                appointment.getAppointmentDate(), appointment.getEstimatedDuration(), appointment.getId());
+    }
+
+    /**
+     * 여러 후보 구간을 한 번에 검사한다 (일괄 일정 등록/변경 전 확인용)
+     */
+    @Transactional(readOnly = true)
+    public List<ConflictCheckDto.Result> checkConflicts(ConflictCheckDto request) {
+        if (request.getHospitalId() == null) {
+            throw new IllegalArgumentException("병원 ID가 필요합니다.");
+        }
 
-        return conflictingAppointments.isEmpty();
+        List<ConflictCheckDto.Result> results = new ArrayList<>(request.getCandidates().size());
+        for (int i = 0; i < request.getCandidates().size(); i++) {
+            ConflictCheckDto.Candidate candidate = request.getCandidates().get(i);
+            if (candidate.getAppointmentDate() == null) {
+                throw new IllegalArgumentException((i + 1) + "번째 후보의 예약 일시가 필요합니다.");
+            }
+            Long doctorId = candidate.getDoctorId() != null ? candidate.getDoctorId() : request.getDoctorId();
+            List<Long> conflicts = appointmentIntervalIndex.findConflicts(request.getHospitalId(), doctorId,
+                    candidate.getAppointmentDate(), candidate.getDuration(), candidate.getExcludeAppointmentId());
+            results.add(new ConflictCheckDto.Result(i, candidate.getAppointmentDate(), conflicts));
+        }
+        return results;
     }
 
     // 🔥 예약 상태 관리
 
     public Appointment cancelAppointment(Long appointmentId) {
-        Optional<Appointment> appointmentOpt = findById(appointmentId);
-        if (appointmentOpt.isPresent()) {
-            Appointment appointment = appointmentOpt.get();
-            appointment.setStatus(AppointmentStatus.CANCELLED);
-            appointment.setUpdatedAt(LocalDateTime.now());
-            return save(appointment);
-        }
-        throw new RuntimeException("예약을 찾을 수 없습니다.");
+        return changeStatus(appointmentId, AppointmentStatus.CANCELLED);
     }
 
     public Appointment completeAppointment(Long appointmentId) {
-        Optional<Appointment> appointmentOpt = findById(appointmentId);
-        if (appointmentOpt.isPresent()) {
-            Appointment appointment = appointmentOpt.get();
-            appointment.setStatus(AppointmentStatus.COMPLETED);
-            appointment.setUpdatedAt(LocalDateTime.now());
-            return save(appointment);
-        }
-        throw new RuntimeException("예약을 찾을 수 없습니다.");
+        return changeStatus(appointmentId, AppointmentStatus.COMPLETED);
     }
 
     public Appointment confirmAppointment(Long appointmentId) {
+        return changeStatus(appointmentId, AppointmentStatus.CONFIRMED);
+    }
+
+    private Appointment changeStatus(Long appointmentId, AppointmentStatus status) {
         Optional<Appointment> appointmentOpt = findById(appointmentId);
         if (appointmentOpt.isPresent()) {
             Appointment appointment = appointmentOpt.get();
-            appointment.setStatus(AppointmentStatus.CONFIRMED);
+            AppointmentSnapshot previous = AppointmentSnapshot.of(appointment);
+            // 취소된 예약을 되살리면 그 사이 다른 예약이 잡은 슬롯과 겹칠 수 있다
+            reserveChange(previous, previous != null ? previous.withStatus(status) : null);
+            appointment.setStatus(status);
             appointment.setUpdatedAt(LocalDateTime.now());
-            return save(appointment);
+            Appointment saved = appointmentRepository.save(appointment);
+            publishChange(previous, AppointmentSnapshot.of(saved));
+            return saved;
         }
         throw new RuntimeException("예약을 찾을 수 없습니다.");
     }
 
+    // 🔥 슬롯 선점 (변경분만, 롤백 시 되돌림)
+
+    private void reserveChange(AppointmentSnapshot before, AppointmentSnapshot after) {
+        long claimed = slotReservationService.tryReserveChange(before, after);
+        if (claimed < 0) {
+            throw new IllegalStateException("해당 시간대에 이미 예약이 있습니다.");
+        }
+        if (claimed != 0) {
+            releaseOnRollback(() -> slotReservationService.releaseMask(
+                    after.hospitalId(), after.appointmentDate().toLocalDate(), claimed));
+        }
+    }
+
+    private void releaseOnRollback(Runnable rollback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        rollback.run();
+                    }
+                }
+            });
+        }
+    }
+
+    // 🔥 변경 이벤트 발행 (슬롯 점유 등은 커밋 이후 리스너가 반영)
+
+    private void publishChange(AppointmentSnapshot before, AppointmentSnapshot after) {
+        if (before == null && after == null) {
+            return;
+        }
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(before, after));
+    }
+
     // 🔥 다가오는 예약 조회
 
     public List<Appointment> findUpcomingAppointments(Long patientId) {
@@ -142,65 +326,76 @@ public class AppointmentService {
 
     // 🔥 예약 가능 시간 조회
 
-    public List<String> getAvailableTimeSlots(Long hospitalId, String dateString) {
-        try {
-            LocalDate date = LocalDate.parse(dateString);
-
-            // 기본 운영시간 설정 (9:00 - 18:00, 30분 단위)
-            List<LocalTime> workingHours = generateTimeSlots(
-                    LocalTime.of(9, 0),
-                    LocalTime.of(18, 0),
-                    30);
-
-            // 해당 날짜의 기존 예약 조회
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
+    // 기본 운영시간 (9:00 - 18:00, 30분 단위)
+    private static final LocalTime OPENING_TIME = LocalTime.of(9, 0);
+    private static final LocalTime CLOSING_TIME = LocalTime.of(18, 0);
 
-            List<Appointment> existingAppointments = appointmentRepository
-                    .findByHospitalIdAndAppointmentDateBetweenAndStatusNotOrderByAppointmentDateAsc(
-                            hospitalId, startOfDay, endOfDay, AppointmentStatus.CANCELLED);
+    // 기간 조회 최대 일수 (월 단위 캘린더 + 여유)
+    private static final int MAX_AVAILABILITY_RANGE_DAYS = 62;
 
-            Set<LocalTime> bookedTimes = existingAppointments.stream()
-                    .map(appointment -> appointment.getAppointmentDate().toLocalTime())
-                    .collect(Collectors.toSet());
-
-            // 사용 가능한 시간대 필터링
-            return workingHours.stream()
-                    .filter(time -> !bookedTimes.contains(time))
-                    .map(time -> time.format(DateTimeFormatter.ofPattern("HH:mm")))
-                    .collect(Collectors.toList());
+    public List<String> getAvailableTimeSlots(Long hospitalId, String dateString) {
+        return getAvailableTimeSlots(hospitalId, dateString, null);
+    }
 
+    public List<String> getAvailableTimeSlots(Long hospitalId, String dateString, Integer duration) {
+        try {
+            LocalDate date = LocalDate.parse(dateString);
+            return availableTimes(slotReservationService.occupancy(hospitalId, date), duration);
         } catch (Exception e) {
             return new ArrayList<>();
         }
     }
 
-    private List<LocalTime> generateTimeSlots(LocalTime start, LocalTime end, int intervalMinutes) {
-        List<LocalTime> slots = new ArrayList<>();
-        LocalTime current = start;
-
-        while (current.isBefore(end)) {
-            slots.add(current);
-            current = current.plusMinutes(intervalMinutes);
+    /**
+     * 기간 내 날짜별 예약 가능 시간 (메모리 비트맵에서 한 번에 조회)
+     */
+    public Map<String, List<String>> getAvailableTimeSlotsInRange(Long hospitalId, LocalDate from, LocalDate to,
+                                                                  Integer duration) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("종료일은 시작일 이후여야 합니다.");
         }
+        if (from.plusDays(MAX_AVAILABILITY_RANGE_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("최대 " + MAX_AVAILABILITY_RANGE_DAYS + "일까지 조회할 수 있습니다.");
+        }
+
+        Map<String, List<String>> availability = new LinkedHashMap<>();
+        slotReservationService.occupancy(hospitalId, from, to)
+                .forEach((date, bits) -> availability.put(date.toString(), availableTimes(bits, duration)));
+        return availability;
+    }
 
-        return slots;
+    /**
+     * 점유 비트맵에서 운영 시간 내 예약 가능한 시작 시각 목록을 계산한다 (슬롯 스트림에서도 사용).
+     */
+    public static List<String> availableTimes(long occupiedBits, Integer duration) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
+        List<String> times = new ArrayList<>();
+
+        for (LocalTime time = OPENING_TIME; time.isBefore(CLOSING_TIME);
+             time = time.plusMinutes(SlotReservationService.SLOT_MINUTES)) {
+            long mask = SlotReservationService.slotMask(time, duration);
+            boolean withinHours = duration == null || !time.plusMinutes(duration).isAfter(CLOSING_TIME);
+            if (withinHours && (occupiedBits & mask) == 0) {
+                times.add(time.format(formatter));
+            }
+        }
+        return times;
     }
 
     // 🔥 통계 및 리포트
 
+    /**
+     * 최근 12개월 월별/상태별/진료과별 통계. 병원/전체 통계는 롤업 버킷에서 계산하고, 환자별 통계만 예약을 직접 조회한다.
+     */
     public Map<String, Object> getMonthlyStatistics(Long patientId, Long hospitalId) {
-        LocalDateTime startDate = LocalDateTime.now().minusMonths(12);
-        List<Appointment> appointments;
-
-        if (patientId != null) {
-            appointments = appointmentRepository.findByPatientIdAndCreatedAtAfterOrderByCreatedAtDesc(patientId, startDate);
-        } else if (hospitalId != null) {
-            appointments = appointmentRepository.findByHospitalIdAndCreatedAtAfterOrderByCreatedAtDesc(hospitalId, startDate);
-        } else {
-            appointments = appointmentRepository.findByCreatedAtAfterOrderByCreatedAtDesc(startDate);
+        if (patientId == null) {
+            return getMonthlyStatisticsFromRollup(hospitalId);
         }
 
+        LocalDateTime startDate = LocalDateTime.now().minusMonths(12);
+        List<Appointment> appointments =
+                appointmentRepository.findByPatientIdAndCreatedAtAfterOrderByCreatedAtDesc(patientId, startDate);
+
         Map<String, Object> stats = new HashMap<>();
 
         // 월별 예약 수 통계
@@ -235,38 +430,85 @@ public class AppointmentService {
         return stats;
     }
 
-    public Map<String, Object> getDashboardStatistics(Long hospitalId) {
-        Map<String, Object> dashboard = new HashMap<>();
+    private Map<String, Object> getMonthlyStatisticsFromRollup(Long hospitalId) {
+        LocalDate startDate = LocalDate.now().minusMonths(12);
+        Map<String, Long> monthlyCount = new HashMap<>();
+        Map<AppointmentStatus, Long> statusStats = new HashMap<>();
+        Map<String, Long> departmentStats = new HashMap<>();
+        long[] totals = new long[2]; // 전체, 완료
 
-        // 오늘 예약 수
-        long todayAppointments = findTodayAppointments(hospitalId).size();
-        dashboard.put("todayAppointments", todayAppointments);
+        appointmentStatsRollup.forEach(hospitalId, (bucket, count) -> {
+            if (bucket.createdDate() == null || bucket.createdDate().isBefore(startDate)) {
+                return;
+            }
+            String month = bucket.createdDate().getYear() + "-" + String.format("%02d", bucket.createdDate().getMonthValue());
+            monthlyCount.merge(month, count, Long::sum);
+            statusStats.merge(bucket.status(), count, Long::sum);
+            departmentStats.merge(bucket.department() != null ? bucket.department() : "기타", count, Long::sum);
+            totals[0] += count;
+            if (bucket.status() == AppointmentStatus.COMPLETED) {
+                totals[1] += count;
+            }
+        });
 
-        // 이번 주 예약 수
-        LocalDateTime startOfWeek = LocalDate.now().atStartOfDay().minusDays(LocalDate.now().getDayOfWeek().getValue() - 1);
-        LocalDateTime endOfWeek = startOfWeek.plusDays(7);
-        long weeklyAppointments = findByDateRange(startOfWeek, endOfWeek, hospitalId).size();
-        dashboard.put("weeklyAppointments", weeklyAppointments);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("monthlyAppointments", monthlyCount);
+        stats.put("statusStatistics", statusStats);
+        stats.put("departmentStatistics", departmentStats);
 
-        // 대기 중인 예약
-        long pendingAppointments = appointmentRepository.countByHospitalIdAndStatus(hospitalId, AppointmentStatus.SCHEDULED);
-        dashboard.put("pendingAppointments", pendingAppointments);
+        double completionRate = totals[0] > 0 ? (double) totals[1] / totals[0] * 100 : 0;
+        stats.put("completionRate", Math.round(completionRate * 100.0) / 100.0);
 
-        // 취소율 (지난 30일)
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Appointment> recentAppointments = appointmentRepository.findByHospitalIdAndCreatedAtAfterOrderByCreatedAtDesc(hospitalId, thirtyDaysAgo);
+        return stats;
+    }
 
-        long totalRecent = recentAppointments.size();
-        long cancelledRecent = recentAppointments.stream()
-                .mapToLong(a -> a.getStatus() == AppointmentStatus.CANCELLED ? 1 : 0)
-                .sum();
+    public Map<String, Object> getDashboardStatistics(Long hospitalId) {
+        LocalDate today = LocalDate.now();
+        LocalDate startOfWeek = today.minusDays(today.getDayOfWeek().getValue() - 1);
+        LocalDate endOfWeek = startOfWeek.plusDays(7);
+        LocalDate thirtyDaysAgo = today.minusDays(30);
+
+        // 오늘 예약, 이번 주 예약, 대기 중 예약, 최근 30일 생성/취소 건수
+        long[] counts = new long[5];
+        appointmentStatsRollup.forEach(hospitalId, (bucket, count) -> {
+            LocalDate appointmentDay = bucket.appointmentDate();
+            if (appointmentDay.equals(today)) {
+                counts[0] += count;
+            }
+            if (!appointmentDay.isBefore(startOfWeek) && appointmentDay.isBefore(endOfWeek)) {
+                counts[1] += count;
+            }
+            if (bucket.status() == AppointmentStatus.SCHEDULED) {
+                counts[2] += count;
+            }
+            if (bucket.createdDate() != null && !bucket.createdDate().isBefore(thirtyDaysAgo)) {
+                counts[3] += count;
+                if (bucket.status() == AppointmentStatus.CANCELLED) {
+                    counts[4] += count;
+                }
+            }
+        });
+
+        Map<String, Object> dashboard = new HashMap<>();
+        dashboard.put("todayAppointments", counts[0]);
+        dashboard.put("weeklyAppointments", counts[1]);
+        dashboard.put("pendingAppointments", counts[2]);
 
-        double cancellationRate = totalRecent > 0 ? (double) cancelledRecent / totalRecent * 100 : 0;
+        // 취소율 (지난 30일)
+        double cancellationRate = counts[3] > 0 ? (double) counts[4] / counts[3] * 100 : 0;
         dashboard.put("cancellationRate", Math.round(cancellationRate * 100.0) / 100.0);
 
         return dashboard;
     }
 
+    /**
+     * 통계 롤업을 DB에서 다시 계산한다. 재계산된 버킷 수를 반환.
+     */
+    @Transactional(readOnly = true)
+    public int rebuildStatistics() {
+        return appointmentStatsRollup.rebuild();
+    }
+
     // 🔥 예약 검증 및 비즈니스 로직
 
     public boolean canScheduleAppointment(Long patientId, LocalDateTime appointmentDate) {
@@ -322,51 +564,45 @@ public class AppointmentService {
     public List<Appointment> findByMultipleFilters(Long patientId, Long hospitalId,
                                                    AppointmentStatus status, String department,
                                                    LocalDateTime startDate, LocalDateTime endDate) {
-        return appointmentRepository.findWithFilters(patientId, hospitalId, status, department, startDate, endDate);
+        return appointmentRepository.findAll(
+                AppointmentSpecifications.filter(patientId, hospitalId, status, department, startDate, endDate),
+                AppointmentSpecifications.NEWEST_FIRST);
     }
 
     // 🔥 예약 패턴 분석
 
     public Map<String, Object> getAppointmentPatterns(Long hospitalId) {
-        LocalDateTime threeMonthsAgo = LocalDateTime.now().minusMonths(3);
-        List<Appointment> appointments = appointmentRepository.findByHospitalIdAndCreatedAtAfterOrderByCreatedAtDesc(hospitalId, threeMonthsAgo);
+        LocalDate threeMonthsAgo = LocalDate.now().minusMonths(3);
+
+        Map<String, Long> dayOfWeekPattern = new HashMap<>();
+        Map<String, Long> hourlyPattern = new HashMap<>();
+        long[] total = new long[1];
+        LocalDate[] range = new LocalDate[2]; // 가장 이른/늦은 예약일
+
+        appointmentStatsRollup.forEach(hospitalId, (bucket, count) -> {
+            if (bucket.createdDate() == null || bucket.createdDate().isBefore(threeMonthsAgo)) {
+                return;
+            }
+            LocalDate appointmentDay = bucket.appointmentDate();
+            dayOfWeekPattern.merge(appointmentDay.getDayOfWeek().toString(), count, Long::sum);
+            hourlyPattern.merge(String.valueOf(bucket.hour()), count, Long::sum);
+            total[0] += count;
+            if (range[0] == null || appointmentDay.isBefore(range[0])) range[0] = appointmentDay;
+            if (range[1] == null || appointmentDay.isAfter(range[1])) range[1] = appointmentDay;
+        });
 
         Map<String, Object> patterns = new HashMap<>();
 
         // 요일별 예약 패턴
-        Map<String, Long> dayOfWeekPattern = appointments.stream()
-                .collect(Collectors.groupingBy(
-                        appointment -> appointment.getAppointmentDate().getDayOfWeek().toString(),
-                        Collectors.counting()
-                ));
         patterns.put("dayOfWeekPattern", dayOfWeekPattern);
 
         // 시간대별 예약 패턴
-        Map<String, Long> hourlyPattern = appointments.stream()
-                .collect(Collectors.groupingBy(
-                        appointment -> String.valueOf(appointment.getAppointmentDate().getHour()),
-                        Collectors.counting()
-                ));
         patterns.put("hourlyPattern", hourlyPattern);
 
-        // 평균 예약 간격
-        List<Appointment> patientAppointments = appointments.stream()
-                .filter(a -> a.getPatient() != null)
-                .sorted(Comparator.comparing(Appointment::getAppointmentDate))
-                .collect(Collectors.toList());
-
-        if (patientAppointments.size() > 1) {
-            long totalDays = 0;
-            int intervals = 0;
-
-            for (int i = 1; i < patientAppointments.size(); i++) {
-                LocalDateTime prev = patientAppointments.get(i-1).getAppointmentDate();
-                LocalDateTime current = patientAppointments.get(i).getAppointmentDate();
-                totalDays += java.time.Duration.between(prev, current).toDays();
-                intervals++;
-            }
-
-            double averageInterval = intervals > 0 ? (double) totalDays / intervals : 0;
+        // 평균 예약 간격 (날짜순 인접 예약 간격의 합 = 첫 예약일 ~ 마지막 예약일)
+        if (total[0] > 1) {
+            long totalDays = java.time.temporal.ChronoUnit.DAYS.between(range[0], range[1]);
+            double averageInterval = (double) totalDays / (total[0] - 1);
             patterns.put("averageAppointmentInterval", Math.round(averageInterval * 100.0) / 100.0);
         }
 
@@ -376,6 +612,22 @@ public class AppointmentService {
     // 🔥 예약 유효성 검사
 
     public List<String> validateAppointment(Appointment appointment) {
+        List<String> errors = validateFields(appointment, false);
+
+        if (appointment.getAppointmentDate() != null && hasScheduleConflict(appointment)) {
+            errors.add("해당 시간대에 담당 의사의 다른 예약이 있습니다.");
+        }
+
+        return errors;
+    }
+
+    /**
+     * 충돌 검사를 제외한 필드 규칙 검사 (일괄 등록에서 병렬로 사용)
+     *
+     * @param allowPast 완료/취소 등 지난 예약 이력을 등록할 때 true
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<String> validateFields(Appointment appointment, boolean allowPast) {
         List<String> errors = new ArrayList<>();
 
         if (appointment.getPatient() == null) {
@@ -389,7 +641,7 @@ public class AppointmentService {
         if (appointment.getAppointmentDate() == null) {
             errors.add("예약 일시가 필요합니다.");
         } else {
-            if (appointment.getAppointmentDate().isBefore(LocalDateTime.now())) {
+            if (!allowPast && appointment.getAppointmentDate().isBefore(LocalDateTime.now())) {
                 errors.add("과거 날짜로는 예약할 수 없습니다.");
             }
 
@@ -407,20 +659,17 @@ public class AppointmentService {
 
     // 🔥 대량 작업
 
+    /**
+     * 하루 이상 지난 미처리 예약을 일괄 취소한다. 청크마다 별도 트랜잭션으로 실행되므로 바깥 트랜잭션을 잡지 않는다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int cancelExpiredAppointments() {
-        LocalDateTime cutoffTime = LocalDateTime.now().minusDays(1);
-        List<Appointment> expiredAppointments = appointmentRepository
-                .findByAppointmentDateBeforeAndStatusIn(
-                        cutoffTime,
-                        Arrays.asList(AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED));
-
-        expiredAppointments.forEach(appointment -> {
-            appointment.setStatus(AppointmentStatus.CANCELLED);
-            appointment.setUpdatedAt(LocalDateTime.now());
-        });
+        return expireAppointments(LocalDateTime.now().minusDays(1)).getTotalCancelled();
+    }
 
-        appointmentRepository.saveAll(expiredAppointments);
-        return expiredAppointments.size();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchJobReport expireAppointments(LocalDateTime cutoff) {
+        return appointmentExpiryJob.run(cutoff);
     }
 
     // 🔥 환자 예약 이력
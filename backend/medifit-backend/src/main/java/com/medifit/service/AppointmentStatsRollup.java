@@ -0,0 +1,198 @@
+package com.medifit.service;
+
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 예약 통계 롤업 저장소
+ *
+ * (병원, 생성일, 예약일, 예약 시각, 진료과, 상태) 버킷별 예약 수를 메모리에 유지한다.
+ * 커밋된 예약 변경 이벤트로 증분 갱신하고, 처음 사용할 때와 매일 새벽에 DB 집계로 다시 만든다.
+ * 통계 API는 예약 행 대신 버킷만 순회한다.
+ */
+@Service
+public class AppointmentStatsRollup {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentStatsRollup.class);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    // 병원 ID -> 버킷 -> 건수 (null이면 아직 만들어지지 않음)
+    private volatile Map<Long, Map<Bucket, LongAdder>> hospitals;
+
+    // 재계산 중 들어온 변경 (새 롤업으로 교체하기 직전에 다시 적용)
+    private Queue<AppointmentChangedEvent> pendingDuringRebuild;
+
+    private final Object rebuildLock = new Object();
+    private final Object swapLock = new Object();
+
+    /**
+     * 통계 버킷 (예약 시각은 0~23시)
+     */
+    public record Bucket(LocalDate createdDate,
+                         LocalDate appointmentDate,
+                         int hour,
+                         String department,
+                         AppointmentStatus status) {
+
+        static Bucket of(AppointmentSnapshot snapshot) {
+            return new Bucket(
+                    snapshot.createdAt() != null ? snapshot.createdAt().toLocalDate() : null,
+                    snapshot.appointmentDate().toLocalDate(),
+                    snapshot.appointmentDate().getHour(),
+                    snapshot.department(),
+                    snapshot.status());
+        }
+    }
+
+    // 🔥 조회
+
+    /**
+     * 병원의 모든 버킷을 순회한다 (hospitalId가 null이면 전체 병원)
+     */
+    public void forEach(Long hospitalId, BiConsumer<Bucket, Long> consumer) {
+        Map<Long, Map<Bucket, LongAdder>> current = ensureBuilt();
+        if (hospitalId != null) {
+            forEachIn(current.get(hospitalId), consumer);
+        } else {
+            current.values().forEach(buckets -> forEachIn(buckets, consumer));
+        }
+    }
+
+    private void forEachIn(Map<Bucket, LongAdder> buckets, BiConsumer<Bucket, Long> consumer) {
+        if (buckets == null) {
+            return;
+        }
+        buckets.forEach((bucket, adder) -> {
+            long count = adder.sum();
+            if (count > 0) {
+                consumer.accept(bucket, count);
+            }
+        });
+    }
+
+    public int bucketCount() {
+        Map<Long, Map<Bucket, LongAdder>> current = hospitals;
+        return current == null ? 0 : current.values().stream().mapToInt(Map::size).sum();
+    }
+
+    // 🔥 증분 갱신
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        synchronized (swapLock) {
+            // 아직 만들지 않았고 재계산 중도 아니면 다음 재계산 때 DB에서 그대로 반영된다
+            Map<Long, Map<Bucket, LongAdder>> current = hospitals;
+            if (current != null) {
+                apply(current, event);
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+        }
+    }
+
+    private void apply(Map<Long, Map<Bucket, LongAdder>> current, AppointmentChangedEvent event) {
+        for (AppointmentChangedEvent.Change change : event.changes()) {
+            apply(current, change.before(), change.after());
+        }
+    }
+
+    private void apply(Map<Long, Map<Bucket, LongAdder>> current, AppointmentSnapshot before, AppointmentSnapshot after) {
+        Bucket from = before != null ? Bucket.of(before) : null;
+        Bucket to = after != null ? Bucket.of(after) : null;
+        if (from != null && to != null && from.equals(to) && before.hospitalId().equals(after.hospitalId())) {
+            return;
+        }
+        if (from != null) {
+            adder(current, before.hospitalId(), from).decrement();
+        }
+        if (to != null) {
+            adder(current, after.hospitalId(), to).increment();
+        }
+    }
+
+    private static LongAdder adder(Map<Long, Map<Bucket, LongAdder>> current, Long hospitalId, Bucket bucket) {
+        return current.computeIfAbsent(hospitalId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(bucket, b -> new LongAdder());
+    }
+
+    // 🔥 재계산
+
+    private Map<Long, Map<Bucket, LongAdder>> ensureBuilt() {
+        Map<Long, Map<Bucket, LongAdder>> current = hospitals;
+        if (current != null) {
+            return current;
+        }
+        synchronized (rebuildLock) {
+            return hospitals != null ? hospitals : rebuildLocked();
+        }
+    }
+
+    /**
+     * DB 집계로 롤업을 처음부터 다시 만든다 (매일 04:00, 증분 갱신 누락 보정)
+     */
+    @Scheduled(cron = "${medifit.appointment.stats.rebuild-cron:0 0 4 * * *}")
+    public int rebuild() {
+        synchronized (rebuildLock) {
+            rebuildLocked();
+            return bucketCount();
+        }
+    }
+
+    // 집계 직전에 버퍼를 열어 집계 중 커밋된 변경이 빠지지 않게 한다
+    // (버퍼를 연 직후 집계 시작 전에 커밋된 변경은 두 번 더해질 수 있으며 다음 재계산에서 보정된다)
+    private Map<Long, Map<Bucket, LongAdder>> rebuildLocked() {
+        long start = System.nanoTime();
+        synchronized (swapLock) {
+            pendingDuringRebuild = new ArrayDeque<>();
+        }
+
+        List<Object[]> rows;
+        try {
+            rows = appointmentRepository.countRollupBuckets();
+        } catch (RuntimeException e) {
+            synchronized (swapLock) {
+                pendingDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        Map<Long, Map<Bucket, LongAdder>> fresh = new ConcurrentHashMap<>();
+        for (Object[] row : rows) {
+            Bucket bucket = new Bucket((LocalDate) row[1], (LocalDate) row[2], ((Number) row[3]).intValue(),
+                    (String) row[4], (AppointmentStatus) row[5]);
+            adder(fresh, (Long) row[0], bucket).add(((Number) row[6]).longValue());
+        }
+
+        synchronized (swapLock) {
+            for (AppointmentChangedEvent event : pendingDuringRebuild) {
+                apply(fresh, event);
+            }
+            pendingDuringRebuild = null;
+            hospitals = fresh;
+        }
+
+        logger.info("예약 통계 롤업 재계산 완료 - 버킷 {}개, {}ms", rows.size(), (System.nanoTime() - start) / 1_000_000);
+        return fresh;
+    }
+}
@@ -0,0 +1,73 @@
+package com.medifit.service;
+
+import com.medifit.entity.BatchJobLock;
+import com.medifit.repository.BatchJobLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * 배치 작업 인스턴스 간 잠금 (batch_job_locks)
+ *
+ * 작업 이름의 잠금 행을 잡은 트랜잭션 안에서 작업을 실행한다. 작업 안의 트랜잭션은 REQUIRES_NEW로 열어야
+ * 잠금 트랜잭션과 따로 커밋된다.
+ */
+@Component
+public class BatchJobLocks {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchJobLocks.class);
+
+    @Autowired
+    private BatchJobLockRepository batchJobLockRepository;
+
+    // 실행 전체 동안 잠금 행을 잡고 있는 트랜잭션
+    private final TransactionTemplate lockTransaction;
+
+    private final TransactionTemplate createTransaction;
+
+    public BatchJobLocks(PlatformTransactionManager transactionManager) {
+        this.lockTransaction = new TransactionTemplate(transactionManager);
+        this.createTransaction = new TransactionTemplate(transactionManager);
+        this.createTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * jobName 잠금을 잡고 work를 실행한다. 다른 인스턴스가 잡고 있으면 기다리지 않고 busyMessage로 IllegalStateException.
+     */
+    public <T> T runLocked(String jobName, String busyMessage, Supplier<T> work) {
+        createLockRow(jobName);
+        try {
+            return lockTransaction.execute(status -> {
+                BatchJobLock lock = batchJobLockRepository.findByJobName(jobName)
+                        .orElseThrow(() -> new IllegalStateException("작업 잠금 행이 없습니다: " + jobName));
+                lock.setLastStartedAt(LocalDateTime.now());
+                lock.setLastOwner(ManagementFactory.getRuntimeMXBean().getName());
+                return work.get();
+            });
+        } catch (PessimisticLockingFailureException e) {
+            throw new IllegalStateException(busyMessage, e);
+        }
+    }
+
+    // 잠금 행이 없으면 만든다 - 동시에 만들면 한쪽은 키 중복으로 실패하지만 행은 생긴다
+    private void createLockRow(String jobName) {
+        if (batchJobLockRepository.existsById(jobName)) {
+            return;
+        }
+        try {
+            createTransaction.executeWithoutResult(status -> batchJobLockRepository.saveAndFlush(new BatchJobLock(jobName)));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("작업 잠금 행을 다른 인스턴스가 먼저 만들었습니다: {}", jobName);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.medifit.service;
+
+import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.PatientDiagnosisCount;
+import com.medifit.event.ChronicConditionEvent;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicalRecordSegmentStore;
+import com.medifit.repository.PatientDiagnosisCountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 만성 질환 환자 식별 (같은 진단으로 threshold회 이상 방문)
+ *
+ * patient_diagnosis_counts에 (환자, 정규화 진단)별 방문 횟수를 두고 의료기록 저장/삭제 트랜잭션 안에서 함께 갱신한다.
+ * 만성 환자 목록은 visit_count 인덱스 조회라 기록 수와 관계없다. 횟수가 기준을 넘거나 기준 아래로 내려가면
+ * ChronicConditionEvent를 발행한다 (관리 프로그램 등록 안내 등).
+ *
+ * 보관 세그먼트로 옮긴 기록도 방문이므로 보관 작업은 횟수를 줄이지 않고, 재계산도 보관 기록을 함께 센다.
+ */
+@Service
+public class ChronicConditionTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChronicConditionTracker.class);
+
+    @Autowired
+    private PatientDiagnosisCountRepository countRepository;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private MedicalRecordSegmentStore segmentStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 같은 진단 방문이 이 횟수 이상이면 만성 질환 환자
+    @Value("${medifit.medical-record.chronic.threshold:3}")
+    private int threshold;
+
+    @Value("${medifit.medical-record.chronic.rebuild-chunk-size:5000}")
+    private int rebuildChunkSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    public ChronicConditionTracker(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 방문 횟수에 반영되는 의료기록의 키
+     */
+    public record DiagnosisVisit(Long patientId, String diagnosis) {
+
+        public static DiagnosisVisit of(MedicalRecord record) {
+            return new DiagnosisVisit(record.getPatient().getId(), record.getDiagnosis());
+        }
+
+        // row: hospitalId, patientId, visitDate, diagnosis (MedicalRecordRepository.findCounterKey)
+        public static DiagnosisVisit of(Object[] row) {
+            return new DiagnosisVisit((Long) row[1], (String) row[3]);
+        }
+
+        public String key() {
+            return DiagnosisNormalizer.normalize(diagnosis);
+        }
+    }
+
+    // 🔥 쓰기 경로
+
+    /**
+     * 의료기록 저장/삭제 트랜잭션 안에서 호출한다. before가 null이면 생성, after가 null이면 삭제.
+     */
+    public void recordChanged(DiagnosisVisit before, DiagnosisVisit after) {
+        LocalDateTime now = LocalDateTime.now();
+        if (before != null && after != null
+                && before.patientId().equals(after.patientId()) && before.key().equals(after.key())) {
+            // 같은 진단 안에서 표기만 바뀐 경우 표시용 진단명만 갱신
+            if (!Objects.equals(before.diagnosis(), after.diagnosis()) && !after.key().isEmpty()) {
+                countRepository.findByPatientIdAndDiagnosisKey(after.patientId(), after.key()).ifPresent(count -> {
+                    count.setDiagnosis(after.diagnosis());
+                    count.setUpdatedAt(now);
+                });
+            }
+            return;
+        }
+        if (before != null) {
+            adjust(before, -1, now);
+        }
+        if (after != null) {
+            adjust(after, 1, now);
+        }
+    }
+
+    private void adjust(DiagnosisVisit visit, int delta, LocalDateTime now) {
+        String key = visit.key();
+        if (visit.patientId() == null || key.isEmpty()) {
+            return;
+        }
+        Optional<PatientDiagnosisCount> existing = countRepository.findByPatientIdAndDiagnosisKey(visit.patientId(), key);
+        if (existing.isEmpty() && delta < 0) {
+            return;
+        }
+        PatientDiagnosisCount count = existing.orElseGet(() ->
+                new PatientDiagnosisCount(visit.patientId(), key, visit.diagnosis(), 0, now));
+
+        long previous = count.getVisitCount();
+        long current = Math.max(0, previous + delta);
+        if (delta > 0) {
+            count.setDiagnosis(visit.diagnosis());
+        }
+        count.setVisitCount(current);
+        count.setUpdatedAt(now);
+        if (current == 0) {
+            countRepository.delete(count);
+        } else {
+            countRepository.save(count);
+        }
+
+        if (previous < threshold && current >= threshold) {
+            eventPublisher.publishEvent(new ChronicConditionEvent(visit.patientId(), key, count.getDiagnosis(),
+                    current, true));
+        } else if (previous >= threshold && current < threshold) {
+            eventPublisher.publishEvent(new ChronicConditionEvent(visit.patientId(), key, count.getDiagnosis(),
+                    current, false));
+        }
+    }
+
+    // 🔥 조회
+
+    /**
+     * 만성 질환 환자 (hospitalId가 있으면 그 병원에서 진료받은 적이 있는 환자만), 방문 횟수 내림차순
+     */
+    public List<PatientDiagnosisCount> findChronicPatients(Long hospitalId) {
+        return hospitalId != null
+                ? countRepository.findChronicByHospital(threshold, hospitalId)
+                : countRepository.findChronic(threshold);
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    // 🔥 적재 / 재계산
+
+    /**
+     * 횟수 테이블이 비어 있으면 (첫 배포, 초기 데이터) 기록에서 만든다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (countRepository.count() == 0 && medicalRecordRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 기록 테이블과 보관 세그먼트에서 방문 횟수를 다시 세어 테이블을 교체한다. 이벤트는 발행하지 않는다.
+     * 교체 도중의 기록 변경은 반영되지 않을 수 있다 - 쓰기가 적은 시간에 실행한다.
+     *
+     * @return 만든 행 수
+     */
+    public int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("진단 방문 횟수 재계산이 이미 실행 중입니다.");
+        }
+        long start = System.nanoTime();
+        try {
+            // 환자 ID -> 진단 키 -> 횟수와 마지막 진단명
+            Map<Long, Map<String, Tally>> tallies = new HashMap<>();
+            long afterId = 0L;
+            while (true) {
+                List<Object[]> rows = medicalRecordRepository.findDiagnosisRows(afterId, Limit.of(rebuildChunkSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                // row: id, patientId, diagnosis
+                for (Object[] row : rows) {
+                    tally(tallies, (Long) row[1], (String) row[2]);
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            segmentStore.forEach(record -> tally(tallies, record.patientId(), record.diagnosis()));
+
+            LocalDateTime now = LocalDateTime.now();
+            List<PatientDiagnosisCount> counts = new ArrayList<>();
+            tallies.forEach((patientId, byKey) -> byKey.forEach((key, tally) ->
+                    counts.add(new PatientDiagnosisCount(patientId, key, tally.diagnosis, tally.visits, now))));
+
+            transactionTemplate.executeWithoutResult(status -> {
+                countRepository.deleteAllInBatch();
+                countRepository.saveAll(counts);
+            });
+            logger.info("진단 방문 횟수 재계산 완료 - {}행, {}ms", counts.size(), (System.nanoTime() - start) / 1_000_000);
+            return counts.size();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private static final class Tally {
+        long visits;
+        String diagnosis;
+    }
+
+    private static void tally(Map<Long, Map<String, Tally>> tallies, Long patientId, String diagnosis) {
+        String key = DiagnosisNormalizer.normalize(diagnosis);
+        if (patientId == null || key.isEmpty()) {
+            return;
+        }
+        Tally tally = tallies.computeIfAbsent(patientId, id -> new HashMap<>()).computeIfAbsent(key, k -> new Tally());
+        tally.visits++;
+        tally.diagnosis = diagnosis;
+    }
+}
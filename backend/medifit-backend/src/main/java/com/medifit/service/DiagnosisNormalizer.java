@@ -0,0 +1,22 @@
+package com.medifit.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * 진단명 비교용 정규화 - NFKC 정규화, 소문자화 후 글자/숫자 외 문자(공백, 구두점)를 제거한다.
+ * "기능성 소화불량"과 "기능성소화불량", "GERD"와 "gerd"를 같은 진단으로 본다.
+ */
+public final class DiagnosisNormalizer {
+
+    private DiagnosisNormalizer() {}
+
+    public static String normalize(String diagnosis) {
+        if (diagnosis == null) {
+            return "";
+        }
+        return Normalizer.normalize(diagnosis, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", "");
+    }
+}
@@ -0,0 +1,371 @@
+package com.medifit.service;
+
+import com.medifit.entity.DoctorDailyScorecard;
+import com.medifit.entity.DoctorDailyTally;
+import com.medifit.entity.MedicalRecord;
+import com.medifit.enums.RecordStatus;
+import com.medifit.enums.ScorecardDimension;
+import com.medifit.repository.DoctorDailyScorecardRepository;
+import com.medifit.repository.DoctorDailyTallyRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicalRecordSegmentStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 의사별 성과 집계 (스코어카드)
+ *
+ * doctor_daily_scorecards에 (의사, 진료일)별 진료/완료 건수, 진료비 합계, 진료 환자 HyperLogLog를,
+ * doctor_daily_tallies에 (의사, 진료일)별 진료과/진단명 건수를 두고 의료기록 저장/삭제 트랜잭션 안에서 함께 갱신한다.
+ * 임의 기간의 스코어카드는 일별 행을 합산하므로, 여러 의사를 비교해도 (의사 수 x 일수) 행만 읽는다.
+ *
+ * 고유 환자 수(재방문율의 분모)는 HyperLogLog 근사값이고, 삭제/변경된 기록의 환자는 매일 새벽 재계산 전까지 남는다.
+ * 보관 세그먼트로 옮긴 진료월의 집계는 재계산하지 않고 그대로 둔다 (MedicalRecordDailyCounters와 같다).
+ */
+@Service
+public class DoctorScorecards {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorScorecards.class);
+
+    // 전체 기간 조회용 경계
+    public static final LocalDate ALL_TIME_FROM = LocalDate.of(1900, 1, 1);
+    public static final LocalDate ALL_TIME_TO = LocalDate.of(9999, 12, 31);
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private DoctorDailyScorecardRepository scorecardRepository;
+
+    @Autowired
+    private DoctorDailyTallyRepository tallyRepository;
+
+    @Autowired
+    private MedicalRecordSegmentStore segmentStore;
+
+    // 스코어카드에 담을 진단명 상위 개수
+    @Value("${medifit.doctor-scorecards.top-diagnoses:10}")
+    private int topDiagnoses;
+
+    @Value("${medifit.doctor-scorecards.rebuild-chunk-size:5000}")
+    private int rebuildChunkSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    public DoctorScorecards(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 집계에 반영되는 의료기록의 값
+     */
+    public record ScoredVisit(Long doctorId, Long patientId, LocalDate visitDate, String department,
+                              String diagnosis, RecordStatus status, Integer medicalFee) {
+
+        public static ScoredVisit of(MedicalRecord record) {
+            return new ScoredVisit(record.getDoctor().getId(), record.getPatient().getId(),
+                    record.getVisitDate().toLocalDate(), record.getDepartment(), record.getDiagnosis(),
+                    record.getStatus(), record.getMedicalFee());
+        }
+
+        // row: doctorId, patientId, visitDate, diagnosis, department, status, medicalFee
+        // (MedicalRecordRepository.findCounterKey)
+        public static ScoredVisit of(Object[] row) {
+            return new ScoredVisit((Long) row[0], (Long) row[1], ((LocalDateTime) row[2]).toLocalDate(),
+                    (String) row[4], (String) row[3], (RecordStatus) row[5], (Integer) row[6]);
+        }
+    }
+
+    /**
+     * 기간 [fromDate, toDate]의 의사 성과. 재방문율은 진료 건수 / 고유 환자 수, 완료율은 완료 건수 / 진료 건수
+     */
+    public record Scorecard(Long doctorId, LocalDate fromDate, LocalDate toDate, long totalRecords,
+                            long completedRecords, double completionRate, long uniquePatients, double revisitRate,
+                            long averageMedicalFee, Map<String, Long> monthlyRecords,
+                            Map<String, Long> departmentRecords, Map<String, Long> topDiagnoses) {}
+
+    // 🔥 쓰기 경로
+
+    /**
+     * 의료기록 저장/삭제 트랜잭션 안에서 호출한다. before가 null이면 생성, after가 null이면 삭제.
+     */
+    public void recordChanged(ScoredVisit before, ScoredVisit after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (before != null) {
+            adjust(before, -1, now);
+        }
+        if (after != null) {
+            adjust(after, 1, now);
+        }
+    }
+
+    private void adjust(ScoredVisit visit, int delta, LocalDateTime now) {
+        List<DoctorDailyScorecard> rows = scorecardRepository.findByDoctorIdAndVisitDate(visit.doctorId(),
+                visit.visitDate());
+        DoctorDailyScorecard card = rows.isEmpty()
+                ? new DoctorDailyScorecard(visit.doctorId(), visit.visitDate(), now)
+                : rows.get(0);
+
+        card.setRecordCount(Math.max(0, card.getRecordCount() + delta));
+        if (visit.status() == RecordStatus.COMPLETED) {
+            card.setCompletedCount(Math.max(0, card.getCompletedCount() + delta));
+        }
+        if (visit.medicalFee() != null) {
+            card.setFeeTotal(card.getFeeTotal() + (long) delta * visit.medicalFee());
+            card.setFeeCount(Math.max(0, card.getFeeCount() + delta));
+        }
+        if (delta > 0) {
+            HyperLogLog sketch = HyperLogLog.fromBytes(card.getPatientSketch());
+            if (sketch.add(visit.patientId()) || card.getPatientSketch() == null) {
+                card.setPatientSketch(sketch.toBytes());
+            }
+        }
+        card.setUpdatedAt(now);
+        scorecardRepository.save(card);
+
+        adjustTally(visit, ScorecardDimension.DEPARTMENT, visit.department(), delta, now);
+        adjustTally(visit, ScorecardDimension.DIAGNOSIS, visit.diagnosis(), delta, now);
+    }
+
+    private void adjustTally(ScoredVisit visit, ScorecardDimension dimension, String label, int delta,
+                             LocalDateTime now) {
+        if (label == null || label.isBlank()) {
+            return;
+        }
+        String trimmed = label.trim();
+        List<DoctorDailyTally> rows = tallyRepository.findByDoctorIdAndVisitDateAndDimensionAndLabel(
+                visit.doctorId(), visit.visitDate(), dimension, trimmed);
+        if (rows.isEmpty() && delta < 0) {
+            return;
+        }
+        DoctorDailyTally tally = rows.isEmpty()
+                ? new DoctorDailyTally(visit.doctorId(), visit.visitDate(), dimension, trimmed, 0, now)
+                : rows.get(0);
+        tally.setRecordCount(Math.max(0, tally.getRecordCount() + delta));
+        tally.setUpdatedAt(now);
+        tallyRepository.save(tally);
+    }
+
+    // 🔥 조회
+
+    /**
+     * 의사들의 기간 스코어카드 (doctorIds가 비어 있으면 기간 안에 진료가 있는 모든 의사), 요청한 의사 순서
+     */
+    public List<Scorecard> scorecards(Collection<Long> doctorIds, LocalDate fromDate, LocalDate toDate) {
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("시작일이 종료일보다 늦습니다.");
+        }
+        List<Long> ids = doctorIds == null || doctorIds.isEmpty()
+                ? scorecardRepository.findDoctorIdsInWindow(fromDate, toDate)
+                : List.copyOf(new LinkedHashSet<>(doctorIds));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Totals> totals = new HashMap<>();
+        for (DoctorDailyScorecard card : scorecardRepository.findInWindow(ids, fromDate, toDate)) {
+            totals.computeIfAbsent(card.getDoctorId(), id -> new Totals()).add(card);
+        }
+        // row: doctorId, dimension, label, 건수
+        for (Object[] row : tallyRepository.sumInWindow(ids, fromDate, toDate)) {
+            Totals doctor = totals.computeIfAbsent((Long) row[0], id -> new Totals());
+            Map<String, Long> target = row[1] == ScorecardDimension.DEPARTMENT ? doctor.departments : doctor.diagnoses;
+            target.merge((String) row[2], ((Number) row[3]).longValue(), Long::sum);
+        }
+
+        List<Scorecard> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            result.add(totals.getOrDefault(id, new Totals()).toScorecard(id, fromDate, toDate, topDiagnoses));
+        }
+        return result;
+    }
+
+    public Scorecard scorecard(Long doctorId, LocalDate fromDate, LocalDate toDate) {
+        return scorecards(List.of(doctorId), fromDate, toDate).get(0);
+    }
+
+    private static final class Totals {
+        long records;
+        long completed;
+        long feeTotal;
+        long feeCount;
+        final HyperLogLog patients = new HyperLogLog();
+        final Map<String, Long> monthly = new TreeMap<>();
+        final Map<String, Long> departments = new HashMap<>();
+        final Map<String, Long> diagnoses = new HashMap<>();
+
+        void add(DoctorDailyScorecard card) {
+            records += card.getRecordCount();
+            completed += card.getCompletedCount();
+            feeTotal += card.getFeeTotal();
+            feeCount += card.getFeeCount();
+            if (card.getPatientSketch() != null) {
+                patients.merge(HyperLogLog.fromBytes(card.getPatientSketch()));
+            }
+            if (card.getRecordCount() > 0) {
+                monthly.merge(card.getVisitDate().format(MONTH), card.getRecordCount(), Long::sum);
+            }
+        }
+
+        Scorecard toScorecard(Long doctorId, LocalDate fromDate, LocalDate toDate, int topDiagnoses) {
+            // 근사값이 실제 건수를 넘지 않도록
+            long uniquePatients = Math.min(patients.estimate(), records);
+            Map<String, Long> top = new LinkedHashMap<>();
+            diagnoses.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(topDiagnoses)
+                    .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+            return new Scorecard(doctorId, fromDate, toDate, records, completed,
+                    records > 0 ? (double) completed / records : 0.0,
+                    uniquePatients,
+                    uniquePatients > 0 ? (double) records / uniquePatients : 0.0,
+                    feeCount > 0 ? Math.round((double) feeTotal / feeCount) : 0L,
+                    monthly, new TreeMap<>(departments), top);
+        }
+    }
+
+    // 🔥 재계산
+
+    /**
+     * 집계 테이블이 비어 있으면 (첫 배포, 초기 데이터) 기록에서 만든다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (scorecardRepository.count() == 0 && medicalRecordRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 매일 05:00 - 기록에서 집계를 다시 만들어 HyperLogLog의 삭제 누락과 동시 생성된 행을 정리한다.
+     */
+    @Scheduled(cron = "${medifit.doctor-scorecards.rebuild-cron:0 0 5 * * *}")
+    public void rebuildNightly() {
+        try {
+            rebuild();
+        } catch (IllegalStateException e) {
+            logger.warn(e.getMessage());
+        }
+    }
+
+    /**
+     * 의사 단위로 기록을 다시 집계해 일별 행을 교체한다. 교체 도중의 같은 의사 기록 변경은 다음 재계산 때 맞춰진다.
+     *
+     * @return 만든 일별 집계 행 수
+     */
+    public int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("의사 성과 집계 재계산이 이미 실행 중입니다.");
+        }
+
+        long start = System.nanoTime();
+        LocalDateTime rebuiltAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        int cards = 0;
+        try {
+            LocalDateTime archivedUntil = segmentStore.archivedUntil();
+            LocalDate fromDate = archivedUntil != null ? archivedUntil.toLocalDate() : null;
+            List<Long> doctorIds = medicalRecordRepository.findRecordHospitalIds();
+            for (Long doctorId : doctorIds) {
+                cards += rebuildDoctor(doctorId, rebuiltAt, archivedUntil, fromDate);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (fromDate == null) {
+                    scorecardRepository.deleteUpdatedBefore(rebuiltAt);
+                    tallyRepository.deleteUpdatedBefore(rebuiltAt);
+                } else {
+                    scorecardRepository.deleteUpdatedBeforeFrom(rebuiltAt, fromDate);
+                    tallyRepository.deleteUpdatedBeforeFrom(rebuiltAt, fromDate);
+                }
+            });
+            logger.info("의사 성과 집계 재계산 완료 - 의사 {}명, 일별 집계 {}개, {}ms",
+                    doctorIds.size(), cards, (System.nanoTime() - start) / 1_000_000);
+            return cards;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private int rebuildDoctor(Long doctorId, LocalDateTime rebuiltAt, LocalDateTime archivedUntil,
+                              LocalDate fromDate) {
+        Map<LocalDate, DoctorDailyScorecard> days = new TreeMap<>();
+        Map<LocalDate, HyperLogLog> sketches = new HashMap<>();
+        Map<List<Object>, DoctorDailyTally> tallies = new LinkedHashMap<>();
+        long afterId = 0L;
+        while (true) {
+            // 보관한 진료월이 없으면 날짜 조건 없이 읽는다
+            List<Object[]> rows = archivedUntil == null
+                    ? medicalRecordRepository.findScorecardRows(doctorId, afterId, Limit.of(rebuildChunkSize))
+                    : medicalRecordRepository.findScorecardRowsFrom(doctorId, afterId, archivedUntil,
+                            Limit.of(rebuildChunkSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            // row: id, patientId, visitDate, department, diagnosis, status, medicalFee
+            for (Object[] row : rows) {
+                LocalDate date = ((LocalDateTime) row[2]).toLocalDate();
+                DoctorDailyScorecard card = days.computeIfAbsent(date,
+                        d -> new DoctorDailyScorecard(doctorId, d, rebuiltAt));
+                card.setRecordCount(card.getRecordCount() + 1);
+                if (row[5] == RecordStatus.COMPLETED) {
+                    card.setCompletedCount(card.getCompletedCount() + 1);
+                }
+                if (row[6] != null) {
+                    card.setFeeTotal(card.getFeeTotal() + (Integer) row[6]);
+                    card.setFeeCount(card.getFeeCount() + 1);
+                }
+                sketches.computeIfAbsent(date, d -> new HyperLogLog()).add((Long) row[1]);
+                countTally(tallies, doctorId, date, ScorecardDimension.DEPARTMENT, (String) row[3], rebuiltAt);
+                countTally(tallies, doctorId, date, ScorecardDimension.DIAGNOSIS, (String) row[4], rebuiltAt);
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        days.forEach((date, card) -> card.setPatientSketch(sketches.get(date).toBytes()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (fromDate == null) {
+                scorecardRepository.deleteByDoctorId(doctorId);
+                tallyRepository.deleteByDoctorId(doctorId);
+            } else {
+                scorecardRepository.deleteByDoctorIdFrom(doctorId, fromDate);
+                tallyRepository.deleteByDoctorIdFrom(doctorId, fromDate);
+            }
+            scorecardRepository.saveAll(days.values());
+            tallyRepository.saveAll(tallies.values());
+        });
+        return days.size();
+    }
+
+    private static void countTally(Map<List<Object>, DoctorDailyTally> tallies, Long doctorId, LocalDate date,
+                                   ScorecardDimension dimension, String label, LocalDateTime rebuiltAt) {
+        if (label == null || label.isBlank()) {
+            return;
+        }
+        String trimmed = label.trim();
+        DoctorDailyTally tally = tallies.computeIfAbsent(List.of(date, dimension, trimmed),
+                key -> new DoctorDailyTally(doctorId, date, dimension, trimmed, 0, rebuiltAt));
+        tally.setRecordCount(tally.getRecordCount() + 1);
+    }
+}
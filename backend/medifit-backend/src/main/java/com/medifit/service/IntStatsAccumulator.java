@@ -0,0 +1,176 @@
+package com.medifit.service;
+
+import java.util.Arrays;
+
+/**
+ * int 값 통계를 한 번의 순회로 계산하는 누산기 (박싱 없음)
+ *
+ * 건수/합계/최소/최대, 지정한 구간별 건수, 근사 백분위를 함께 구한다.
+ * 백분위는 로그-선형 히스토그램(2의 거듭제곱 구간마다 32칸)의 칸 평균으로 근사하므로
+ * 64 미만이거나 칸에 한 가지 값만 있으면 정확하고, 그 외에는 상대 오차가 약 3% 이내다. 음수는 받지 않는다.
+ */
+public final class IntStatsAccumulator {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // 0~63은 한 칸씩, 이후 2^6 ~ 2^30 구간마다 32칸
+    private static final int LOG_BUCKET_COUNT = (Integer.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final int[] bucketUpperBounds;
+    private final long[] bucketCounts;
+    private final long[] logCounts = new long[LOG_BUCKET_COUNT];
+    private final long[] logSums = new long[LOG_BUCKET_COUNT];
+
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    /**
+     * @param bucketUpperBounds 오름차순 구간 상한(포함). 마지막 상한을 넘는 값은 별도 구간에 센다.
+     */
+    public IntStatsAccumulator(int... bucketUpperBounds) {
+        for (int i = 1; i < bucketUpperBounds.length; i++) {
+            if (bucketUpperBounds[i] <= bucketUpperBounds[i - 1]) {
+                throw new IllegalArgumentException("구간 상한은 오름차순이어야 합니다: " + Arrays.toString(bucketUpperBounds));
+            }
+        }
+        this.bucketUpperBounds = bucketUpperBounds.clone();
+        this.bucketCounts = new long[bucketUpperBounds.length + 1];
+    }
+
+    // 🔥 누적
+
+    public void accept(int value) {
+        accept(value, 1);
+    }
+
+    /**
+     * 같은 값 여러 건을 한 번에 더한다 (GROUP BY 결과 등)
+     */
+    public void accept(int value, long occurrences) {
+        if (value < 0) {
+            throw new IllegalArgumentException("음수는 집계할 수 없습니다: " + value);
+        }
+        if (occurrences <= 0) {
+            return;
+        }
+        count += occurrences;
+        sum += value * occurrences;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        bucketCounts[bucketIndex(value)] += occurrences;
+        int logIndex = logIndex(value);
+        logCounts[logIndex] += occurrences;
+        logSums[logIndex] += value * occurrences;
+    }
+
+    public void acceptAll(int[] values) {
+        for (int value : values) {
+            accept(value);
+        }
+    }
+
+    /**
+     * 같은 구간 설정의 다른 누산기를 합친다
+     */
+    public void merge(IntStatsAccumulator other) {
+        if (!Arrays.equals(bucketUpperBounds, other.bucketUpperBounds)) {
+            throw new IllegalArgumentException("구간 설정이 다른 통계는 합칠 수 없습니다.");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] += other.bucketCounts[i];
+        }
+        for (int i = 0; i < logCounts.length; i++) {
+            logCounts[i] += other.logCounts[i];
+            logSums[i] += other.logSums[i];
+        }
+    }
+
+    // 🔥 결과
+
+    public long getCount() { return count; }
+    public long getSum() { return sum; }
+    public boolean isEmpty() { return count == 0; }
+
+    public int getMin() {
+        requireNotEmpty();
+        return min;
+    }
+
+    public int getMax() {
+        requireNotEmpty();
+        return max;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    public int[] getBucketUpperBounds() {
+        return bucketUpperBounds.clone();
+    }
+
+    /**
+     * 구간별 건수. 길이는 상한 개수 + 1 이며 마지막 칸은 마지막 상한 초과
+     */
+    public long[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    /**
+     * 근사 백분위 (nearest-rank). percentile은 0~100
+     */
+    public int percentile(double percentile) {
+        requireNotEmpty();
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("백분위는 0~100 사이여야 합니다: " + percentile);
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        if (rank == 1) {
+            return min;
+        }
+        if (rank == count) {
+            return max;
+        }
+        long seen = 0;
+        for (int i = 0; i < logCounts.length; i++) {
+            seen += logCounts[i];
+            if (seen >= rank) {
+                // 칸에 들어온 값들의 평균 - 칸 범위 안이므로 오차는 칸 너비를 넘지 않는다
+                return (int) Math.round((double) logSums[i] / logCounts[i]);
+            }
+        }
+        return max;
+    }
+
+    private void requireNotEmpty() {
+        if (count == 0) {
+            throw new IllegalStateException("집계된 값이 없습니다.");
+        }
+    }
+
+    private int bucketIndex(int value) {
+        int index = Arrays.binarySearch(bucketUpperBounds, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // 🔥 로그-선형 히스토그램 칸 계산
+
+    private static int logIndex(int value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return value;
+        }
+        int exponent = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = value >>> shift; // 32 ~ 63
+        return (shift + 1) * SUB_BUCKET_COUNT + (subBucket - SUB_BUCKET_COUNT);
+    }
+}
@@ -0,0 +1,80 @@
+package com.medifit.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 한국어 문자 n-gram 분석기
+ *
+ * 형태소 분석 없이 띄어쓰기가 불규칙한 진료 기록에서도 부분 일치가 되도록 토큰을 문자 2-gram으로 쪼갠다.
+ * 한글/한자 토큰은 한 글자 검색("암", "간")을 위해 1-gram도 함께 색인한다.
+ * 질의도 같은 규칙으로 쪼개므로 "위암"은 "진행성위암" 안에서도 찾아진다.
+ */
+public final class KoreanNGramAnalyzer {
+
+    private KoreanNGramAnalyzer() {}
+
+    /**
+     * 색인용 - n-gram별 출현 횟수
+     */
+    public static Map<String, Integer> analyze(String text) {
+        Map<String, Integer> grams = new HashMap<>();
+        if (text == null || text.isBlank()) {
+            return grams;
+        }
+        for (String token : tokenize(text)) {
+            if (token.length() == 1 || isCjk(token)) {
+                for (int i = 0; i < token.length(); i++) {
+                    grams.merge(token.substring(i, i + 1), 1, Integer::sum);
+                }
+            }
+            for (int i = 0; i + 2 <= token.length(); i++) {
+                grams.merge(token.substring(i, i + 2), 1, Integer::sum);
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * 검색용 - 모두 포함해야 하는 n-gram (한 글자 토큰만 1-gram, 나머지는 2-gram)
+     */
+    public static Set<String> queryGrams(String query) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (query == null || query.isBlank()) {
+            return grams;
+        }
+        for (String token : tokenize(query)) {
+            if (token.length() == 1) {
+                grams.add(token);
+                continue;
+            }
+            for (int i = 0; i + 2 <= token.length(); i++) {
+                grams.add(token.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    // NFKC 정규화(전각 문자, 호환 자모 통일) 후 소문자화, 글자/숫자가 아닌 문자로 분리
+    static String[] tokenize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return Arrays.stream(normalized.split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static boolean isCjk(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            Character.UnicodeScript script = Character.UnicodeScript.of(token.charAt(i));
+            if (script == Character.UnicodeScript.HANGUL || script == Character.UnicodeScript.HAN) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
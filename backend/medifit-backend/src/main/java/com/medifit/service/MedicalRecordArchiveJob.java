@@ -0,0 +1,242 @@
+package com.medifit.service;
+
+import com.medifit.dto.ArchivedMedicalRecord;
+import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.MedicalRecordArchiveSegment;
+import com.medifit.event.MedicalRecordChangedEvent;
+import com.medifit.repository.MedicalRecordArchiveSegmentRepository;
+import com.medifit.repository.MedicalRecordDetailRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicalRecordSegmentStore;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 오래된 의료기록 보관 작업 (핫 테이블 -> 세그먼트 파일)
+ *
+ * horizon-months보다 오래된 진료월의 기록을 한 달씩 세그먼트 파일로 쓰고 기록 테이블에서 지운다.
+ * 한 달이 트랜잭션 하나라, 세그먼트 목록 행 추가와 기록 삭제가 함께 커밋되거나 함께 롤백된다.
+ * 처방전이 참조하는 기록은 엔티티 연관이 끊기지 않도록 테이블에 남긴다.
+ * 실행하는 동안 batch_job_locks의 잠금 행을 잡고 있어, 다른 인스턴스의 실행과 겹치지 않는다.
+ *
+ * 보관한 기록은 날짜 범위 조회(findByVisitDateRange)에만 나온다. 단건/환자별 목록/검색/타임라인은 기록 테이블만 본다.
+ */
+@Service
+public class MedicalRecordArchiveJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordArchiveJob.class);
+
+    static final String LOCK_NAME = "medical-record-archive";
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private MedicalRecordDetailRepository medicalRecordDetailRepository;
+
+    @Autowired
+    private MedicalRecordArchiveSegmentRepository segmentRepository;
+
+    @Autowired
+    private MedicalRecordSegmentStore segmentStore;
+
+    @Autowired
+    private BatchJobLocks batchJobLocks;
+
+    @Autowired
+    private MedicalRecordPartitionMaintainer partitionMaintainer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // 파일 저장소를 준비한 환경에서만 켠다 (기록을 테이블에서 지우는 작업)
+    @Value("${medifit.medical-record.archive.enabled:false}")
+    private boolean enabled;
+
+    // 이번 달 기준 이 개월 수보다 이전 진료월을 보관한다
+    @Value("${medifit.medical-record.archive.horizon-months:36}")
+    private int horizonMonths;
+
+    @Value("${medifit.medical-record.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    // 달마다 따로 커밋하는 트랜잭션 (잠금 트랜잭션 안에서 새로 연다)
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public MedicalRecordArchiveJob(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 보관 결과. rawBytes는 압축 전 블록 크기, fileBytes는 세그먼트 파일 크기 합이다.
+     */
+    public record ArchiveReport(LocalDate archivedBefore, int segments, long archivedRecords, long rawBytes,
+                                long fileBytes, int droppedPartitions, long elapsedMs) {}
+
+    // 매일 04:30 (사용량이 가장 적은 시간)
+    @Scheduled(cron = "${medifit.medical-record.archive.cron:0 30 4 * * *}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archive();
+        } catch (IllegalStateException e) {
+            logger.warn("의료기록 보관 건너뜀: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 보관 기준보다 오래된 진료월을 가장 이른 달부터 보관한다. 중간에 실패하면 끝난 달까지는 보관된 상태로 남고,
+     * 다시 실행하면 남은 달부터 이어서 한다. 다른 인스턴스가 실행 중이면 IllegalStateException.
+     */
+    public ArchiveReport archive() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("의료기록 보관이 이미 실행 중입니다.");
+        }
+        try {
+            return batchJobLocks.runLocked(LOCK_NAME, "다른 인스턴스에서 의료기록 보관이 실행 중입니다.",
+                    this::archiveLocked);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ArchiveReport archiveLocked() {
+        long start = System.nanoTime();
+        LocalDate horizon = getHorizon();
+        segmentStore.verifyDirectory();
+        int orphans = segmentStore.removeOrphans();
+        if (orphans > 0) {
+            logger.info("목록에 없는 보관 세그먼트 파일 {}개 삭제", orphans);
+        }
+
+        List<MedicalRecordArchiveSegment> segments = new ArrayList<>();
+        Set<LocalDate> attempted = new HashSet<>();
+        while (true) {
+            Optional<LocalDateTime> earliest =
+                    medicalRecordRepository.findEarliestArchivableVisitDate(horizon.atStartOfDay());
+            if (earliest.isEmpty()) {
+                break;
+            }
+            LocalDate month = earliest.get().toLocalDate().withDayOfMonth(1);
+            if (!attempted.add(month)) {
+                // 같은 달이 다시 나오면 그사이 다른 쓰기가 끼어든 것 - 다음 실행에 맡긴다
+                break;
+            }
+            MedicalRecordArchiveSegment segment = transactionTemplate.execute(status -> archiveMonth(month));
+            if (segment != null) {
+                segments.add(segment);
+                logger.info("의료기록 보관 - {} {}건, {}바이트 -> {}바이트 ({})", month, segment.getRecordCount(),
+                        segment.getRawBytes(), segment.getFileBytes(), segment.getFileName());
+            }
+        }
+
+        LocalDateTime archivedUntil = segmentStore.archivedUntil();
+        int dropped = transactionTemplate.execute(status -> partitionMaintainer.dropArchivedPartitions(archivedUntil));
+        ArchiveReport report = new ArchiveReport(horizon, segments.size(),
+                segments.stream().mapToLong(MedicalRecordArchiveSegment::getRecordCount).sum(),
+                segments.stream().mapToLong(MedicalRecordArchiveSegment::getRawBytes).sum(),
+                segments.stream().mapToLong(MedicalRecordArchiveSegment::getFileBytes).sum(),
+                dropped, (System.nanoTime() - start) / 1_000_000);
+        logger.info("의료기록 보관 완료 - {} 이전, 세그먼트 {}개, {}건, {}ms",
+                horizon, report.segments(), report.archivedRecords(), report.elapsedMs());
+        return report;
+    }
+
+    // 한 달치를 세그먼트로 쓰고 기록 테이블에서 지운다 (읽은 행은 커밋까지 잠겨 있다)
+    private MedicalRecordArchiveSegment archiveMonth(LocalDate month) {
+        LocalDateTime monthStart = month.atStartOfDay();
+        LocalDateTime monthEnd = month.plusMonths(1).atStartOfDay();
+        List<Long> recordIds = new ArrayList<>();
+        List<Long> detailIds = new ArrayList<>();
+
+        try (MedicalRecordSegmentStore.PendingSegment pending = segmentStore.create(month)) {
+            long afterPatientId = 0L;
+            LocalDateTime afterVisitDate = monthStart;
+            long afterId = 0L;
+            while (true) {
+                List<MedicalRecord> records = medicalRecordRepository.findArchivableForUpdate(monthStart, monthEnd,
+                        afterPatientId, afterVisitDate, afterId, Limit.of(chunkSize));
+                for (MedicalRecord record : records) {
+                    pending.append(ArchivedMedicalRecord.of(record));
+                    recordIds.add(record.getId());
+                    if (record.getDetail() != null) {
+                        detailIds.add(record.getDetail().getId());
+                    }
+                }
+                if (records.size() < chunkSize) {
+                    break;
+                }
+                MedicalRecord last = records.get(records.size() - 1);
+                afterPatientId = last.getPatient().getId();
+                afterVisitDate = last.getVisitDate();
+                afterId = last.getId();
+                // 읽은 엔티티는 다시 쓰지 않는다 - 한 달치를 영속성 컨텍스트에 쌓지 않도록 비운다 (잠금은 유지된다)
+                entityManager.clear();
+            }
+            entityManager.clear();
+            if (recordIds.isEmpty()) {
+                return null;
+            }
+
+            MedicalRecordArchiveSegment segment = segmentRepository.save(pending.commit());
+            for (int from = 0; from < recordIds.size(); from += chunkSize) {
+                medicalRecordRepository.deleteAllByIdInBatch(
+                        recordIds.subList(from, Math.min(from + chunkSize, recordIds.size())));
+            }
+            for (int from = 0; from < detailIds.size(); from += chunkSize) {
+                medicalRecordDetailRepository.deleteAllByIdInBatch(
+                        detailIds.subList(from, Math.min(from + chunkSize, detailIds.size())));
+            }
+            // 검색 색인/코호트 캐시에서 빠지도록 (일별 카운터와 동기화 로그는 기록이 남아 있는 것으로 둔다)
+            recordIds.forEach(id -> eventPublisher.publishEvent(MedicalRecordChangedEvent.deleted(id)));
+            return segment;
+        }
+    }
+
+    public LocalDate getHorizon() {
+        return YearMonth.now().minusMonths(horizonMonths).atDay(1);
+    }
+
+    public Map<String, Object> getStatus() {
+        List<MedicalRecordArchiveSegment> segments = segmentRepository.findAllByOrderByMonthStartAscIdAsc();
+        LocalDate horizon = getHorizon();
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("running", running.get());
+        status.put("horizonMonths", horizonMonths);
+        status.put("archiveBefore", horizon);
+        status.put("archivedUntil", segmentStore.archivedUntil());
+        status.put("segments", segments.size());
+        status.put("archivedRecords", segments.stream().mapToLong(MedicalRecordArchiveSegment::getRecordCount).sum());
+        status.put("archiveFileBytes", segments.stream().mapToLong(MedicalRecordArchiveSegment::getFileBytes).sum());
+        status.put("hotRecordsBeforeHorizon", medicalRecordRepository.countByVisitDateBefore(horizon.atStartOfDay()));
+        status.put("partitioned", partitionMaintainer.isPartitioned());
+        return status;
+    }
+}
@@ -0,0 +1,415 @@
+package com.medifit.service;
+
+import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.MedicalRecordDailyCounter;
+import com.medifit.repository.MedicalRecordDailyCounterRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicalRecordSegmentStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 의료기록 일별 카운터 (대시보드용)
+ *
+ * medical_record_daily_counters 테이블에 (병원, 진료일)별 진료 건수와 방문 환자 HyperLogLog를 유지하고,
+ * 의료기록 저장/삭제 트랜잭션 안에서 함께 갱신한다. 메모리에는 병원별 전체 건수와 최근 window-days 일치 카운터만 올려 두고
+ * 커밋 후에 같은 변경을 반영하므로, 대시보드는 기록 수와 관계없이 일별 칸만 합산한다.
+ *
+ * HyperLogLog는 값을 뺄 수 없어 삭제/변경된 기록의 환자는 매일 새벽 재계산 전까지 활성 환자 수에 남는다.
+ * 보관 세그먼트로 옮긴 진료월의 카운터는 재계산하지 않고 그대로 둔다 (기록 테이블에는 일부만 남아 있다).
+ */
+@Service
+public class MedicalRecordDailyCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordDailyCounters.class);
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private MedicalRecordDailyCounterRepository counterRepository;
+
+    @Autowired
+    private MedicalRecordSegmentStore segmentStore;
+
+    // 메모리에 둘 최근 일수 - 활성 환자(최근 3개월) 계산 기간보다 길어야 한다
+    @Value("${medifit.medical-record.counters.window-days:100}")
+    private int windowDays;
+
+    @Value("${medifit.medical-record.counters.rebuild-chunk-size:5000}")
+    private int rebuildChunkSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // 병원 ID -> 카운터 (null이면 아직 적재되지 않음)
+    private volatile Map<Long, HospitalWindow> hospitals;
+
+    // 적재 중 커밋된 변경 (새 카운터로 교체하기 직전에 다시 적용)
+    private Queue<VisitChange> pendingDuringLoad;
+
+    private final Object loadLock = new Object();
+    private final Object swapLock = new Object();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    public MedicalRecordDailyCounters(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 카운터에 반영되는 의료기록의 키
+     */
+    public record CountedVisit(Long hospitalId, Long patientId, LocalDate visitDate) {
+
+        public static CountedVisit of(MedicalRecord record) {
+            return new CountedVisit(record.getDoctor().getId(), record.getPatient().getId(),
+                    record.getVisitDate().toLocalDate());
+        }
+
+        // row: hospitalId, patientId, visitDate
+        public static CountedVisit of(Object[] row) {
+            return new CountedVisit((Long) row[0], (Long) row[1], ((LocalDateTime) row[2]).toLocalDate());
+        }
+    }
+
+    private record VisitChange(CountedVisit before, CountedVisit after) {}
+
+    /**
+     * 대시보드 집계 결과
+     */
+    public record Dashboard(long totalRecords, long todayRecords, long weeklyRecords, long monthlyRecords,
+                            long activePatients) {}
+
+    private static final class HospitalWindow {
+        final LongAdder totalRecords = new LongAdder();
+        final ConcurrentSkipListMap<LocalDate, Day> days = new ConcurrentSkipListMap<>();
+    }
+
+    private static final class Day {
+        final LongAdder records = new LongAdder();
+        private final HyperLogLog patients = new HyperLogLog();
+
+        synchronized void addPatient(long patientId) {
+            patients.add(patientId);
+        }
+
+        synchronized void mergePatients(HyperLogLog sketch) {
+            patients.merge(sketch);
+        }
+
+        synchronized void mergePatientsInto(HyperLogLog target) {
+            target.merge(patients);
+        }
+
+        synchronized byte[] patientBytes() {
+            return patients.toBytes();
+        }
+    }
+
+    // 🔥 쓰기 경로
+
+    /**
+     * 의료기록 저장/삭제 트랜잭션 안에서 호출한다. before가 null이면 생성, after가 null이면 삭제.
+     * 메모리 카운터는 커밋 후에 반영한다.
+     */
+    public void recordChanged(CountedVisit before, CountedVisit after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (before != null) {
+            adjust(before, -1, now);
+        }
+        if (after != null) {
+            adjust(after, 1, now);
+        }
+
+        Runnable applyInMemory = () -> applyInMemory(before, after);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyInMemory.run();
+                }
+            });
+        } else {
+            applyInMemory.run();
+        }
+    }
+
+    private void adjust(CountedVisit visit, int delta, LocalDateTime now) {
+        List<MedicalRecordDailyCounter> rows =
+                counterRepository.findByHospitalIdAndVisitDate(visit.hospitalId(), visit.visitDate());
+        MedicalRecordDailyCounter counter = rows.isEmpty()
+                ? new MedicalRecordDailyCounter(visit.hospitalId(), visit.visitDate(), 0, null, now)
+                : rows.get(0);
+
+        counter.setRecordCount(Math.max(0, counter.getRecordCount() + delta));
+        if (delta > 0) {
+            HyperLogLog sketch = HyperLogLog.fromBytes(counter.getPatientSketch());
+            if (sketch.add(visit.patientId()) || counter.getPatientSketch() == null) {
+                counter.setPatientSketch(sketch.toBytes());
+            }
+        }
+        counter.setUpdatedAt(now);
+        counterRepository.save(counter);
+    }
+
+    private void applyInMemory(CountedVisit before, CountedVisit after) {
+        synchronized (swapLock) {
+            // 아직 적재 전이고 적재 중도 아니면 적재할 때 테이블에서 그대로 읽힌다
+            Map<Long, HospitalWindow> current = hospitals;
+            if (current != null) {
+                apply(current, before, after);
+            }
+            if (pendingDuringLoad != null) {
+                pendingDuringLoad.add(new VisitChange(before, after));
+            }
+        }
+    }
+
+    private void apply(Map<Long, HospitalWindow> current, CountedVisit before, CountedVisit after) {
+        LocalDate windowStart = LocalDate.now().minusDays(windowDays);
+        if (before != null) {
+            HospitalWindow window = window(current, before.hospitalId());
+            window.totalRecords.decrement();
+            if (!before.visitDate().isBefore(windowStart)) {
+                day(window, before.visitDate()).records.decrement();
+            }
+        }
+        if (after != null) {
+            HospitalWindow window = window(current, after.hospitalId());
+            window.totalRecords.increment();
+            if (!after.visitDate().isBefore(windowStart)) {
+                Day day = day(window, after.visitDate());
+                day.records.increment();
+                day.addPatient(after.patientId());
+            }
+        }
+    }
+
+    private static HospitalWindow window(Map<Long, HospitalWindow> current, Long hospitalId) {
+        return current.computeIfAbsent(hospitalId, id -> new HospitalWindow());
+    }
+
+    private static Day day(HospitalWindow window, LocalDate date) {
+        return window.days.computeIfAbsent(date, d -> new Day());
+    }
+
+    // 🔥 조회
+
+    /**
+     * 대시보드 집계 (hospitalId가 null이면 전체 병원). 활성 환자는 최근 3개월 이후 진료일 기준
+     */
+    public Dashboard dashboard(Long hospitalId, LocalDate today) {
+        Map<Long, HospitalWindow> current = ensureLoaded();
+        Collection<HospitalWindow> windows;
+        if (hospitalId != null) {
+            HospitalWindow window = current.get(hospitalId);
+            windows = window != null ? List.of(window) : List.of();
+        } else {
+            windows = current.values();
+        }
+        return aggregate(windows, today);
+    }
+
+    /**
+     * 병원별 대시보드 집계
+     */
+    public Map<Long, Dashboard> dashboardByHospital(LocalDate today) {
+        Map<Long, Dashboard> result = new TreeMap<>();
+        ensureLoaded().forEach((hospitalId, window) -> result.put(hospitalId, aggregate(List.of(window), today)));
+        return result;
+    }
+
+    private Dashboard aggregate(Collection<HospitalWindow> windows, LocalDate today) {
+        LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
+        LocalDate weekEnd = weekStart.plusDays(7);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate monthEnd = monthStart.plusMonths(1);
+        LocalDate activeFrom = today.minusMonths(3);
+
+        long total = 0, todayCount = 0, weekly = 0, monthly = 0;
+        HyperLogLog activePatients = new HyperLogLog();
+        for (HospitalWindow window : windows) {
+            total += window.totalRecords.sum();
+            for (Map.Entry<LocalDate, Day> entry : window.days.tailMap(activeFrom, true).entrySet()) {
+                LocalDate date = entry.getKey();
+                long records = entry.getValue().records.sum();
+                if (date.equals(today)) {
+                    todayCount += records;
+                }
+                if (!date.isBefore(weekStart) && date.isBefore(weekEnd)) {
+                    weekly += records;
+                }
+                if (!date.isBefore(monthStart) && date.isBefore(monthEnd)) {
+                    monthly += records;
+                }
+                entry.getValue().mergePatientsInto(activePatients);
+            }
+        }
+        return new Dashboard(total, todayCount, weekly, monthly, activePatients.estimate());
+    }
+
+    // 🔥 적재 / 재계산
+
+    private Map<Long, HospitalWindow> ensureLoaded() {
+        Map<Long, HospitalWindow> current = hospitals;
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            return hospitals != null ? hospitals : loadLocked();
+        }
+    }
+
+    // 읽기 직전에 버퍼를 열어 읽는 중 커밋된 변경이 빠지지 않게 한다
+    // (버퍼를 연 직후 읽기 시작 전에 커밋된 변경은 건수가 두 번 더해질 수 있으며 다음 재계산에서 보정된다)
+    private Map<Long, HospitalWindow> loadLocked() {
+        synchronized (swapLock) {
+            pendingDuringLoad = new ArrayDeque<>();
+        }
+
+        Map<Long, HospitalWindow> fresh = new ConcurrentHashMap<>();
+        try {
+            for (Object[] row : counterRepository.sumRecordCountByHospital()) {
+                window(fresh, (Long) row[0]).totalRecords.add(((Number) row[1]).longValue());
+            }
+            for (MedicalRecordDailyCounter counter :
+                    counterRepository.findByVisitDateGreaterThanEqual(LocalDate.now().minusDays(windowDays))) {
+                Day day = day(window(fresh, counter.getHospitalId()), counter.getVisitDate());
+                day.records.add(counter.getRecordCount());
+                if (counter.getPatientSketch() != null) {
+                    day.mergePatients(HyperLogLog.fromBytes(counter.getPatientSketch()));
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (swapLock) {
+                pendingDuringLoad = null;
+            }
+            throw e;
+        }
+
+        synchronized (swapLock) {
+            for (VisitChange change : pendingDuringLoad) {
+                apply(fresh, change.before(), change.after());
+            }
+            pendingDuringLoad = null;
+            hospitals = fresh;
+        }
+        return fresh;
+    }
+
+    /**
+     * 카운터 테이블이 비어 있으면 (첫 배포, 초기 데이터) 기록에서 만든다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (counterRepository.count() == 0 && medicalRecordRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 매일 04:45 - 기록에서 카운터를 다시 만들어 HyperLogLog의 삭제 누락과 동시 생성된 행을 정리하고,
+     * 메모리 창을 오늘 기준으로 옮긴다.
+     */
+    @Scheduled(cron = "${medifit.medical-record.counters.rebuild-cron:0 45 4 * * *}")
+    public void rebuildNightly() {
+        try {
+            rebuild();
+        } catch (IllegalStateException e) {
+            logger.warn(e.getMessage());
+        }
+    }
+
+    /**
+     * 병원 단위로 기록을 다시 집계해 카운터를 교체한다. 교체 도중의 같은 병원 기록 변경은 다음 재계산 때 맞춰진다.
+     *
+     * @return 만든 카운터 행 수
+     */
+    public int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("의료기록 카운터 재계산이 이미 실행 중입니다.");
+        }
+
+        long start = System.nanoTime();
+        LocalDateTime rebuiltAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        int counters = 0;
+        try {
+            LocalDateTime archivedUntil = segmentStore.archivedUntil();
+            List<Long> hospitalIds = medicalRecordRepository.findRecordHospitalIds();
+            for (Long hospitalId : hospitalIds) {
+                counters += rebuildHospital(hospitalId, rebuiltAt, archivedUntil);
+            }
+            transactionTemplate.execute(status -> archivedUntil == null
+                    ? counterRepository.deleteUpdatedBefore(rebuiltAt)
+                    : counterRepository.deleteUpdatedBeforeFrom(rebuiltAt, archivedUntil.toLocalDate()));
+
+            synchronized (loadLock) {
+                loadLocked();
+            }
+            logger.info("의료기록 카운터 재계산 완료 - 병원 {}곳, 카운터 {}개, {}ms",
+                    hospitalIds.size(), counters, (System.nanoTime() - start) / 1_000_000);
+            return counters;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private int rebuildHospital(Long hospitalId, LocalDateTime rebuiltAt, LocalDateTime archivedUntil) {
+        Map<LocalDate, Day> days = new TreeMap<>();
+        long afterId = 0L;
+        while (true) {
+            // 보관한 진료월이 없으면 날짜 조건 없이 읽는다
+            List<Object[]> rows = archivedUntil == null
+                    ? medicalRecordRepository.findCounterRows(hospitalId, afterId, Limit.of(rebuildChunkSize))
+                    : medicalRecordRepository.findCounterRowsFrom(hospitalId, afterId, archivedUntil,
+                            Limit.of(rebuildChunkSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            // row: id, patientId, visitDate
+            for (Object[] row : rows) {
+                Day day = days.computeIfAbsent(((LocalDateTime) row[2]).toLocalDate(), d -> new Day());
+                day.records.increment();
+                day.addPatient((Long) row[1]);
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+
+        List<MedicalRecordDailyCounter> counters = new ArrayList<>(days.size());
+        days.forEach((date, day) -> counters.add(new MedicalRecordDailyCounter(
+                hospitalId, date, day.records.sum(), day.patientBytes(), rebuiltAt)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (archivedUntil == null) {
+                counterRepository.deleteByHospitalId(hospitalId);
+            } else {
+                counterRepository.deleteByHospitalIdFrom(hospitalId, archivedUntil.toLocalDate());
+            }
+            counterRepository.saveAll(counters);
+        });
+        return counters.size();
+    }
+}
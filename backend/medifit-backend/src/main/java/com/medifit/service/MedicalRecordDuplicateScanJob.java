@@ -0,0 +1,142 @@
+package com.medifit.service;
+
+import com.medifit.dto.DuplicateScanReport;
+import com.medifit.entity.DuplicateCandidate;
+import com.medifit.repository.DuplicateCandidateRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 전체 의료기록 중복 의심 스캔 배치
+ *
+ * 환자 ID 키셋으로 청크를 나누고, 청크마다 필요한 컬럼만 읽어 (환자, 진료일, 진료과, 정규화 진단명) 버킷으로 묶는다.
+ * 한 환자의 기록은 항상 같은 청크에 들어가므로 청크 경계에서 중복을 놓치지 않는다.
+ * 결과는 duplicate_candidates 테이블을 환자 단위로 교체하며, 화면은 이 테이블을 페이지로 조회한다.
+ */
+@Service
+public class MedicalRecordDuplicateScanJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordDuplicateScanJob.class);
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private DuplicateCandidateRepository duplicateCandidateRepository;
+
+    @Value("${medifit.medical-record.duplicate-scan.patients-per-chunk:500}")
+    private int patientsPerChunk;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public MedicalRecordDuplicateScanJob(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 중복 판정 키 - 같은 키의 기록이 둘 이상이면 중복 의심
+     */
+    public record DuplicateKey(Long patientId, LocalDate visitDate, String department, String diagnosisKey) {
+
+        // row: id, patientId, visitDate, department, diagnosis
+        static DuplicateKey of(Object[] row) {
+            return new DuplicateKey((Long) row[1], ((LocalDateTime) row[2]).toLocalDate(),
+                    (String) row[3], DiagnosisNormalizer.normalize((String) row[4]));
+        }
+    }
+
+    /**
+     * 기록 행을 키별로 한 번씩만 훑어 묶고, 둘 이상인 묶음만 남긴다 (O(n))
+     */
+    public static Map<DuplicateKey, List<Long>> findDuplicateGroups(List<Object[]> rows) {
+        Map<DuplicateKey, List<Long>> buckets = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            buckets.computeIfAbsent(DuplicateKey.of(row), key -> new ArrayList<>(2)).add((Long) row[0]);
+        }
+        buckets.values().removeIf(ids -> ids.size() < 2);
+        return buckets;
+    }
+
+    // 🔥 스캔
+
+    /**
+     * 매주 일요일 05:00
+     */
+    @Scheduled(cron = "${medifit.medical-record.duplicate-scan.cron:0 0 5 * * SUN}")
+    public void runWeekly() {
+        try {
+            run();
+        } catch (IllegalStateException e) {
+            logger.warn(e.getMessage());
+        }
+    }
+
+    public DuplicateScanReport run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("중복 의료기록 스캔이 이미 실행 중입니다.");
+        }
+
+        // DB 타임스탬프 정밀도에 맞춰 잘라 두어야 이전 스캔 결과를 정확히 구분한다
+        LocalDateTime scanStartedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        DuplicateScanReport report = new DuplicateScanReport(scanStartedAt);
+        long start = System.nanoTime();
+        try {
+            long afterPatientId = 0L;
+            while (true) {
+                List<Long> patientIds = medicalRecordRepository.findPatientIdsAfter(
+                        afterPatientId, Limit.of(patientsPerChunk));
+                if (patientIds.isEmpty()) {
+                    break;
+                }
+                processChunk(patientIds, scanStartedAt, report);
+                afterPatientId = patientIds.get(patientIds.size() - 1);
+            }
+
+            int stale = transactionTemplate.execute(status ->
+                    duplicateCandidateRepository.deleteDetectedBefore(scanStartedAt));
+            report.setStaleRemoved(stale);
+        } finally {
+            report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            running.set(false);
+        }
+
+        logger.info("중복 의료기록 스캔 완료 - 환자 {}명, 기록 {}건, 중복 의심 {}묶음({}건), {}ms",
+                report.getPatientsScanned(), report.getRecordsScanned(), report.getCandidateGroups(),
+                report.getDuplicateRecords(), report.getElapsedMillis());
+        return report;
+    }
+
+    // 환자 청크 하나를 자체 트랜잭션에서 다시 계산해 교체
+    private void processChunk(List<Long> patientIds, LocalDateTime detectedAt, DuplicateScanReport report) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> rows = medicalRecordRepository.findDuplicateKeyRows(patientIds);
+            Map<DuplicateKey, List<Long>> groups = findDuplicateGroups(rows);
+
+            List<DuplicateCandidate> candidates = new ArrayList<>(groups.size());
+            groups.forEach((key, ids) -> candidates.add(new DuplicateCandidate(key.patientId(), key.visitDate(),
+                    key.department(), key.diagnosisKey(), ids, detectedAt)));
+
+            duplicateCandidateRepository.deleteByPatientIds(patientIds);
+            duplicateCandidateRepository.saveAll(candidates);
+
+            report.addChunk(patientIds.size(), rows.size(), candidates.size(),
+                    candidates.stream().mapToInt(DuplicateCandidate::getRecordCount).sum());
+        });
+    }
+}
@@ -0,0 +1,270 @@
+package com.medifit.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medifit.dto.MedicalRecordExportKey;
+import com.medifit.dto.MedicalRecordExportRow;
+import com.medifit.repository.MedicalRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * 의료기록 스트리밍 내보내기 (NDJSON / CSV)
+ *
+ * 전진 전용 JPA 스트림(fetch size 지정)으로 한 행씩 읽어 바로 출력 스트림에 쓴다.
+ * 행은 생성자 표현식 DTO라 영속성 컨텍스트에 쌓이지 않으므로 건수와 관계없이 메모리 사용량이 일정하다.
+ *
+ * 행은 보관 세그먼트와 같은 (환자, 진료일시, id) 순으로 내보낸다. 기간이 보관 시점(archivedUntil) 이전에 걸치면
+ * 세그먼트 읽기(블록 단위 k-way 병합)와 기록 테이블 키셋 스트림을 같은 순서로 병합하므로 보관 구간도 메모리를 더 쓰지 않는다.
+ */
+@Service
+public class MedicalRecordExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordExportService.class);
+
+    private static final String[] CSV_HEADER = {
+            "id", "visitDate", "patientId", "patientName", "patientNumber", "department", "doctorId", "doctorName",
+            "diagnosis", "symptoms", "treatment", "medicalFee", "roomNumber", "status"
+    };
+
+    // Excel이 UTF-8 CSV의 한글을 깨뜨리지 않도록 붙이는 BOM
+    private static final char UTF8_BOM = '\uFEFF';
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String format) {
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("지원하지 않는 형식입니다: " + format);
+            }
+        }
+    }
+
+    /**
+     * 내보내기 조건. 날짜는 [startDate, endDate), after는 이어받기용 (마지막으로 받은 행의 키 다음부터, 없으면 처음부터)
+     */
+    public record ExportFilter(Long patientId, String department, LocalDateTime startDate, LocalDateTime endDate,
+                               MedicalRecordExportKey after) {
+
+        public ExportFilter {
+            if (startDate != null && endDate != null && !startDate.isBefore(endDate)) {
+                throw new IllegalArgumentException("시작일은 종료일보다 앞서야 합니다.");
+            }
+        }
+    }
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 이 행 수마다 출력 스트림을 flush 해서 클라이언트로 밀어낸다
+    @Value("${medifit.medical-record.export.flush-rows:1000}")
+    private int flushRows;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public MedicalRecordExportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // 🔥 내보내기
+
+    /**
+     * 조건에 맞는 의료기록(보관 기록 포함)을 (환자, 진료일시, id) 순으로 out에 쓴다. out은 닫지 않는다.
+     *
+     * @return 쓴 행 수
+     */
+    public long export(ExportFilter filter, Format format, OutputStream out) {
+        long start = System.nanoTime();
+        Long written = readOnlyTransaction.execute(status -> {
+            try (Stream<MedicalRecordExportRow> hot = medicalRecordRepository.streamExportRows(
+                    filter.patientId(), filter.department(), filter.startDate(), filter.endDate(), filter.after());
+                 Stream<MedicalRecordExportRow> archived = medicalRecordRepository.streamArchivedExportRows(
+                    filter.patientId(), filter.department(), filter.startDate(), filter.endDate(), filter.after())) {
+                Iterable<MedicalRecordExportRow> rows = () -> mergeByKey(hot.iterator(), archived.iterator());
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+                return format == Format.CSV ? writeCsv(rows, writer) : writeNdjson(rows, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        logger.info("의료기록 내보내기 완료 - {} {}건, {}ms", format, written, (System.nanoTime() - start) / 1_000_000);
+        return written != null ? written : 0L;
+    }
+
+    // 같은 순서인 두 행 스트림을 합친다. 같은 기록이 양쪽에 있으면 기록 테이블 쪽을 쓴다
+    static Iterator<MedicalRecordExportRow> mergeByKey(Iterator<MedicalRecordExportRow> hot,
+                                                       Iterator<MedicalRecordExportRow> archived) {
+        return new Iterator<>() {
+            private MedicalRecordExportRow nextHot = hot.hasNext() ? hot.next() : null;
+            private MedicalRecordExportRow nextArchived = archived.hasNext() ? archived.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextHot != null || nextArchived != null;
+            }
+
+            @Override
+            public MedicalRecordExportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int order = nextHot == null ? 1 : nextArchived == null ? -1 : nextHot.key().compareTo(nextArchived.key());
+                MedicalRecordExportRow row;
+                if (order <= 0) {
+                    row = nextHot;
+                    if (order == 0) {
+                        nextArchived = archived.hasNext() ? archived.next() : null;
+                    }
+                    nextHot = hot.hasNext() ? hot.next() : null;
+                } else {
+                    row = nextArchived;
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                }
+                return row;
+            }
+        };
+    }
+
+    private long writeNdjson(Iterable<MedicalRecordExportRow> rows, Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        // 최상위 객체 사이를 줄바꿈으로 구분
+        json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+        long count = 0;
+        for (MedicalRecordExportRow row : rows) {
+            json.writeStartObject();
+            json.writeNumberField("id", row.id());
+            writeStringField(json, "visitDate", row.visitDate() != null ? row.visitDate().toString() : null);
+            json.writeNumberField("patientId", row.patientId());
+            writeStringField(json, "patientName", row.patientName());
+            writeStringField(json, "patientNumber", row.patientNumber());
+            writeStringField(json, "department", row.department());
+            json.writeNumberField("doctorId", row.doctorId());
+            writeStringField(json, "doctorName", row.doctorName());
+            writeStringField(json, "diagnosis", row.diagnosis());
+            writeStringField(json, "symptoms", row.symptoms());
+            writeStringField(json, "treatment", row.treatment());
+            if (row.medicalFee() != null) {
+                json.writeNumberField("medicalFee", row.medicalFee());
+            }
+            writeStringField(json, "roomNumber", row.roomNumber());
+            writeStringField(json, "status", row.status() != null ? row.status().name() : null);
+            json.writeEndObject();
+
+            if (++count % flushRows == 0) {
+                json.flush();
+            }
+        }
+        if (count > 0) {
+            json.writeRaw('\n');
+        }
+        json.flush();
+        return count;
+    }
+
+    // NON_NULL 응답 설정과 맞춰 null 필드는 생략
+    private static void writeStringField(JsonGenerator json, String name, String value) throws IOException {
+        if (value != null) {
+            json.writeStringField(name, value);
+        }
+    }
+
+    private long writeCsv(Iterable<MedicalRecordExportRow> rows, Writer writer) throws IOException {
+        writer.write(UTF8_BOM);
+        writer.write(String.join(",", CSV_HEADER));
+        writer.write("\r\n");
+
+        long count = 0;
+        StringBuilder line = new StringBuilder(256);
+        for (MedicalRecordExportRow row : rows) {
+            line.setLength(0);
+            line.append(row.id()).append(',');
+            appendCsv(line, row.visitDate() != null ? row.visitDate().toString() : null).append(',');
+            line.append(row.patientId()).append(',');
+            appendCsv(line, row.patientName()).append(',');
+            appendCsv(line, row.patientNumber()).append(',');
+            appendCsv(line, row.department()).append(',');
+            line.append(row.doctorId()).append(',');
+            appendCsv(line, row.doctorName()).append(',');
+            appendCsv(line, row.diagnosis()).append(',');
+            appendCsv(line, row.symptoms()).append(',');
+            appendCsv(line, row.treatment()).append(',');
+            if (row.medicalFee() != null) {
+                line.append(row.medicalFee());
+            }
+            line.append(',');
+            appendCsv(line, row.roomNumber()).append(',');
+            appendCsv(line, row.status() != null ? row.status().name() : null);
+            line.append("\r\n");
+            writer.append(line);
+
+            if (++count % flushRows == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    // RFC 4180 - 쉼표, 따옴표, 줄바꿈이 있으면 따옴표로 감싸고 따옴표는 두 번 쓴다
+    private static StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+}
@@ -0,0 +1,140 @@
+package com.medifit.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * medical_records 월별 범위 파티션 관리 (PostgreSQL)
+ *
+ * db/postgresql/medical_records_partitioning.sql로 테이블을 visit_date 범위 파티션으로 바꾼 DB에서만 동작한다.
+ * 앞으로 쓸 진료월 파티션을 미리 만들고, 보관 작업이 비운 지난 진료월 파티션은 떼어 내 지운다.
+ * 그래서 기록 테이블(과 그 인덱스)은 보관 기간만큼의 파티션만 유지한다. H2(개발/테스트)는 일반 테이블이라 아무것도 하지 않는다.
+ */
+@Service
+public class MedicalRecordPartitionMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordPartitionMaintainer.class);
+
+    static final String TABLE = "medical_records";
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_y(\\d{4})m(\\d{2})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 미리 만들어 둘 다음 달 수 (이번 달 포함하지 않음)
+    @Value("${medifit.medical-record.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    private volatile Boolean partitioned;
+
+    /**
+     * 이번 달부터 months-ahead개월 뒤까지의 파티션을 만든다 (시작할 때와 매일 03:00)
+     *
+     * @return 새로 만든 파티션 수
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${medifit.medical-record.partitions.cron:0 0 3 * * *}")
+    public int createUpcomingPartitions() {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        List<String> existing = listPartitions();
+        int created = 0;
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            String name = partitionName(month);
+            if (existing.contains(name)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE +
+                        " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+                created++;
+            } catch (RuntimeException e) {
+                // 기본 파티션에 이미 그 달의 행이 있으면 만들 수 없다 - 스크립트의 안내대로 옮긴 뒤 다시 만든다
+                logger.warn("의료기록 파티션 생성 실패 - {}: {}", name, e.getMessage());
+            }
+        }
+        if (created > 0) {
+            logger.info("의료기록 파티션 {}개 생성", created);
+        }
+        return created;
+    }
+
+    /**
+     * archivedUntil 이전 진료월 중 비어 있는 파티션을 떼어 내고 지운다.
+     * 처방전이 참조해 남겨 둔 기록이 있는 파티션은 그대로 둔다.
+     *
+     * @return 지운 파티션 수
+     */
+    public int dropArchivedPartitions(LocalDateTime archivedUntil) {
+        if (archivedUntil == null || !isPartitioned()) {
+            return 0;
+        }
+        int dropped = 0;
+        for (String name : listPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            LocalDate monthEnd = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+                    .plusMonths(1).atDay(1);
+            if (monthEnd.atStartOfDay().isAfter(archivedUntil)) {
+                continue;
+            }
+            Boolean hasRows = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + name + ")", Boolean.class);
+            if (Boolean.TRUE.equals(hasRows)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+            jdbcTemplate.execute("DROP TABLE " + name);
+            dropped++;
+        }
+        if (dropped > 0) {
+            logger.info("보관이 끝난 의료기록 파티션 {}개 삭제", dropped);
+        }
+        return dropped;
+    }
+
+    public boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            if (result) {
+                Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table pt " +
+                        "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = ?", Integer.class, TABLE);
+                result = count != null && count > 0;
+            }
+            partitioned = result;
+        }
+        return result;
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ? ORDER BY c.relname", String.class, TABLE);
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(SUFFIX);
+    }
+}
@@ -0,0 +1,385 @@
+package com.medifit.service;
+
+import com.medifit.event.MedicalRecordChangedEvent;
+import com.medifit.event.MedicalRecordSnapshot;
+import com.medifit.repository.MedicalRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 의료기록 전문 검색 색인 (메모리)
+ *
+ * 진단명/증상/치료내용/의사 메모/진료과를 KoreanNGramAnalyzer로 쪼갠 n-gram 역색인이다.
+ * 게시 목록은 기록 ID 오름차순 배열이라 질의 n-gram을 가장 짧은 목록부터 이진 탐색으로 교집합한다.
+ * 커밋된 의료기록 변경 이벤트로 갱신하고, 처음 검색할 때와 매일 새벽에 DB에서 다시 만든다.
+ */
+@Service
+public class MedicalRecordSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordSearchIndex.class);
+
+    // 필드 가중치 (진단명 일치가 메모 일치보다 위로)
+    private static final float DIAGNOSIS_WEIGHT = 3.0f;
+    private static final float DEPARTMENT_WEIGHT = 2.0f;
+    private static final float SYMPTOMS_WEIGHT = 2.0f;
+    private static final float TREATMENT_WEIGHT = 1.0f;
+    private static final float NOTES_WEIGHT = 1.0f;
+
+    // 같은 n-gram이 한 필드에 여러 번 나와도 이 횟수까지만 점수에 반영
+    private static final int MAX_TERM_FREQUENCY = 3;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Value("${medifit.medical-record.search.rebuild-chunk-size:2000}")
+    private int rebuildChunkSize;
+
+    // null이면 아직 만들어지지 않음
+    private volatile IndexState state;
+
+    // 재구성 중 들어온 변경 (새 색인으로 교체한 직후 다시 적용)
+    private Queue<MedicalRecordChangedEvent> pendingDuringRebuild;
+
+    private final Object rebuildLock = new Object();
+    private final Object swapLock = new Object();
+
+    private volatile LocalDateTime builtAt;
+
+    /**
+     * 관련도순 검색 결과 (ids/scores는 요청한 구간만, total은 전체 일치 건수)
+     */
+    public record Hits(List<Long> ids, List<Double> scores, int total) {}
+
+    // 🔥 검색
+
+    /**
+     * 질의의 모든 n-gram을 포함하는 기록을 점수 내림차순(동점이면 최근 진료순)으로 반환한다.
+     */
+    public Hits search(String query, int offset, int limit) {
+        Set<String> grams = KoreanNGramAnalyzer.queryGrams(query);
+        if (grams.isEmpty() || limit <= 0) {
+            return new Hits(List.of(), List.of(), 0);
+        }
+        return ensureBuilt().search(grams, offset, limit);
+    }
+
+    /**
+     * DB에 더 이상 없는 기록을 색인에서 뺀다 (연쇄 삭제 등 이벤트 없이 지워진 경우)
+     */
+    public void evict(Collection<Long> recordIds) {
+        for (Long recordId : recordIds) {
+            onMedicalRecordChanged(MedicalRecordChangedEvent.deleted(recordId));
+        }
+    }
+
+    // 🔥 증분 갱신
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMedicalRecordChanged(MedicalRecordChangedEvent event) {
+        synchronized (swapLock) {
+            IndexState current = state;
+            if (current != null) {
+                apply(current, event);
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+        }
+    }
+
+    private static void apply(IndexState target, MedicalRecordChangedEvent event) {
+        if (event.isDeleted()) {
+            target.remove(event.recordId());
+        } else {
+            MedicalRecordSnapshot after = event.after();
+            target.upsert(after.id(), after.visitDate(), after.diagnosis(), after.department(),
+                    after.symptoms(), after.treatment(), after.doctorNotes());
+        }
+    }
+
+    // 🔥 재구성
+
+    private IndexState ensureBuilt() {
+        IndexState current = state;
+        if (current != null) {
+            return current;
+        }
+        synchronized (rebuildLock) {
+            return state != null ? state : rebuildLocked();
+        }
+    }
+
+    /**
+     * DB에서 색인을 처음부터 다시 만든다 (매일 04:30, 이벤트 누락 보정). 재구성 중에는 이전 색인으로 검색한다.
+     */
+    @Scheduled(cron = "${medifit.medical-record.search.rebuild-cron:0 30 4 * * *}")
+    public int rebuild() {
+        synchronized (rebuildLock) {
+            return rebuildLocked().documentCount();
+        }
+    }
+
+    private IndexState rebuildLocked() {
+        long start = System.nanoTime();
+        synchronized (swapLock) {
+            pendingDuringRebuild = new ArrayDeque<>();
+        }
+
+        IndexState fresh = new IndexState();
+        try {
+            long afterId = 0L;
+            while (true) {
+                List<Object[]> rows = medicalRecordRepository.findSearchDocuments(afterId, Limit.of(rebuildChunkSize));
+                for (Object[] row : rows) {
+                    fresh.upsert((Long) row[0], (LocalDateTime) row[1], (String) row[3], (String) row[2],
+                            (String) (row[7] != null ? row[7] : row[4]), (String) row[5],
+                            (String) (row[8] != null ? row[8] : row[6]));
+                }
+                if (rows.size() < rebuildChunkSize) {
+                    break;
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (RuntimeException e) {
+            synchronized (swapLock) {
+                pendingDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (swapLock) {
+            for (MedicalRecordChangedEvent event : pendingDuringRebuild) {
+                apply(fresh, event);
+            }
+            pendingDuringRebuild = null;
+            state = fresh;
+        }
+        builtAt = LocalDateTime.now();
+
+        logger.info("의료기록 검색 색인 재구성 완료 - 기록 {}건, n-gram {}개, {}ms",
+                fresh.documentCount(), fresh.termCount(), (System.nanoTime() - start) / 1_000_000);
+        return fresh;
+    }
+
+    public Map<String, Object> getStatus() {
+        IndexState current = state;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("built", current != null);
+        status.put("documents", current != null ? current.documentCount() : 0);
+        status.put("terms", current != null ? current.termCount() : 0);
+        status.put("builtAt", builtAt);
+        return status;
+    }
+
+    // 🔥 색인 구조
+
+    private static final class IndexState {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+
+        void upsert(Long id, LocalDateTime visitDate, String diagnosis, String department,
+                    String symptoms, String treatment, String doctorNotes) {
+            Map<String, Float> weights = new HashMap<>();
+            addField(weights, diagnosis, DIAGNOSIS_WEIGHT);
+            addField(weights, department, DEPARTMENT_WEIGHT);
+            addField(weights, symptoms, SYMPTOMS_WEIGHT);
+            addField(weights, treatment, TREATMENT_WEIGHT);
+            addField(weights, doctorNotes, NOTES_WEIGHT);
+
+            long visitMinute = visitDate != null ? visitDate.toEpochSecond(ZoneOffset.UTC) / 60 : Long.MIN_VALUE;
+            Document document = new Document(weights.keySet().toArray(String[]::new), visitMinute);
+
+            lock.writeLock().lock();
+            try {
+                Document previous = documents.put(id, document);
+                if (previous != null) {
+                    for (String gram : previous.grams()) {
+                        if (!weights.containsKey(gram)) {
+                            removePosting(gram, id);
+                        }
+                    }
+                }
+                weights.forEach((gram, weight) -> postings.computeIfAbsent(gram, g -> new Postings()).put(id, weight));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                Document previous = documents.remove(id);
+                if (previous != null) {
+                    for (String gram : previous.grams()) {
+                        removePosting(gram, id);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removePosting(String gram, long id) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+
+        private static void addField(Map<String, Float> weights, String text, float fieldWeight) {
+            KoreanNGramAnalyzer.analyze(text).forEach((gram, frequency) ->
+                    weights.merge(gram, fieldWeight * Math.min(frequency, MAX_TERM_FREQUENCY), Float::sum));
+        }
+
+        Hits search(Set<String> grams, int offset, int limit) {
+            lock.readLock().lock();
+            try {
+                List<Postings> lists = new ArrayList<>(grams.size());
+                for (String gram : grams) {
+                    Postings list = postings.get(gram);
+                    if (list == null) {
+                        return new Hits(List.of(), List.of(), 0);
+                    }
+                    lists.add(list);
+                }
+                lists.sort(Comparator.comparingInt(list -> list.size));
+
+                int documentCount = documents.size();
+                double[] idf = new double[lists.size()];
+                for (int j = 0; j < lists.size(); j++) {
+                    int df = lists.get(j).size;
+                    idf[j] = Math.log(1.0 + (documentCount - df + 0.5) / (df + 0.5));
+                }
+
+                // 상위 offset + limit건만 최소 힙으로 유지
+                int keep = offset + limit;
+                PriorityQueue<ScoredDocument> top = new PriorityQueue<>(ScoredDocument.RANKING.reversed());
+                int[] cursors = new int[lists.size()];
+                Postings shortest = lists.get(0);
+                int total = 0;
+
+                candidates:
+                for (int i = 0; i < shortest.size; i++) {
+                    long id = shortest.ids[i];
+                    double score = shortest.weights[i] * idf[0];
+                    for (int j = 1; j < lists.size(); j++) {
+                        Postings list = lists.get(j);
+                        int position = Arrays.binarySearch(list.ids, cursors[j], list.size, id);
+                        if (position < 0) {
+                            cursors[j] = -position - 1;
+                            if (cursors[j] >= list.size) {
+                                break candidates;
+                            }
+                            continue candidates;
+                        }
+                        cursors[j] = position + 1;
+                        score += list.weights[position] * idf[j];
+                    }
+
+                    total++;
+                    ScoredDocument scored = new ScoredDocument(id, score, documents.get(id).visitMinute());
+                    if (top.size() < keep) {
+                        top.add(scored);
+                    } else if (ScoredDocument.RANKING.compare(scored, top.peek()) < 0) {
+                        top.poll();
+                        top.add(scored);
+                    }
+                }
+
+                List<ScoredDocument> ranked = new ArrayList<>(top);
+                ranked.sort(ScoredDocument.RANKING);
+                List<Long> ids = new ArrayList<>();
+                List<Double> scores = new ArrayList<>();
+                for (int i = offset; i < ranked.size(); i++) {
+                    ids.add(ranked.get(i).id());
+                    scores.add(Math.round(ranked.get(i).score() * 1000.0) / 1000.0);
+                }
+                return new Hits(ids, scores, total);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int documentCount() {
+            lock.readLock().lock();
+            try {
+                return documents.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int termCount() {
+            lock.readLock().lock();
+            try {
+                return postings.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private record Document(String[] grams, long visitMinute) {}
+
+    private record ScoredDocument(long id, double score, long visitMinute) {
+        // 점수 내림차순, 최근 진료 우선, 최신 ID 우선
+        static final Comparator<ScoredDocument> RANKING = Comparator
+                .comparingDouble(ScoredDocument::score).reversed()
+                .thenComparing(Comparator.comparingLong(ScoredDocument::visitMinute).reversed())
+                .thenComparing(Comparator.comparingLong(ScoredDocument::id).reversed());
+    }
+
+    /**
+     * n-gram 하나의 게시 목록 - 기록 ID 오름차순 배열과 가중치. 재구성 시에는 ID 순으로 들어오므로 뒤에 붙기만 한다.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void put(long id, float weight) {
+            int position = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                weights[position] = weight;
+                return;
+            }
+            int insertAt = -position - 1;
+            if (size == ids.length) {
+                int capacity = ids.length + (ids.length >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            weights[insertAt] = weight;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(weights, position + 1, weights, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -1,16 +1,35 @@
 package com.medifit.service;
 
+import com.medifit.dto.CursorPage;
+import com.medifit.dto.DuplicateScanReport;
+import com.medifit.dto.MedicalRecordListItem;
+import com.medifit.dto.PatientTimelineItem;
+import com.medifit.dto.SearchPage;
+import com.medifit.entity.DuplicateCandidate;
 import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.PatientDiagnosisCount;
 import com.medifit.entity.Patient;
 import com.medifit.entity.User;
 import com.medifit.enums.RecordStatus;
+import com.medifit.enums.TextStorageMode;
+import com.medifit.event.MedicalRecordChangedEvent;
+import com.medifit.event.MedicalRecordSnapshot;
+import com.medifit.repository.DuplicateCandidateRepository;
 import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicalRecordSpecifications;
 import com.medifit.repository.PatientRepository;
+import com.medifit.repository.PrescriptionRepository;
 import com.medifit.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -20,6 +39,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class MedicalRecordService {
 
+    public static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private MedicalRecordRepository medicalRecordRepository;
 
@@ -29,6 +50,45 @@ public class MedicalRecordService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private MedicalRecordSearchIndex searchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DuplicateCandidateRepository duplicateCandidateRepository;
+
+    @Autowired
+    private MedicalRecordDuplicateScanJob duplicateScanJob;
+
+    @Autowired
+    private MedicalRecordDailyCounters dailyCounters;
+
+    @Autowired
+    private TreatmentCohortAnalyzer treatmentCohortAnalyzer;
+
+    @Autowired
+    private ChronicConditionTracker chronicConditions;
+
+    @Autowired
+    private DoctorScorecards doctorScorecards;
+
+    @Autowired
+    private SyncChangeLog syncChangeLog;
+
+    @Autowired
+    private MedicalRecordTextStorage textStorage;
+
+    @Autowired
+    private MedicalRecordArchiveJob archiveJob;
+
+    // 진료비 분포 구간 상한 (원)
+    @Value("${medifit.medical-record.fee-stats.buckets:50000,100000,200000}")
+    private int[] feeBucketBounds;
     // 🔥 기본 CRUD 메서드들
 
     public List<MedicalRecord> getAllMedicalRecords() {
@@ -47,15 +107,76 @@ public class MedicalRecordService {
         return medicalRecordRepository.findByDepartmentOrderByVisitDateDesc(department);
     }
 
+    // 🔥 API 목록 (서술형 본문 제외 - 압축 상세를 읽지 않는다)
+
+    public List<MedicalRecordListItem> getMedicalRecordList() {
+        return medicalRecordRepository.findListItems();
+    }
+
+    public List<MedicalRecordListItem> findListByPatientId(Long patientId) {
+        return medicalRecordRepository.findListItemsByPatientId(patientId, Limit.unlimited());
+    }
+
+    public List<MedicalRecordListItem> findListByDepartment(String department) {
+        return medicalRecordRepository.findListItemsByDepartment(department);
+    }
+
+    // 최근 기록은 최대 10건
+    public List<MedicalRecordListItem> findRecentListByPatientId(Long patientId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return medicalRecordRepository.findListItemsByPatientId(patientId, Limit.of(Math.min(limit, 10)));
+    }
+
     public MedicalRecord save(MedicalRecord medicalRecord) {
+        if (Boolean.TRUE.equals(medicalRecord.getArchived())) {
+            throw new IllegalStateException("보관된 진료기록은 수정할 수 없습니다.");
+        }
+        Object[] beforeKey = null;
         if (medicalRecord.getId() != null) {
             medicalRecord.setUpdatedAt(LocalDateTime.now());
+            beforeKey = findCounterKey(medicalRecord.getId());
         }
-        return medicalRecordRepository.save(medicalRecord);
+        MedicalRecordDailyCounters.CountedVisit before =
+                beforeKey != null ? MedicalRecordDailyCounters.CountedVisit.of(beforeKey) : null;
+        textStorage.apply(medicalRecord);
+        MedicalRecord saved = medicalRecordRepository.save(medicalRecord);
+        dailyCounters.recordChanged(before, MedicalRecordDailyCounters.CountedVisit.of(saved));
+        chronicConditions.recordChanged(
+                beforeKey != null ? ChronicConditionTracker.DiagnosisVisit.of(beforeKey) : null,
+                ChronicConditionTracker.DiagnosisVisit.of(saved));
+        doctorScorecards.recordChanged(
+                beforeKey != null ? DoctorScorecards.ScoredVisit.of(beforeKey) : null,
+                DoctorScorecards.ScoredVisit.of(saved));
+        syncChangeLog.recordChanged(PatientTimelineItem.Type.MEDICAL_RECORD, saved.getId(),
+                before != null ? before.patientId() : null, saved.getPatient().getId());
+        eventPublisher.publishEvent(MedicalRecordChangedEvent.saved(MedicalRecordSnapshot.of(saved)));
+        return saved;
     }
 
     public void deleteById(Long id) {
+        // 파티션 테이블에는 처방전 -> 진료기록 외래 키가 없으므로 여기서 막는다
+        if (prescriptionRepository.existsByMedicalRecordId(id)) {
+            throw new IllegalStateException("처방전이 연결된 진료기록은 삭제할 수 없습니다.");
+        }
+        Object[] beforeKey = findCounterKey(id);
+        MedicalRecordDailyCounters.CountedVisit before =
+                beforeKey != null ? MedicalRecordDailyCounters.CountedVisit.of(beforeKey) : null;
         medicalRecordRepository.deleteById(id);
+        dailyCounters.recordChanged(before, null);
+        if (beforeKey != null) {
+            chronicConditions.recordChanged(ChronicConditionTracker.DiagnosisVisit.of(beforeKey), null);
+            doctorScorecards.recordChanged(DoctorScorecards.ScoredVisit.of(beforeKey), null);
+            syncChangeLog.recordChanged(PatientTimelineItem.Type.MEDICAL_RECORD, id, before.patientId(), null);
+        }
+        eventPublisher.publishEvent(MedicalRecordChangedEvent.deleted(id));
+    }
+
+    // 저장 전 DB에 있던 카운터 키 (병원, 환자, 진료일, 진단명, 진료과, 상태, 진료비) - 새 기록이면 null
+    private Object[] findCounterKey(Long id) {
+        List<Object[]> rows = medicalRecordRepository.findCounterKey(id);
+        return rows.isEmpty() ? null : rows.get(0);
     }
 
     // 🔥 환자별 최근 의료기록
@@ -74,23 +195,62 @@ public class MedicalRecordService {
 
     // 🔥 의료기록 검색
 
-    public List<MedicalRecord> searchRecords(String keyword) {
+    /**
+     * 진단명/증상/치료내용/의사 메모/진료과 통합 검색 (n-gram 색인, 관련도순)
+     */
+    @Transactional(readOnly = true)
+    public SearchPage<MedicalRecordListItem> searchRecords(String keyword, int page, int size) {
         if (keyword == null || keyword.trim().isEmpty()) {
-            return new ArrayList<>();
+            return SearchPage.empty(page, size);
+        }
+
+        int offset;
+        try {
+            offset = Math.multiplyExact(page, size);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("page가 너무 큽니다.");
+        }
+
+        long start = System.nanoTime();
+        MedicalRecordSearchIndex.Hits hits = searchIndex.search(keyword.trim(), offset, size);
+
+        Map<Long, MedicalRecordListItem> recordsById = hits.ids().isEmpty() ? Map.of()
+                : medicalRecordRepository.findListItemsByIdIn(hits.ids()).stream()
+                        .collect(Collectors.toMap(MedicalRecordListItem::getId, record -> record));
+        List<MedicalRecordListItem> records = new ArrayList<>(hits.ids().size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : hits.ids()) {
+            MedicalRecordListItem record = recordsById.get(id);
+            if (record != null) {
+                records.add(record);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            searchIndex.evict(missing);
         }
-        return medicalRecordRepository.searchMedicalRecords(keyword.trim());
+
+        return new SearchPage<>(records, hits.total() - missing.size(), page, size,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuildSearchIndex() {
+        return searchIndex.rebuild();
+    }
+
+    public Map<String, Object> getSearchIndexStatus() {
+        return searchIndex.getStatus();
     }
 
     public List<MedicalRecord> findByDiagnosis(String diagnosis) {
         return medicalRecordRepository.findByDiagnosisContainingIgnoreCaseOrderByVisitDateDesc(diagnosis);
     }
 
+    // 보관 시점보다 이른 범위면 보관 세그먼트의 기록도 함께 (archived = true, 읽기 전용)
     public List<MedicalRecord> findByDateRange(LocalDateTime startDate, LocalDateTime endDate, Long patientId) {
-        if (patientId != null) {
-            return medicalRecordRepository.findByPatientIdAndVisitDateBetweenOrderByVisitDateDesc(patientId, startDate, endDate);
-        } else {
-            return medicalRecordRepository.findByVisitDateBetweenOrderByVisitDateDesc(startDate, endDate);
-        }
+        return medicalRecordRepository.findByVisitDateRange(patientId, startDate, endDate);
     }
 
     // 🔥 진단 및 치료 통계
@@ -150,44 +310,81 @@ public class MedicalRecordService {
         if (recordOpt.isPresent()) {
             MedicalRecord record = recordOpt.get();
 
-            // 실제로는 OpenAI API 호출하지만, 여기서는 규칙 기반 요약 생성
-            StringBuilder summary = new StringBuilder();
-            summary.append("📋 진료 요약\n");
-            summary.append("• 진료과: ").append(record.getDepartment()).append("\n");
-            summary.append("• 진단명: ").append(record.getDiagnosis()).append("\n");
+            // AI 요약 저장
+            String summary = buildRuleBasedSummary(record);
+            record.setAiSummary(summary);
+            save(record);
 
-            if (record.getSymptoms() != null && !record.getSymptoms().trim().isEmpty()) {
-                summary.append("• 주요 증상: ").append(record.getSymptoms()).append("\n");
-            }
+            return summary;
+        }
 
-            if (record.getTreatment() != null && !record.getTreatment().trim().isEmpty()) {
-                summary.append("• 치료 방법: ").append(record.getTreatment()).append("\n");
-            }
+        throw new RuntimeException("의료기록을 찾을 수 없습니다.");
+    }
 
-            summary.append("• 진료비: ").append(record.getMedicalFee() != null ? record.getMedicalFee() + "원" : "미기재").append("\n");
-            summary.append("• 진료일: ").append(record.getVisitDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+    /**
+     * LLM을 쓰지 않을 때의 규칙 기반 요약
+     */
+    public static String buildRuleBasedSummary(MedicalRecord record) {
+        StringBuilder summary = new StringBuilder();
+        summary.append("📋 진료 요약\n");
+        summary.append("• 진료과: ").append(record.getDepartment()).append("\n");
+        summary.append("• 진단명: ").append(record.getDiagnosis()).append("\n");
+
+        if (record.getSymptoms() != null && !record.getSymptoms().trim().isEmpty()) {
+            summary.append("• 주요 증상: ").append(record.getSymptoms()).append("\n");
+        }
 
-            // AI 요약 저장
-            record.setAiSummary(summary.toString());
-            save(record);
+        if (record.getTreatment() != null && !record.getTreatment().trim().isEmpty()) {
+            summary.append("• 치료 방법: ").append(record.getTreatment()).append("\n");
+        }
+
+        summary.append("• 진료비: ").append(record.getMedicalFee() != null ? record.getMedicalFee() + "원" : "미기재").append("\n");
+        summary.append("• 진료일: ").append(record.getVisitDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+        return summary.toString();
+    }
 
-            return summary.toString();
+    /**
+     * AI 요약만 갱신한다 (요약 작업용 - 기록 전체를 다시 저장하지 않는다)
+     * 타임라인 항목에 요약이 들어가므로 save()와 같이 동기화 변경 로그를 남긴다.
+     *
+     * @return 기록이 없으면 false
+     */
+    public boolean saveAiSummary(Long recordId, String aiSummary) {
+        Optional<Long> patientId = medicalRecordRepository.findPatientIdById(recordId);
+        if (patientId.isEmpty()) {
+            return false;
+        }
+        if (textStorage.getMode() != TextStorageMode.INLINE
+                || medicalRecordRepository.updateAiSummary(recordId, aiSummary, LocalDateTime.now()) == 0) {
+            // 압축 상세에 있거나 상세로 옮겨야 하는 기록
+            Optional<MedicalRecord> record = medicalRecordRepository.findById(recordId);
+            if (record.isEmpty()) {
+                return false;
+            }
+            MedicalRecord r = record.get();
+            r.setAiSummary(aiSummary);
+            r.setUpdatedAt(LocalDateTime.now());
+            textStorage.apply(r);
         }
+        syncChangeLog.recordChanged(PatientTimelineItem.Type.MEDICAL_RECORD, recordId,
+                patientId.get(), patientId.get());
+        return true;
+    }
 
-        throw new RuntimeException("의료기록을 찾을 수 없습니다.");
+    // AI 요약이 없는 기록 ID - (진료일, ID) 내림차순 키셋. 처음에는 beforeVisitDate/beforeId를 null로
+    @Transactional(readOnly = true)
+    public List<Object[]> findRecordsWithoutAiSummary(LocalDateTime beforeVisitDate, Long beforeId, int size) {
+        if (beforeVisitDate == null) {
+            return medicalRecordRepository.findWithoutAiSummary(Limit.of(size));
+        }
+        return medicalRecordRepository.findWithoutAiSummaryBefore(beforeVisitDate, beforeId, Limit.of(size));
     }
 
     // 🔥 월별 통계
 
     public Map<String, Object> getMonthlyStatistics(Long patientId, int months) {
         LocalDateTime startDate = LocalDateTime.now().minusMonths(months);
-        List<MedicalRecord> records;
-
-        if (patientId != null) {
-            records = medicalRecordRepository.findByPatientIdAndVisitDateAfterOrderByVisitDateDesc(patientId, startDate);
-        } else {
-            records = medicalRecordRepository.findByVisitDateAfterOrderByVisitDateDesc(startDate);
-        }
+        List<MedicalRecord> records = medicalRecordRepository.findByVisitDateRange(patientId, startDate, null);
 
         Map<String, Object> stats = new HashMap<>();
 
@@ -218,43 +415,71 @@ public class MedicalRecordService {
 
     // 🔥 진료비 통계
 
-    public Map<String, Object> getMedicalFeeStatistics(Long patientId) {
-        List<MedicalRecord> records = patientId != null ?
-                findByPatientId(patientId) : getAllMedicalRecords();
+    /**
+     * 진료비 통계. patientId, hospitalId(담당 병원), department 조건은 모두 선택이며 함께 쓸 수 있다.
+     * 진료비 값별 건수를 DB에서 집계해 한 번에 누산하므로 기록 엔티티를 읽지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getMedicalFeeStatistics(Long patientId, Long hospitalId, String department) {
+        IntStatsAccumulator fees = new IntStatsAccumulator(feeBucketBounds);
+        for (Object[] row : medicalRecordRepository.getMedicalFeeHistogram(patientId, hospitalId, department)) {
+            fees.accept((Integer) row[0], (Long) row[1]);
+        }
+        return toFeeStatistics(fees);
+    }
 
-        List<Integer> fees = records.stream()
-                .filter(record -> record.getMedicalFee() != null && record.getMedicalFee() > 0)
-                .map(MedicalRecord::getMedicalFee)
-                .collect(Collectors.toList());
+    /**
+     * 진료과별 진료비 통계 (hospitalId가 없으면 전체 병원)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, Object>> getDepartmentFeeStatistics(Long hospitalId) {
+        Map<String, IntStatsAccumulator> byDepartment = new LinkedHashMap<>();
+        for (Object[] row : medicalRecordRepository.getDepartmentMedicalFeeHistogram(hospitalId)) {
+            byDepartment.computeIfAbsent((String) row[0], department -> new IntStatsAccumulator(feeBucketBounds))
+                    .accept((Integer) row[1], (Long) row[2]);
+        }
 
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        byDepartment.forEach((department, fees) -> stats.put(department, toFeeStatistics(fees)));
+        return stats;
+    }
+
+    private Map<String, Object> toFeeStatistics(IntStatsAccumulator fees) {
         Map<String, Object> feeStats = new HashMap<>();
 
-        if (!fees.isEmpty()) {
-            int totalFee = fees.stream().mapToInt(Integer::intValue).sum();
-            double averageFee = fees.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-            int minFee = fees.stream().mapToInt(Integer::intValue).min().orElse(0);
-            int maxFee = fees.stream().mapToInt(Integer::intValue).max().orElse(0);
-
-            feeStats.put("totalFee", totalFee);
-            feeStats.put("averageFee", Math.round(averageFee));
-            feeStats.put("minFee", minFee);
-            feeStats.put("maxFee", maxFee);
-            feeStats.put("recordCount", fees.size());
-
-            // 진료비 구간별 분포
-            Map<String, Long> feeRanges = new HashMap<>();
-            feeRanges.put("0-50000", fees.stream().filter(fee -> fee <= 50000).count());
-            feeRanges.put("50001-100000", fees.stream().filter(fee -> fee > 50000 && fee <= 100000).count());
-            feeRanges.put("100001-200000", fees.stream().filter(fee -> fee > 100000 && fee <= 200000).count());
-            feeRanges.put("200001+", fees.stream().filter(fee -> fee > 200000).count());
-
-            feeStats.put("feeRangeDistribution", feeRanges);
-        } else {
+        if (fees.isEmpty()) {
             feeStats.put("totalFee", 0);
             feeStats.put("averageFee", 0);
             feeStats.put("recordCount", 0);
             feeStats.put("message", "진료비 정보가 없습니다.");
+            return feeStats;
+        }
+
+        feeStats.put("totalFee", fees.getSum());
+        feeStats.put("averageFee", Math.round(fees.getAverage()));
+        feeStats.put("minFee", fees.getMin());
+        feeStats.put("maxFee", fees.getMax());
+        feeStats.put("recordCount", fees.getCount());
+
+        // 근사 백분위
+        Map<String, Integer> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", fees.percentile(50));
+        percentiles.put("p90", fees.percentile(90));
+        percentiles.put("p99", fees.percentile(99));
+        feeStats.put("percentiles", percentiles);
+
+        // 진료비 구간별 분포 (예: 0-50000, 50001-100000, ..., 200001+)
+        int[] bounds = fees.getBucketUpperBounds();
+        long[] counts = fees.getBucketCounts();
+        Map<String, Long> feeRanges = new LinkedHashMap<>();
+        for (int i = 0; i < bounds.length; i++) {
+            int lower = i == 0 ? 0 : bounds[i - 1] + 1;
+            feeRanges.put(lower + "-" + bounds[i], counts[i]);
+        }
+        if (bounds.length > 0) {
+            feeRanges.put((bounds[bounds.length - 1] + 1) + "+", counts[bounds.length]);
         }
+        feeStats.put("feeRangeDistribution", feeRanges);
 
         return feeStats;
     }
@@ -330,7 +555,9 @@ public class MedicalRecordService {
     public List<MedicalRecord> findWithFilters(Long patientId, String department,
                                                String diagnosis, LocalDateTime startDate,
                                                LocalDateTime endDate) {
-        return medicalRecordRepository.findWithFilters(patientId, department, diagnosis, startDate, endDate);
+        return medicalRecordRepository.findAll(
+                MedicalRecordSpecifications.filter(patientId, department, diagnosis, startDate, endDate),
+                MedicalRecordSpecifications.NEWEST_FIRST);
     }
 
     // 🔥 의료기록 검증
@@ -405,81 +632,118 @@ public class MedicalRecordService {
 
     // 🔥 의료진별 통계
 
+    /**
+     * 의사의 전체 기간 통계 - 일별 성과 집계 합산 (기록을 읽지 않는다)
+     */
     public Map<String, Object> getDoctorStatistics(Long doctorId) {
-        List<MedicalRecord> records = medicalRecordRepository.findByDoctorIdOrderByVisitDateDesc(doctorId);
+        DoctorScorecards.Scorecard card = doctorScorecards.scorecard(doctorId,
+                DoctorScorecards.ALL_TIME_FROM, DoctorScorecards.ALL_TIME_TO);
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalRecords", records.size());
+        stats.put("totalRecords", card.totalRecords());
+        stats.put("monthlyRecords", card.monthlyRecords());
+        stats.put("departmentRecords", card.departmentRecords());
+        stats.put("averageMedicalFee", card.averageMedicalFee());
+        stats.put("mostCommonDiagnosis", card.topDiagnoses().keySet().stream().findFirst().orElse("없음"));
+        stats.put("completionRate", card.completionRate());
+        stats.put("revisitRate", card.revisitRate());
+        return stats;
+    }
 
-        // 월별 진료 건수
-        Map<String, Long> monthlyRecords = records.stream()
-                .collect(Collectors.groupingBy(
-                        record -> record.getVisitDate().format(DateTimeFormatter.ofPattern("yyyy-MM")),
-                        Collectors.counting()
-                ));
-        stats.put("monthlyRecords", monthlyRecords);
+    /**
+     * 여러 의사의 기간 스코어카드 비교 (doctorIds가 비어 있으면 기간 안에 진료가 있는 모든 의사).
+     * 기간을 주지 않으면 최근 3개월
+     */
+    public List<DoctorScorecards.Scorecard> compareDoctors(List<Long> doctorIds, LocalDate startDate,
+                                                           LocalDate endDate) {
+        LocalDate to = endDate != null ? endDate : LocalDate.now();
+        LocalDate from = startDate != null ? startDate : to.minusMonths(3);
+        return doctorScorecards.scorecards(doctorIds, from, to);
+    }
 
-        // 진료과별 건수
-        Map<String, Long> departmentRecords = records.stream()
-                .collect(Collectors.groupingBy(MedicalRecord::getDepartment, Collectors.counting()));
-        stats.put("departmentRecords", departmentRecords);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuildDoctorScorecards() {
+        return doctorScorecards.rebuild();
+    }
 
-        // 평균 진료비
-        double averageFee = records.stream()
-                .filter(record -> record.getMedicalFee() != null)
-                .mapToInt(MedicalRecord::getMedicalFee)
-                .average()
-                .orElse(0.0);
-        stats.put("averageMedicalFee", Math.round(averageFee));
+    // 🔥 대시보드 통계
 
-        // 가장 흔한 진단
-        Map<String, Long> diagnosisFrequency = records.stream()
-                .filter(record -> record.getDiagnosis() != null)
-                .collect(Collectors.groupingBy(MedicalRecord::getDiagnosis, Collectors.counting()));
+    /**
+     * 대시보드 통계 (hospitalId가 없으면 전체 병원). 일별 카운터만 합산하므로 기록 수와 관계없이 일정한 비용이다.
+     * 활성 환자 수는 HyperLogLog 근사값이다.
+     */
+    public Map<String, Object> getDashboardStatistics(Long hospitalId, boolean breakdown) {
+        LocalDate today = LocalDate.now();
+        Map<String, Object> dashboard = toDashboardMap(dailyCounters.dashboard(hospitalId, today));
+
+        // 병원별 분포
+        if (breakdown) {
+            List<Map<String, Object>> hospitals = new ArrayList<>();
+            dailyCounters.dashboardByHospital(today).forEach((id, stats) -> {
+                if (hospitalId == null || hospitalId.equals(id)) {
+                    Map<String, Object> item = toDashboardMap(stats);
+                    item.put("hospitalId", id);
+                    hospitals.add(item);
+                }
+            });
+            dashboard.put("hospitals", hospitals);
+        }
+        return dashboard;
+    }
 
-        String mostCommonDiagnosis = diagnosisFrequency.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("없음");
-        stats.put("mostCommonDiagnosis", mostCommonDiagnosis);
+    private static Map<String, Object> toDashboardMap(MedicalRecordDailyCounters.Dashboard stats) {
+        Map<String, Object> dashboard = new HashMap<>();
+        dashboard.put("totalRecords", stats.totalRecords());
+        dashboard.put("todayRecords", stats.todayRecords());
+        dashboard.put("weeklyRecords", stats.weeklyRecords());
+        dashboard.put("monthlyRecords", stats.monthlyRecords());
+        dashboard.put("activePatients", stats.activePatients());
+        return dashboard;
+    }
 
-        return stats;
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuildDailyCounters() {
+        return dailyCounters.rebuild();
     }
 
-    // 🔥 대시보드 통계
+    // 🔥 만성 질환 환자
 
-    public Map<String, Object> getDashboardStatistics() {
-        Map<String, Object> dashboard = new HashMap<>();
+    /**
+     * 같은 진단으로 기준 횟수 이상 방문한 환자 (hospitalId가 있으면 그 병원 환자만). 방문 횟수 테이블 조회이다.
+     */
+    public List<PatientDiagnosisCount> findChronicPatients(Long hospitalId) {
+        return chronicConditions.findChronicPatients(hospitalId);
+    }
 
-        // 전체 통계
-        long totalRecords = medicalRecordRepository.count();
-        dashboard.put("totalRecords", totalRecords);
-
-        // 오늘 진료 건수
-        LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
-        long todayRecords = medicalRecordRepository.countByVisitDateBetween(startOfDay, endOfDay);
-        dashboard.put("todayRecords", todayRecords);
-
-        // 이번 주 진료 건수
-        LocalDateTime startOfWeek = LocalDateTime.now().toLocalDate().atStartOfDay()
-                .minusDays(LocalDateTime.now().getDayOfWeek().getValue() - 1);
-        LocalDateTime endOfWeek = startOfWeek.plusDays(7);
-        long weeklyRecords = medicalRecordRepository.countByVisitDateBetween(startOfWeek, endOfWeek);
-        dashboard.put("weeklyRecords", weeklyRecords);
-
-        // 이번 달 진료 건수
-        LocalDateTime startOfMonth = LocalDateTime.now().toLocalDate().withDayOfMonth(1).atStartOfDay();
-        LocalDateTime endOfMonth = startOfMonth.plusMonths(1).minusSeconds(1);
-        long monthlyRecords = medicalRecordRepository.countByVisitDateBetween(startOfMonth, endOfMonth);
-        dashboard.put("monthlyRecords", monthlyRecords);
-
-        // 활성 환자 수 (최근 3개월 내 방문)
-        LocalDateTime threeMonthsAgo = LocalDateTime.now().minusMonths(3);
-        long activePatients = medicalRecordRepository.countDistinctPatientByVisitDateAfter(threeMonthsAgo);
-        dashboard.put("activePatients", activePatients);
+    public int getChronicThreshold() {
+        return chronicConditions.getThreshold();
+    }
 
-        return dashboard;
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuildDiagnosisCounts() {
+        return chronicConditions.rebuild();
+    }
+
+    // 🔥 서술형 필드 저장 방식
+
+    public Map<String, Object> getTextStorageStatus() {
+        return textStorage.getStatus();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MedicalRecordTextStorage.MigrationReport migrateTextStorage() {
+        return textStorage.migrate();
+    }
+
+    // 🔥 보관 (콜드 계층)
+
+    public Map<String, Object> getArchiveStatus() {
+        return archiveJob.getStatus();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MedicalRecordArchiveJob.ArchiveReport archiveOldRecords() {
+        return archiveJob.archive();
     }
 
     // 🔥 데이터 내보내기
@@ -506,111 +770,91 @@ public class MedicalRecordService {
 
     // 🔥 중복 기록 감지
 
+    /**
+     * 같은 날, 같은 진료과, 같은 진단(정규화)인 기록을 중복 의심으로 반환한다.
+     * 필요한 컬럼만 읽어 키별로 한 번 묶은 뒤, 중복 묶음에 속한 기록만 엔티티로 불러온다.
+     */
+    @Transactional(readOnly = true)
     public List<MedicalRecord> findPotentialDuplicates(Long patientId) {
-        List<MedicalRecord> allRecords = findByPatientId(patientId);
-        List<MedicalRecord> duplicates = new ArrayList<>();
-
-        for (int i = 0; i < allRecords.size(); i++) {
-            for (int j = i + 1; j < allRecords.size(); j++) {
-                MedicalRecord record1 = allRecords.get(i);
-                MedicalRecord record2 = allRecords.get(j);
-
-                // 같은 날, 같은 진료과, 같은 진단인 경우 중복 의심
-                if (record1.getVisitDate().toLocalDate().equals(record2.getVisitDate().toLocalDate()) &&
-                        record1.getDepartment().equals(record2.getDepartment()) &&
-                        record1.getDiagnosis().equalsIgnoreCase(record2.getDiagnosis())) {
-
-                    if (!duplicates.contains(record1)) duplicates.add(record1);
-                    if (!duplicates.contains(record2)) duplicates.add(record2);
-                }
-            }
+        List<Object[]> rows = medicalRecordRepository.findDuplicateKeyRows(List.of(patientId));
+        Set<Long> duplicateIds = new HashSet<>();
+        MedicalRecordDuplicateScanJob.findDuplicateGroups(rows).values().forEach(duplicateIds::addAll);
+        if (duplicateIds.isEmpty()) {
+            return new ArrayList<>();
         }
 
+        List<MedicalRecord> duplicates = medicalRecordRepository.findAllById(duplicateIds);
+        duplicates.sort(Comparator.comparing(MedicalRecord::getVisitDate).reversed()
+                .thenComparing(MedicalRecord::getId));
         return duplicates;
     }
 
-    // 🔥 치료 효과 분석
-
-    public Map<String, Object> analyzeTreatmentEffectiveness(String diagnosis, String treatment) {
-        List<MedicalRecord> treatmentRecords = medicalRecordRepository
-                .findByDiagnosisContainingIgnoreCaseAndTreatmentContainingIgnoreCaseOrderByVisitDateDesc(diagnosis, treatment);
-
-        Map<String, Object> analysis = new HashMap<>();
-        analysis.put("totalCases", treatmentRecords.size());
-
-        if (!treatmentRecords.isEmpty()) {
-            // 환자별 그룹핑
-            Map<Long, List<MedicalRecord>> patientGroups = treatmentRecords.stream()
-                    .collect(Collectors.groupingBy(record -> record.getPatient().getId()));
-
-            int improvedCases = 0;
-            int totalTrackedCases = 0;
-
-            for (List<MedicalRecord> patientRecords : patientGroups.values()) {
-                if (patientRecords.size() > 1) {
-                    // 시간순 정렬
-                    patientRecords.sort(Comparator.comparing(MedicalRecord::getVisitDate));
-
-                    // 마지막 기록이 완료 상태이면 호전된 것으로 간주
-                    MedicalRecord lastRecord = patientRecords.get(patientRecords.size() - 1);
-                    if (lastRecord.getStatus() == RecordStatus.COMPLETED) {
-                        improvedCases++;
-                    }
-                    totalTrackedCases++;
-                }
-            }
-
-            double successRate = totalTrackedCases > 0 ?
-                    (double) improvedCases / totalTrackedCases * 100 : 0;
-
-            analysis.put("trackedCases", totalTrackedCases);
-            analysis.put("improvedCases", improvedCases);
-            analysis.put("successRate", Math.round(successRate * 100.0) / 100.0);
-
-            // 평균 치료 기간
-            List<Long> treatmentDurations = new ArrayList<>();
-            for (List<MedicalRecord> patientRecords : patientGroups.values()) {
-                if (patientRecords.size() > 1) {
-                    long duration = java.time.Duration.between(
-                            patientRecords.get(0).getVisitDate(),
-                            patientRecords.get(patientRecords.size() - 1).getVisitDate()
-                    ).toDays();
-                    treatmentDurations.add(duration);
-                }
+    /**
+     * 전체 스캔으로 저장된 중복 의심 묶음 목록 (id 순 커서 페이지)
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<DuplicateCandidate> findDuplicateCandidates(Long patientId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("잘못된 커서입니다.");
             }
+        }
 
-            double averageDuration = treatmentDurations.stream()
-                    .mapToLong(Long::longValue)
-                    .average()
-                    .orElse(0.0);
-            analysis.put("averageTreatmentDays", Math.round(averageDuration));
+        // 다음 페이지 존재 여부 확인을 위해 한 건 더 조회
+        Limit limit = Limit.of(pageSize + 1);
+        List<DuplicateCandidate> rows = patientId != null
+                ? duplicateCandidateRepository.findByPatientIdAndIdGreaterThanOrderByIdAsc(patientId, afterId, limit)
+                : duplicateCandidateRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<DuplicateCandidate> items = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            String raw = String.valueOf(items.get(items.size() - 1).getId());
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
         }
+        return new CursorPage<>(new ArrayList<>(items), nextCursor, hasNext);
+    }
 
-        return analysis;
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DuplicateScanReport scanDuplicates() {
+        return duplicateScanJob.run();
     }
 
-    // 🔥 환자 상태 변화 추적
+    // 🔥 치료 효과 분석
 
-    public List<Map<String, Object>> getPatientStatusTimeline(Long patientId) {
-        List<MedicalRecord> records = findByPatientId(patientId);
+    @Transactional(readOnly = true)
+    public Map<String, Object> analyzeTreatmentEffectiveness(String diagnosis, String treatment) {
+        return toEffectivenessMap(treatmentCohortAnalyzer.analyze(diagnosis, treatment));
+    }
 
-        return records.stream().map(record -> {
-            Map<String, Object> timelineItem = new HashMap<>();
-            timelineItem.put("date", record.getVisitDate());
-            timelineItem.put("department", record.getDepartment());
-            timelineItem.put("diagnosis", record.getDiagnosis());
-            timelineItem.put("treatment", record.getTreatment());
-            timelineItem.put("status", record.getStatus().getDescription());
-            timelineItem.put("medicalFee", record.getMedicalFee());
-            timelineItem.put("doctorName", record.getDoctor().getHospitalName() != null ?
-                    record.getDoctor().getHospitalName() : record.getDoctor().getUsername());
+    /**
+     * 같은 진단에 대한 여러 치료법의 효과 비교 (치료법 -> 분석 결과)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, Object>> compareTreatmentEffectiveness(String diagnosis, List<String> treatments) {
+        Map<String, Map<String, Object>> comparison = new LinkedHashMap<>();
+        treatmentCohortAnalyzer.compare(diagnosis, treatments)
+                .forEach((treatment, stats) -> comparison.put(treatment, toEffectivenessMap(stats)));
+        return comparison;
+    }
 
-            // AI 요약이 있으면 포함
-            if (record.getAiSummary() != null && !record.getAiSummary().trim().isEmpty()) {
-                timelineItem.put("aiSummary", record.getAiSummary());
-            }
+    private static Map<String, Object> toEffectivenessMap(TreatmentCohortAnalyzer.CohortStats stats) {
+        Map<String, Object> analysis = new HashMap<>();
+        analysis.put("totalCases", stats.totalCases());
+
+        if (stats.totalCases() > 0) {
+            analysis.put("patients", stats.patients());
+            analysis.put("trackedCases", stats.trackedCases());
+            analysis.put("improvedCases", stats.improvedCases());
+            analysis.put("successRate", stats.successRate());
+            analysis.put("averageTreatmentDays", stats.averageTreatmentDays());
+        }
 
-            return timelineItem;
-        }).collect(Collectors.toList());
+        return analysis;
     }
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.medifit.service;
+
+import com.medifit.entity.CompressedTextConverter;
+import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.MedicalRecordDetail;
+import com.medifit.enums.TextStorageMode;
+import com.medifit.repository.MedicalRecordDetailRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 의료기록 서술형 필드(증상, 의사 메모, AI 요약)의 저장 방식
+ *
+ * DETAIL이면 저장할 때 medical_record_details로 옮겨 압축하고, INLINE이면 기록 테이블로 되돌린다.
+ * 이미 저장된 기록은 migrate()가 설정한 방식으로 옮긴다. 치료 내용은 코호트/효과 분석이 SQL에서
+ * 묶고 검색하므로 항상 기록 테이블에 둔다.
+ */
+@Service
+public class MedicalRecordTextStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordTextStorage.class);
+
+    private static final CompressedTextConverter CONVERTER = new CompressedTextConverter();
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private MedicalRecordDetailRepository medicalRecordDetailRepository;
+
+    @Value("${medifit.medical-record.text-storage:INLINE}")
+    private TextStorageMode mode;
+
+    // 이관 한 번(트랜잭션 하나)에 옮기는 기록 수 - 그동안 해당 행을 잠근다
+    @Value("${medifit.medical-record.text-storage.migrate-chunk-size:500}")
+    private int migrateChunkSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean migrating = new AtomicBoolean(false);
+
+    public MedicalRecordTextStorage(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 이관 결과. rawBytes/storedBytes는 옮긴 필드의 UTF-8 크기와 저장 크기(DETAIL로 옮긴 경우 압축 후)이다.
+     */
+    public record MigrationReport(TextStorageMode mode, long movedRecords, long rawBytes, long storedBytes,
+                                  long elapsedMs) {}
+
+    private record Chunk(int rows, long lastId, long rawBytes, long storedBytes) {}
+
+    public TextStorageMode getMode() {
+        return mode;
+    }
+
+    /**
+     * 저장 직전에 설정한 방식으로 옮긴다 (MedicalRecordService.save 트랜잭션 안에서)
+     * 수정 요청이면 먼저 기존 상세 행에 본문을 옮겨 적어 상세 행을 지우고 새로 만드는 일이 없게 한다.
+     */
+    public void apply(MedicalRecord record) {
+        if (record.getId() != null && record.getDetail() == null) {
+            medicalRecordRepository.findDetailByRecordId(record.getId()).ifPresent(record::reuseDetail);
+        }
+        if (mode == TextStorageMode.DETAIL) {
+            record.moveTextToDetail();
+        } else {
+            record.moveTextInline();
+        }
+    }
+
+    // 🔥 이관
+
+    /**
+     * 저장된 기록을 설정한 방식으로 옮긴다. 청크마다 별도 트랜잭션이라 중간에 실패해도 다시 실행하면 이어서 옮긴다.
+     */
+    public MigrationReport migrate() {
+        if (!migrating.compareAndSet(false, true)) {
+            throw new IllegalStateException("서술형 필드 이관이 이미 진행 중입니다.");
+        }
+        try {
+            long start = System.nanoTime();
+            long moved = 0;
+            long rawBytes = 0;
+            long storedBytes = 0;
+            long afterId = 0L;
+            while (true) {
+                long from = afterId;
+                // 저장 위치만 바뀌고 내용은 그대로이므로 동기화 변경 로그는 남기지 않는다
+                Chunk chunk = transactionTemplate.execute(status ->
+                        mode == TextStorageMode.DETAIL ? moveChunkToDetail(from) : moveChunkInline(from));
+                moved += chunk.rows();
+                rawBytes += chunk.rawBytes();
+                storedBytes += chunk.storedBytes();
+                if (chunk.rows() < migrateChunkSize) {
+                    break;
+                }
+                afterId = chunk.lastId();
+            }
+
+            MigrationReport report = new MigrationReport(mode, moved, rawBytes, storedBytes,
+                    (System.nanoTime() - start) / 1_000_000);
+            logger.info("의료기록 서술형 필드 이관 완료 - {} {}건, {}바이트 -> {}바이트, {}ms",
+                    mode, moved, rawBytes, storedBytes, report.elapsedMs());
+            return report;
+        } finally {
+            migrating.set(false);
+        }
+    }
+
+    private Chunk moveChunkToDetail(long afterId) {
+        List<Object[]> rows = medicalRecordRepository.findInlineTextForUpdate(afterId, Limit.of(migrateChunkSize));
+        long rawBytes = 0;
+        long storedBytes = 0;
+        for (Object[] row : rows) {
+            String symptoms = (String) row[1];
+            String doctorNotes = (String) row[2];
+            String aiSummary = (String) row[3];
+            MedicalRecordDetail detail = medicalRecordDetailRepository.save(
+                    new MedicalRecordDetail(symptoms, doctorNotes, aiSummary));
+            medicalRecordRepository.attachDetail((Long) row[0], detail);
+            rawBytes += utf8Length(symptoms) + utf8Length(doctorNotes) + utf8Length(aiSummary);
+            storedBytes += storedLength(symptoms) + storedLength(doctorNotes) + storedLength(aiSummary);
+        }
+        return new Chunk(rows.size(), rows.isEmpty() ? afterId : (Long) rows.get(rows.size() - 1)[0],
+                rawBytes, storedBytes);
+    }
+
+    private Chunk moveChunkInline(long afterId) {
+        List<Object[]> rows = medicalRecordRepository.findDetailTextForUpdate(afterId, Limit.of(migrateChunkSize));
+        List<Long> detailIds = new ArrayList<>(rows.size());
+        long rawBytes = 0;
+        for (Object[] row : rows) {
+            String symptoms = (String) row[2];
+            String doctorNotes = (String) row[3];
+            String aiSummary = (String) row[4];
+            medicalRecordRepository.detachDetail((Long) row[0], symptoms, doctorNotes, aiSummary);
+            detailIds.add((Long) row[1]);
+            rawBytes += utf8Length(symptoms) + utf8Length(doctorNotes) + utf8Length(aiSummary);
+        }
+        if (!detailIds.isEmpty()) {
+            medicalRecordDetailRepository.deleteAllByIdInBatch(detailIds);
+        }
+        return new Chunk(rows.size(), rows.isEmpty() ? afterId : (Long) rows.get(rows.size() - 1)[0],
+                rawBytes, rawBytes);
+    }
+
+    private static long utf8Length(String text) {
+        return text != null ? text.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+
+    private static long storedLength(String text) {
+        return text != null ? CONVERTER.convertToDatabaseColumn(text).length : 0;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("mode", mode);
+        status.put("modeDescription", mode.getDescription());
+        status.put("detailRecords", medicalRecordRepository.countByDetailIsNotNull());
+        status.put("inlineRecords", medicalRecordRepository.countInlineText());
+        status.put("migrating", migrating.get());
+        return status;
+    }
+}
@@ -1,5 +1,6 @@
 package com.medifit.service;
 
+import com.medifit.dto.PatientTimelineItem;
 import com.medifit.entity.Medication;
 import com.medifit.entity.Patient;
 import com.medifit.enums.MedicationStatus;
@@ -25,6 +26,9 @@ public class MedicationService {
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private SyncChangeLog syncChangeLog;
+
     // 🔥 모든 복약 정보 조회
     public List<Medication> getAllMedications() {
         return medicationRepository.findAll();
@@ -59,16 +63,23 @@ public class MedicationService {
         }
 
         // 수정 시간 업데이트
+        Long beforePatientId = null;
         if (medication.getId() != null) {
             medication.setUpdatedAt(LocalDateTime.now());
+            beforePatientId = medicationRepository.findPatientIdById(medication.getId()).orElse(null);
         }
 
-        return medicationRepository.save(medication);
+        Medication saved = medicationRepository.save(medication);
+        syncChangeLog.recordChanged(PatientTimelineItem.Type.MEDICATION, saved.getId(), beforePatientId,
+                saved.getPatient() != null ? saved.getPatient().getId() : null);
+        return saved;
     }
 
     // 🔥 복약 정보 삭제
     public void deleteById(Long id) {
+        Optional<Long> patientId = medicationRepository.findPatientIdById(id);
         medicationRepository.deleteById(id);
+        patientId.ifPresent(before -> syncChangeLog.recordChanged(PatientTimelineItem.Type.MEDICATION, id, before, null));
     }
 
     // 🔥 오늘 복용할 약물 조회
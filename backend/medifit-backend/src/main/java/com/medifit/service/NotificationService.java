@@ -1,15 +1,19 @@
 package com.medifit.service;
 
+import com.medifit.dto.PatientTimelineItem;
 import com.medifit.entity.Appointment;
 import com.medifit.entity.Medication;
 import com.medifit.entity.Patient;
 import com.medifit.enums.MedicationStatus;
 import com.medifit.enums.MedicationTime;
+import com.medifit.event.ChronicConditionEvent;
 import com.medifit.repository.AppointmentRepository;
 import com.medifit.repository.MedicationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,10 +32,14 @@ public class NotificationService {
     @Autowired
     private MedicationRepository medicationRepository;
 
+    @Autowired
+    private SyncChangeLog syncChangeLog;
+
     /**
-     * 복약 알림 전송 (매시간 정각에 실행)
+     * 복약 알림 전송 (매시간 정각에 실행).
+     * 스케줄링을 켜기 전부터 있던 작업이라 기본은 꺼 두고, medifit.notification.medication-reminder-cron으로 켠다.
      */
-    @Scheduled(cron = "0 0 * * * *") // 매시간 정각
+    @Scheduled(cron = "${medifit.notification.medication-reminder-cron:-}") // 켜면 보통 매시간 정각 (0 0 * * * *)
     public void sendScheduledMedicationReminders() {
         LocalTime currentTime = LocalTime.now();
 
@@ -71,38 +79,10 @@ public class NotificationService {
     }
 
     /**
-     * 진료 예약 알림 전송 (매일 오전 9시)
-     */
-    @Scheduled(cron = "0 0 9 * * *") // 매일 오전 9시
-    public void sendAppointmentReminders() {
-        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1);
-        LocalDateTime startOfTomorrow = tomorrow.toLocalDate().atStartOfDay();
-        LocalDateTime endOfTomorrow = startOfTomorrow.plusDays(1).minusSeconds(1);
-
-        try {
-            // 내일 예약된 진료 조회
-            List<Appointment> appointments = appointmentRepository
-                    .findByAppointmentDateBetweenOrderByAppointmentDateAsc(startOfTomorrow, endOfTomorrow);
-
-            for (Appointment appointment : appointments) {
-                if (!appointment.getReminderSent()) {
-                    sendAppointmentNotification(appointment);
-                    appointment.setReminderSent(true);
-                    appointment.setReminderSentAt(LocalDateTime.now());
-                    appointmentRepository.save(appointment);
-                }
-            }
-
-            logger.info("진료 예약 알림 전송 완료 - 대상 예약: {}개", appointments.size());
-        } catch (Exception e) {
-            logger.error("진료 예약 알림 전송 중 오류 발생", e);
-        }
-    }
-
-    /**
-     * 만료된 약물 상태 업데이트 (매일 자정에 실행)
+     * 만료된 약물 상태 업데이트 (매일 자정에 실행).
+     * 복약 알림과 같이 기본은 꺼 두고, medifit.notification.medication-expiry-cron으로 켠다.
      */
-    @Scheduled(cron = "0 0 0 * * *") // 매일 자정
+    @Scheduled(cron = "${medifit.notification.medication-expiry-cron:-}") // 켜면 보통 매일 자정 (0 0 0 * * *)
     public void updateExpiredMedications() {
         try {
             // 활성 상태인 모든 약물을 조회하여 각각의 만료일 체크
@@ -120,6 +100,8 @@ public class NotificationService {
                     medication.setStatus(MedicationStatus.COMPLETED);
                     medication.setUpdatedAt(LocalDateTime.now());
                     medicationRepository.save(medication);
+                    Long patientId = medication.getPatient().getId();
+                    syncChangeLog.recordChanged(PatientTimelineItem.Type.MEDICATION, medication.getId(), patientId, patientId);
                     updatedCount++;
 
                     logger.info("만료된 약물 상태 업데이트: {} - {} ({}일간 복용)",
@@ -184,9 +166,10 @@ public class NotificationService {
     }
 
     /**
-     * 진료 예약 알림 전송
+     * 진료 예약 알림 전송 (환자/병원이 로딩된 예약을 받는다, 성공 여부 반환)
+     * 일괄 발송은 AppointmentReminderDispatcher가 담당한다.
      */
-    private void sendAppointmentNotification(Appointment appointment) {
+    public boolean sendAppointmentNotification(Appointment appointment) {
         try {
             Patient patient = appointment.getPatient();
 
@@ -203,9 +186,11 @@ public class NotificationService {
             // 실제 알림 전송 로직 (이메일, SMS, 푸시 등)
             // 여기서는 로그로만 처리
             logger.info("진료 예약 알림: {}", message);
+            return true;
 
         } catch (Exception e) {
             logger.error("진료 예약 알림 전송 실패: {}", appointment.getId(), e);
+            return false;
         }
     }
 
@@ -276,6 +261,19 @@ public class NotificationService {
         }
     }
 
+    /**
+     * 만성 질환 관리 안내 (같은 진단 방문 횟수가 기준을 처음 넘었을 때, 기록 저장 커밋 후)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChronicCondition(ChronicConditionEvent event) {
+        if (!event.chronic()) {
+            return;
+        }
+        sendGeneralNotification("patient:" + event.patientId(), "만성질환 관리 안내",
+                String.format("'%s' 진료가 %d회 이상입니다. 만성질환 관리 프로그램 등록을 안내해 주세요.",
+                        event.diagnosis(), event.visitCount()));
+    }
+
     /**
      * 일반 알림 전송
      */
@@ -0,0 +1,156 @@
+package com.medifit.service;
+
+import com.medifit.dto.CursorPage;
+import com.medifit.dto.PatientTimelineItem;
+import com.medifit.dto.PatientTimelineItem.Type;
+import com.medifit.repository.AppointmentRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicationRepository;
+import com.medifit.repository.PrescriptionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * 환자 타임라인 (환자 앱 홈 화면)
+ *
+ * 진료기록과, 선택하면 예약/처방전/복약까지 시간 역순 하나의 스트림으로 합친다. 출처마다 같은 커서 이후를
+ * 한 페이지 + 1건씩 키셋으로 읽고 k-way 병합하므로, 페이지마다 출처 수만큼의 쿼리만 나간다.
+ * 순서는 (시각 DESC, 종류, ID DESC)이고 커서는 마지막 항목의 (시각, 종류, ID)이다.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PatientTimelineService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // 첫 페이지용 커서 (DB가 표현할 수 있는 범위의 최대 일시)
+    private static final LocalDateTime FIRST_PAGE_CURSOR_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    static final Comparator<PatientTimelineItem> TIMELINE_ORDER = Comparator
+            .comparing(PatientTimelineItem::occurredAt, Comparator.reverseOrder())
+            .thenComparing(PatientTimelineItem::type)
+            .thenComparing(PatientTimelineItem::id, Comparator.reverseOrder());
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    /**
+     * 커서 위치 - 이 항목 다음부터 읽는다
+     */
+    record Position(LocalDateTime occurredAt, Type type, long id) {
+
+        // 같은 시각의 source 항목 중 커서 뒤에 오는 것의 ID 상한 (이 값 미만)
+        long idBoundFor(Type source) {
+            int order = source.compareTo(type);
+            return order > 0 ? Long.MAX_VALUE : order == 0 ? id : Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * @param types 포함할 종류 (진료기록은 항상 포함)
+     */
+    public CursorPage<PatientTimelineItem> getTimeline(Long patientId, Set<Type> types, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Position position = decodeCursor(cursor);
+
+        EnumSet<Type> sources = EnumSet.of(Type.MEDICAL_RECORD);
+        sources.addAll(types);
+
+        // 다음 페이지 존재 여부 확인을 위해 출처마다 한 건 더 조회
+        Limit limit = Limit.of(pageSize + 1);
+        List<List<PatientTimelineItem>> pages = new ArrayList<>(sources.size());
+        for (Type source : sources) {
+            pages.add(fetch(source, patientId, position, limit));
+        }
+
+        List<PatientTimelineItem> merged = merge(pages, pageSize + 1);
+        boolean hasNext = merged.size() > pageSize;
+        List<PatientTimelineItem> items = hasNext ? merged.subList(0, pageSize) : merged;
+        String nextCursor = hasNext ? encodeCursor(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(new ArrayList<>(items), nextCursor, hasNext);
+    }
+
+    private List<PatientTimelineItem> fetch(Type source, Long patientId, Position position, Limit limit) {
+        LocalDateTime cursorDate = position != null ? position.occurredAt() : FIRST_PAGE_CURSOR_DATE;
+        long cursorId = position != null ? position.idBoundFor(source) : Long.MAX_VALUE;
+
+        return switch (source) {
+            case MEDICAL_RECORD -> medicalRecordRepository.findTimelineBefore(patientId, cursorDate, cursorId, limit);
+            case APPOINTMENT -> appointmentRepository.findTimelineBefore(patientId, cursorDate, cursorId, limit);
+            case PRESCRIPTION -> prescriptionRepository.findTimelineBefore(patientId, cursorDate, cursorId, limit);
+            case MEDICATION -> {
+                // 복약은 시작일 0시에 놓인다. 커서가 0시가 아니면 커서 날짜의 복약도 모두 커서 다음이다
+                LocalDate cursorDay = cursorDate.toLocalDate();
+                if (position != null && !cursorDate.toLocalTime().equals(LocalTime.MIDNIGHT)) {
+                    cursorDay = cursorDay.plusDays(1);
+                    cursorId = Long.MIN_VALUE;
+                }
+                yield medicationRepository.findTimelineBefore(patientId, cursorDay, cursorId, limit);
+            }
+        };
+    }
+
+    /**
+     * 각각 TIMELINE_ORDER로 정렬된 목록들을 합쳐 앞에서 limit개를 돌려준다
+     */
+    static List<PatientTimelineItem> merge(List<List<PatientTimelineItem>> sources, int limit) {
+        // 출처별 현재 위치 (출처 번호, 인덱스)
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> TIMELINE_ORDER.compare(sources.get(a[0]).get(a[1]), sources.get(b[0]).get(b[1])));
+        for (int i = 0; i < sources.size(); i++) {
+            if (!sources.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+
+        List<PatientTimelineItem> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<PatientTimelineItem> source = sources.get(head[0]);
+            merged.add(source.get(head[1]));
+            if (head[1] + 1 < source.size()) {
+                heads.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return merged;
+    }
+
+    // 🔥 커서
+
+    private static String encodeCursor(PatientTimelineItem item) {
+        String raw = item.occurredAt() + "|" + item.type() + "|" + item.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("잘못된 커서입니다.");
+            }
+            return new Position(LocalDateTime.parse(parts[0]), Type.valueOf(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다.");
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.medifit.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 예약 슬롯 변경 스트림 (SSE) 허브
+ *
+ * (병원, 날짜)별 구독자를 두고, 슬롯 비트가 바뀐 날짜만 표시해 두었다가 flush 주기마다 한 번에 변화분(delta)을 보낸다.
+ * 짧은 시간에 몰린 변경은 하나의 이벤트로 합쳐진다.
+ * 구독자마다 크기가 제한된 전송 큐와 전송용 가상 스레드를 두며, 큐가 넘치는 느린 클라이언트는 연결을 끊는다.
+ */
+@Service
+public class SlotAvailabilityHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotAvailabilityHub.class);
+
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Value("${medifit.slot-stream.flush-millis:250}")
+    private long flushMillis;
+
+    @Value("${medifit.slot-stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    // 구독자별 전송 대기 이벤트 수 한도
+    @Value("${medifit.slot-stream.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${medifit.slot-stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    private final ConcurrentHashMap<TopicKey, Topic> topics = new ConcurrentHashMap<>();
+    private final Set<TopicKey> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    record TopicKey(Long hospitalId, LocalDate date) {}
+
+    private static final class Topic {
+        final CopyOnWriteArraySet<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        long lastBits; // 구독자에게 마지막으로 알린 점유 비트
+        long version;
+
+        Topic(long bits) {
+            this.lastBits = bits;
+        }
+    }
+
+    private static final Object CLOSE = new Object();
+
+    private final class Subscriber {
+        final TopicKey key;
+        final Integer duration;
+        final SseEmitter emitter;
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+        volatile boolean closed;
+
+        Subscriber(TopicKey key, Integer duration, SseEmitter emitter) {
+            this.key = key;
+            this.duration = duration;
+            this.emitter = emitter;
+        }
+
+        // 큐가 가득 차면 false (호출한 쪽에서 구독을 끊는다)
+        boolean enqueue(SseEmitter.SseEventBuilder event) {
+            return !closed && queue.offer(event);
+        }
+
+        void drain() {
+            try {
+                while (true) {
+                    Object next = queue.take();
+                    if (next == CLOSE) {
+                        break;
+                    }
+                    emitter.send((SseEmitter.SseEventBuilder) next);
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // 클라이언트가 연결을 끊은 경우
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                unsubscribe(this);
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                queue.clear();
+                queue.offer(CLOSE);
+            }
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        slotReservationService.addChangeListener((hospitalId, date) -> {
+            TopicKey key = new TopicKey(hospitalId, date);
+            if (topics.containsKey(key)) {
+                dirty.add(key);
+            }
+        });
+        flusher = Thread.ofVirtual().name("slot-stream-flusher").start(this::flushLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        topics.values().forEach(topic -> topic.subscribers.forEach(Subscriber::close));
+    }
+
+    // 🔥 구독
+
+    /**
+     * (병원, 날짜) 슬롯 변경 구독. 처음에 현재 상태(snapshot)를 보내고 이후에는 변화분(slots)만 보낸다.
+     *
+     * @param duration 예약 가능 시각 계산에 쓸 진료 시간 (null이면 30분 슬롯 기준)
+     */
+    public SseEmitter subscribe(Long hospitalId, LocalDate date, Integer duration) {
+        TopicKey key = new TopicKey(hospitalId, date);
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(key, duration, emitter);
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        // 토픽 생성과 구독자 등록을 한 번에 처리한다 (마지막 구독자가 나가며 토픽을 지우는 것과 겹치지 않도록)
+        long bits = slotReservationService.occupancy(hospitalId, date);
+        topics.compute(key, (k, existing) -> {
+            Topic topic = existing != null ? existing : new Topic(bits);
+            synchronized (topic) {
+                Map<String, Object> snapshot = new LinkedHashMap<>();
+                snapshot.put("hospitalId", hospitalId);
+                snapshot.put("date", date.toString());
+                snapshot.put("version", topic.version);
+                snapshot.put("occupied", slotTimes(topic.lastBits));
+                snapshot.put("available", AppointmentService.availableTimes(topic.lastBits, duration));
+                subscriber.enqueue(SseEmitter.event().name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+                topic.subscribers.add(subscriber);
+            }
+            return topic;
+        });
+
+        // 토픽을 만드는 사이에 바뀐 비트가 있어도 다음 flush에서 따라잡도록 표시
+        dirty.add(key);
+
+        Thread.ofVirtual().name("slot-stream-" + hospitalId + "-" + date).start(subscriber::drain);
+        return emitter;
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("topics", topics.size());
+        status.put("subscribers", topics.values().stream().mapToInt(topic -> topic.subscribers.size()).sum());
+        status.put("droppedSlowClients", dropped.get());
+        return status;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.close();
+        topics.computeIfPresent(subscriber.key, (key, topic) -> {
+            topic.subscribers.remove(subscriber);
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+    }
+
+    // 🔥 변경 전파
+
+    private void flushLoop() {
+        long heartbeatEvery = Math.max(1, TimeUnit.SECONDS.toMillis(heartbeatSeconds) / Math.max(1, flushMillis));
+        long ticks = 0;
+        while (running) {
+            try {
+                Thread.sleep(flushMillis);
+                flush();
+                if (++ticks % heartbeatEvery == 0) {
+                    heartbeat();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("슬롯 스트림 전송 중 오류 발생", e);
+            }
+        }
+    }
+
+    void flush() {
+        for (TopicKey key : List.copyOf(dirty)) {
+            dirty.remove(key);
+            Topic topic = topics.get(key);
+            if (topic == null) {
+                continue;
+            }
+            synchronized (topic) {
+                long bits = slotReservationService.occupancy(key.hospitalId(), key.date());
+                long taken = bits & ~topic.lastBits;
+                long freed = topic.lastBits & ~bits;
+                if (taken == 0 && freed == 0) {
+                    continue;
+                }
+                topic.lastBits = bits;
+                topic.version++;
+
+                Map<Integer, List<String>> availableByDuration = new HashMap<>();
+                for (Subscriber subscriber : topic.subscribers) {
+                    Map<String, Object> delta = new LinkedHashMap<>();
+                    delta.put("hospitalId", key.hospitalId());
+                    delta.put("date", key.date().toString());
+                    delta.put("version", topic.version);
+                    delta.put("taken", slotTimes(taken));
+                    delta.put("freed", slotTimes(freed));
+                    delta.put("available", availableByDuration.computeIfAbsent(
+                            subscriber.duration != null ? subscriber.duration : 0,
+                            d -> AppointmentService.availableTimes(bits, subscriber.duration)));
+                    publish(topic, subscriber, SseEmitter.event().name("slots").data(delta, MediaType.APPLICATION_JSON));
+                }
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                publish(topic, subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+
+    // 전송 큐가 넘치면 느린 클라이언트로 보고 연결을 끊는다 (재연결하면 snapshot부터 다시 받는다)
+    private void publish(Topic topic, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.enqueue(event)) {
+            topic.subscribers.remove(subscriber);
+            subscriber.close();
+            dropped.incrementAndGet();
+            logger.info("느린 슬롯 스트림 구독자 연결 종료 - 병원 {}, {}", subscriber.key.hospitalId(), subscriber.key.date());
+        }
+    }
+
+    // 비트맵의 슬롯들을 "HH:mm" 시작 시각으로 변환
+    private static List<String> slotTimes(long bits) {
+        List<String> times = new ArrayList<>(Long.bitCount(bits));
+        for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+            int slot = Long.numberOfTrailingZeros(remaining);
+            times.add(LocalTime.MIN.plusMinutes((long) slot * SlotReservationService.SLOT_MINUTES).toString());
+        }
+        return times;
+    }
+}
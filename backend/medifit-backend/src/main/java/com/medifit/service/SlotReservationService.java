@@ -0,0 +1,297 @@
+package com.medifit.service;
+
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 병원별/날짜별 30분 단위 예약 슬롯 점유 엔진
+ *
+ * 하루 48개 슬롯을 long 하나의 비트로 표현하고 CAS로 선점한다.
+ * 메모리 상태는 캐시일 뿐이며, (병원, 날짜) 버킷을 처음 사용할 때 DB의 예약으로부터 복원한다.
+ */
+@Service
+public class SlotReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotReservationService.class);
+
+    public static final int SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int DEFAULT_DURATION = 30;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private final ConcurrentHashMap<SlotKey, DaySlots> days = new ConcurrentHashMap<>();
+
+    private final List<SlotChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 점유 비트가 바뀐 (병원, 날짜)를 통보받는다. 비트를 바꾼 스레드에서 바로 호출되므로 가볍게 처리해야 한다.
+     */
+    public interface SlotChangeListener {
+        void onSlotsChanged(Long hospitalId, LocalDate date);
+    }
+
+    public void addChangeListener(SlotChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    // 🔥 슬롯 선점/해제
+
+    /**
+     * 예약 시간대의 슬롯을 원자적으로 선점한다. 이미 점유된 슬롯이 하나라도 있으면 false.
+     */
+    public boolean tryReserve(Long hospitalId, LocalDateTime appointmentDate, Integer duration) {
+        long mask = slotMask(appointmentDate.toLocalTime(), duration);
+        boolean claimed = bucket(hospitalId, appointmentDate.toLocalDate()).tryClaim(mask);
+        if (claimed) {
+            notifyChanged(hospitalId, appointmentDate.toLocalDate());
+        }
+        return claimed;
+    }
+
+    /**
+     * 예약 변경(일정 변경, 취소 철회 등)으로 새로 필요해지는 슬롯만 원자적으로 선점한다.
+     * 같은 병원/날짜에서 이전 예약이 이미 점유하던 슬롯은 다시 검사하지 않는다.
+     * 새로 선점한 비트 마스크를 반환하며 (없으면 0), 점유된 슬롯이 하나라도 있으면 -1.
+     */
+    public long tryReserveChange(AppointmentSnapshot before, AppointmentSnapshot after) {
+        if (after == null || !after.occupiesSlot()) {
+            return 0L;
+        }
+        LocalDate date = after.appointmentDate().toLocalDate();
+        long needed = slotMask(after.appointmentDate().toLocalTime(), after.estimatedDuration());
+        if (before != null && before.occupiesSlot() && before.hospitalId().equals(after.hospitalId())
+                && before.appointmentDate().toLocalDate().equals(date)) {
+            needed &= ~slotMask(before.appointmentDate().toLocalTime(), before.estimatedDuration());
+        }
+        if (needed == 0) {
+            return 0L;
+        }
+        if (!bucket(after.hospitalId(), date).tryClaim(needed)) {
+            return -1L;
+        }
+        notifyChanged(after.hospitalId(), date);
+        return needed;
+    }
+
+    /**
+     * 검사 없이 슬롯을 점유 상태로 표시한다.
+     * 커밋 이벤트 반영용이며, 새 슬롯을 쓰는 경로는 먼저 tryReserve/tryReserveChange로 선점해야 한다.
+     */
+    public void occupy(Long hospitalId, LocalDateTime appointmentDate, Integer duration) {
+        long mask = slotMask(appointmentDate.toLocalTime(), duration);
+        if (bucket(hospitalId, appointmentDate.toLocalDate()).claim(mask)) {
+            notifyChanged(hospitalId, appointmentDate.toLocalDate());
+        }
+    }
+
+    public void release(Long hospitalId, LocalDateTime appointmentDate, Integer duration) {
+        releaseMask(hospitalId, appointmentDate.toLocalDate(), slotMask(appointmentDate.toLocalTime(), duration));
+    }
+
+    public void releaseMask(Long hospitalId, LocalDate date, long mask) {
+        DaySlots slots = days.get(new SlotKey(hospitalId, date));
+        if (slots != null && slots.release(mask)) {
+            notifyChanged(hospitalId, date);
+        }
+    }
+
+    private void notifyChanged(Long hospitalId, LocalDate date) {
+        for (SlotChangeListener listener : changeListeners) {
+            try {
+                listener.onSlotsChanged(hospitalId, date);
+            } catch (RuntimeException e) {
+                logger.warn("슬롯 변경 리스너 처리 실패", e);
+            }
+        }
+    }
+
+    public boolean isAvailable(Long hospitalId, LocalDateTime appointmentDate, Integer duration) {
+        long mask = slotMask(appointmentDate.toLocalTime(), duration);
+        return (bucket(hospitalId, appointmentDate.toLocalDate()).bits() & mask) == 0;
+    }
+
+    // 🔥 예약 변경 반영
+
+    /**
+     * 커밋된 예약 변경을 슬롯 비트맵에 반영한다. 새 슬롯을 먼저 점유한 뒤, 더 이상 쓰지 않는 이전 슬롯만 해제한다.
+     * 빈 슬롯을 다시 쓰는 리스너(대기열 등)보다 먼저 실행된다.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        for (AppointmentChangedEvent.Change change : event.changes()) {
+            apply(change.before(), change.after());
+        }
+    }
+
+    private void apply(AppointmentSnapshot before, AppointmentSnapshot after) {
+        boolean wasOccupied = before != null && before.occupiesSlot();
+        boolean nowOccupied = after != null && after.occupiesSlot();
+
+        if (nowOccupied) {
+            occupy(after.hospitalId(), after.appointmentDate(), after.estimatedDuration());
+        }
+        if (!wasOccupied) {
+            return;
+        }
+        long freed = slotMask(before.appointmentDate().toLocalTime(), before.estimatedDuration());
+        if (nowOccupied && after.hospitalId().equals(before.hospitalId())
+                && after.appointmentDate().toLocalDate().equals(before.appointmentDate().toLocalDate())) {
+            freed &= ~slotMask(after.appointmentDate().toLocalTime(), after.estimatedDuration());
+        }
+        if (freed != 0) {
+            releaseMask(before.hospitalId(), before.appointmentDate().toLocalDate(), freed);
+        }
+    }
+
+    // 🔥 점유 비트맵 조회
+
+    public long occupancy(Long hospitalId, LocalDate date) {
+        return bucket(hospitalId, date).bits();
+    }
+
+    /**
+     * [from, to] 기간의 날짜별 점유 비트맵. 메모리에 없는 날짜는 한 번의 범위 쿼리로 복원한다.
+     */
+    public Map<LocalDate, Long> occupancy(Long hospitalId, LocalDate from, LocalDate to) {
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (!days.containsKey(new SlotKey(hospitalId, date))) {
+                if (firstMissing == null) firstMissing = date;
+                lastMissing = date;
+            }
+        }
+
+        if (firstMissing != null) {
+            loadRange(hospitalId, firstMissing, lastMissing);
+        }
+
+        Map<LocalDate, Long> result = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            result.put(date, bucket(hospitalId, date).bits());
+        }
+        return result;
+    }
+
+    // 🔥 버킷 관리
+
+    private DaySlots bucket(Long hospitalId, LocalDate date) {
+        return days.computeIfAbsent(new SlotKey(hospitalId, date), this::load);
+    }
+
+    // DB를 기준으로 해당 날짜의 점유 비트를 복원
+    private DaySlots load(SlotKey key) {
+        LocalDateTime start = key.date().atStartOfDay();
+        List<Object[]> occupied = appointmentRepository.findOccupiedSlots(key.hospitalId(), start, start.plusDays(1));
+
+        long bits = 0L;
+        for (Object[] row : occupied) {
+            LocalDateTime appointmentDate = (LocalDateTime) row[0];
+            bits |= slotMask(appointmentDate.toLocalTime(), (Integer) row[1]);
+        }
+        return new DaySlots(bits);
+    }
+
+    // 여러 날짜를 한 번에 복원 (이미 다른 스레드가 만든 버킷은 유지)
+    private void loadRange(Long hospitalId, LocalDate from, LocalDate to) {
+        List<Object[]> occupied = appointmentRepository.findOccupiedSlots(
+                hospitalId, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+
+        Map<LocalDate, Long> bitsByDate = new HashMap<>();
+        for (Object[] row : occupied) {
+            LocalDateTime appointmentDate = (LocalDateTime) row[0];
+            bitsByDate.merge(appointmentDate.toLocalDate(),
+                    slotMask(appointmentDate.toLocalTime(), (Integer) row[1]), (a, b) -> a | b);
+        }
+
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            days.putIfAbsent(new SlotKey(hospitalId, date), new DaySlots(bitsByDate.getOrDefault(date, 0L)));
+        }
+    }
+
+    /**
+     * 지난 날짜의 버킷 정리 (매일 00:10)
+     */
+    @Scheduled(cron = "0 10 0 * * *")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        int before = days.size();
+        days.keySet().removeIf(key -> key.date().isBefore(today));
+        logger.info("지난 예약 슬롯 버킷 정리 완료 - {}개 제거", before - days.size());
+    }
+
+    // 🔥 슬롯 비트 계산
+
+    /**
+     * [start, start + duration) 구간이 걸치는 30분 슬롯 비트 마스크. 자정을 넘는 부분은 잘라낸다.
+     */
+    static long slotMask(LocalTime start, Integer duration) {
+        int minutes = (duration == null || duration <= 0) ? DEFAULT_DURATION : duration;
+        int startMinute = start.getHour() * 60 + start.getMinute();
+        int first = startMinute / SLOT_MINUTES;
+        int last = Math.min((startMinute + minutes - 1) / SLOT_MINUTES, SLOTS_PER_DAY - 1);
+
+        int width = last - first + 1;
+        long ones = width >= Long.SIZE ? -1L : (1L << width) - 1;
+        return ones << first;
+    }
+
+    record SlotKey(Long hospitalId, LocalDate date) {}
+
+    static final class DaySlots {
+        private final AtomicLong bits;
+
+        DaySlots(long initial) {
+            this.bits = new AtomicLong(initial);
+        }
+
+        long bits() {
+            return bits.get();
+        }
+
+        boolean tryClaim(long mask) {
+            while (true) {
+                long current = bits.get();
+                if ((current & mask) != 0) {
+                    return false;
+                }
+                if (bits.compareAndSet(current, current | mask)) {
+                    return true;
+                }
+            }
+        }
+
+        // 비트가 실제로 바뀌었으면 true
+        boolean claim(long mask) {
+            return (bits.getAndUpdate(current -> current | mask) & mask) != mask;
+        }
+
+        boolean release(long mask) {
+            return (bits.getAndUpdate(current -> current & ~mask) & mask) != 0;
+        }
+    }
+}
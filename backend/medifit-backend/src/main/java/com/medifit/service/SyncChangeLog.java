@@ -0,0 +1,223 @@
+package com.medifit.service;
+
+import com.medifit.dto.PatientTimelineItem;
+import com.medifit.dto.PatientTimelineItem.Type;
+import com.medifit.entity.SyncChange;
+import com.medifit.enums.SyncOperation;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicationRepository;
+import com.medifit.repository.PrescriptionRepository;
+import com.medifit.repository.SyncChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 모바일 앱 증분 동기화용 환자별 변경 로그
+ *
+ * 진료기록/예약/처방전/복약 쓰기와 같은 트랜잭션에서 (환자, 종류, ID, 추가·수정/삭제)를 남긴다.
+ * 동기화 토큰은 마지막으로 전달한 로그 id와 재조회 시작 시각이다. id는 삽입 순서라서 늦게 커밋된 트랜잭션의 행이
+ * 이미 전달한 id보다 작을 수 있으므로, 재조회 구간(rescan-seconds) 안의 행은 다음 요청에서 한 번 더 확인한다.
+ * 추가·수정은 현재 상태를 담아 보내므로 같은 변경을 다시 받아도 결과가 같다.
+ */
+@Service
+@Transactional
+public class SyncChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncChangeLog.class);
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private SyncChangeRepository syncChangeRepository;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    // 가장 긴 쓰기 트랜잭션보다 길어야 한다
+    @Value("${medifit.sync.rescan-seconds:60}")
+    private long rescanSeconds;
+
+    // 이보다 오래 동기화하지 않은 클라이언트는 전체를 다시 받는다
+    @Value("${medifit.sync.retention-days:30}")
+    private long retentionDays;
+
+    /**
+     * 동기화할 변경 하나. 삭제면 item이 없다.
+     */
+    public record Change(Type type, Long id, SyncOperation operation, LocalDateTime changedAt,
+                         PatientTimelineItem item) {}
+
+    /**
+     * resetRequired면 클라이언트는 로컬 데이터를 버리고 전체를 다시 받은 뒤 nextToken부터 동기화한다.
+     */
+    public record SyncResult(List<Change> changes, String nextToken, boolean hasMore, boolean resetRequired) {}
+
+    record SyncToken(long afterId, LocalDateTime rescanFrom) {
+
+        String encode() {
+            String raw = afterId + "|" + rescanFrom;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static SyncToken decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("잘못된 동기화 토큰입니다.");
+                }
+                return new SyncToken(Long.parseLong(parts[0]), LocalDateTime.parse(parts[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("잘못된 동기화 토큰입니다.");
+            }
+        }
+    }
+
+    private record EntityKey(Type type, Long id) {}
+
+    // 🔥 기록
+
+    /**
+     * 엔티티 변경 기록. 담당 환자가 바뀌었으면 이전 환자에게는 삭제로 남긴다.
+     *
+     * @param beforePatientId 변경 전 환자 (새로 만든 경우 null)
+     * @param afterPatientId  변경 후 환자 (삭제한 경우 null)
+     */
+    public void recordChanged(Type type, Long entityId, Long beforePatientId, Long afterPatientId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SyncChange> rows = new ArrayList<>(2);
+        if (beforePatientId != null && !beforePatientId.equals(afterPatientId)) {
+            rows.add(new SyncChange(beforePatientId, type, entityId, SyncOperation.DELETE, now));
+        }
+        if (afterPatientId != null) {
+            rows.add(new SyncChange(afterPatientId, type, entityId, SyncOperation.UPSERT, now));
+        }
+        syncChangeRepository.saveAll(rows);
+    }
+
+    // 예약은 모든 쓰기 경로(단건, 가져오기, 만료 처리)가 이벤트를 발행하므로 발행한 트랜잭션 안에서 기록한다
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        for (AppointmentChangedEvent.Change change : event.changes()) {
+            AppointmentSnapshot before = change.before();
+            AppointmentSnapshot after = change.after();
+            if (before == null && after == null) {
+                continue;
+            }
+            Long id = after != null ? after.id() : before.id();
+            recordChanged(Type.APPOINTMENT, id, before != null ? before.patientId() : null,
+                    after != null ? after.patientId() : null);
+        }
+    }
+
+    // 🔥 조회
+
+    /**
+     * token 이후의 변경. token이 없거나 보존 기간보다 오래되었으면 변경 없이 새 토큰과 resetRequired를 돌려준다.
+     */
+    @Transactional(readOnly = true)
+    public SyncResult getChanges(Long patientId, String token, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextRescanFrom = now.minusSeconds(rescanSeconds);
+
+        SyncToken since = token != null && !token.isBlank() ? SyncToken.decode(token) : null;
+        if (since == null || since.rescanFrom().isBefore(now.minusDays(retentionDays))) {
+            // 전체를 받기 전에 토큰을 먼저 발급해야 그 사이의 변경을 놓치지 않는다
+            SyncToken fresh = new SyncToken(syncChangeRepository.findMaxId(), nextRescanFrom);
+            return new SyncResult(List.of(), fresh.encode(), false, true);
+        }
+
+        List<SyncChange> page = syncChangeRepository.findByPatientIdAndIdGreaterThanOrderByIdAsc(
+                patientId, since.afterId(), Limit.of(pageSize + 1));
+        boolean hasMore = page.size() > pageSize;
+        if (hasMore) {
+            page = page.subList(0, pageSize);
+        }
+        List<SyncChange> late = syncChangeRepository.findLateCommitted(patientId, since.afterId(), since.rescanFrom());
+
+        // 엔티티마다 마지막 변경만 (late의 id는 모두 page보다 작다)
+        LinkedHashMap<EntityKey, SyncChange> latest = new LinkedHashMap<>();
+        for (List<SyncChange> rows : List.of(late, page)) {
+            for (SyncChange row : rows) {
+                EntityKey key = new EntityKey(row.getEntityType(), row.getEntityId());
+                latest.remove(key);
+                latest.put(key, row);
+            }
+        }
+
+        Map<EntityKey, PatientTimelineItem> items = loadItems(patientId, latest.values());
+        List<Change> changes = new ArrayList<>(latest.size());
+        for (SyncChange row : latest.values()) {
+            EntityKey key = new EntityKey(row.getEntityType(), row.getEntityId());
+            if (row.getOperation() == SyncOperation.DELETE) {
+                changes.add(new Change(key.type(), key.id(), SyncOperation.DELETE, row.getChangedAt(), null));
+            } else if (items.containsKey(key)) {
+                changes.add(new Change(key.type(), key.id(), SyncOperation.UPSERT, row.getChangedAt(), items.get(key)));
+            }
+            // 없으면 이후에 삭제/이동 행이 있다
+        }
+
+        long nextAfterId = page.isEmpty() ? since.afterId() : page.get(page.size() - 1).getId();
+        return new SyncResult(changes, new SyncToken(nextAfterId, nextRescanFrom).encode(), hasMore, false);
+    }
+
+    // 추가·수정된 엔티티의 현재 상태 - 종류마다 한 번씩 조회
+    private Map<EntityKey, PatientTimelineItem> loadItems(Long patientId, Collection<SyncChange> rows) {
+        Map<Type, List<Long>> idsByType = new EnumMap<>(Type.class);
+        for (SyncChange row : rows) {
+            if (row.getOperation() == SyncOperation.UPSERT) {
+                idsByType.computeIfAbsent(row.getEntityType(), t -> new ArrayList<>()).add(row.getEntityId());
+            }
+        }
+
+        Map<EntityKey, PatientTimelineItem> items = new HashMap<>();
+        idsByType.forEach((type, ids) -> {
+            List<PatientTimelineItem> loaded = switch (type) {
+                case MEDICAL_RECORD -> medicalRecordRepository.findTimelineItems(patientId, ids);
+                case APPOINTMENT -> appointmentRepository.findTimelineItems(patientId, ids);
+                case PRESCRIPTION -> prescriptionRepository.findTimelineItems(patientId, ids);
+                case MEDICATION -> medicationRepository.findTimelineItems(patientId, ids);
+            };
+            for (PatientTimelineItem item : loaded) {
+                items.put(new EntityKey(item.type(), item.id()), item);
+            }
+        });
+        return items;
+    }
+
+    // 🔥 압축
+
+    /**
+     * 같은 엔티티의 이전 행과 보존 기간이 지난 행 삭제 (매일 04:15)
+     */
+    @Scheduled(cron = "${medifit.sync.compaction-cron:0 15 4 * * *}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        int superseded = syncChangeRepository.deleteSuperseded(now.minusSeconds(rescanSeconds));
+        int expired = syncChangeRepository.deleteChangedBefore(now.minusDays(retentionDays));
+        logger.info("동기화 변경 로그 압축 - 이전 행 {}건, 만료 {}건 삭제", superseded, expired);
+    }
+}
@@ -0,0 +1,43 @@
+package com.medifit.service;
+
+/**
+ * 초당 호출 수 제한 (토큰 버킷). 토큰이 없으면 다음 토큰까지 호출한 스레드를 재운다 - 가상 스레드에서 쓰는 것을 전제로 한다.
+ */
+public final class TokenBucketRateLimiter {
+
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond 초당 허용 호출 수 (0 이하면 제한 없음)
+     * @param burst            한 번에 몰아서 허용할 최대 호출 수
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000.0;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    // 토큰 하나를 예약하고, 그 토큰이 생길 때까지 기다려야 할 시간을 돌려준다
+    synchronized long reserve() {
+        if (permitsPerNano <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+}
@@ -0,0 +1,185 @@
+package com.medifit.service;
+
+import com.medifit.enums.RecordStatus;
+import com.medifit.event.MedicalRecordChangedEvent;
+import com.medifit.event.MedicalRecordSnapshot;
+import com.medifit.repository.MedicalRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 치료 효과 코호트 분석
+ *
+ * (진단명, 치료법) 부분 일치 기록을 윈도 함수 한 번으로 환자별 경과(진료 횟수, 첫/마지막 진료일, 마지막 상태)로 줄여 읽고,
+ * 환자 수만큼의 행으로 요약한다. 결과는 (진단명, 치료법)별로 캐시하며, 커밋된 기록 변경이 조건에 걸리거나
+ * 코호트에 속한 환자의 기록이면 무효화한다.
+ */
+@Service
+public class TreatmentCohortAnalyzer {
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Value("${medifit.medical-record.cohort.cache-size:256}")
+    private int cacheSize;
+
+    // 접근 순서 LRU - cache 자체로 동기화
+    private final LinkedHashMap<CohortKey, CachedCohort> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CohortKey, CachedCohort> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    // 변경 이벤트마다 증가 - 계산 도중 변경이 있었으면 결과를 캐시하지 않는다
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 환자 한 명의 경과
+     */
+    public record PatientCourse(Long patientId, int visits, LocalDateTime firstVisit, LocalDateTime lastVisit,
+                                RecordStatus finalStatus) {
+
+        // row: patientId, visits, firstVisit, lastVisit, finalStatus
+        static PatientCourse of(Object[] row) {
+            return new PatientCourse(((Number) row[0]).longValue(), ((Number) row[1]).intValue(),
+                    toLocalDateTime(row[2]), toLocalDateTime(row[3]),
+                    row[4] != null ? RecordStatus.valueOf(row[4].toString()) : null);
+        }
+
+        // 두 번 이상 진료받은 환자만 경과를 추적한다
+        public boolean isTracked() {
+            return visits > 1;
+        }
+
+        public long durationDays() {
+            return Duration.between(firstVisit, lastVisit).toDays();
+        }
+    }
+
+    /**
+     * 코호트 요약. 마지막 기록이 완료 상태인 추적 환자를 호전으로 본다.
+     */
+    public record CohortStats(String diagnosis, String treatment, long totalCases, int patients,
+                              int trackedCases, int improvedCases, double successRate, long averageTreatmentDays) {}
+
+    private record CohortKey(String diagnosis, String treatment) {
+
+        static CohortKey of(String diagnosis, String treatment) {
+            return new CohortKey(lower(diagnosis), lower(treatment));
+        }
+
+        boolean matches(MedicalRecordSnapshot record) {
+            return record.diagnosis() != null && record.treatment() != null
+                    && lower(record.diagnosis()).contains(diagnosis)
+                    && lower(record.treatment()).contains(treatment);
+        }
+    }
+
+    private record CachedCohort(CohortStats stats, long[] patientIds) {}
+
+    // 🔥 분석
+
+    public CohortStats analyze(String diagnosis, String treatment) {
+        CohortKey key = CohortKey.of(diagnosis, treatment);
+        synchronized (cache) {
+            CachedCohort cached = cache.get(key);
+            if (cached != null) {
+                return cached.stats();
+            }
+        }
+
+        long startedGeneration = generation.get();
+        List<PatientCourse> courses = medicalRecordRepository
+                .findTreatmentCohort(likePattern(key.diagnosis()), likePattern(key.treatment()))
+                .stream().map(PatientCourse::of).toList();
+        CohortStats stats = summarize(diagnosis, treatment, courses);
+
+        long[] patientIds = courses.stream().mapToLong(PatientCourse::patientId).sorted().toArray();
+        synchronized (cache) {
+            if (generation.get() == startedGeneration) {
+                cache.put(key, new CachedCohort(stats, patientIds));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 같은 진단에 대한 여러 치료법 비교 (입력 순서 유지, 중복 제거)
+     */
+    public Map<String, CohortStats> compare(String diagnosis, Collection<String> treatments) {
+        Map<String, CohortStats> result = new LinkedHashMap<>();
+        for (String treatment : treatments) {
+            result.computeIfAbsent(treatment, t -> analyze(diagnosis, t));
+        }
+        return result;
+    }
+
+    static CohortStats summarize(String diagnosis, String treatment, List<PatientCourse> courses) {
+        long totalCases = 0;
+        int tracked = 0;
+        int improved = 0;
+        long durationSum = 0;
+        for (PatientCourse course : courses) {
+            totalCases += course.visits();
+            if (course.isTracked()) {
+                tracked++;
+                durationSum += course.durationDays();
+                if (course.finalStatus() == RecordStatus.COMPLETED) {
+                    improved++;
+                }
+            }
+        }
+        double successRate = tracked > 0 ? (double) improved / tracked * 100 : 0;
+        long averageDays = tracked > 0 ? Math.round((double) durationSum / tracked) : 0;
+        return new CohortStats(diagnosis, treatment, totalCases, courses.size(), tracked, improved,
+                Math.round(successRate * 100.0) / 100.0, averageDays);
+    }
+
+    // 🔥 무효화
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMedicalRecordChanged(MedicalRecordChangedEvent event) {
+        generation.incrementAndGet();
+        synchronized (cache) {
+            if (event.isDeleted()) {
+                // 삭제 이벤트에는 기록 내용이 없으므로 전부 비운다
+                cache.clear();
+                return;
+            }
+            MedicalRecordSnapshot after = event.after();
+            cache.entrySet().removeIf(entry -> entry.getKey().matches(after)
+                    || Arrays.binarySearch(entry.getValue().patientIds(), after.patientId()) >= 0);
+        }
+    }
+
+    public int cachedCohorts() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    // 🔥 유틸
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    // 부분 일치 LIKE 패턴 ('!'를 이스케이프 문자로 사용)
+    static String likePattern(String value) {
+        return "%" + value.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,515 @@
+package com.medifit.service;
+
+import com.medifit.dto.WaitlistRequestDto;
+import com.medifit.entity.Appointment;
+import com.medifit.entity.Patient;
+import com.medifit.entity.User;
+import com.medifit.entity.WaitlistEntry;
+import com.medifit.enums.WaitlistStatus;
+import com.medifit.enums.WaitlistUrgency;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.PatientRepository;
+import com.medifit.repository.UserRepository;
+import com.medifit.repository.WaitlistEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 예약 대기열
+ *
+ * 병원/진료과별로 긴급도, 신청 시각 순의 우선순위 큐를 유지한다.
+ * 예약이 취소되어 슬롯이 비면 커밋 직후 다음 대기 환자에게 슬롯을 선점(hold)한 채로 제안하고,
+ * 수락하면 그대로 예약이 되며 거절/시간 초과 시 다음 환자에게 넘어간다.
+ */
+@Service
+@Transactional
+public class WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    private static final List<WaitlistStatus> ACTIVE_STATUSES = List.of(WaitlistStatus.WAITING, WaitlistStatus.OFFERED);
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    // 제안한 슬롯을 붙잡아 두는 시간
+    @Value("${medifit.waitlist.hold-seconds:300}")
+    private long holdSeconds;
+
+    // 응답 없이 만료된 제안이 이 횟수에 이르면 대기에서 제외
+    @Value("${medifit.waitlist.max-missed-offers:2}")
+    private int maxMissedOffers;
+
+    private final ConcurrentHashMap<QueueKey, ConcurrentSkipListSet<Waiting>> queues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Offer> offers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> offerByEntry = new ConcurrentHashMap<>();
+
+    // 만료 제안 회수는 제안마다 별도 트랜잭션으로 처리한다 (한 건의 실패가 전체를 되돌리지 않도록)
+    private final TransactionTemplate transactionTemplate;
+
+    // 완료된 트랜잭션 뒤처리용 (afterCompletion에서는 새 트랜잭션이 필요하다)
+    private final TransactionTemplate requiresNewTemplate;
+
+    public WaitlistService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    record QueueKey(Long hospitalId, String department) {}
+
+    /**
+     * 대기열 항목 (긴급도 -> 신청 시각 -> 신청 ID 순)
+     */
+    record Waiting(Long entryId, Long patientId, WaitlistUrgency urgency, LocalDateTime requestedAt,
+                   LocalDateTime earliestDate, LocalDateTime latestDate, Integer duration) {
+
+        static Waiting of(WaitlistEntry entry) {
+            return new Waiting(entry.getId(), entry.getPatientId(), entry.getUrgency(), entry.getRequestedAt(),
+                    entry.getEarliestDate(), entry.getLatestDate(), entry.getEstimatedDuration());
+        }
+
+        boolean accepts(LocalDateTime appointmentDate) {
+            return !appointmentDate.isBefore(earliestDate) && !appointmentDate.isAfter(latestDate);
+        }
+    }
+
+    private static final Comparator<Waiting> PRIORITY = Comparator
+            .comparing(Waiting::urgency)
+            .thenComparing(Waiting::requestedAt)
+            .thenComparing(Waiting::entryId);
+
+    /**
+     * 대기 환자에게 제안된 슬롯 (expiresAt까지 선점 유지)
+     */
+    public record Offer(String id, Long entryId, Long patientId, Long hospitalId, String department,
+                        LocalDateTime appointmentDate, Integer duration, LocalDateTime expiresAt) {}
+
+    // 🔥 대기 신청/취소
+
+    public WaitlistEntry join(WaitlistRequestDto request) {
+        if (request.getPatientId() == null || request.getHospitalId() == null
+                || request.getDepartment() == null || request.getDepartment().trim().isEmpty()) {
+            throw new IllegalArgumentException("환자, 병원, 진료과 정보가 필요합니다.");
+        }
+        LocalDateTime earliest = request.getEarliestDate() != null ? request.getEarliestDate() : LocalDateTime.now();
+        LocalDateTime latest = request.getLatestDate();
+        if (latest == null || latest.isBefore(earliest) || latest.isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("희망 기간이 올바르지 않습니다.");
+        }
+        if (waitlistEntryRepository.existsByPatient_IdAndHospital_IdAndDepartmentAndStatusIn(
+                request.getPatientId(), request.getHospitalId(), request.getDepartment(), ACTIVE_STATUSES)) {
+            throw new IllegalStateException("이미 같은 진료과에 대기 중입니다.");
+        }
+
+        Patient patient = patientRepository.findById(request.getPatientId())
+                .orElseThrow(() -> new RuntimeException("환자를 찾을 수 없습니다."));
+        User hospital = userRepository.findById(request.getHospitalId())
+                .orElseThrow(() -> new RuntimeException("병원을 찾을 수 없습니다."));
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatient(patient);
+        entry.setHospital(hospital);
+        entry.setDepartment(request.getDepartment());
+        entry.setUrgency(request.getUrgency() != null ? request.getUrgency() : WaitlistUrgency.NORMAL);
+        entry.setEarliestDate(earliest);
+        entry.setLatestDate(latest);
+        entry.setEstimatedDuration(request.getEstimatedDuration());
+        WaitlistEntry saved = waitlistEntryRepository.save(entry);
+
+        QueueKey key = new QueueKey(saved.getHospitalId(), saved.getDepartment());
+        Waiting waiting = Waiting.of(saved);
+        afterCommit(() -> {
+            ConcurrentSkipListSet<Waiting> queue = queues.get(key);
+            if (queue != null) {
+                queue.add(waiting);
+            }
+        });
+        return saved;
+    }
+
+    public WaitlistEntry cancel(Long entryId) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("대기 신청을 찾을 수 없습니다."));
+        if (!ACTIVE_STATUSES.contains(entry.getStatus())) {
+            throw new IllegalStateException("이미 종료된 대기 신청입니다.");
+        }
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        removeFromQueue(entry);
+
+        // 제안 중이던 슬롯은 다음 대기 환자에게 넘긴다
+        String offerId = offerByEntry.get(entryId);
+        Offer offer = offerId != null ? offers.get(offerId) : null;
+        if (offer != null && withdraw(offer)) {
+            passOnAfterCommit(offer);
+        }
+        return entry;
+    }
+
+    // 🔥 제안 수락/거절
+
+    /**
+     * 제안을 수락해 선점된 슬롯으로 예약을 만든다.
+     */
+    public Appointment accept(String offerId, Long patientId) {
+        Offer offer = requireOffer(offerId, patientId);
+        if (offer.expiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalStateException("제안 시간이 만료되었습니다.");
+        }
+        if (!withdraw(offer)) {
+            throw new IllegalStateException("이미 처리된 제안입니다.");
+        }
+        // 여기부터 롤백되면 제안을 거절한 것처럼 처리한다 (커밋되면 예약 변경 이벤트가 슬롯을 점유 상태로 유지)
+        registerRollbackPassOn(offer);
+
+        WaitlistEntry entry = waitlistEntryRepository.findById(offer.entryId())
+                .orElseThrow(() -> new RuntimeException("대기 신청을 찾을 수 없습니다."));
+
+        Appointment appointment = new Appointment(entry.getPatient(), entry.getHospital(), offer.appointmentDate(),
+                offer.department(), "예약 대기열 자동 배정");
+        appointment.setEstimatedDuration(offer.duration());
+
+        Appointment saved = appointmentService.save(appointment);
+
+        entry.setStatus(WaitlistStatus.BOOKED);
+        entry.setAppointmentId(saved.getId());
+        removeFromQueue(entry);
+
+        logger.info("대기열 예약 배정 - 대기 신청 {}, 예약 {}", entry.getId(), saved.getId());
+        return saved;
+    }
+
+    public void decline(String offerId, Long patientId) {
+        Offer offer = requireOffer(offerId, patientId);
+        if (!withdraw(offer)) {
+            throw new IllegalStateException("이미 처리된 제안입니다.");
+        }
+        markWaiting(offer);
+        passOnAfterCommit(offer);
+    }
+
+    // 🔥 취소된 슬롯 자동 제안
+
+    /**
+     * 취소/일정 변경으로 비게 된 미래 슬롯을 대기 환자에게 제안한다.
+     * 슬롯 비트맵이 먼저 갱신되도록 가장 마지막 순서로 실행한다.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        for (AppointmentChangedEvent.Change change : event.changes()) {
+            AppointmentSnapshot before = change.before();
+            AppointmentSnapshot after = change.after();
+            if (before == null || !before.occupiesSlot() || !before.appointmentDate().isAfter(now)) {
+                continue;
+            }
+            boolean freed = after == null || !after.occupiesSlot()
+                    || !after.hospitalId().equals(before.hospitalId())
+                    || !after.appointmentDate().equals(before.appointmentDate());
+            if (freed) {
+                offerFreedSlot(before.hospitalId(), before.department(), before.appointmentDate(), null);
+            }
+        }
+    }
+
+    /**
+     * 우선순위 순으로 희망 기간이 맞는 첫 대기 환자에게 슬롯을 선점해 제안한다. 제안한 경우 그 제안을 반환.
+     * 트랜잭션이 롤백되면 제안을 회수하고 선점도 푼다.
+     */
+    public Optional<Offer> offerFreedSlot(Long hospitalId, String department, LocalDateTime appointmentDate,
+                                          Long excludedEntryId) {
+        ConcurrentSkipListSet<Waiting> queue = queue(new QueueKey(hospitalId, department));
+
+        synchronized (queue) {
+            for (Waiting waiting : queue) {
+                if (waiting.entryId().equals(excludedEntryId) || offerByEntry.containsKey(waiting.entryId())
+                        || !waiting.accepts(appointmentDate)) {
+                    continue;
+                }
+                // 대기 환자의 진료 시간이 들어가지 않으면 다음 환자를 본다
+                if (!slotReservationService.tryReserve(hospitalId, appointmentDate, waiting.duration())) {
+                    continue;
+                }
+
+                Offer offer = new Offer(UUID.randomUUID().toString(), waiting.entryId(), waiting.patientId(),
+                        hospitalId, department, appointmentDate, waiting.duration(),
+                        LocalDateTime.now().plusSeconds(holdSeconds));
+                offers.put(offer.id(), offer);
+                offerByEntry.put(offer.entryId(), offer.id());
+                registerRollbackWithdraw(offer);
+
+                waitlistEntryRepository.findById(offer.entryId())
+                        .ifPresent(entry -> entry.setStatus(WaitlistStatus.OFFERED));
+                afterCommit(() -> notificationService.sendGeneralNotification(String.valueOf(offer.patientId()),
+                        "예약 대기 알림", String.format("%s %s 진료 예약 자리가 났습니다. %d분 안에 수락해주세요. (제안 ID: %s)",
+                                appointmentDate, department, holdSeconds / 60, offer.id())));
+                return Optional.of(offer);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 응답 시간이 지난 제안 회수, 희망 기간이 지난 대기 신청 만료 (10초마다)
+     */
+    @Scheduled(fixedDelayString = "${medifit.waitlist.sweep-millis:10000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Offer offer : List.copyOf(offers.values())) {
+            if (!offer.expiresAt().isBefore(now)) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(tx -> expireOffer(offer));
+            } catch (RuntimeException e) {
+                logger.warn("만료된 대기열 제안 회수 실패 - 제안 {}", offer.id(), e);
+            }
+        }
+
+        Integer expired = transactionTemplate.execute(tx -> {
+            int count = waitlistEntryRepository.expireOutdated(ACTIVE_STATUSES, now);
+            if (count > 0) {
+                afterCommit(() -> queues.values()
+                        .forEach(queue -> queue.removeIf(waiting -> waiting.latestDate().isBefore(now))));
+            }
+            return count;
+        });
+        if (expired != null && expired > 0) {
+            logger.info("희망 기간이 지난 대기 신청 {}건 만료", expired);
+        }
+    }
+
+    // 응답 없이 만료된 제안 회수 (롤백되면 제안을 되돌려 다음 정리 때 다시 시도한다)
+    private void expireOffer(Offer offer) {
+        if (!withdraw(offer)) {
+            return;
+        }
+        passOnAfterCommit(offer);
+
+        waitlistEntryRepository.findById(offer.entryId()).ifPresent(entry -> {
+            entry.setMissedOffers(entry.getMissedOffers() == null ? 1 : entry.getMissedOffers() + 1);
+            if (entry.getMissedOffers() >= maxMissedOffers) {
+                entry.setStatus(WaitlistStatus.EXPIRED);
+                removeFromQueue(entry);
+            } else if (entry.getStatus() == WaitlistStatus.OFFERED) {
+                entry.setStatus(WaitlistStatus.WAITING);
+            }
+        });
+    }
+
+    // 🔥 조회
+
+    @Transactional(readOnly = true)
+    public Optional<WaitlistEntry> findById(Long entryId) {
+        return waitlistEntryRepository.findById(entryId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> findByPatientId(Long patientId) {
+        return waitlistEntryRepository.findByPatient_IdOrderByRequestedAtDesc(patientId);
+    }
+
+    public Optional<Offer> findOfferForEntry(Long entryId) {
+        String offerId = offerByEntry.get(entryId);
+        return offerId != null ? Optional.ofNullable(offers.get(offerId)) : Optional.empty();
+    }
+
+    /**
+     * 대기 순번 (1부터, 대기열에 없으면 0)
+     */
+    @Transactional(readOnly = true)
+    public int positionOf(WaitlistEntry entry) {
+        int position = 1;
+        for (Waiting waiting : queue(new QueueKey(entry.getHospitalId(), entry.getDepartment()))) {
+            if (waiting.entryId().equals(entry.getId())) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getQueue(Long hospitalId, String department) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        int position = 1;
+        for (Waiting waiting : queue(new QueueKey(hospitalId, department))) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("position", position++);
+            item.put("entryId", waiting.entryId());
+            item.put("patientId", waiting.patientId());
+            item.put("urgency", waiting.urgency());
+            item.put("requestedAt", waiting.requestedAt());
+            item.put("earliestDate", waiting.earliestDate());
+            item.put("latestDate", waiting.latestDate());
+            item.put("offered", offerByEntry.containsKey(waiting.entryId()));
+            result.add(item);
+        }
+        return result;
+    }
+
+    // 🔥 내부 처리
+
+    private ConcurrentSkipListSet<Waiting> queue(QueueKey key) {
+        return queues.computeIfAbsent(key, k -> {
+            ConcurrentSkipListSet<Waiting> queue = new ConcurrentSkipListSet<>(PRIORITY);
+            // 재시작 전에 제안 중이던 신청도 다시 대기 상태로 복원된다 (선점은 메모리에만 있으므로)
+            for (WaitlistEntry entry : waitlistEntryRepository.findByHospital_IdAndDepartmentAndStatusIn(
+                    k.hospitalId(), k.department(), ACTIVE_STATUSES)) {
+                queue.add(Waiting.of(entry));
+            }
+            return queue;
+        });
+    }
+
+    private void removeFromQueue(WaitlistEntry entry) {
+        ConcurrentSkipListSet<Waiting> queue = queues.get(new QueueKey(entry.getHospitalId(), entry.getDepartment()));
+        if (queue != null) {
+            Waiting waiting = Waiting.of(entry);
+            afterCommit(() -> queue.remove(waiting));
+        }
+    }
+
+    private Offer requireOffer(String offerId, Long patientId) {
+        Offer offer = offers.get(offerId);
+        if (offer == null) {
+            throw new RuntimeException("제안을 찾을 수 없습니다.");
+        }
+        if (!offer.patientId().equals(patientId)) {
+            throw new IllegalArgumentException("본인에게 온 제안만 처리할 수 있습니다.");
+        }
+        return offer;
+    }
+
+    // 제안을 목록에서 회수 (동시에 수락/거절/만료가 겹치면 한 쪽만 성공)
+    private boolean withdraw(Offer offer) {
+        if (!offers.remove(offer.id(), offer)) {
+            return false;
+        }
+        offerByEntry.remove(offer.entryId(), offer.id());
+        return true;
+    }
+
+    // 회수한 제안을 되돌린다 (선점은 그대로 유지되어 있다)
+    private void restore(Offer offer) {
+        offerByEntry.put(offer.entryId(), offer.id());
+        offers.put(offer.id(), offer);
+    }
+
+    // 선점을 풀고 같은 슬롯을 다음 대기 환자에게 제안
+    private void passOn(Offer offer) {
+        slotReservationService.release(offer.hospitalId(), offer.appointmentDate(), offer.duration());
+        offerFreedSlot(offer.hospitalId(), offer.department(), offer.appointmentDate(), offer.entryId());
+    }
+
+    // 대기 신청을 대기 상태로 되돌리고 슬롯은 다음 대기 환자에게 넘긴다
+    private void returnToWaiting(Offer offer) {
+        markWaiting(offer);
+        passOn(offer);
+    }
+
+    private void markWaiting(Offer offer) {
+        waitlistEntryRepository.findById(offer.entryId()).ifPresent(entry -> {
+            if (entry.getStatus() == WaitlistStatus.OFFERED) {
+                entry.setStatus(WaitlistStatus.WAITING);
+            }
+        });
+    }
+
+    // 커밋되면 새 트랜잭션에서 다음 대기 환자에게 넘기고, 롤백되면 회수한 제안을 되돌린다
+    private void passOnAfterCommit(Offer offer) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            passOn(offer);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    requiresNewTemplate.executeWithoutResult(tx -> passOn(offer));
+                } else {
+                    restore(offer);
+                }
+            }
+        });
+    }
+
+    // 제안을 만든 트랜잭션이 롤백되면 제안을 회수하고 선점을 푼다
+    private void registerRollbackWithdraw(Offer offer) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED && withdraw(offer)) {
+                        slotReservationService.release(offer.hospitalId(), offer.appointmentDate(), offer.duration());
+                    }
+                }
+            });
+        }
+    }
+
+    private void registerRollbackPassOn(Offer offer) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        requiresNewTemplate.executeWithoutResult(tx -> returnToWaiting(offer));
+                    }
+                }
+            });
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
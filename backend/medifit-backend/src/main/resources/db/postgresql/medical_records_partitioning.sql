@@ -0,0 +1,102 @@
+-- medical_records를 진료월(visit_date) 범위 파티션 테이블로 바꾸는 1회성 스크립트 (PostgreSQL 12 이상)
+--
+-- Hibernate ddl-auto는 파티션 테이블을 만들지 못하므로, 운영 DB는 ddl-auto=none(또는 validate)으로 두고
+-- 점검 시간에 이 스크립트를 한 번 실행한다. 이후 달의 파티션은 MedicalRecordPartitionMaintainer가 미리 만들고,
+-- 보관 작업(MedicalRecordArchiveJob)이 비운 지난 달 파티션은 떼어 내 지운다.
+--
+-- 파티션 테이블의 기본 키/유니크 제약에는 파티션 키가 들어가야 한다.
+--   * 기본 키는 (id, visit_date)가 된다. id는 계속 IDENTITY라 단독으로도 겹치지 않는다.
+--   * detail_id 유니크 제약은 일반 인덱스로 바뀐다 (상세 행은 기록 저장 경로에서만 만든다).
+--   * medical_records를 참조하는 외래 키는 prescriptions.medical_record_id -> medical_records(id) 하나뿐이다.
+--     (id, visit_date) 기본 키에는 id만 가리키는 외래 키를 걸 수 없어 이것만 지우고, 대신
+--       - 보관 작업은 처방전이 참조하는 기록을 옮기지 않는다 (MedicalRecordRepository의 보관 대상 조회)
+--       - 기록 삭제는 처방전이 있으면 거절한다 (MedicalRecordService.deleteById)
+--     다른 외래 키가 medical_records를 참조하고 있으면 스크립트를 중단한다.
+
+BEGIN;
+
+LOCK TABLE medical_records IN ACCESS EXCLUSIVE MODE;
+
+-- 1. prescriptions.medical_record_id 외래 키 삭제 (Hibernate가 만든 이름은 임의라 카탈로그에서 찾는다)
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT con.conname, rel.relname,
+               (rel.relname = 'prescriptions'
+                   AND con.conkey = ARRAY[(SELECT attnum FROM pg_attribute
+                                           WHERE attrelid = 'prescriptions'::regclass
+                                             AND attname = 'medical_record_id')]) AS expected
+        FROM pg_constraint con
+        JOIN pg_class rel ON rel.oid = con.conrelid
+        WHERE con.contype = 'f' AND con.confrelid = 'medical_records'::regclass
+    LOOP
+        IF NOT fk.expected THEN
+            RAISE EXCEPTION '예상하지 못한 외래 키 %.% 가 medical_records를 참조합니다 - 대체 방법을 정한 뒤 다시 실행하세요',
+                    fk.relname, fk.conname;
+        END IF;
+        EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', fk.relname, fk.conname);
+    END LOOP;
+END $$;
+
+-- 2. 기존 테이블을 옆으로 옮기고 같은 컬럼의 파티션 테이블 생성
+ALTER TABLE medical_records RENAME TO medical_records_unpartitioned;
+
+CREATE TABLE medical_records (
+    LIKE medical_records_unpartitioned INCLUDING DEFAULTS INCLUDING IDENTITY
+) PARTITION BY RANGE (visit_date);
+
+ALTER TABLE medical_records ADD PRIMARY KEY (id, visit_date);
+
+-- 인덱스 이름은 MedicalRecord 엔티티의 @Table(indexes)와 같다 (기존 테이블의 같은 이름 인덱스는 먼저 이름을 바꾼다)
+DO $$
+DECLARE
+    idx record;
+BEGIN
+    FOR idx IN SELECT indexname FROM pg_indexes
+               WHERE tablename = 'medical_records_unpartitioned' AND indexname LIKE 'idx_medical_record_%'
+    LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', idx.indexname, idx.indexname || '_old');
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_medical_record_patient_visit ON medical_records (patient_id, visit_date);
+CREATE INDEX idx_medical_record_doctor_visit ON medical_records (doctor_id, visit_date);
+CREATE INDEX idx_medical_record_visit ON medical_records (visit_date);
+CREATE INDEX idx_medical_record_detail ON medical_records (detail_id);
+
+ALTER TABLE medical_records ADD FOREIGN KEY (patient_id) REFERENCES patients (id);
+ALTER TABLE medical_records ADD FOREIGN KEY (doctor_id) REFERENCES users (id);
+ALTER TABLE medical_records ADD FOREIGN KEY (appointment_id) REFERENCES appointments (id);
+ALTER TABLE medical_records ADD FOREIGN KEY (detail_id) REFERENCES medical_record_details (id);
+
+-- 3. 가장 이른 진료월부터 석 달 뒤까지 월별 파티션, 범위 밖(잘못 입력된 미래 날짜 등)은 기본 파티션
+DO $$
+DECLARE
+    month_start date := date_trunc('month', COALESCE(
+            (SELECT MIN(visit_date) FROM medical_records_unpartitioned), now()))::date;
+    last_month date := (date_trunc('month', now()) + interval '3 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF medical_records FOR VALUES FROM (%L) TO (%L)',
+                'medical_records_' || to_char(month_start, '"y"YYYY"m"MM'),
+                month_start, (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+CREATE TABLE medical_records_default PARTITION OF medical_records DEFAULT;
+
+-- 4. 데이터 복사와 IDENTITY 시퀀스 이어받기
+INSERT INTO medical_records OVERRIDING SYSTEM VALUE SELECT * FROM medical_records_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('medical_records', 'id'),
+        COALESCE((SELECT MAX(id) FROM medical_records), 0) + 1, false);
+
+COMMIT;
+
+ANALYZE medical_records;
+
+-- 건수를 확인한 뒤 기존 테이블 삭제
+-- DROP TABLE medical_records_unpartitioned;
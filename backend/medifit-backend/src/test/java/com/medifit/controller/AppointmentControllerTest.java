@@ -0,0 +1,41 @@
+package com.medifit.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 예약 목록 - cursor/size 없는 요청은 예전처럼 전체 목록과 total, 있으면 커서 페이지
+ */
+@SpringBootTest
+class AppointmentControllerTest {
+
+    @Autowired
+    private AppointmentController appointmentController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void listWithoutPagingParametersReturnsEveryAppointment() {
+        long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointments", Long.class);
+        assertTrue(count > 2);
+
+        Map<String, Object> all = appointmentController.getAllAppointments(null, null, null, null, null, null).getBody();
+        assertEquals((int) count, all.get("total"));
+        assertEquals((int) count, ((List<?>) all.get("data")).size());
+        assertFalse(all.containsKey("nextCursor"));
+
+        Map<String, Object> page = appointmentController.getAllAppointments(null, null, null, null, null, 2).getBody();
+        assertEquals(2, ((List<?>) page.get("data")).size());
+        assertEquals(true, page.get("hasNext"));
+        assertNotNull(page.get("nextCursor"));
+        assertFalse(page.containsKey("total"));
+    }
+}
@@ -0,0 +1,159 @@
+package com.medifit.controller;
+
+import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.Patient;
+import com.medifit.entity.User;
+import com.medifit.enums.TextStorageMode;
+import com.medifit.service.MedicalRecordService;
+import com.medifit.service.MedicalRecordTextStorage;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 의료기록 조회/수정/삭제 - 압축 상세(DETAIL)에 둔 본문이 PUT 왕복에서 유지되고, 목록에는 본문이 없으며,
+ * 처방전이 참조하는 기록은 지울 수 없다
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MedicalRecordControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+
+    @Autowired
+    private MedicalRecordTextStorage textStorage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long recordId;
+
+    @BeforeEach
+    void setUp() {
+        // 시드 데이터가 ID를 직접 지정하므로 새 기록 ID는 그 뒤에서 시작한다
+        jdbcTemplate.execute("ALTER TABLE medical_records ALTER COLUMN id RESTART WITH 1000");
+        setMode(TextStorageMode.DETAIL);
+
+        Patient patient = new Patient();
+        patient.setId(1L);
+        User doctor = new User();
+        doctor.setId(1L);
+        MedicalRecord record = new MedicalRecord(patient, doctor, "내과", "기침, 미열", "급성 기관지염", "진해제 처방",
+                LocalDateTime.of(2031, 6, 1, 10, 0));
+        record.setDoctorNotes("3일 후 재진");
+        recordId = medicalRecordService.save(record).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        medicalRecordService.deleteById(recordId);
+        setMode(TextStorageMode.INLINE);
+    }
+
+    @Test
+    void putRoundTripKeepsTheNarrativeInTheSameDetailRow() throws Exception {
+        Long detailId = detailId();
+        assertNotNull(detailId);
+
+        // 클라이언트는 조회한 본문을 그대로 돌려보내며 진단명만 고친다 (요청 본문에는 상세가 없다)
+        String body = """
+                {"patient": {"id": 1}, "doctor": {"id": 1}, "department": "내과",
+                 "symptoms": "기침, 미열", "doctorNotes": "3일 후 재진", "diagnosis": "급성 상기도 감염",
+                 "treatment": "진해제 처방", "visitDate": "2031-06-01T10:00:00"}
+                """;
+        mockMvc.perform(put("/api/medical-records/{id}", recordId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        MedicalRecord saved = medicalRecordService.findById(recordId).orElseThrow();
+        assertEquals("급성 상기도 감염", saved.getDiagnosis());
+        assertEquals("기침, 미열", saved.getSymptoms());
+        assertEquals("3일 후 재진", saved.getDoctorNotes());
+
+        // 기존 상세 행을 고쳐 썼다 (지우고 새로 만들지 않았다)
+        assertEquals(detailId, detailId());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM medical_record_details WHERE id = ?", Integer.class, detailId));
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT symptoms FROM medical_records WHERE id = ?", String.class, recordId));
+    }
+
+    @Test
+    void putUpdatesTheNarrativeInPlace() throws Exception {
+        Long detailId = detailId();
+
+        String body = """
+                {"patient": {"id": 1}, "doctor": {"id": 1}, "department": "내과",
+                 "symptoms": "기침 호전", "diagnosis": "급성 기관지염", "visitDate": "2031-06-01T10:00:00"}
+                """;
+        mockMvc.perform(put("/api/medical-records/{id}", recordId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        MedicalRecord saved = medicalRecordService.findById(recordId).orElseThrow();
+        assertEquals("기침 호전", saved.getSymptoms());
+        // PUT은 전체 교체이므로 보내지 않은 메모는 비워진다
+        assertNull(saved.getDoctorNotes());
+        assertEquals(detailId, detailId());
+    }
+
+    @Test
+    void listItemsLeaveTheNarrativeToTheSingleRecordGet() throws Exception {
+        // 목록은 본문 없는 프로젝션이라 압축 상세를 읽지 않는다
+        mockMvc.perform(get("/api/medical-records").param("patientId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value(recordId))
+                .andExpect(jsonPath("$.data[0].diagnosis").value("급성 기관지염"))
+                .andExpect(jsonPath("$.data[0].patientId").value(1))
+                .andExpect(jsonPath("$.data[0].symptoms").doesNotExist())
+                .andExpect(jsonPath("$.data[0].doctorNotes").doesNotExist());
+
+        // 단건 조회는 상세를 함께 읽어 본문을 돌려준다
+        MedicalRecord single = medicalRecordService.findById(recordId).orElseThrow();
+        assertTrue(Hibernate.isInitialized(single.getDetail()));
+        assertEquals("기침, 미열", single.getSymptoms());
+        assertEquals("3일 후 재진", single.getDoctorNotes());
+    }
+
+    @Test
+    void deleteIsRejectedWhileAPrescriptionReferencesTheRecord() throws Exception {
+        // 시드 처방전 1번이 진료기록 1번을 참조한다
+        mockMvc.perform(delete("/api/medical-records/{id}", 1L))
+                .andExpect(status().isConflict());
+
+        assertTrue(medicalRecordService.findById(1L).isPresent());
+    }
+
+    private Long detailId() {
+        return jdbcTemplate.queryForObject("SELECT detail_id FROM medical_records WHERE id = ?", Long.class, recordId);
+    }
+
+    private void setMode(TextStorageMode mode) {
+        MedicalRecordTextStorage target = AopTestUtils.getTargetObject(textStorage);
+        ReflectionTestUtils.setField(target, "mode", mode);
+    }
+}
@@ -0,0 +1,58 @@
+package com.medifit.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void compressesLongTextAndStoresShortTextAsIs() {
+        String notes = "복통이 3일 전부터 지속됨. 식후 악화, 야간 통증 없음. ".repeat(40);
+        byte[] stored = converter.convertToDatabaseColumn(notes);
+        assertEquals(CompressedTextConverter.DEFLATE, stored[0]);
+        assertTrue(stored.length < notes.getBytes(StandardCharsets.UTF_8).length / 5);
+        assertEquals(notes, converter.convertToEntityAttribute(stored));
+
+        String shortText = "두통";
+        byte[] raw = converter.convertToDatabaseColumn(shortText);
+        assertEquals(CompressedTextConverter.STORED, raw[0]);
+        assertEquals(shortText, converter.convertToEntityAttribute(raw));
+
+        assertEquals("", converter.convertToEntityAttribute(converter.convertToDatabaseColumn("")));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void rejectsCorruptedData() {
+        byte[] stored = converter.convertToDatabaseColumn("x".repeat(1000));
+        stored[stored.length - 2] ^= 0x5A;
+        assertThrows(IllegalStateException.class, () -> converter.convertToEntityAttribute(stored));
+        assertThrows(IllegalStateException.class, () -> converter.convertToEntityAttribute(new byte[]{9, 0, 0, 0, 1, 0}));
+    }
+
+    @Test
+    void movesTextBetweenRecordAndDetail() {
+        MedicalRecord record = new MedicalRecord();
+        assertFalse(record.moveTextToDetail());
+        assertNull(record.getDetail());
+
+        record.setSymptoms("기침");
+        record.setAiSummary("요약");
+        assertTrue(record.moveTextToDetail());
+        assertEquals("기침", record.getDetail().getSymptoms());
+        record.setDoctorNotes("메모");
+        assertEquals("메모", record.getDetail().getDoctorNotes());
+
+        assertTrue(record.moveTextInline());
+        assertNull(record.getDetail());
+        assertEquals("기침", record.getSymptoms());
+        assertEquals("메모", record.getDoctorNotes());
+        assertEquals("요약", record.getAiSummary());
+    }
+}
@@ -0,0 +1,184 @@
+package com.medifit.repository;
+
+import com.medifit.dto.MedicalRecordExportKey;
+import com.medifit.dto.MedicalRecordExportRow;
+import com.medifit.enums.AppointmentStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 동적 필터가 만드는 SQL의 실행 계획(EXPLAIN) 회귀 테스트 (H2)
+ *
+ * 조건 조합마다 Hibernate가 실제로 보낸 SQL을 잡아 EXPLAIN하고, 복합 인덱스를 쓰는지 확인한다.
+ * (:param IS NULL OR ...) 쿼리로 되돌아가면 모든 조합이 테이블 스캔이 되어 실패한다.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.medifit.repository.FilterSpecificationPlanTest$CapturingInspector")
+@Import(MedicalRecordSegmentStore.class)
+class FilterSpecificationPlanTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 1, 31, 23, 59);
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Hibernate가 설정값의 클래스 이름으로 직접 만든다
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void clearCaptured() {
+        CapturingInspector.statements.clear();
+    }
+
+    @Test
+    void patientAndVisitDateUsePatientVisitIndex() {
+        String plan = explainMedicalRecordFilter(1L, null, null, FROM, TO);
+        assertTrue(plan.contains("IDX_MEDICAL_RECORD_PATIENT_VISIT"), plan);
+        assertFalse(plan.contains("IS NULL"), plan);
+    }
+
+    @Test
+    void doctorAndVisitDateUseDoctorVisitIndex() {
+        medicalRecordRepository.findAll(MedicalRecordSpecifications.doctorIdEquals(2L)
+                .and(MedicalRecordSpecifications.visitedFrom(FROM)), MedicalRecordSpecifications.NEWEST_FIRST);
+        String plan = explainCaptured("medical_records");
+        assertTrue(plan.contains("IDX_MEDICAL_RECORD_DOCTOR_VISIT"), plan);
+    }
+
+    @Test
+    void visitDateOnlyUsesVisitDateIndex() {
+        String plan = explainMedicalRecordFilter(null, null, null, FROM, TO);
+        assertTrue(plan.contains("IDX_MEDICAL_RECORD_VISIT"), plan);
+    }
+
+    @Test
+    void emptyFilterHasNoWhereClause() {
+        explainMedicalRecordFilter(null, " ", null, null, null);
+        String sql = CapturingInspector.statements.get(0).toLowerCase();
+        assertFalse(sql.contains(" where "), sql);
+    }
+
+    @Test
+    void hospitalAppointmentDateAndStatusUseCompositeIndex() {
+        appointmentRepository.findAll(AppointmentSpecifications.filter(null, 1L, AppointmentStatus.CONFIRMED,
+                null, FROM, TO), AppointmentSpecifications.NEWEST_FIRST);
+        String plan = explainCaptured("appointments");
+        assertTrue(plan.contains("IDX_APPOINTMENT_HOSPITAL_DATE_STATUS"), plan);
+        assertFalse(plan.contains("IS NULL"), plan);
+    }
+
+    @Test
+    void exportByPatientUsesPatientVisitIndex() {
+        // 이어받기 키셋 조건이 붙어도 환자 인덱스를 탄다
+        MedicalRecordExportKey after = new MedicalRecordExportKey(1L, FROM, 0L);
+        try (Stream<MedicalRecordExportRow> rows = medicalRecordRepository.streamExportRows(1L, null, FROM, null, after)) {
+            rows.count();
+        }
+        String plan = explainCaptured("medical_records");
+        assertTrue(plan.contains("IDX_MEDICAL_RECORD_PATIENT_VISIT"), plan);
+        assertFalse(plan.contains("IS NULL"), plan);
+    }
+
+    @Test
+    void hospitalFeeHistogramSeeksByDoctor() {
+        medicalRecordRepository.getMedicalFeeHistogram(null, 2L, null);
+        medicalRecordRepository.getDepartmentMedicalFeeHistogram(2L);
+        for (String sql : List.copyOf(CapturingInspector.statements)) {
+            // doctor_id로 시작하는 인덱스(복합 인덱스 또는 FK 인덱스) 중 H2가 고른 쪽으로 찾는다
+            String plan = explain(sql);
+            assertFalse(plan.contains("TABLESCAN"), plan);
+            assertTrue(plan.contains("DOCTOR_ID = ?1 */"), plan);
+        }
+    }
+
+    // 동적 쿼리(Specification, 조각 구현)나 조건별 쿼리로 나눈 저장소에 선택 조건 쿼리가 다시 생기지 않도록
+    @Test
+    void recordAndAppointmentQueriesHaveNoOptionalParameterPredicates() {
+        Pattern optional = Pattern.compile(":\\w+ IS NULL OR", Pattern.CASE_INSENSITIVE);
+        for (Class<?> repository : List.of(MedicalRecordRepository.class, AppointmentRepository.class,
+                MedicalRecordDailyCounterRepository.class, DoctorDailyScorecardRepository.class,
+                DoctorDailyTallyRepository.class)) {
+            for (Method method : repository.getDeclaredMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query != null) {
+                    assertFalse(optional.matcher(query.value()).find(),
+                            repository.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+    }
+
+    private String explainMedicalRecordFilter(Long patientId, String department, String diagnosis,
+                                              LocalDateTime startDate, LocalDateTime endDate) {
+        medicalRecordRepository.findAll(MedicalRecordSpecifications.filter(patientId, department, diagnosis,
+                startDate, endDate), MedicalRecordSpecifications.NEWEST_FIRST);
+        return explainCaptured("medical_records");
+    }
+
+    // 잡힌 첫 번째 대상 테이블 SELECT를 EXPLAIN한다 (바인드 값은 계획에 영향이 없도록 타입별 임의 값)
+    private String explainCaptured(String table) {
+        String sql = CapturingInspector.statements.stream()
+                .filter(s -> s.toLowerCase().startsWith("select") && s.toLowerCase().contains("from " + table))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("캡처된 쿼리 없음: " + CapturingInspector.statements));
+        return explain(sql);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                ParameterMetaData metaData = statement.getParameterMetaData();
+                for (int i = 1; i <= metaData.getParameterCount(); i++) {
+                    switch (metaData.getParameterType(i)) {
+                        case Types.TIMESTAMP -> statement.setObject(i, FROM);
+                        case Types.VARCHAR, Types.CHAR -> statement.setString(i, "x");
+                        default -> statement.setLong(i, 1L);
+                    }
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    StringBuilder plan = new StringBuilder();
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                    return plan.toString().toUpperCase();
+                }
+            }
+        });
+    }
+}
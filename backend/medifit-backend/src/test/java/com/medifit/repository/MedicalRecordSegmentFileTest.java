@@ -0,0 +1,114 @@
+package com.medifit.repository;
+
+import com.medifit.dto.ArchivedMedicalRecord;
+import com.medifit.enums.RecordStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MedicalRecordSegmentFileTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2021, 3, 1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsOnlyBlocksCoveringThePatient() throws Exception {
+        // 환자 1~10, 환자마다 3건 -> 블록당 4건이면 환자가 블록 경계에 걸친다
+        List<ArchivedMedicalRecord> records = new ArrayList<>();
+        long id = 100;
+        for (long patientId = 1; patientId <= 10; patientId++) {
+            for (int visit = 0; visit < 3; visit++) {
+                records.add(record(id++, patientId, MONTH.atTime(9, 0).plusDays(visit * 10L)));
+            }
+        }
+        Path file = write(records, 4);
+
+        try (MedicalRecordSegmentFile.Reader reader = MedicalRecordSegmentFile.Reader.open(file)) {
+            assertEquals(MONTH, reader.getMonthStart());
+            assertEquals(8, reader.getBlocks().size());
+
+            // 환자 3의 기록(7~9번째)은 블록 1과 2에 걸친다
+            List<ArchivedMedicalRecord> patient3 = reader.read(3L, null, null);
+            assertEquals(List.of(106L, 107L, 108L), patient3.stream().map(ArchivedMedicalRecord::id).toList());
+            assertEquals(records.get(6), patient3.get(0));
+            assertEquals(2, reader.getBlocks().stream()
+                    .filter(b -> b.firstPatientId() <= 3 && b.lastPatientId() >= 3).count());
+
+            List<ArchivedMedicalRecord> ranged = reader.read(null, MONTH.atTime(0, 0).plusDays(10),
+                    MONTH.atTime(23, 0).plusDays(10));
+            assertEquals(10, ranged.size());
+            assertTrue(reader.read(11L, null, null).isEmpty());
+        }
+    }
+
+    @Test
+    void roundTripsNullsAndLongText() throws Exception {
+        String notes = "야간 통증 없음. 식후 악화. ".repeat(5_000);
+        ArchivedMedicalRecord full = new ArchivedMedicalRecord(1L, 7L, 2L, 55L, "내과", "복통", "위염", "약물치료",
+                notes, "요약", RecordStatus.COMPLETED, MONTH.atTime(10, 30, 15, 123_000_000),
+                MONTH.atTime(11, 0), MONTH.atTime(12, 0), 15000, "302호");
+        ArchivedMedicalRecord sparse = new ArchivedMedicalRecord(2L, 7L, 2L, null, "외과", null, "골절", null,
+                null, null, null, MONTH.atTime(15, 0), MONTH.atTime(15, 0), null, null, null);
+
+        Path file = write(List.of(full, sparse), 256);
+
+        try (MedicalRecordSegmentFile.Reader reader = MedicalRecordSegmentFile.Reader.open(file)) {
+            assertEquals(List.of(full, sparse), reader.read(7L, null, null));
+        }
+    }
+
+    @Test
+    void rejectsUnsortedInputAndCorruptedBlocks() throws Exception {
+        try (MedicalRecordSegmentFile.Writer writer =
+                     new MedicalRecordSegmentFile.Writer(dir.resolve("unsorted.seg"), MONTH, 4)) {
+            writer.append(record(2L, 5L, MONTH.atTime(9, 0)));
+            assertThrows(IllegalArgumentException.class, () -> writer.append(record(1L, 4L, MONTH.atTime(9, 0))));
+        }
+
+        Path file = write(List.of(record(1L, 1L, MONTH.atTime(9, 0)), record(2L, 1L, MONTH.atTime(10, 0))), 4);
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(20);
+            int b = raw.read();
+            raw.seek(20);
+            raw.write(b ^ 0x5A);
+        }
+        try (MedicalRecordSegmentFile.Reader reader = MedicalRecordSegmentFile.Reader.open(file)) {
+            assertThrows(IllegalStateException.class, () -> reader.read(null, null, null));
+        }
+
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(raw.length() - 5);
+            int b = raw.read();
+            raw.seek(raw.length() - 5);
+            raw.write(b ^ 0x5A);
+        }
+        assertThrows(IllegalStateException.class, () -> MedicalRecordSegmentFile.Reader.open(file));
+    }
+
+    private Path write(List<ArchivedMedicalRecord> records, int blockRecords) throws Exception {
+        Path file = dir.resolve("segment-" + System.nanoTime() + ".seg");
+        try (MedicalRecordSegmentFile.Writer writer = new MedicalRecordSegmentFile.Writer(file, MONTH, blockRecords)) {
+            for (ArchivedMedicalRecord record : records) {
+                writer.append(record);
+            }
+            MedicalRecordSegmentFile.Summary summary = writer.finish();
+            assertEquals(records.size(), summary.records());
+        }
+        return file;
+    }
+
+    private static ArchivedMedicalRecord record(long id, long patientId, LocalDateTime visitDate) {
+        return new ArchivedMedicalRecord(id, patientId, 1L, null, "내과", "기침", "감기 " + id, "휴식",
+                null, null, RecordStatus.ACTIVE, visitDate, visitDate, null, 10000, null);
+    }
+}
@@ -0,0 +1,177 @@
+package com.medifit.repository;
+
+import com.medifit.dto.ArchivedMedicalRecord;
+import com.medifit.dto.MedicalRecordExportKey;
+import com.medifit.entity.MedicalRecordArchiveSegment;
+import com.medifit.enums.RecordStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MedicalRecordSegmentStoreTest {
+
+    private static final LocalDate MARCH = LocalDate.of(2021, 3, 1);
+    private static final LocalDate APRIL = LocalDate.of(2021, 4, 1);
+
+    @TempDir
+    Path dir;
+
+    // 세그먼트 목록 테이블 대신
+    private final List<MedicalRecordArchiveSegment> segments = new ArrayList<>();
+    private MedicalRecordSegmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        MedicalRecordArchiveSegmentRepository segmentRepository = mock(MedicalRecordArchiveSegmentRepository.class);
+        when(segmentRepository.findAllByOrderByMonthStartAscIdAsc()).thenAnswer(invocation -> List.copyOf(segments));
+        when(segmentRepository.findAll()).thenAnswer(invocation -> List.copyOf(segments));
+        when(segmentRepository.countByMonthStart(any())).thenAnswer(invocation ->
+                segments.stream().filter(s -> s.getMonthStart().equals(invocation.getArgument(0))).count());
+        when(segmentRepository.findFirstByOrderByMonthStartDesc()).thenAnswer(invocation ->
+                segments.stream().max((a, b) -> a.getMonthStart().compareTo(b.getMonthStart())));
+
+        store = new MedicalRecordSegmentStore();
+        ReflectionTestUtils.setField(store, "segmentRepository", segmentRepository);
+        ReflectionTestUtils.setField(store, "directory", dir);
+        ReflectionTestUtils.setField(store, "blockRecords", 2);
+        ReflectionTestUtils.setField(store, "orphanGraceMinutes", 60L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Test
+    void committedSegmentsRoundTripByPatientAndDateRange() {
+        archive(MARCH, record(1L, 1L, MARCH.atTime(9, 0)), record(2L, 1L, MARCH.atTime(10, 0)),
+                record(3L, 2L, MARCH.plusDays(5).atTime(9, 0)));
+        archive(APRIL, record(4L, 1L, APRIL.atTime(9, 0)), record(5L, 3L, APRIL.plusDays(1).atTime(9, 0)));
+
+        assertEquals(APRIL.plusMonths(1).atStartOfDay(), store.archivedUntil());
+        assertEquals(List.of(1L, 2L, 4L), ids(store.find(1L, null, null)));
+        assertEquals(List.of(3L, 4L), ids(store.find(null, MARCH.plusDays(1).atStartOfDay(),
+                APRIL.atTime(23, 59))));
+        assertEquals(record(5L, 3L, APRIL.plusDays(1).atTime(9, 0)), store.find(3L, null, null).get(0));
+
+        List<Long> all = new ArrayList<>();
+        store.forEach(r -> all.add(r.id()));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), all);
+
+        // 같은 달을 다시 보관하면 일련번호가 붙은 세그먼트가 더 생긴다
+        assertTrue(archive(MARCH, record(6L, 4L, MARCH.atTime(11, 0))).getFileName().endsWith("-2.seg"));
+        assertEquals(List.of(6L), ids(store.find(4L, null, null)));
+    }
+
+    @Test
+    void scanMergesSegmentsInSortOrderAndResumesAfterKey() {
+        archive(MARCH, record(1L, 1L, MARCH.atTime(9, 0)), record(3L, 1L, MARCH.plusDays(9).atTime(9, 0)),
+                record(5L, 2L, MARCH.atTime(9, 0)));
+        // 같은 달에 늦게 보관한 세그먼트 - 환자 1의 두 기록 사이에 들어간다
+        archive(MARCH, record(7L, 1L, MARCH.plusDays(4).atTime(9, 0)), record(8L, 3L, MARCH.atTime(9, 0)));
+        archive(APRIL, record(2L, 1L, APRIL.atTime(9, 0)), record(4L, 2L, APRIL.atTime(9, 0)));
+
+        assertEquals(List.of(1L, 7L, 3L, 2L, 5L, 4L, 8L), ids(scan(null, null, null, null)));
+        // 환자 조건, 종료일은 포함하지 않는다
+        assertEquals(List.of(1L, 7L, 3L), ids(scan(1L, null, APRIL.atTime(9, 0), null)));
+        assertEquals(List.of(7L, 3L), ids(scan(1L, MARCH.plusDays(1).atStartOfDay(), APRIL.atStartOfDay(), null)));
+
+        // 마지막으로 받은 기록의 키 다음부터
+        MedicalRecordExportKey after = new MedicalRecordExportKey(1L, APRIL.atTime(9, 0), 2L);
+        assertEquals(List.of(5L, 4L, 8L), ids(scan(null, null, null, after)));
+        assertEquals(List.of(), ids(scan(1L, null, null, after)));
+    }
+
+    @Test
+    void uncommittedAndUnlistedFilesAreRemoved() throws Exception {
+        archive(MARCH, record(1L, 1L, MARCH.atTime(9, 0)));
+
+        // commit 없이 닫으면 임시 파일이 남지 않는다
+        try (MedicalRecordSegmentStore.PendingSegment pending = store.create(APRIL)) {
+            pending.append(record(2L, 1L, APRIL.atTime(9, 0)));
+        }
+        // 목록 행 저장 전에 실패한 세그먼트 (롤백)
+        try (MedicalRecordSegmentStore.PendingSegment pending = store.create(APRIL)) {
+            pending.append(record(3L, 1L, APRIL.atTime(9, 0)));
+            pending.commit();
+        }
+        Files.writeString(dir.resolve("2021-05-1.seg.tmp"), "partial");
+
+        // 방금 쓴 파일은 다른 실행이 커밋하기 전일 수 있으므로 남긴다
+        assertEquals(0, store.removeOrphans());
+
+        ReflectionTestUtils.setField(store, "clock", Clock.fixed(Instant.now().plus(Duration.ofHours(2)), ZoneOffset.UTC));
+        // 쓰는 중인 세그먼트의 임시 파일은 오래되었어도 지우지 않는다
+        try (MedicalRecordSegmentStore.PendingSegment pending = store.create(APRIL)) {
+            pending.append(record(4L, 1L, APRIL.atTime(9, 0)));
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+                }
+            }
+            assertEquals(2, store.removeOrphans());
+            try (var files = Files.list(dir)) {
+                assertEquals(List.of("2021-03-1.seg", "2021-04-2.seg.tmp"),
+                        files.map(p -> p.getFileName().toString()).sorted().toList());
+            }
+        }
+        assertEquals(List.of(1L), ids(store.find(1L, null, null)));
+    }
+
+    @Test
+    void missingListedSegmentFailsDirectoryCheck() {
+        archive(MARCH, record(1L, 1L, MARCH.atTime(9, 0)));
+        store.verifyDirectory();
+
+        // 다른 인스턴스의 로컬 디렉터리에만 있는 세그먼트 (공유 스토리지가 아님)
+        segments.add(new MedicalRecordArchiveSegment(APRIL, "2021-04-1.seg", 1, 10, 10, LocalDateTime.now()));
+        IllegalStateException error = assertThrows(IllegalStateException.class, store::verifyDirectory);
+        assertTrue(error.getMessage().contains("2021-04-1.seg"));
+    }
+
+    private MedicalRecordArchiveSegment archive(LocalDate month, ArchivedMedicalRecord... records) {
+        try (MedicalRecordSegmentStore.PendingSegment pending = store.create(month)) {
+            for (ArchivedMedicalRecord record : records) {
+                pending.append(record);
+            }
+            MedicalRecordArchiveSegment segment = pending.commit();
+            assertEquals(records.length, segment.getRecordCount());
+            segments.add(segment);
+            return segment;
+        }
+    }
+
+    private List<ArchivedMedicalRecord> scan(Long patientId, LocalDateTime startDate, LocalDateTime endDate,
+                                             MedicalRecordExportKey after) {
+        List<ArchivedMedicalRecord> records = new ArrayList<>();
+        store.scan(patientId, startDate, endDate, after).forEachRemaining(records::add);
+        return records;
+    }
+
+    private static List<Long> ids(List<ArchivedMedicalRecord> records) {
+        return records.stream().map(ArchivedMedicalRecord::id).toList();
+    }
+
+    private static ArchivedMedicalRecord record(long id, long patientId, LocalDateTime visitDate) {
+        return new ArchivedMedicalRecord(id, patientId, 1L, null, "내과", "기침", "감기 " + id, "휴식",
+                null, null, RecordStatus.ACTIVE, visitDate, visitDate, null, 10000, null);
+    }
+}
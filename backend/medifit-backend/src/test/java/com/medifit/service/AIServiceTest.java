@@ -0,0 +1,109 @@
+package com.medifit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medifit.entity.AiResponseCacheEntry;
+import com.medifit.repository.AiResponseCacheRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AIServiceTest {
+
+    private HttpServer llm;
+    // 요청마다 앞에서부터 꺼내 쓰는 응답 (상태 코드, 본문)
+    private final ConcurrentLinkedQueue<Object[]> responses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger llmCalls = new AtomicInteger();
+
+    private AiResponseCacheRepository aiResponseCacheRepository;
+    private AiResponseCache aiResponseCache;
+    private AIService aiService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        llm = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        llm.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            llmCalls.incrementAndGet();
+            Object[] next = responses.poll();
+            int status = next != null ? (int) next[0] : 500;
+            byte[] body = (next != null ? (String) next[1] : "{}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        llm.start();
+
+        aiResponseCacheRepository = mock(AiResponseCacheRepository.class);
+        when(aiResponseCacheRepository.findByCacheKeyAndExpiresAtAfter(anyString(), any())).thenReturn(Optional.empty());
+        aiResponseCache = new AiResponseCache();
+        ReflectionTestUtils.setField(aiResponseCache, "aiResponseCacheRepository", aiResponseCacheRepository);
+        ReflectionTestUtils.setField(aiResponseCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(aiResponseCache, "ttlHours", 1L);
+        ReflectionTestUtils.setField(aiResponseCache, "persistent", true);
+
+        aiService = new AIService();
+        ReflectionTestUtils.setField(aiService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(aiService, "aiResponseCache", aiResponseCache);
+        ReflectionTestUtils.setField(aiService, "baseUrl", "http://127.0.0.1:" + llm.getAddress().getPort());
+        ReflectionTestUtils.setField(aiService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(aiService, "model", "test-model");
+        ReflectionTestUtils.setField(aiService, "provider", "fake");
+        ReflectionTestUtils.setField(aiService, "timeoutSeconds", 5L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        llm.stop(0);
+    }
+
+    @Test
+    void doesNotCacheErrorText() {
+        responses.add(new Object[]{400, "{\"error\":\"bad request\"}"});
+        responses.add(new Object[]{200, "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"summary text\"}}]}"});
+
+        assertEquals("AI 요약 생성 중 오류가 발생했습니다.", aiService.summarizeMedicalRecord("두통", "편두통", "진통제", null));
+        verify(aiResponseCacheRepository, never()).save(any(AiResponseCacheEntry.class));
+
+        // 실패 뒤 같은 입력은 다시 LLM을 부르고, 성공한 응답만 저장한다
+        assertEquals("summary text", aiService.summarizeMedicalRecord("두통", "편두통", "진통제", null));
+        assertEquals("summary text", aiService.summarizeMedicalRecord(" 두통 ", "편두통", "진통제", null));
+        assertEquals(2, llmCalls.get());
+
+        ArgumentCaptor<AiResponseCacheEntry> saved = ArgumentCaptor.forClass(AiResponseCacheEntry.class);
+        verify(aiResponseCacheRepository, times(1)).save(saved.capture());
+        assertEquals("summary text", saved.getValue().getResponse());
+
+        AiResponseCache.CacheStats stats = aiResponseCache.getStats();
+        assertEquals(1, stats.loadFailures());
+        assertEquals(1, stats.memoryHits());
+    }
+
+    @Test
+    void sharesRecordSummaryEntryWithPipelinePath() {
+        responses.add(new Object[]{200, "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"summary text\"}}]}"});
+        AtomicInteger gateCalls = new AtomicInteger();
+
+        assertEquals("summary text", aiService.summarizeRecord(null, "두통", "편두통", "진통제", null, gateCalls::incrementAndGet));
+        assertEquals("summary text", aiService.summarizeMedicalRecord("두통", "편두통", "진통제", null));
+
+        // 캐시 적중이면 호출 제한 대기도 하지 않는다
+        assertEquals(1, gateCalls.get());
+        assertEquals(1, llmCalls.get());
+    }
+}
@@ -0,0 +1,137 @@
+package com.medifit.service;
+
+import com.medifit.entity.AiResponseCacheEntry;
+import com.medifit.repository.AiResponseCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AiResponseCacheTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-10T00:00:00Z");
+
+    private AiResponseCacheRepository aiResponseCacheRepository;
+    private AiResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        aiResponseCacheRepository = mock(AiResponseCacheRepository.class);
+        when(aiResponseCacheRepository.findByCacheKeyAndExpiresAtAfter(anyString(), any())).thenReturn(Optional.empty());
+
+        cache = new AiResponseCache();
+        ReflectionTestUtils.setField(cache, "aiResponseCacheRepository", aiResponseCacheRepository);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlHours", 1L);
+        ReflectionTestUtils.setField(cache, "persistent", true);
+        ReflectionTestUtils.setField(cache, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void collapsesConcurrentIdenticalRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        int callers = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("explain-prescription", "1", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return "explained";
+                }, "local", "tylenol", "500mg")));
+            }
+            // 나머지 호출이 모두 첫 호출의 결과를 기다리게 된 뒤에 생성을 끝낸다
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (cache.getStats().sharedLoads() < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("explained", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(callers - 1, cache.getStats().sharedLoads());
+        verify(aiResponseCacheRepository, times(1)).save(any(AiResponseCacheEntry.class));
+    }
+
+    @Test
+    void expiresAfterTtlAndEvictsLeastRecentlyUsed() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("op", "1", () -> "a" + loads.incrementAndGet(), "a");
+        cache.get("op", "1", () -> "b" + loads.incrementAndGet(), "b");
+        assertEquals("a1", cache.get("op", "1", () -> "unused", "a"));
+
+        // 크기 제한 2 - 가장 오래 안 쓴 b가 밀려난다
+        cache.get("op", "1", () -> "c" + loads.incrementAndGet(), "c");
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals("b4", cache.get("op", "1", () -> "b" + loads.incrementAndGet(), "b"));
+
+        ReflectionTestUtils.setField(cache, "clock", Clock.fixed(NOW.plusSeconds(3600), ZoneOffset.UTC));
+        assertEquals("b5", cache.get("op", "1", () -> "b" + loads.incrementAndGet(), "b"));
+        assertEquals(1, cache.getStats().expirations());
+        assertEquals(1, cache.getStats().memoryHits());
+    }
+
+    @Test
+    void usesPersistentTierAndDoesNotCacheFailures() {
+        LocalDateTime created = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        when(aiResponseCacheRepository.findByCacheKeyAndExpiresAtAfter(eq(AiResponseCache.keyOf("op", "1", "stored")), any()))
+                .thenReturn(Optional.of(new AiResponseCacheEntry("k", "op", "1", "from db", created, created.plusHours(1))));
+
+        assertEquals("from db", cache.get("op", "1", () -> fail("loader should not run"), "stored"));
+        assertEquals(1, cache.getStats().persistentHits());
+
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> cache.get("op", "1", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("upstream down");
+        }, "failing"));
+        assertEquals("ok", cache.get("op", "1", () -> {
+            attempts.incrementAndGet();
+            return "ok";
+        }, "failing"));
+        assertEquals(2, attempts.get());
+        assertEquals(1, cache.getStats().loadFailures());
+    }
+
+    @Test
+    void normalizesInputsIntoStableKeys() {
+        assertEquals("타이레놀 500 mg", AiResponseCache.normalize("  타이레놀\t500 \n mg "));
+        assertNull(AiResponseCache.normalize(null));
+
+        assertEquals(AiResponseCache.keyOf("op", "1", "a", "b"), AiResponseCache.keyOf("op", "1", "a", "b"));
+        assertNotEquals(AiResponseCache.keyOf("op", "1", "ab", "c"), AiResponseCache.keyOf("op", "1", "a", "bc"));
+        assertNotEquals(AiResponseCache.keyOf("op", "1", (String) null), AiResponseCache.keyOf("op", "1", ""));
+        assertNotEquals(AiResponseCache.keyOf("op", "1", "a"), AiResponseCache.keyOf("op", "2", "a"));
+    }
+}
@@ -0,0 +1,203 @@
+package com.medifit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medifit.entity.AiResponseCacheEntry;
+import com.medifit.entity.MedicalRecord;
+import com.medifit.repository.AiResponseCacheRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AiSummaryPipelineTest {
+
+    private static final LocalDateTime VISIT = LocalDateTime.of(2025, 1, 10, 9, 0);
+
+    private HttpServer llm;
+    // 요청마다 앞에서부터 꺼내 쓰는 응답 (상태 코드, 본문)
+    private final ConcurrentLinkedQueue<Object[]> responses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger llmCalls = new AtomicInteger();
+
+    private MedicalRecordService medicalRecordService;
+    private AiResponseCacheRepository aiResponseCacheRepository;
+    private AIService aiService;
+    private AiSummaryPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        llm = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        llm.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            llmCalls.incrementAndGet();
+            Object[] next = responses.poll();
+            int status = next != null ? (int) next[0] : 500;
+            byte[] body = (next != null ? (String) next[1] : "{}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        llm.start();
+
+        medicalRecordService = mock(MedicalRecordService.class);
+        when(medicalRecordService.findById(anyLong())).thenAnswer(invocation -> Optional.of(record(invocation.getArgument(0))));
+        when(medicalRecordService.saveAiSummary(anyLong(), anyString())).thenReturn(true);
+
+        aiResponseCacheRepository = mock(AiResponseCacheRepository.class);
+        when(aiResponseCacheRepository.findByCacheKeyAndExpiresAtAfter(anyString(), any())).thenReturn(Optional.empty());
+        AiResponseCache aiResponseCache = new AiResponseCache();
+        ReflectionTestUtils.setField(aiResponseCache, "aiResponseCacheRepository", aiResponseCacheRepository);
+        ReflectionTestUtils.setField(aiResponseCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(aiResponseCache, "ttlHours", 1L);
+        ReflectionTestUtils.setField(aiResponseCache, "persistent", true);
+
+        aiService = new AIService();
+        ReflectionTestUtils.setField(aiService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(aiService, "aiResponseCache", aiResponseCache);
+        ReflectionTestUtils.setField(aiService, "baseUrl", "http://127.0.0.1:" + llm.getAddress().getPort());
+        ReflectionTestUtils.setField(aiService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(aiService, "model", "test-model");
+        ReflectionTestUtils.setField(aiService, "provider", "fake");
+        ReflectionTestUtils.setField(aiService, "timeoutSeconds", 5L);
+        ReflectionTestUtils.setField(aiService, "rateLimitPerSecond", 0.0);
+
+        pipeline = new AiSummaryPipeline();
+        ReflectionTestUtils.setField(pipeline, "medicalRecordService", medicalRecordService);
+        ReflectionTestUtils.setField(pipeline, "aiService", aiService);
+        ReflectionTestUtils.setField(pipeline, "maxConcurrency", 2);
+        ReflectionTestUtils.setField(pipeline, "maxAttempts", 3);
+        ReflectionTestUtils.setField(pipeline, "initialBackoffMillis", 10L);
+        ReflectionTestUtils.setField(pipeline, "maxBackoffMillis", 50L);
+        ReflectionTestUtils.setField(pipeline, "backfillPageSize", 2);
+        ReflectionTestUtils.setField(pipeline, "jobRetentionMinutes", 60L);
+        ReflectionTestUtils.setField(pipeline, "sseTimeoutMinutes", 1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+        llm.stop(0);
+    }
+
+    @Test
+    void retriesRetryableFailureAndSavesSummary() throws InterruptedException {
+        responses.add(new Object[]{503, "{\"error\":\"overloaded\"}"});
+        responses.add(new Object[]{200, "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"summary text\"}}]}"});
+
+        AiSummaryPipeline.JobStatus status = awaitTerminal(pipeline.submit(1L).jobId());
+
+        assertEquals(AiSummaryPipeline.State.SUCCEEDED, status.state());
+        assertEquals(2, status.attempts());
+        assertEquals("summary text", status.summary());
+        assertEquals(2, llmCalls.get());
+        verify(medicalRecordService).saveAiSummary(1L, "summary text");
+    }
+
+    @Test
+    void failsWithoutRetryOnClientError() throws InterruptedException {
+        responses.add(new Object[]{400, "{\"error\":\"bad request\"}"});
+
+        AiSummaryPipeline.JobStatus status = awaitTerminal(pipeline.submit(1L).jobId());
+
+        assertEquals(AiSummaryPipeline.State.FAILED, status.state());
+        assertEquals(1, status.attempts());
+        assertEquals(1, llmCalls.get());
+        verify(medicalRecordService, never()).saveAiSummary(anyLong(), anyString());
+    }
+
+    @Test
+    void reusesCachedSummaryForSameRecord() throws InterruptedException {
+        responses.add(new Object[]{200, "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"summary text\"}}]}"});
+
+        AiSummaryPipeline.JobStatus first = awaitTerminal(pipeline.submit(1L).jobId());
+        // 끝난 작업이 진행 중 목록에서 빠진 뒤에 다시 등록해야 새 작업이 된다
+        String secondId = pipeline.submit(1L).jobId();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (secondId.equals(first.jobId()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            secondId = pipeline.submit(1L).jobId();
+        }
+        AiSummaryPipeline.JobStatus second = awaitTerminal(secondId);
+
+        assertNotEquals(first.jobId(), second.jobId());
+        assertEquals(AiSummaryPipeline.State.SUCCEEDED, second.state());
+        assertEquals("summary text", second.summary());
+        assertEquals(1, llmCalls.get());
+        verify(medicalRecordService, times(2)).saveAiSummary(1L, "summary text");
+        verify(aiResponseCacheRepository, times(1)).save(any(AiResponseCacheEntry.class));
+    }
+
+    @Test
+    void backfillDrainsPagesWithRuleBasedSummary() throws InterruptedException {
+        // LLM 주소가 없으면 규칙 기반 요약을 저장한다
+        ReflectionTestUtils.setField(aiService, "baseUrl", "");
+        List<Object[]> firstPage = new ArrayList<>();
+        firstPage.add(new Object[]{3L, VISIT.plusDays(2)});
+        firstPage.add(new Object[]{2L, VISIT.plusDays(1)});
+        List<Object[]> secondPage = new ArrayList<>();
+        secondPage.add(new Object[]{1L, VISIT});
+        when(medicalRecordService.findRecordsWithoutAiSummary(isNull(), isNull(), eq(2))).thenReturn(firstPage);
+        when(medicalRecordService.findRecordsWithoutAiSummary(VISIT.plusDays(1), 2L, 2)).thenReturn(secondPage);
+        when(medicalRecordService.findRecordsWithoutAiSummary(VISIT, 1L, 2)).thenReturn(List.of());
+
+        pipeline.startBackfill(null);
+        assertThrows(IllegalStateException.class, () -> pipeline.startBackfill(null));
+
+        AiSummaryPipeline.BackfillStatus status = awaitBackfill();
+        assertEquals(2, status.pages());
+        assertEquals(3, status.submitted());
+        assertEquals(3, status.succeeded());
+        assertEquals(0, llmCalls.get());
+        verify(medicalRecordService, times(3)).saveAiSummary(anyLong(), anyString());
+    }
+
+    private AiSummaryPipeline.JobStatus awaitTerminal(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            AiSummaryPipeline.JobStatus status = pipeline.getJob(jobId).orElseThrow();
+            if (status.state().isTerminal()) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("작업이 끝나지 않았습니다: " + jobId);
+    }
+
+    private AiSummaryPipeline.BackfillStatus awaitBackfill() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            AiSummaryPipeline.BackfillStatus status = pipeline.getBackfillStatus().orElseThrow();
+            if (!status.running()) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("백필이 끝나지 않았습니다");
+    }
+
+    private static MedicalRecord record(Long id) {
+        MedicalRecord record = new MedicalRecord();
+        record.setId(id);
+        record.setVisitDate(VISIT);
+        record.setDepartment("internal");
+        record.setDiagnosis("gastritis");
+        record.setSymptoms("stomach ache");
+        record.setTreatment("medication");
+        return record;
+    }
+}
@@ -0,0 +1,169 @@
+package com.medifit.service;
+
+import com.medifit.dto.BatchJobReport;
+import com.medifit.entity.BatchJobLock;
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import com.medifit.repository.BatchJobLockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 만료 예약 일괄 취소 - H2에 대한 청크별 잠금 후 UPDATE, 조회 이후 대상에서 빠진 행 제외, 청크당 이벤트 한 건,
+ * 인스턴스 간 작업 잠금
+ */
+@SpringBootTest
+class AppointmentExpiryJobTest {
+
+    // 시드 예약(2025년)은 기준 시각 이후라 대상이 아니다
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2020, 6, 1, 0, 0);
+    private static final LocalDateTime PAST = LocalDateTime.of(2020, 5, 1, 9, 0);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BatchJobLocks batchJobLocks;
+
+    @Autowired
+    private BatchJobLockRepository batchJobLockRepository;
+
+    private final List<AppointmentChangedEvent> events = new ArrayList<>();
+    private AppointmentRepository repository;
+    private AppointmentExpiryJob job;
+
+    @BeforeEach
+    void setUp() {
+        // 시드 데이터가 ID를 직접 지정하므로 새 예약 ID는 그 뒤에서 시작한다
+        jdbcTemplate.execute("ALTER TABLE appointments ALTER COLUMN id RESTART WITH 1000");
+
+        repository = mock(AppointmentRepository.class, AdditionalAnswers.delegatesTo(appointmentRepository));
+        job = new AppointmentExpiryJob(transactionManager);
+        ReflectionTestUtils.setField(job, "appointmentRepository", repository);
+        ReflectionTestUtils.setField(job, "batchJobLocks", batchJobLocks);
+        ReflectionTestUtils.setField(job, "eventPublisher",
+                (ApplicationEventPublisher) event -> events.add((AppointmentChangedEvent) event));
+        ReflectionTestUtils.setField(job, "chunkSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM appointments WHERE id >= 1000");
+    }
+
+    @Test
+    void cancelsOnlyRowsStillExpiredAndPublishesOneEventPerChunk() {
+        long scheduled = insert(PAST, "SCHEDULED");
+        long confirmed = insert(PAST.plusHours(1), "CONFIRMED");
+        long completed = insert(PAST.plusHours(2), "COMPLETED");
+        long completedMeanwhile = insert(PAST.plusHours(3), "SCHEDULED");
+        long secondChunk = insert(PAST.plusHours(4), "SCHEDULED");
+        long thirdChunk = insert(PAST.plusDays(1), "CONFIRMED");
+        long notExpired = insert(CUTOFF.plusDays(1), "SCHEDULED");
+
+        // 두 번째 청크를 읽은 직후 다른 요청이 예약 하나를 완료 처리한다
+        doAnswer(invocation -> {
+            List<AppointmentSnapshot> chunk = appointmentRepository.findExpiredChunk(invocation.getArgument(0),
+                    invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3));
+            if (chunk.stream().anyMatch(row -> row.id() == completedMeanwhile)) {
+                CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                        "UPDATE appointments SET status = 'COMPLETED' WHERE id = ?", completedMeanwhile)).join();
+            }
+            return chunk;
+        }).when(repository).findExpiredChunk(any(), any(), any(), any());
+
+        BatchJobReport report = job.run(CUTOFF);
+
+        assertEquals(5, report.getTotalSelected());
+        assertEquals(4, report.getTotalCancelled());
+        assertEquals(List.of(2, 2, 1), report.getChunks().stream().map(BatchJobReport.ChunkResult::getSelected).toList());
+        assertEquals(List.of(2, 1, 1), report.getChunks().stream().map(BatchJobReport.ChunkResult::getUpdated).toList());
+        assertEquals(List.of(scheduled, completedMeanwhile, thirdChunk),
+                report.getChunks().stream().map(BatchJobReport.ChunkResult::getFirstId).toList());
+
+        assertEquals("CANCELLED", status(scheduled));
+        assertEquals("CANCELLED", status(confirmed));
+        assertEquals("COMPLETED", status(completed));
+        assertEquals("COMPLETED", status(completedMeanwhile));
+        assertEquals("CANCELLED", status(secondChunk));
+        assertEquals("CANCELLED", status(thirdChunk));
+        assertEquals("SCHEDULED", status(notExpired));
+
+        // 청크마다 이벤트 한 건, 실제로 취소된 행만 담는다
+        assertEquals(3, events.size());
+        assertEquals(List.of(List.of(scheduled, confirmed), List.of(secondChunk), List.of(thirdChunk)),
+                events.stream().map(event -> event.changes().stream().map(change -> change.before().id()).toList())
+                        .toList());
+        AppointmentChangedEvent.Change change = events.get(0).changes().get(1);
+        assertEquals(AppointmentStatus.CONFIRMED, change.before().status());
+        assertEquals(AppointmentStatus.CANCELLED, change.after().status());
+        // 청크마다 잠금 조회 한 번, 잠근 행에 대한 UPDATE 한 번
+        verify(repository, times(3)).lockByIdInAndStatusIn(any(), any());
+        verify(repository, times(3)).cancelByIdIn(any(), any());
+    }
+
+    @Test
+    void rerunFindsNothingLeft() {
+        insert(PAST, "SCHEDULED");
+        insert(PAST.plusHours(1), "SCHEDULED");
+        insert(PAST.plusHours(2), "CONFIRMED");
+
+        BatchJobReport first = job.run(CUTOFF);
+        assertEquals(3, first.getTotalCancelled());
+        assertEquals(2, first.getChunks().size());
+        assertEquals(2, events.size());
+
+        events.clear();
+        BatchJobReport second = job.run(CUTOFF);
+        assertEquals(0, second.getTotalSelected());
+        assertTrue(second.getChunks().isEmpty());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void runsUnderTheBatchJobLockRow() {
+        LocalDateTime before = LocalDateTime.now();
+        job.run(CUTOFF);
+
+        // 인스턴스 간 잠금은 보관 작업과 같은 batch_job_locks 행으로 잡는다
+        BatchJobLock lock = batchJobLockRepository.findById(AppointmentExpiryJob.LOCK_NAME).orElseThrow();
+        assertFalse(lock.getLastStartedAt().isBefore(before));
+        assertNotNull(lock.getLastOwner());
+    }
+
+    private String status(long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM appointments WHERE id = ?", String.class, id);
+    }
+
+    private long insert(LocalDateTime appointmentDate, String status) {
+        jdbcTemplate.update("INSERT INTO appointments (patient_id, hospital_id, doctor_id, appointment_date, department, "
+                        + "status, created_at) VALUES (1, 1, 1, ?, '내과', ?, ?)",
+                appointmentDate, status, LocalDateTime.now());
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM appointments", Long.class);
+    }
+}
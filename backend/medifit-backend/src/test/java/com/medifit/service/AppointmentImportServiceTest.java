@@ -0,0 +1,257 @@
+package com.medifit.service;
+
+import com.medifit.dto.ImportReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 예약 일괄 등록 - 입력 파싱, H2에 대한 배치 INSERT, 청크 실패 시 슬롯 선점 해제
+ */
+@SpringBootTest
+class AppointmentImportServiceTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+    private static final Long OTHER_HOSPITAL_ID = 2L;
+    private static final Long DOCTOR_ID = 1L;
+    private static final String CSV_HEADER = "patientId,doctorId,appointmentDate,department,roomNumber";
+
+    @Autowired
+    private AppointmentImportService importService;
+
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // 시드 데이터가 ID를 직접 지정하므로 새 예약 ID는 그 뒤에서 시작한다
+        jdbcTemplate.execute("ALTER TABLE appointments ALTER COLUMN id RESTART WITH 1000");
+        setChunkSize(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM appointments WHERE id >= 1000");
+        setChunkSize(1000);
+    }
+
+    // 🔥 입력 파싱
+
+    @Test
+    void csvLineParserHandlesQuotesAndEscapes() {
+        assertEquals(List.of("1", "내과, 외래", "say \"hi\"", "x", ""),
+                AppointmentImportService.parseCsvLine("1,\"내과, 외래\",\"say \"\"hi\"\"\", x ,"));
+        assertEquals(List.of(""), AppointmentImportService.parseCsvLine(""));
+        assertThrows(IllegalArgumentException.class, () -> AppointmentImportService.parseCsvLine("1,\"open"));
+    }
+
+    @Test
+    void csvImportSkipsBlankLinesAndReportsBadRows() throws IOException {
+        String csv = String.join("\n",
+                CSV_HEADER,
+                "",
+                "1,1,2031-05-05 09:00,내과,\"A-1, 2층\"",
+                "   ",
+                "abc,1,2031-05-05 10:00,내과,",
+                "9999,1,2031-05-05 11:00,내과,",
+                "2,1,2031-05-05 12:00,,",
+                "3,1,2031-05-05 13:00,내과,,extra",
+                "4,,\"2031-05-05 14:00");
+
+        ImportReport report = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.CSV,
+                stream(csv), false);
+
+        assertEquals(6, report.getTotalLines());
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(5, 6, 7, 8, 9), report.getErrors().stream().map(ImportReport.LineError::getLine).toList());
+        assertEquals("A-1, 2층", jdbcTemplate.queryForObject(
+                "SELECT room_number FROM appointments WHERE id >= 1000", String.class));
+    }
+
+    @Test
+    void ndjsonImportReportsMalformedLines() throws IOException {
+        String ndjson = String.join("\n",
+                "{\"patientId\": 1, \"appointmentDate\": \"2031-05-06T09:00\", \"department\": \"내과\"}",
+                "{\"patientId\": 1, \"appointmentDate\": ",
+                "[1, 2]",
+                "",
+                "{\"patientId\": 2, \"appointmentDate\": \"2031-05-06T10:00\", \"department\": \"내과\", \"status\": \"UNKNOWN\"}",
+                "{\"patientId\": 2, \"appointmentDate\": \"2031-05-06T11:00\", \"department\": \"내과\", \"notes\": null}");
+
+        ImportReport report = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream(ndjson), false);
+
+        assertEquals(5, report.getTotalLines());
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(2, 3, 5), report.getErrors().stream().map(ImportReport.LineError::getLine).toList());
+    }
+
+    // 🔥 저장
+
+    @Test
+    void batchInsertPublishesGeneratedKeys() throws IOException {
+        LocalDateTime first = LocalDateTime.of(2031, 5, 7, 9, 0);
+        String ndjson = String.join("\n",
+                row(1, first),
+                row(2, first.plusHours(1)),
+                row(3, first.plusHours(2)));
+
+        ImportReport report = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream(ndjson), false);
+        assertEquals(3, report.getImported());
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, appointment_date FROM appointments WHERE id >= 1000 ORDER BY appointment_date");
+        assertEquals(3, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Long id = ((Number) rows.get(i).get("ID")).longValue();
+            LocalDateTime date = first.plusHours(i);
+            // 변경 이벤트가 생성된 ID로 슬롯/충돌 인덱스에 반영되었다
+            assertEquals(List.of(id), appointmentService.findConflictingAppointments(
+                    HOSPITAL_ID, DOCTOR_ID, date, 30, null));
+            assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, date, 30));
+        }
+    }
+
+    @Test
+    void failedChunkReleasesItsReservedSlots() throws IOException {
+        LocalDateTime first = LocalDateTime.of(2031, 5, 8, 9, 0);
+        String tooLongRoom = "R".repeat(60);
+        String csv = String.join("\n",
+                CSV_HEADER,
+                "1,1,2031-05-08 09:00,내과,",
+                "2,1,2031-05-08 10:00,내과,",
+                // 두 번째 청크: 진료실 번호가 컬럼 길이(50)를 넘어 INSERT가 실패한다
+                "3,1,2031-05-08 11:00,내과,",
+                "4,1,2031-05-08 12:00,내과," + tooLongRoom);
+
+        ImportReport report = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.CSV,
+                stream(csv), false);
+
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(4, 5), report.getErrors().stream().map(ImportReport.LineError::getLine).toList());
+        assertTrue(report.getErrors().get(0).getMessages().get(0).startsWith("저장 실패"));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointments WHERE id >= 1000", Integer.class));
+
+        assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, first, 30));
+        assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, first.plusHours(1), 30));
+        assertTrue(slotReservationService.isAvailable(HOSPITAL_ID, first.plusHours(2), 30));
+        assertTrue(slotReservationService.isAvailable(HOSPITAL_ID, first.plusHours(3), 30));
+
+        // 되돌린 슬롯은 다시 등록할 수 있다
+        ImportReport retry = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream(row(3, first.plusHours(2))), false);
+        assertEquals(1, retry.getImported());
+    }
+
+    @Test
+    void rowsOccupyingATakenSlotAreRejected() throws IOException {
+        LocalDateTime slot = LocalDateTime.of(2031, 5, 9, 9, 0);
+        assertTrue(slotReservationService.tryReserve(HOSPITAL_ID, slot, 30));
+
+        // 앞으로의 예약은 상태와 관계없이 (커밋 이벤트가 슬롯을 점유하므로) 선점에 실패하면 들어가지 않고,
+        // 취소 예약은 슬롯을 차지하지 않는다
+        String ndjson = String.join("\n",
+                "{\"patientId\": 1, \"appointmentDate\": \"2031-05-09T09:00\", \"department\": \"내과\"}",
+                "{\"patientId\": 2, \"appointmentDate\": \"2031-05-09T09:00\", \"department\": \"내과\", \"status\": \"CANCELLED\"}",
+                "{\"patientId\": 3, \"appointmentDate\": \"2031-05-09T09:00\", \"department\": \"내과\", \"status\": \"COMPLETED\"}");
+
+        ImportReport report = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream(ndjson), false);
+
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(1, 3), report.getErrors().stream().map(ImportReport.LineError::getLine).toList());
+        for (ImportReport.LineError error : report.getErrors()) {
+            assertEquals(List.of("해당 시간대에 이미 예약이 있습니다."), error.getMessages());
+        }
+
+        // 앞으로의 노쇼 예약도 빈 슬롯을 선점한다
+        LocalDateTime free = LocalDateTime.of(2031, 5, 9, 14, 0);
+        ImportReport noShow = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream("{\"patientId\": 1, \"appointmentDate\": \"2031-05-09T14:00\", \"department\": \"내과\", \"status\": \"NO_SHOW\"}"),
+                false);
+        assertEquals(1, noShow.getImported());
+        assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, free, 30));
+        slotReservationService.release(HOSPITAL_ID, free, 30);
+        slotReservationService.release(HOSPITAL_ID, slot, 30);
+    }
+
+    @Test
+    void historicalRowsAreInsertedWithoutReservingSlots() throws IOException {
+        // 지난 이력은 같은 시각에 여러 건이 있어도 선점 없이 모두 들어간다
+        String ndjson = String.join("\n",
+                "{\"patientId\": 1, \"appointmentDate\": \"2019-11-12T09:00\", \"department\": \"내과\", \"status\": \"COMPLETED\"}",
+                "{\"patientId\": 2, \"appointmentDate\": \"2019-11-12T09:00\", \"department\": \"내과\", \"status\": \"COMPLETED\"}",
+                "{\"patientId\": 3, \"appointmentDate\": \"2019-11-12T09:00\", \"department\": \"내과\", \"status\": \"NO_SHOW\"}");
+
+        ImportReport report = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream(ndjson), false);
+
+        assertEquals(3, report.getImported());
+        assertTrue(report.getErrors().isEmpty());
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointments WHERE id >= 1000 AND appointment_date = ?", Integer.class,
+                LocalDateTime.of(2019, 11, 12, 9, 0)));
+    }
+
+    @Test
+    void doctorAffiliationIsReportedAsUnchecked() throws IOException {
+        // 의사 3은 병원 2의 예약에 배정되어 있다
+        ImportReport setup = importService.importAppointments(OTHER_HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream("{\"patientId\": 1, \"doctorId\": 3, \"appointmentDate\": \"2031-05-10T09:00\", \"department\": \"내과\"}"),
+                false);
+        assertEquals(1, setup.getImported());
+
+        // 소속 정보가 없으므로 다른 병원 이력이 있는 의사도 받고, 확인하지 않았다는 사실을 알린다
+        String ndjson = String.join("\n",
+                "{\"patientId\": 2, \"doctorId\": 3, \"appointmentDate\": \"2031-05-10T10:00\", \"department\": \"내과\"}",
+                "{\"patientId\": 2, \"doctorId\": 9999, \"appointmentDate\": \"2031-05-10T11:00\", \"department\": \"내과\"}");
+        ImportReport report = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream(ndjson), false);
+
+        assertEquals(1, report.getImported());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertEquals(List.of("담당 의사를 찾을 수 없습니다."), report.getErrors().get(0).getMessages());
+        assertEquals(List.of(AppointmentImportService.DOCTOR_AFFILIATION_NOTICE), report.getNotices());
+
+        // 의사를 지정하지 않은 입력에는 안내가 없다
+        ImportReport withoutDoctor = importService.importAppointments(HOSPITAL_ID, AppointmentImportService.Format.NDJSON,
+                stream("{\"patientId\": 3, \"appointmentDate\": \"2031-05-10T13:00\", \"department\": \"내과\"}"),
+                true);
+        assertTrue(withoutDoctor.getNotices().isEmpty());
+    }
+
+    private void setChunkSize(int chunkSize) {
+        AppointmentImportService target = AopTestUtils.getTargetObject(importService);
+        ReflectionTestUtils.setField(target, "chunkSize", chunkSize);
+    }
+
+    private static String row(long patientId, LocalDateTime appointmentDate) {
+        return String.format("{\"patientId\": %d, \"doctorId\": %d, \"appointmentDate\": \"%s\", \"department\": \"내과\"}",
+                patientId, DOCTOR_ID, appointmentDate);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package com.medifit.service;
+
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AppointmentIntervalIndexTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+    private static final Long DOCTOR_A = 10L;
+    private static final Long DOCTOR_B = 11L;
+    private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+    private AppointmentRepository appointmentRepository;
+    private AppointmentIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        List<Object[]> existing = new ArrayList<>();
+        // 의사 A: 09:00~13:00 (4시간 수술), 14:00~14:15
+        existing.add(new Object[]{1L, DOCTOR_A, DAY.atTime(9, 0), 240});
+        existing.add(new Object[]{2L, DOCTOR_A, DAY.atTime(14, 0), 15});
+        // 의사 B: 10:00~10:30
+        existing.add(new Object[]{3L, DOCTOR_B, DAY.atTime(10, 0), null});
+        when(appointmentRepository.findActiveIntervals(eq(HOSPITAL_ID), any())).thenReturn(existing);
+
+        index = new AppointmentIntervalIndex();
+        ReflectionTestUtils.setField(index, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(index, "horizonDays", 1);
+    }
+
+    @Test
+    void longIntervalsAreFoundFromLaterStarts() {
+        assertEquals(List.of(1L), index.findConflicts(HOSPITAL_ID, DOCTOR_A, DAY.atTime(12, 30), 30, null));
+        assertFalse(index.hasConflict(HOSPITAL_ID, DOCTOR_A, DAY.atTime(13, 0), 60, null));
+        assertTrue(index.hasConflict(HOSPITAL_ID, DOCTOR_A, DAY.atTime(13, 50), 15, null));
+        assertFalse(index.hasConflict(HOSPITAL_ID, DOCTOR_A, DAY.atTime(14, 15), 15, null));
+    }
+
+    @Test
+    void conflictsAreScopedToDoctorUnlessHospitalWide() {
+        assertFalse(index.hasConflict(HOSPITAL_ID, DOCTOR_B, DAY.atTime(11, 0), 30, null));
+        assertEquals(List.of(3L), index.findConflicts(HOSPITAL_ID, DOCTOR_B, DAY.atTime(10, 15), 30, null));
+
+        List<Long> hospitalWide = index.findConflicts(HOSPITAL_ID, null, DAY.atTime(10, 15), 30, null);
+        assertEquals(2, hospitalWide.size());
+        assertTrue(hospitalWide.containsAll(List.of(1L, 3L)));
+    }
+
+    @Test
+    void reschedulingExcludesItselfAndFollowsCommittedChanges() {
+        assertFalse(index.hasConflict(HOSPITAL_ID, DOCTOR_A, DAY.atTime(14, 0), 15, 2L));
+
+        AppointmentSnapshot before = new AppointmentSnapshot(3L, 5L, HOSPITAL_ID, DOCTOR_B, "내과",
+                DAY.atTime(10, 0), 30, AppointmentStatus.SCHEDULED, null);
+        AppointmentSnapshot moved = new AppointmentSnapshot(3L, 5L, HOSPITAL_ID, DOCTOR_A, "내과",
+                DAY.atTime(15, 0), 30, AppointmentStatus.SCHEDULED, null);
+        index.hasConflict(HOSPITAL_ID, DOCTOR_B, DAY.atTime(10, 0), 30, null);
+        index.onAppointmentChanged(AppointmentChangedEvent.of(before, moved));
+
+        assertFalse(index.hasConflict(HOSPITAL_ID, DOCTOR_B, DAY.atTime(10, 0), 30, null));
+        assertTrue(index.hasConflict(HOSPITAL_ID, DOCTOR_A, DAY.atTime(15, 15), 30, null));
+
+        index.onAppointmentChanged(AppointmentChangedEvent.of(moved, moved.withStatus(AppointmentStatus.CANCELLED)));
+        assertFalse(index.hasConflict(HOSPITAL_ID, DOCTOR_A, DAY.atTime(15, 15), 30, null));
+        verify(appointmentRepository, times(1)).findActiveIntervals(eq(HOSPITAL_ID), any(LocalDateTime.class));
+    }
+}
@@ -0,0 +1,184 @@
+package com.medifit.service;
+
+import com.medifit.entity.Appointment;
+import com.medifit.repository.AppointmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 예약 리마인더 일괄 발송 - H2에 대한 샤드 페이지 조회, 동시 발송 제한, 성공한 예약만 발송 표시
+ */
+@SpringBootTest
+class AppointmentReminderDispatcherTest {
+
+    private static final LocalDate TARGET_DATE = LocalDate.of(2031, 7, 1);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private NotificationService notificationService;
+    private AppointmentReminderDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        // 시드 데이터가 ID를 직접 지정하므로 새 예약 ID는 그 뒤에서 시작한다
+        jdbcTemplate.execute("ALTER TABLE appointments ALTER COLUMN id RESTART WITH 1000");
+
+        notificationService = mock(NotificationService.class);
+        dispatcher = new AppointmentReminderDispatcher(transactionManager);
+        ReflectionTestUtils.setField(dispatcher, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(dispatcher, "notificationService", notificationService);
+        // 병원 ID % 2 - 병원 1, 3은 샤드 1, 병원 2는 샤드 0
+        ReflectionTestUtils.setField(dispatcher, "shardCount", 2);
+        ReflectionTestUtils.setField(dispatcher, "ownedShards", List.of());
+        ReflectionTestUtils.setField(dispatcher, "pageSize", 2);
+        ReflectionTestUtils.setField(dispatcher, "maxConcurrency", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM appointments WHERE id >= 1000");
+    }
+
+    @Test
+    void shardSelectsOnlyItsHospitalsAcrossPages() {
+        long h1a = insert(1L, 9, "SCHEDULED", null);
+        long h2 = insert(2L, 10, "CONFIRMED", null);
+        long h3 = insert(3L, 11, "SCHEDULED", false);
+        long h1b = insert(1L, 12, "CONFIRMED", null);
+        long h1c = insert(1L, 13, "SCHEDULED", null);
+        // 대상이 아닌 예약: 취소, 이미 발송, 다른 날짜
+        insert(1L, 14, "CANCELLED", null);
+        insert(1L, 15, "SCHEDULED", true);
+        insertAt(1L, TARGET_DATE.plusDays(1).atTime(9, 0), "SCHEDULED", null);
+
+        Set<Long> sent = ConcurrentHashMap.newKeySet();
+        recordSends(sent);
+        Map<String, Object> shard1 = dispatcher.dispatch(TARGET_DATE, List.of(1));
+
+        // 페이지 크기 2로 세 페이지에 걸쳐 샤드 1(병원 1, 3)의 예약만 읽었다
+        assertEquals(Set.of(h1a, h3, h1b, h1c), sent);
+        assertEquals(4, shard1.get("selected"));
+        assertEquals(4, shard1.get("marked"));
+
+        sent.clear();
+        Map<String, Object> shard0 = dispatcher.dispatch(TARGET_DATE, List.of(0));
+        assertEquals(Set.of(h2), sent);
+        assertEquals(1, shard0.get("selected"));
+
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.dispatch(TARGET_DATE, List.of(2)));
+    }
+
+    @Test
+    void sendsRunOnVirtualThreadsWithinTheConcurrencyLimit() {
+        for (int hour = 9; hour < 15; hour++) {
+            insert(1L, hour, "SCHEDULED", null);
+        }
+        ReflectionTestUtils.setField(dispatcher, "pageSize", 6);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger platformThreadSends = new AtomicInteger();
+        // 처음 두 건은 서로를 기다린다 - 제한(2)까지는 실제로 동시에 보낸다
+        CountDownLatch firstTwo = new CountDownLatch(2);
+        when(notificationService.sendAppointmentNotification(any())).thenAnswer(invocation -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            if (!Thread.currentThread().isVirtual()) {
+                platformThreadSends.incrementAndGet();
+            }
+            firstTwo.countDown();
+            firstTwo.await(5, TimeUnit.SECONDS);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return true;
+        });
+
+        Map<String, Object> result = dispatcher.dispatch(TARGET_DATE, List.of(1));
+
+        assertEquals(6, result.get("sent"));
+        assertEquals(2, maxInFlight.get());
+        assertEquals(0, platformThreadSends.get());
+    }
+
+    @Test
+    void onlySuccessfulSendsAreMarkedAndFailuresAreRetriedNextRun() {
+        long first = insert(1L, 9, "SCHEDULED", null);
+        long failing = insert(1L, 10, "SCHEDULED", null);
+        long throwing = insert(3L, 11, "SCHEDULED", null);
+        long last = insert(3L, 12, "CONFIRMED", null);
+
+        Set<Long> sent = ConcurrentHashMap.newKeySet();
+        when(notificationService.sendAppointmentNotification(any())).thenAnswer(invocation -> {
+            Long id = ((Appointment) invocation.getArgument(0)).getId();
+            if (id == throwing) {
+                throw new IllegalStateException("gateway down");
+            }
+            sent.add(id);
+            return id != failing;
+        });
+
+        Map<String, Object> result = dispatcher.dispatch(TARGET_DATE, List.of(1));
+
+        assertEquals(Set.of(first, failing, last), sent);
+        assertEquals(4, result.get("selected"));
+        assertEquals(2, result.get("sent"));
+        assertEquals(2, result.get("failed"));
+        assertEquals(2, result.get("marked"));
+        assertEquals(List.of(first, last), jdbcTemplate.queryForList(
+                "SELECT id FROM appointments WHERE id >= 1000 AND reminder_sent = TRUE AND reminder_sent_at IS NOT NULL "
+                        + "ORDER BY id", Long.class));
+
+        // 다음 실행은 표시되지 않은 예약만 다시 보낸다
+        sent.clear();
+        recordSends(sent);
+        Map<String, Object> retry = dispatcher.dispatch(TARGET_DATE, List.of(1));
+        assertEquals(Set.of(failing, throwing), sent);
+        assertEquals(2, retry.get("marked"));
+    }
+
+    // 보낸 예약 ID를 모으고 모두 성공으로 응답한다
+    private void recordSends(Set<Long> sent) {
+        doAnswer(invocation -> {
+            sent.add(((Appointment) invocation.getArgument(0)).getId());
+            return true;
+        }).when(notificationService).sendAppointmentNotification(any());
+    }
+
+    private long insert(Long hospitalId, int hour, String status, Boolean reminderSent) {
+        return insertAt(hospitalId, TARGET_DATE.atTime(hour, 0), status, reminderSent);
+    }
+
+    private long insertAt(Long hospitalId, LocalDateTime appointmentDate, String status, Boolean reminderSent) {
+        jdbcTemplate.update("INSERT INTO appointments (patient_id, hospital_id, doctor_id, appointment_date, department, "
+                        + "status, reminder_sent, created_at) VALUES (1, ?, 1, ?, '내과', ?, ?, ?)",
+                hospitalId, appointmentDate, status, reminderSent, LocalDateTime.now());
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM appointments", Long.class);
+    }
+}
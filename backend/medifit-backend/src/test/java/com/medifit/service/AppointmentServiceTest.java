@@ -0,0 +1,137 @@
+package com.medifit.service;
+
+import com.medifit.dto.AppointmentListItem;
+import com.medifit.dto.CursorPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 커서 기반 예약 목록 - 같은 일시의 예약이 페이지 경계에 걸쳐도 빠지거나 겹치지 않고, 잘못된 커서는 400
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AppointmentServiceTest {
+
+    // 시드 예약이 없는 병원
+    private static final Long HOSPITAL_ID = 5L;
+    private static final LocalDateTime TIE = LocalDateTime.of(2031, 8, 1, 10, 0);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // 시드 데이터가 ID를 직접 지정하므로 새 예약 ID는 그 뒤에서 시작한다
+        jdbcTemplate.execute("ALTER TABLE appointments ALTER COLUMN id RESTART WITH 1000");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM appointments WHERE id >= 1000");
+    }
+
+    @Test
+    void pagesStayContinuousAcrossTiedDates() {
+        long earlier = insert(TIE.minusDays(1));
+        long tieA = insert(TIE);
+        long later = insert(TIE.plusDays(1));
+        long tieB = insert(TIE);
+        long tieC = insert(TIE);
+
+        // appointmentDate DESC, id DESC - 같은 일시 세 건이 첫째/둘째 페이지 경계에 걸친다
+        List<Long> expected = List.of(later, tieC, tieB, tieA, earlier);
+        for (int size = 1; size <= 5; size++) {
+            assertEquals(expected, readAll(size), "size=" + size);
+        }
+
+        CursorPage<AppointmentListItem> first = appointmentService.findPage(null, HOSPITAL_ID, null, null, 2);
+        assertEquals(List.of(later, tieC), ids(first));
+        assertTrue(first.isHasNext());
+        CursorPage<AppointmentListItem> second = appointmentService.findPage(null, HOSPITAL_ID, null,
+                first.getNextCursor(), 2);
+        assertEquals(List.of(tieB, tieA), ids(second));
+        CursorPage<AppointmentListItem> last = appointmentService.findPage(null, HOSPITAL_ID, null,
+                second.getNextCursor(), 2);
+        assertEquals(List.of(earlier), ids(last));
+        assertFalse(last.isHasNext());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void malformedCursorIsRejected() throws Exception {
+        insert(TIE);
+        insert(TIE);
+        String valid = appointmentService.findPage(null, HOSPITAL_ID, null, null, 1).getNextCursor();
+        assertNotNull(valid);
+
+        List<String> malformed = List.of(
+                "not base64!",
+                "A",
+                valid.substring(0, valid.length() / 2),
+                encode("2031-08-01T10:00"),
+                encode("2031-08-01T10:00|"),
+                encode("2031-08-01T10:00|abc"),
+                encode("yesterday|1001"),
+                encode("2031-08-01T10:00|1001|extra"));
+        for (String cursor : malformed) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> appointmentService.findPage(null, HOSPITAL_ID, null, cursor, 1), cursor);
+            assertEquals("잘못된 커서입니다.", e.getMessage());
+
+            mockMvc.perform(get("/api/appointments")
+                            .param("hospitalId", HOSPITAL_ID.toString())
+                            .param("cursor", cursor))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.success").value(false));
+        }
+    }
+
+    private List<Long> readAll(int size) {
+        List<Long> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<AppointmentListItem> page = appointmentService.findPage(null, HOSPITAL_ID, null, cursor, size);
+            all.addAll(ids(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    private static List<Long> ids(CursorPage<AppointmentListItem> page) {
+        return page.getItems().stream().map(AppointmentListItem::getId).toList();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long insert(LocalDateTime appointmentDate) {
+        jdbcTemplate.update("INSERT INTO appointments (patient_id, hospital_id, doctor_id, appointment_date, department, "
+                        + "status, created_at) VALUES (1, ?, 1, ?, '내과', 'SCHEDULED', ?)",
+                HOSPITAL_ID, appointmentDate, LocalDateTime.now());
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM appointments", Long.class);
+    }
+}
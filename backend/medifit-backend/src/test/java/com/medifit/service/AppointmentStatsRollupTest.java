@@ -0,0 +1,84 @@
+package com.medifit.service;
+
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AppointmentStatsRollupTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2030, 3, 1, 9, 0);
+    private static final LocalDateTime APPOINTMENT_AT = LocalDateTime.of(2030, 3, 4, 10, 0);
+
+    private AppointmentRepository appointmentRepository;
+    private AppointmentStatsRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        rollup = new AppointmentStatsRollup();
+        ReflectionTestUtils.setField(rollup, "appointmentRepository", appointmentRepository);
+    }
+
+    @Test
+    void changesCommittedDuringBuildAreNotLost() {
+        // 첫 집계 도중 예약 2번이 커밋된다 (집계 결과에는 1번만 있다)
+        when(appointmentRepository.countRollupBuckets()).thenAnswer(invocation -> {
+            rollup.onAppointmentChanged(AppointmentChangedEvent.of(null, snapshot(2L, AppointmentStatus.SCHEDULED)));
+            return rows(1L);
+        });
+        assertEquals(Map.of(AppointmentStatus.SCHEDULED, 2L), countsByStatus());
+
+        // 재계산 도중 2번이 확정된다 (집계 결과는 변경 전)
+        when(appointmentRepository.countRollupBuckets()).thenAnswer(invocation -> {
+            rollup.onAppointmentChanged(AppointmentChangedEvent.of(snapshot(2L, AppointmentStatus.SCHEDULED),
+                    snapshot(2L, AppointmentStatus.CONFIRMED)));
+            return rows(2L);
+        });
+        rollup.rebuild();
+        assertEquals(Map.of(AppointmentStatus.SCHEDULED, 1L, AppointmentStatus.CONFIRMED, 1L), countsByStatus());
+
+        // 재계산이 끝난 뒤에는 버퍼에 쌓지 않고 바로 반영한다
+        rollup.onAppointmentChanged(AppointmentChangedEvent.of(snapshot(2L, AppointmentStatus.CONFIRMED), null));
+        assertEquals(Map.of(AppointmentStatus.SCHEDULED, 1L), countsByStatus());
+    }
+
+    @Test
+    void failedBuildDoesNotKeepBuffering() {
+        when(appointmentRepository.countRollupBuckets()).thenThrow(new IllegalStateException("db down"));
+        assertThrows(IllegalStateException.class, () -> rollup.forEach(null, (bucket, count) -> {}));
+        assertNull(ReflectionTestUtils.getField(rollup, "pendingDuringRebuild"));
+    }
+
+    private Map<AppointmentStatus, Long> countsByStatus() {
+        Map<AppointmentStatus, Long> counts = new HashMap<>();
+        rollup.forEach(HOSPITAL_ID, (bucket, count) -> counts.merge(bucket.status(), count, Long::sum));
+        return counts;
+    }
+
+    // 예약 1번 - scheduledCount건이 SCHEDULED 버킷에 있다
+    private static List<Object[]> rows(long scheduledCount) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{HOSPITAL_ID, CREATED_AT.toLocalDate(), APPOINTMENT_AT.toLocalDate(), 10, "내과",
+                AppointmentStatus.SCHEDULED, scheduledCount});
+        return rows;
+    }
+
+    private static AppointmentSnapshot snapshot(Long id, AppointmentStatus status) {
+        return new AppointmentSnapshot(id, 100L, HOSPITAL_ID, null, "내과", APPOINTMENT_AT, 30, status, CREATED_AT);
+    }
+}
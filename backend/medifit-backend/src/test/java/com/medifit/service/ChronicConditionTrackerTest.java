@@ -0,0 +1,108 @@
+package com.medifit.service;
+
+import com.medifit.entity.PatientDiagnosisCount;
+import com.medifit.event.ChronicConditionEvent;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicalRecordSegmentStore;
+import com.medifit.repository.PatientDiagnosisCountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChronicConditionTrackerTest {
+
+    // (환자, 진단 키) -> 행, 저장소 대신
+    private final Map<String, PatientDiagnosisCount> rows = new HashMap<>();
+    private final List<ChronicConditionEvent> events = new ArrayList<>();
+    private ChronicConditionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        PatientDiagnosisCountRepository countRepository = mock(PatientDiagnosisCountRepository.class);
+        when(countRepository.findByPatientIdAndDiagnosisKey(anyLong(), anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.getArgument(0) + "/" + invocation.getArgument(1))));
+        when(countRepository.save(any())).thenAnswer(invocation -> {
+            PatientDiagnosisCount count = invocation.getArgument(0);
+            rows.put(count.getPatientId() + "/" + count.getDiagnosisKey(), count);
+            return count;
+        });
+        doAnswer(invocation -> {
+            PatientDiagnosisCount count = invocation.getArgument(0);
+            return rows.remove(count.getPatientId() + "/" + count.getDiagnosisKey());
+        }).when(countRepository).delete(any());
+
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        doAnswer(invocation -> events.add(invocation.getArgument(0)))
+                .when(eventPublisher).publishEvent(any(Object.class));
+
+        tracker = new ChronicConditionTracker(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(tracker, "countRepository", countRepository);
+        ReflectionTestUtils.setField(tracker, "medicalRecordRepository", mock(MedicalRecordRepository.class));
+        ReflectionTestUtils.setField(tracker, "segmentStore", mock(MedicalRecordSegmentStore.class));
+        ReflectionTestUtils.setField(tracker, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(tracker, "threshold", 3);
+    }
+
+    @Test
+    void crossingThresholdRaisesEventOnceForNormalizedDiagnosis() {
+        tracker.recordChanged(null, visit(1L, "기능성 소화불량"));
+        tracker.recordChanged(null, visit(1L, "기능성소화불량"));
+        assertTrue(events.isEmpty());
+
+        tracker.recordChanged(null, visit(1L, "기능성  소화불량."));
+        tracker.recordChanged(null, visit(1L, "기능성 소화불량"));
+
+        assertEquals(1, events.size());
+        ChronicConditionEvent event = events.get(0);
+        assertTrue(event.chronic());
+        assertEquals(1L, event.patientId());
+        assertEquals("기능성소화불량", event.diagnosisKey());
+        assertEquals(3, event.visitCount());
+        assertEquals(4L, rows.get("1/기능성소화불량").getVisitCount());
+        assertEquals("기능성 소화불량", rows.get("1/기능성소화불량").getDiagnosis());
+    }
+
+    @Test
+    void deletesAndDiagnosisChangesMoveCountsAndLeaveChronicState() {
+        for (int i = 0; i < 3; i++) {
+            tracker.recordChanged(null, visit(2L, "GERD"));
+        }
+        tracker.recordChanged(null, visit(2L, "위염"));
+
+        // 표기만 바뀐 수정은 횟수를 바꾸지 않는다
+        tracker.recordChanged(visit(2L, "GERD"), visit(2L, "gerd"));
+        assertEquals(3L, rows.get("2/gerd").getVisitCount());
+        assertEquals("gerd", rows.get("2/gerd").getDiagnosis());
+
+        // 진단 변경 -> 이전 진단 -1, 새 진단 +1
+        tracker.recordChanged(visit(2L, "GERD"), visit(2L, "위염"));
+        assertEquals(2L, rows.get("2/gerd").getVisitCount());
+        assertEquals(2L, rows.get("2/위염").getVisitCount());
+        assertEquals(List.of(true, false), events.stream().map(ChronicConditionEvent::chronic).toList());
+
+        tracker.recordChanged(visit(2L, "위염"), null);
+        tracker.recordChanged(visit(2L, "위염"), null);
+        assertFalse(rows.containsKey("2/위염"));
+
+        // 진단명이 없는 기록은 세지 않는다
+        tracker.recordChanged(null, visit(2L, "  "));
+        tracker.recordChanged(visit(3L, null), null);
+        assertEquals(1, rows.size());
+    }
+
+    private static ChronicConditionTracker.DiagnosisVisit visit(Long patientId, String diagnosis) {
+        return new ChronicConditionTracker.DiagnosisVisit(patientId, diagnosis);
+    }
+}
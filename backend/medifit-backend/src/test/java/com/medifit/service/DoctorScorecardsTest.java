@@ -0,0 +1,163 @@
+package com.medifit.service;
+
+import com.medifit.entity.DoctorDailyScorecard;
+import com.medifit.entity.DoctorDailyTally;
+import com.medifit.enums.RecordStatus;
+import com.medifit.enums.ScorecardDimension;
+import com.medifit.repository.DoctorDailyScorecardRepository;
+import com.medifit.repository.DoctorDailyTallyRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicalRecordSegmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DoctorScorecardsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 30);
+
+    // 저장소 대신 메모리 목록
+    private final List<DoctorDailyScorecard> cards = new ArrayList<>();
+    private final List<DoctorDailyTally> tallies = new ArrayList<>();
+    private DoctorScorecards scorecards;
+
+    @BeforeEach
+    void setUp() {
+        DoctorDailyScorecardRepository scorecardRepository = mock(DoctorDailyScorecardRepository.class);
+        when(scorecardRepository.findByDoctorIdAndVisitDate(anyLong(), any())).thenAnswer(invocation ->
+                cards.stream().filter(c -> c.getDoctorId().equals(invocation.getArgument(0))
+                        && c.getVisitDate().equals(invocation.getArgument(1))).toList());
+        when(scorecardRepository.save(any())).thenAnswer(invocation -> {
+            DoctorDailyScorecard card = invocation.getArgument(0);
+            if (!cards.contains(card)) {
+                cards.add(card);
+            }
+            return card;
+        });
+        when(scorecardRepository.findInWindow(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            LocalDate from = invocation.getArgument(1);
+            LocalDate to = invocation.getArgument(2);
+            return cards.stream().filter(c -> ids.contains(c.getDoctorId())
+                    && !c.getVisitDate().isBefore(from) && !c.getVisitDate().isAfter(to)).toList();
+        });
+        when(scorecardRepository.findDoctorIdsInWindow(any(), any())).thenAnswer(invocation ->
+                cards.stream().map(DoctorDailyScorecard::getDoctorId).distinct().sorted().toList());
+
+        DoctorDailyTallyRepository tallyRepository = mock(DoctorDailyTallyRepository.class);
+        when(tallyRepository.findByDoctorIdAndVisitDateAndDimensionAndLabel(anyLong(), any(), any(), anyString()))
+                .thenAnswer(invocation -> tallies.stream()
+                        .filter(t -> t.getDoctorId().equals(invocation.getArgument(0))
+                                && t.getVisitDate().equals(invocation.getArgument(1))
+                                && t.getDimension() == invocation.getArgument(2)
+                                && t.getLabel().equals(invocation.getArgument(3))).toList());
+        when(tallyRepository.save(any())).thenAnswer(invocation -> {
+            DoctorDailyTally tally = invocation.getArgument(0);
+            if (!tallies.contains(tally)) {
+                tallies.add(tally);
+            }
+            return tally;
+        });
+        when(tallyRepository.sumInWindow(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            LocalDate from = invocation.getArgument(1);
+            LocalDate to = invocation.getArgument(2);
+            Map<List<Object>, Long> sums = new LinkedHashMap<>();
+            tallies.stream().filter(t -> ids.contains(t.getDoctorId())
+                            && !t.getVisitDate().isBefore(from) && !t.getVisitDate().isAfter(to))
+                    .forEach(t -> sums.merge(List.of(t.getDoctorId(), t.getDimension(), t.getLabel()),
+                            t.getRecordCount(), Long::sum));
+            List<Object[]> rows = new ArrayList<>();
+            sums.forEach((key, sum) -> {
+                if (sum > 0) {
+                    rows.add(new Object[]{key.get(0), key.get(1), key.get(2), sum});
+                }
+            });
+            return rows;
+        });
+
+        scorecards = new DoctorScorecards(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(scorecards, "scorecardRepository", scorecardRepository);
+        ReflectionTestUtils.setField(scorecards, "tallyRepository", tallyRepository);
+        ReflectionTestUtils.setField(scorecards, "medicalRecordRepository", mock(MedicalRecordRepository.class));
+        ReflectionTestUtils.setField(scorecards, "segmentStore", mock(MedicalRecordSegmentStore.class));
+        ReflectionTestUtils.setField(scorecards, "topDiagnoses", 2);
+    }
+
+    @Test
+    void sumsDayBucketsOverWindow() {
+        // 의사 1: 환자 10이 3번, 환자 11이 1번 (2개월에 걸쳐), 의사 2: 1건
+        scorecards.recordChanged(null, visit(1L, 10L, DAY, "내과", "감기", RecordStatus.COMPLETED, 10000));
+        scorecards.recordChanged(null, visit(1L, 10L, DAY, "내과", "감기", RecordStatus.ACTIVE, null));
+        scorecards.recordChanged(null, visit(1L, 10L, DAY.plusDays(3), "내과", "위염", RecordStatus.COMPLETED, 20000));
+        scorecards.recordChanged(null, visit(1L, 11L, DAY.plusDays(3), "외과", "골절", RecordStatus.COMPLETED, 30000));
+        scorecards.recordChanged(null, visit(2L, 12L, DAY, "피부과", "습진", RecordStatus.ACTIVE, 5000));
+
+        List<DoctorScorecards.Scorecard> result = scorecards.scorecards(List.of(2L, 1L), DAY, DAY.plusDays(10));
+        assertEquals(List.of(2L, 1L), result.stream().map(DoctorScorecards.Scorecard::doctorId).toList());
+
+        DoctorScorecards.Scorecard doctor1 = result.get(1);
+        assertEquals(4, doctor1.totalRecords());
+        assertEquals(3, doctor1.completedRecords());
+        assertEquals(0.75, doctor1.completionRate(), 1e-9);
+        assertEquals(2, doctor1.uniquePatients());
+        assertEquals(2.0, doctor1.revisitRate(), 1e-9);
+        assertEquals(20000, doctor1.averageMedicalFee());
+        assertEquals(Map.of("2026-03", 2L, "2026-04", 2L), doctor1.monthlyRecords());
+        assertEquals(Map.of("내과", 3L, "외과", 1L), doctor1.departmentRecords());
+        assertEquals(List.of("감기", "골절"), List.copyOf(doctor1.topDiagnoses().keySet()));
+
+        // 기간 밖의 날짜는 빠진다
+        DoctorScorecards.Scorecard firstDay = scorecards.scorecard(1L, DAY, DAY);
+        assertEquals(2, firstDay.totalRecords());
+        assertEquals(1, firstDay.uniquePatients());
+
+        assertEquals(List.of(1L, 2L), scorecards.scorecards(null, DAY, DAY).stream()
+                .map(DoctorScorecards.Scorecard::doctorId).toList());
+        assertThrows(IllegalArgumentException.class, () -> scorecards.scorecards(null, DAY, DAY.minusDays(1)));
+    }
+
+    @Test
+    void updatesAndDeletesMoveCountsBetweenBuckets() {
+        DoctorScorecards.ScoredVisit draft = visit(1L, 10L, DAY, "내과", "감기", RecordStatus.ACTIVE, 10000);
+        scorecards.recordChanged(null, draft);
+
+        // 완료 처리하면서 진료비와 진단 변경
+        DoctorScorecards.ScoredVisit completed = visit(1L, 10L, DAY, "내과", "독감", RecordStatus.COMPLETED, 15000);
+        scorecards.recordChanged(draft, completed);
+
+        DoctorScorecards.Scorecard card = scorecards.scorecard(1L, DAY, DAY);
+        assertEquals(1, card.totalRecords());
+        assertEquals(1, card.completedRecords());
+        assertEquals(15000, card.averageMedicalFee());
+        assertEquals(Map.of("독감", 1L), card.topDiagnoses());
+
+        // 다른 의사로 옮긴 뒤 삭제
+        DoctorScorecards.ScoredVisit moved = visit(2L, 10L, DAY, "내과", "독감", RecordStatus.COMPLETED, 15000);
+        scorecards.recordChanged(completed, moved);
+        scorecards.recordChanged(moved, null);
+
+        for (Long doctorId : List.of(1L, 2L)) {
+            DoctorScorecards.Scorecard empty = scorecards.scorecard(doctorId, DAY, DAY);
+            assertEquals(0, empty.totalRecords());
+            assertEquals(0, empty.averageMedicalFee());
+            assertTrue(empty.departmentRecords().isEmpty());
+            assertEquals(0.0, empty.revisitRate());
+        }
+        assertTrue(tallies.stream().noneMatch(t -> t.getDimension() == ScorecardDimension.DIAGNOSIS
+                && t.getLabel().equals("감기") && t.getRecordCount() > 0));
+    }
+
+    private static DoctorScorecards.ScoredVisit visit(Long doctorId, Long patientId, LocalDate date, String department,
+                                                      String diagnosis, RecordStatus status, Integer fee) {
+        return new DoctorScorecards.ScoredVisit(doctorId, patientId, date, department, diagnosis, status, fee);
+    }
+}
@@ -0,0 +1,44 @@
+package com.medifit.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesDistinctCountWithinError() {
+        for (int distinct : new int[]{10, 1000, 100000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long id = 1; id <= distinct; id++) {
+                sketch.add(id);
+                // 같은 값을 다시 넣어도 늘지 않는다
+                sketch.add(id);
+            }
+            assertEquals(distinct, sketch.estimate(), distinct * 0.05, "distinct=" + distinct);
+        }
+    }
+
+    @Test
+    void mergeEqualsUnionAndSurvivesSerialization() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (long id = 1; id <= 3000; id++) {
+            monday.add(id);
+            union.add(id);
+        }
+        for (long id = 2001; id <= 5000; id++) {
+            tuesday.add(id);
+            union.add(id);
+        }
+
+        HyperLogLog merged = HyperLogLog.fromBytes(monday.toBytes());
+        merged.merge(HyperLogLog.fromBytes(tuesday.toBytes()));
+
+        assertArrayEquals(union.toBytes(), merged.toBytes());
+        assertEquals(5000, merged.estimate(), 5000 * 0.05);
+        assertTrue(new HyperLogLog().isEmpty());
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+}
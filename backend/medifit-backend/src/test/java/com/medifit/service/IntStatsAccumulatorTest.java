@@ -0,0 +1,64 @@
+package com.medifit.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntStatsAccumulatorTest {
+
+    @Test
+    void computesBasicStatsAndBucketsInOnePass() {
+        IntStatsAccumulator stats = new IntStatsAccumulator(50000, 100000, 200000);
+        stats.acceptAll(new int[]{30000, 50000, 50001, 80000, 200000, 1500000});
+
+        assertEquals(6, stats.getCount());
+        assertEquals(1910001, stats.getSum());
+        assertEquals(30000, stats.getMin());
+        assertEquals(1500000, stats.getMax());
+        // 구간 상한은 포함
+        assertArrayEquals(new long[]{2, 2, 1, 1}, stats.getBucketCounts());
+    }
+
+    @Test
+    void weightedValuesAndMergeMatchPlainAccumulation() {
+        IntStatsAccumulator weighted = new IntStatsAccumulator(100);
+        weighted.accept(10, 3);
+        IntStatsAccumulator other = new IntStatsAccumulator(100);
+        other.accept(500);
+        weighted.merge(other);
+
+        IntStatsAccumulator plain = new IntStatsAccumulator(100);
+        plain.acceptAll(new int[]{10, 10, 10, 500});
+
+        assertEquals(plain.getSum(), weighted.getSum());
+        assertArrayEquals(plain.getBucketCounts(), weighted.getBucketCounts());
+        assertEquals(plain.percentile(50), weighted.percentile(50));
+        assertEquals(10, weighted.percentile(75));
+        assertEquals(500, weighted.percentile(99));
+
+        assertThrows(IllegalArgumentException.class, () -> weighted.merge(new IntStatsAccumulator(200)));
+    }
+
+    @Test
+    void percentilesStayWithinRelativeError() {
+        Random random = new Random(42);
+        int[] values = new int[20000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 10000 + random.nextInt(2000000);
+        }
+        IntStatsAccumulator stats = new IntStatsAccumulator();
+        stats.acceptAll(values);
+
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double p : new double[]{50, 90, 99}) {
+            int exact = sorted[(int) Math.ceil(p / 100 * sorted.length) - 1];
+            assertEquals(exact, stats.percentile(p), exact * 0.03, "p" + p);
+        }
+        assertEquals(sorted[0], stats.percentile(0));
+        assertEquals(sorted[sorted.length - 1], stats.percentile(100));
+    }
+}
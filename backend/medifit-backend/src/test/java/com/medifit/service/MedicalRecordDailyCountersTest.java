@@ -0,0 +1,72 @@
+package com.medifit.service;
+
+import com.medifit.entity.MedicalRecordDailyCounter;
+import com.medifit.repository.MedicalRecordDailyCounterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MedicalRecordDailyCountersTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+
+    private final LocalDate today = LocalDate.now();
+    private MedicalRecordDailyCounterRepository counterRepository;
+    private MedicalRecordDailyCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        counterRepository = mock(MedicalRecordDailyCounterRepository.class);
+        when(counterRepository.findByHospitalIdAndVisitDate(any(), any())).thenReturn(List.of());
+
+        counters = new MedicalRecordDailyCounters(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(counters, "counterRepository", counterRepository);
+        ReflectionTestUtils.setField(counters, "windowDays", 100);
+    }
+
+    @Test
+    void changesCommittedDuringLoadAreNotLost() {
+        // 테이블에는 환자 10의 오늘 진료 1건, 읽는 도중 환자 11의 진료가 커밋된다
+        when(counterRepository.sumRecordCountByHospital()).thenAnswer(invocation -> {
+            counters.recordChanged(null, visit(11L));
+            return rows(1L);
+        });
+        when(counterRepository.findByVisitDateGreaterThanEqual(any())).thenReturn(List.of(
+                new MedicalRecordDailyCounter(HOSPITAL_ID, today, 1, null, today.atStartOfDay())));
+
+        MedicalRecordDailyCounters.Dashboard dashboard = counters.dashboard(HOSPITAL_ID, today);
+        assertEquals(2, dashboard.totalRecords());
+        assertEquals(2, dashboard.todayRecords());
+
+        // 적재가 끝난 뒤의 변경은 버퍼 없이 바로 반영된다
+        counters.recordChanged(visit(11L), null);
+        assertEquals(1, counters.dashboard(HOSPITAL_ID, today).totalRecords());
+        assertNull(ReflectionTestUtils.getField(counters, "pendingDuringLoad"));
+    }
+
+    @Test
+    void failedLoadDoesNotKeepBuffering() {
+        when(counterRepository.sumRecordCountByHospital()).thenThrow(new IllegalStateException("db down"));
+        assertThrows(IllegalStateException.class, () -> counters.dashboard(HOSPITAL_ID, today));
+        assertNull(ReflectionTestUtils.getField(counters, "pendingDuringLoad"));
+    }
+
+    private MedicalRecordDailyCounters.CountedVisit visit(Long patientId) {
+        return new MedicalRecordDailyCounters.CountedVisit(HOSPITAL_ID, patientId, today);
+    }
+
+    private static List<Object[]> rows(long total) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{HOSPITAL_ID, total});
+        return rows;
+    }
+}
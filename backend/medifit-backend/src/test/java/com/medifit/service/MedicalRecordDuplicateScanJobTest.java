@@ -0,0 +1,41 @@
+package com.medifit.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MedicalRecordDuplicateScanJobTest {
+
+    private static final LocalDateTime VISIT = LocalDateTime.of(2025, 1, 20, 9, 30);
+
+    @Test
+    void groupsSameDayDepartmentAndNormalizedDiagnosis() {
+        List<Object[]> rows = new ArrayList<>();
+        // id, patientId, visitDate, department, diagnosis
+        rows.add(new Object[]{1L, 1L, VISIT, "내과", "기능성 소화불량"});
+        rows.add(new Object[]{2L, 1L, VISIT.plusHours(3), "내과", "기능성소화불량."});
+        rows.add(new Object[]{3L, 1L, VISIT.plusDays(1), "내과", "기능성 소화불량"});
+        rows.add(new Object[]{4L, 1L, VISIT, "외과", "기능성 소화불량"});
+        rows.add(new Object[]{5L, 2L, VISIT, "내과", "기능성 소화불량"});
+        rows.add(new Object[]{6L, 2L, VISIT, "내과", "GERD"});
+        rows.add(new Object[]{7L, 2L, VISIT, "내과", "gerd"});
+
+        Map<MedicalRecordDuplicateScanJob.DuplicateKey, List<Long>> groups =
+                MedicalRecordDuplicateScanJob.findDuplicateGroups(rows);
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(6L, 7L)), new ArrayList<>(groups.values()));
+        assertEquals("기능성소화불량", groups.keySet().iterator().next().diagnosisKey());
+    }
+
+    @Test
+    void normalizerIgnoresSpacingCaseAndPunctuation() {
+        assertEquals("갑상선기능저하증", DiagnosisNormalizer.normalize(" 갑상선 기능-저하증 "));
+        assertEquals("copd", DiagnosisNormalizer.normalize("ＣＯＰＤ"));
+        assertEquals("", DiagnosisNormalizer.normalize(null));
+    }
+}
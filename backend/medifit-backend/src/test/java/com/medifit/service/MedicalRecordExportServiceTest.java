@@ -0,0 +1,350 @@
+package com.medifit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medifit.dto.ArchivedMedicalRecord;
+import com.medifit.dto.MedicalRecordExportKey;
+import com.medifit.entity.MedicalRecord;
+import com.medifit.entity.MedicalRecordArchiveSegment;
+import com.medifit.entity.Patient;
+import com.medifit.entity.User;
+import com.medifit.enums.RecordStatus;
+import com.medifit.enums.TextStorageMode;
+import com.medifit.repository.MedicalRecordArchiveSegmentRepository;
+import com.medifit.repository.MedicalRecordSegmentStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 의료기록 스트리밍 내보내기 - H2에서 읽은 행 수, (환자, 진료일시, id) 순서, CSV 머리글과 따옴표 처리, 이어받기, gzip 응답,
+ * 보관 세그먼트 병합, 보관 기록이 섞인 환자별 내보내기의 환자/의사 이름
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MedicalRecordExportServiceTest {
+
+    // 시드 진료기록이 없는 환자
+    private static final Long PATIENT_ID = 8L;
+    private static final String CSV_HEADER = "id,visitDate,patientId,patientName,patientNumber,department,doctorId,"
+            + "doctorName,diagnosis,symptoms,treatment,medicalFee,roomNumber,status";
+
+    @Autowired
+    private MedicalRecordExportService exportService;
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+
+    @Autowired
+    private MedicalRecordTextStorage textStorage;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MedicalRecordSegmentStore segmentStore;
+
+    @Autowired
+    private MedicalRecordArchiveSegmentRepository segmentRepository;
+
+    @TempDir
+    Path archiveDir;
+
+    private final List<Long> recordIds = new ArrayList<>();
+    private final List<MedicalRecordArchiveSegment> segments = new ArrayList<>();
+    private Path originalArchiveDir;
+
+    @BeforeEach
+    void setUp() {
+        // 시드 데이터가 ID를 직접 지정하므로 새 기록 ID는 그 뒤에서 시작한다
+        jdbcTemplate.execute("ALTER TABLE medical_records ALTER COLUMN id RESTART WITH 1000");
+        setFlushRows(2);
+
+        // 진료일은 ID 순서와 다르게 둔다 - 한 환자의 내보내기는 진료일시 순이다
+        create(LocalDateTime.of(2031, 9, 5, 9, 0), "두통", 15000);
+        create(LocalDateTime.of(2031, 9, 1, 9, 0), "기침, \"심한\" 가래", null);
+        setMode(TextStorageMode.DETAIL);
+        create(LocalDateTime.of(2031, 9, 3, 9, 0), "압축 상세에 둔 증상", 20000);
+        setMode(TextStorageMode.INLINE);
+        create(LocalDateTime.of(2031, 9, 2, 9, 0), null, 10000);
+        create(LocalDateTime.of(2031, 9, 4, 9, 0), "복통", 12000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        recordIds.forEach(medicalRecordService::deleteById);
+        recordIds.clear();
+        setMode(TextStorageMode.INLINE);
+        setFlushRows(1000);
+
+        if (originalArchiveDir != null) {
+            segmentRepository.deleteAll(segments);
+            segments.clear();
+            MedicalRecordSegmentStore store = AopTestUtils.getTargetObject(segmentStore);
+            store.close();
+            ReflectionTestUtils.setField(store, "directory", originalArchiveDir);
+            originalArchiveDir = null;
+        }
+    }
+
+    @Test
+    void csvStartsWithBomAndHeaderAndListsRowsInVisitOrder() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.export(filter(null, null, null), MedicalRecordExportService.Format.CSV, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("\uFEFF" + CSV_HEADER + "\r\n"));
+        assertTrue(csv.endsWith("\r\n"));
+
+        List<String> lines = Arrays.asList(csv.substring(1).split("\r\n"));
+        assertEquals(5, written);
+        assertEquals(written + 1, lines.size());
+
+        List<List<String>> rows = lines.subList(1, lines.size()).stream()
+                .map(AppointmentImportService::parseCsvLine)
+                .toList();
+        assertEquals(byVisitDate().stream().map(String::valueOf).toList(), rows.stream().map(row -> row.get(0)).toList());
+        for (List<String> row : rows) {
+            assertEquals(14, row.size());
+            assertEquals(PATIENT_ID.toString(), row.get(2));
+        }
+        // 쉼표와 따옴표가 든 값은 따옴표로 감싸 되돌려 읽을 수 있고, 압축 상세의 증상도 함께 나간다
+        assertEquals("기침, \"심한\" 가래", rows.get(0).get(9));
+        assertEquals("", rows.get(0).get(11));
+        assertEquals("", rows.get(1).get(9));
+        assertEquals("압축 상세에 둔 증상", rows.get(2).get(9));
+    }
+
+    @Test
+    void ndjsonAppliesTheDateRangeAndResumesAfterKey() throws IOException {
+        // [9/2, 9/5) - 9/1, 9/5 기록은 범위 밖
+        LocalDateTime start = LocalDateTime.of(2031, 9, 2, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2031, 9, 5, 0, 0);
+        List<Long> inRange = List.of(recordIds.get(3), recordIds.get(2), recordIds.get(4));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.export(filter(start, end, null), MedicalRecordExportService.Format.NDJSON, out);
+        List<JsonNode> rows = readNdjson(out);
+
+        assertEquals(3, written);
+        assertEquals(inRange, ids(rows));
+        assertFalse(rows.get(0).has("symptoms"));
+        assertEquals("압축 상세에 둔 증상", rows.get(1).get("symptoms").asText());
+        assertEquals(20000, rows.get(1).get("medicalFee").asInt());
+
+        // 중단된 내보내기는 마지막으로 받은 행의 키 다음부터 이어받는다
+        out.reset();
+        written = exportService.export(filter(start, end, after(rows.get(0))), MedicalRecordExportService.Format.NDJSON, out);
+        assertEquals(2, written);
+        assertEquals(inRange.subList(1, 3), ids(readNdjson(out)));
+
+        out.reset();
+        assertEquals(0, exportService.export(filter(start, end, after(rows.get(2))), MedicalRecordExportService.Format.NDJSON, out));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void mergesArchivedSegmentsForRangesBeforeTheArchiveHorizon() throws IOException {
+        // 2031년 8, 9월을 보관한 것처럼 세그먼트를 만든다 - 보관 시점은 2031-10-01
+        archive(LocalDate.of(2031, 8, 1),
+                archived(902L, 7L, LocalDateTime.of(2031, 8, 21, 9, 0), "다른 환자"),
+                archived(900L, PATIENT_ID, LocalDateTime.of(2031, 8, 10, 9, 0), "보관 1"),
+                archived(901L, PATIENT_ID, LocalDateTime.of(2031, 8, 20, 9, 0), "보관 2"));
+        // 같은 달에 늦게 보관한 세그먼트 - 앞 세그먼트의 두 기록 사이에 병합된다
+        archive(LocalDate.of(2031, 8, 1),
+                archived(903L, PATIENT_ID, LocalDateTime.of(2031, 8, 15, 9, 0), "보관 3"));
+        // 기록 테이블에도 있는 기록 - 테이블 쪽이 나가고 두 번 나가지 않는다
+        archive(LocalDate.of(2031, 9, 1),
+                archived(recordIds.get(0), PATIENT_ID, LocalDateTime.of(2031, 9, 5, 9, 0), "보관 사본"));
+
+        // 전체 - 보관 기록이 진료일시 순으로 앞에 온다
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(8, exportService.export(filter(null, null, null), MedicalRecordExportService.Format.NDJSON, out));
+        List<JsonNode> rows = readNdjson(out);
+        List<Long> expected = new ArrayList<>(List.of(900L, 903L, 901L));
+        expected.addAll(byVisitDate());
+        assertEquals(expected, ids(rows));
+        assertEquals("보관 1", rows.get(0).get("diagnosis").asText());
+        assertEquals(rows.get(3).get("patientName").asText(), rows.get(0).get("patientName").asText());
+        assertEquals(rows.get(3).get("doctorName").asText(), rows.get(0).get("doctorName").asText());
+        assertEquals("검사", rows.get(7).get("diagnosis").asText());
+
+        // [8/15, 9/5) - 보관 시점을 가로지르는 기간
+        LocalDateTime start = LocalDateTime.of(2031, 8, 15, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2031, 9, 5, 0, 0);
+        out.reset();
+        assertEquals(6, exportService.export(filter(start, end, null), MedicalRecordExportService.Format.NDJSON, out));
+        rows = readNdjson(out);
+        expected = new ArrayList<>(List.of(903L, 901L));
+        expected.addAll(byVisitDate().subList(0, 4));
+        assertEquals(expected, ids(rows));
+
+        // 보관 기록 다음부터 이어받기
+        out.reset();
+        assertEquals(5, exportService.export(filter(start, end, after(rows.get(0))), MedicalRecordExportService.Format.NDJSON, out));
+        assertEquals(expected.subList(1, 6), ids(readNdjson(out)));
+        out.reset();
+        assertEquals(4, exportService.export(filter(start, end, after(rows.get(1))), MedicalRecordExportService.Format.NDJSON, out));
+        assertEquals(expected.subList(2, 6), ids(readNdjson(out)));
+    }
+
+    @Test
+    void exportPatientRecordsNamesArchivedRows() {
+        archive(LocalDate.of(2031, 8, 1),
+                archived(900L, PATIENT_ID, LocalDateTime.of(2031, 8, 10, 9, 0), "보관 1"),
+                // 보관한 뒤 환자 행이 지워진 기록
+                archived(904L, 999L, LocalDateTime.of(2031, 8, 12, 9, 0), "보관 4"));
+        String patientName = jdbcTemplate.queryForObject("SELECT name FROM patients WHERE id = ?", String.class, PATIENT_ID);
+        String doctorName = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(hospital_name, username) FROM users WHERE id = 1", String.class);
+        LocalDateTime start = LocalDateTime.of(2031, 8, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2031, 9, 30, 0, 0);
+
+        // 최신순 - 보관 기록이 마지막
+        List<Map<String, Object>> rows = medicalRecordService.exportPatientRecords(PATIENT_ID, start, end);
+        assertEquals(6, rows.size());
+        Map<String, Object> archivedRow = rows.get(5);
+        assertEquals("보관 1", archivedRow.get("diagnosis"));
+        assertEquals(patientName, archivedRow.get("patientName"));
+        assertEquals(doctorName, archivedRow.get("doctorName"));
+        assertEquals("2031-08-10 09:00", archivedRow.get("visitDate"));
+
+        List<Map<String, Object>> orphaned = medicalRecordService.exportPatientRecords(999L, start, end);
+        assertEquals(1, orphaned.size());
+        assertNull(orphaned.get(0).get("patientName"));
+        assertEquals(doctorName, orphaned.get(0).get("doctorName"));
+    }
+
+    @Test
+    void endpointStreamsGzipCompressedCsv() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/medical-records/export")
+                        .param("format", "csv")
+                        .param("patientId", PATIENT_ID.toString())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andReturn();
+        assertTrue(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION).contains(".csv"));
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = csv.split("\r\n");
+        assertEquals("\uFEFF" + CSV_HEADER, lines[0]);
+        assertEquals(6, lines.length);
+
+        mockMvc.perform(get("/api/medical-records/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MedicalRecordExportService.ExportFilter filter(LocalDateTime start, LocalDateTime end,
+                                                          MedicalRecordExportKey after) {
+        return new MedicalRecordExportService.ExportFilter(PATIENT_ID, null, start, end, after);
+    }
+
+    // 내보낸 행의 키 - 클라이언트가 이어받을 때 넘기는 값
+    private static MedicalRecordExportKey after(JsonNode row) {
+        return new MedicalRecordExportKey(row.get("patientId").asLong(), LocalDateTime.parse(row.get("visitDate").asText()),
+                row.get("id").asLong());
+    }
+
+    private static List<Long> ids(List<JsonNode> rows) {
+        return rows.stream().map(row -> row.get("id").asLong()).toList();
+    }
+
+    // setUp에서 만든 기록의 진료일시 순 (9/1, 9/2, 9/3, 9/4, 9/5)
+    private List<Long> byVisitDate() {
+        return List.of(recordIds.get(1), recordIds.get(3), recordIds.get(2), recordIds.get(4), recordIds.get(0));
+    }
+
+    private List<JsonNode> readNdjson(ByteArrayOutputStream out) throws IOException {
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                rows.add(objectMapper.readTree(line));
+            }
+        }
+        return rows;
+    }
+
+    private void create(LocalDateTime visitDate, String symptoms, Integer medicalFee) {
+        Patient patient = new Patient();
+        patient.setId(PATIENT_ID);
+        User doctor = new User();
+        doctor.setId(1L);
+        MedicalRecord record = new MedicalRecord(patient, doctor, "내과", symptoms, "검사", "경과 관찰", visitDate);
+        record.setMedicalFee(medicalFee);
+        recordIds.add(medicalRecordService.save(record).getId());
+    }
+
+    private void archive(LocalDate month, ArchivedMedicalRecord... records) {
+        MedicalRecordSegmentStore store = AopTestUtils.getTargetObject(segmentStore);
+        if (originalArchiveDir == null) {
+            originalArchiveDir = store.getDirectory();
+            ReflectionTestUtils.setField(store, "directory", archiveDir);
+        }
+        try (MedicalRecordSegmentStore.PendingSegment pending = segmentStore.create(month)) {
+            for (ArchivedMedicalRecord record : records) {
+                pending.append(record);
+            }
+            segments.add(segmentRepository.save(pending.commit()));
+        }
+    }
+
+    private static ArchivedMedicalRecord archived(Long id, Long patientId, LocalDateTime visitDate, String diagnosis) {
+        return new ArchivedMedicalRecord(id, patientId, 1L, null, "내과", "기침", diagnosis, "휴식", null, null,
+                RecordStatus.ACTIVE, visitDate, visitDate, null, 10000, null);
+    }
+
+    private void setMode(TextStorageMode mode) {
+        MedicalRecordTextStorage target = AopTestUtils.getTargetObject(textStorage);
+        ReflectionTestUtils.setField(target, "mode", mode);
+    }
+
+    private void setFlushRows(int flushRows) {
+        MedicalRecordExportService target = AopTestUtils.getTargetObject(exportService);
+        ReflectionTestUtils.setField(target, "flushRows", flushRows);
+    }
+}
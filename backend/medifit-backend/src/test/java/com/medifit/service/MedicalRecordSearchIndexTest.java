@@ -0,0 +1,77 @@
+package com.medifit.service;
+
+import com.medifit.enums.RecordStatus;
+import com.medifit.event.MedicalRecordChangedEvent;
+import com.medifit.event.MedicalRecordSnapshot;
+import com.medifit.repository.MedicalRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MedicalRecordSearchIndexTest {
+
+    private static final LocalDateTime VISIT = LocalDateTime.of(2025, 1, 20, 9, 30);
+
+    private MedicalRecordSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MedicalRecordRepository medicalRecordRepository = mock(MedicalRecordRepository.class);
+        List<Object[]> rows = new ArrayList<>();
+        // id, visitDate, department, diagnosis, symptoms, treatment, doctorNotes, 압축 상세의 symptoms, doctorNotes
+        rows.add(new Object[]{1L, VISIT, "내과", "기능성 소화불량", "복통, 소화불량", "약물치료", null, null, null});
+        rows.add(new Object[]{2L, VISIT.plusDays(1), "내과", "갑상선 기능 저하증", null, null, null, "피로", "복통 호소 없음"});
+        rows.add(new Object[]{3L, VISIT.plusDays(2), "외과", "급성충수염", "복부 통증", "응급수술", null, null, null});
+        when(medicalRecordRepository.findSearchDocuments(eq(0L), any(Limit.class))).thenReturn(rows);
+
+        index = new MedicalRecordSearchIndex();
+        ReflectionTestUtils.setField(index, "medicalRecordRepository", medicalRecordRepository);
+        ReflectionTestUtils.setField(index, "rebuildChunkSize", 100);
+    }
+
+    @Test
+    void matchesInsideWordsAndRanksByFieldWeight() {
+        // 증상(가중치 2)에 있는 1번이 의사 메모(가중치 1)에 있는 2번보다 위
+        assertEquals(List.of(1L, 2L), index.search("복통", 0, 10).ids());
+        // 띄어쓰기 없이 붙은 진단명 안에서도 찾는다
+        assertEquals(List.of(3L), index.search("충수염", 0, 10).ids());
+        // 한 글자 검색
+        assertEquals(List.of(3L, 1L, 2L), index.search("통", 0, 10).ids());
+        // 모든 n-gram을 포함해야 한다
+        assertEquals(0, index.search("갑상선 복부", 0, 10).total());
+    }
+
+    @Test
+    void paginatesByRank() {
+        MedicalRecordSearchIndex.Hits first = index.search("내과", 0, 1);
+        MedicalRecordSearchIndex.Hits second = index.search("내과", 1, 1);
+
+        assertEquals(2, first.total());
+        // 동점이면 최근 진료 우선
+        assertEquals(List.of(2L), first.ids());
+        assertEquals(List.of(1L), second.ids());
+    }
+
+    @Test
+    void changeEventsUpdateAndRemoveDocuments() {
+        index.search("복통", 0, 10);
+
+        index.onMedicalRecordChanged(MedicalRecordChangedEvent.saved(new MedicalRecordSnapshot(
+                1L, 1L, 1L, "내과", "역류성 식도염", "속쓰림", null, null, RecordStatus.ACTIVE, VISIT)));
+        index.onMedicalRecordChanged(MedicalRecordChangedEvent.deleted(3L));
+
+        assertEquals(List.of(2L), index.search("복통", 0, 10).ids());
+        assertEquals(List.of(1L), index.search("식도염", 0, 10).ids());
+        assertEquals(0, index.search("충수염", 0, 10).total());
+    }
+}
@@ -0,0 +1,197 @@
+package com.medifit.service;
+
+import com.medifit.entity.MedicalRecord;
+import com.medifit.enums.TextStorageMode;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.PatientRepository;
+import com.medifit.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 서술형 필드 저장 방식(INLINE / DETAIL)별 목록 조회 지연 시간과 요청당 할당 바이트 비교
+ *
+ * 기본 테스트에서는 돌지 않는다: gradle test --tests '*TextStorageBenchmark' -Dmedifit.benchmark=true
+ * 결과는 표준 출력과 build/reports/benchmarks/medical-record-text-storage.txt에 남는다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@EnabledIfSystemProperty(named = "medifit.benchmark", matches = "true")
+class MedicalRecordTextStorageBenchmark {
+
+    private static final long PATIENT_ID = 1L;
+    private static final int RECORDS = 2_000;
+    private static final int WARMUP = 5;
+    private static final int RUNS = 15;
+
+    private static final String[] SENTENCES = {
+            "3일 전부터 명치 부위 통증이 있으며 식후에 악화된다고 함.",
+            "야간에 깨는 통증은 없고 체중 감소도 없다고 함.",
+            "최근 음주 횟수가 늘었고 커피를 하루 3잔 이상 마심.",
+            "복부 촉진 시 상복부 압통 있으나 반발통은 없음.",
+            "기존 복용 약물: 혈압약(암로디핀 5mg) 1일 1회.",
+            "2주 후 재진하여 증상 변화 확인 예정, 악화 시 내시경 검사 고려.",
+            "Patient reports intermittent epigastric pain, worse after meals, no hematemesis.",
+            "Vitals stable. BP 128/82, HR 76, afebrile.",
+            "식이 조절(자극적인 음식, 야식 제한)과 금주를 권고함.",
+            "PPI 4주 처방, 증상 지속 시 H. pylori 검사 예정."
+    };
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+
+    @Autowired
+    private MedicalRecordTextStorage textStorage;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record Measurement(String name, double medianMs, long medianAllocatedBytes) {}
+
+    @Test
+    void compareListQueries() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> seeded = tx.execute(status -> seed());
+        Object storage = AopTestUtils.getTargetObject(textStorage);
+        try {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("기록 %d건 (환자 %d), 측정 %d회 중앙값%n", RECORDS, PATIENT_ID, RUNS));
+
+            List<Measurement> inline = measureAll(tx);
+
+            ReflectionTestUtils.setField(storage, "mode", TextStorageMode.DETAIL);
+            MedicalRecordTextStorage.MigrationReport migration = textStorage.migrate();
+            report.append(String.format("이관: %d건, %,d바이트 -> %,d바이트 (%.1f%%), %dms%n",
+                    migration.movedRecords(), migration.rawBytes(), migration.storedBytes(),
+                    100.0 * migration.storedBytes() / migration.rawBytes(), migration.elapsedMs()));
+
+            List<Measurement> detail = measureAll(tx);
+
+            report.append(String.format("%-32s %12s %12s %14s %14s%n",
+                    "조회", "INLINE ms", "DETAIL ms", "INLINE 할당", "DETAIL 할당"));
+            for (int i = 0; i < inline.size(); i++) {
+                report.append(String.format("%-32s %12.2f %12.2f %,14d %,14d%n", inline.get(i).name(),
+                        inline.get(i).medianMs(), detail.get(i).medianMs(),
+                        inline.get(i).medianAllocatedBytes(), detail.get(i).medianAllocatedBytes()));
+            }
+
+            System.out.print(report);
+            Path out = Path.of("build", "reports", "benchmarks", "medical-record-text-storage.txt");
+            Files.createDirectories(out.getParent());
+            Files.writeString(out, report);
+        } finally {
+            ReflectionTestUtils.setField(storage, "mode", TextStorageMode.INLINE);
+            textStorage.migrate();
+            medicalRecordRepository.deleteAllById(seeded);
+        }
+    }
+
+    private List<Measurement> measureAll(TransactionTemplate tx) throws Exception {
+        List<Measurement> results = new ArrayList<>();
+        // 엔티티 목록을 읽지만 본문은 쓰지 않는 통계
+        results.add(measure("진단 통계 (본문 미사용)",
+                () -> medicalRecordService.getPatientDiagnosisStatistics(PATIENT_ID)));
+        // 엔티티 목록을 본문까지 직렬화하는 경우
+        results.add(measure("기록 목록 + 본문",
+                () -> tx.executeWithoutResult(status -> medicalRecordService.findByPatientId(PATIENT_ID)
+                        .forEach(r -> r.getSymptoms().length()))));
+        // 환자 앱 타임라인 한 페이지 (AI 요약 포함)
+        results.add(measure("타임라인 50건",
+                () -> mvc.perform(get("/api/patients/" + PATIENT_ID + "/timeline?size=50"))
+                        .andExpect(status().isOk())));
+        return results;
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private static Measurement measure(String name, Action action) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            action.run();
+        }
+        long[] nanos = new long[RUNS];
+        long[] allocated = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            action.run();
+            nanos[i] = System.nanoTime() - start;
+            allocated[i] = threads.getCurrentThreadAllocatedBytes() - bytes;
+        }
+        Arrays.sort(nanos);
+        Arrays.sort(allocated);
+        return new Measurement(name, nanos[RUNS / 2] / 1_000_000.0, allocated[RUNS / 2]);
+    }
+
+    private List<Long> seed() {
+        // data.sql이 id를 직접 넣으므로 시퀀스를 시드 id 뒤로 옮긴다 (H2)
+        entityManager.createNativeQuery("ALTER TABLE medical_records ALTER COLUMN id RESTART WITH 1000000")
+                .executeUpdate();
+        Random random = new Random(42);
+        var patient = patientRepository.getReferenceById(PATIENT_ID);
+        var doctor = userRepository.getReferenceById(1L);
+        List<MedicalRecord> records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            MedicalRecord record = new MedicalRecord(patient, doctor, "내과", narrative(random, 12),
+                    "기능성 소화불량 " + (i % 20), "약물치료", LocalDateTime.of(2020, 1, 1, 9, 0).plusHours(i));
+            record.setDoctorNotes(narrative(random, 25));
+            record.setAiSummary(narrative(random, 18));
+            records.add(record);
+        }
+        List<Long> ids = medicalRecordRepository.saveAll(records).stream().map(MedicalRecord::getId).toList();
+        assertEquals(RECORDS, ids.size());
+        return ids;
+    }
+
+    private static String narrative(Random random, int sentences) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            text.append(SENTENCES[random.nextInt(SENTENCES.length)]).append(' ');
+            if (random.nextInt(4) == 0) {
+                text.append("(").append(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(500_000))).append(") ");
+            }
+        }
+        return text.toString();
+    }
+}
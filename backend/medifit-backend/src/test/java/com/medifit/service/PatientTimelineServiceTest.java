@@ -0,0 +1,129 @@
+package com.medifit.service;
+
+import com.medifit.dto.CursorPage;
+import com.medifit.dto.PatientTimelineItem;
+import com.medifit.dto.PatientTimelineItem.Type;
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.enums.AppointmentType;
+import com.medifit.enums.MedicationStatus;
+import com.medifit.enums.PrescriptionStatus;
+import com.medifit.enums.RecordStatus;
+import com.medifit.repository.AppointmentRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicationRepository;
+import com.medifit.repository.PrescriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PatientTimelineServiceTest {
+
+    private static final LocalDateTime VISIT = LocalDateTime.of(2025, 1, 10, 9, 0);
+
+    private final List<PatientTimelineItem> records = List.of(
+            new PatientTimelineItem(1L, VISIT, "내과", "위염", "약물", RecordStatus.COMPLETED, "병원", 10000, null),
+            new PatientTimelineItem(2L, VISIT.minusDays(1), "내과", "감기", null, RecordStatus.ACTIVE, "병원", null, null),
+            new PatientTimelineItem(4L, VISIT.minusDays(3), "외과", "염좌", null, RecordStatus.ACTIVE, "병원", null, null));
+    private final List<PatientTimelineItem> appointments = List.of(
+            new PatientTimelineItem(6L, VISIT.plusDays(7), "내과", AppointmentType.FOLLOW_UP, AppointmentStatus.SCHEDULED, "병원", null),
+            new PatientTimelineItem(5L, VISIT, "내과", AppointmentType.CONSULTATION, AppointmentStatus.COMPLETED, "병원", null));
+    private final List<PatientTimelineItem> prescriptions = List.of(
+            new PatientTimelineItem(3L, VISIT, "RX-1", PrescriptionStatus.PRESCRIBED, "병원", null));
+    private final List<PatientTimelineItem> medications = List.of(
+            new PatientTimelineItem(8L, VISIT.toLocalDate(), "약A", "500mg", MedicationStatus.ACTIVE),
+            new PatientTimelineItem(7L, VISIT.toLocalDate(), "약B", "10mg", MedicationStatus.ACTIVE),
+            new PatientTimelineItem(9L, VISIT.toLocalDate().minusDays(1), "약C", "1정", MedicationStatus.COMPLETED));
+
+    private MedicalRecordRepository medicalRecordRepository;
+    private AppointmentRepository appointmentRepository;
+    private PatientTimelineService service;
+
+    @BeforeEach
+    void setUp() {
+        medicalRecordRepository = mock(MedicalRecordRepository.class);
+        appointmentRepository = mock(AppointmentRepository.class);
+        PrescriptionRepository prescriptionRepository = mock(PrescriptionRepository.class);
+        MedicationRepository medicationRepository = mock(MedicationRepository.class);
+
+        // 키셋 조건을 메모리에서 흉내 낸다
+        when(medicalRecordRepository.findTimelineBefore(eq(1L), any(), anyLong(), any()))
+                .thenAnswer(i -> before(records, i.getArgument(1), i.getArgument(2), i.getArgument(3)));
+        when(appointmentRepository.findTimelineBefore(eq(1L), any(), anyLong(), any()))
+                .thenAnswer(i -> before(appointments, i.getArgument(1), i.getArgument(2), i.getArgument(3)));
+        when(prescriptionRepository.findTimelineBefore(eq(1L), any(), anyLong(), any()))
+                .thenAnswer(i -> before(prescriptions, i.getArgument(1), i.getArgument(2), i.getArgument(3)));
+        when(medicationRepository.findTimelineBefore(eq(1L), any(), anyLong(), any()))
+                .thenAnswer(i -> before(medications, ((LocalDate) i.getArgument(1)).atStartOfDay(), i.getArgument(2), i.getArgument(3)));
+
+        service = new PatientTimelineService();
+        ReflectionTestUtils.setField(service, "medicalRecordRepository", medicalRecordRepository);
+        ReflectionTestUtils.setField(service, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(service, "prescriptionRepository", prescriptionRepository);
+        ReflectionTestUtils.setField(service, "medicationRepository", medicationRepository);
+    }
+
+    @Test
+    void pagesThroughMergedStreamWithoutGapsOrDuplicates() {
+        List<PatientTimelineItem> expected = new ArrayList<>();
+        expected.addAll(records);
+        expected.addAll(appointments);
+        expected.addAll(prescriptions);
+        expected.addAll(medications);
+        expected.sort(PatientTimelineService.TIMELINE_ORDER);
+
+        Set<Type> all = EnumSet.of(Type.APPOINTMENT, Type.PRESCRIPTION, Type.MEDICATION);
+        List<PatientTimelineItem> collected = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<PatientTimelineItem> page = service.getTimeline(1L, all, cursor, 2);
+            collected.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, collected);
+        assertEquals(5, pages);
+        // 같은 시각(VISIT)은 진료기록 → 예약 → 처방전 순
+        assertEquals(List.of(Type.APPOINTMENT, Type.MEDICAL_RECORD, Type.APPOINTMENT, Type.PRESCRIPTION),
+                collected.subList(0, 4).stream().map(PatientTimelineItem::type).toList());
+    }
+
+    @Test
+    void readsOnlyMedicalRecordsByDefault() {
+        CursorPage<PatientTimelineItem> page = service.getTimeline(1L, Set.of(), null, 10);
+
+        assertEquals(records, page.getItems());
+        assertFalse(page.isHasNext());
+        verifyNoInteractions(appointmentRepository);
+        verify(medicalRecordRepository).findTimelineBefore(1L, LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+                Long.MAX_VALUE, Limit.of(11));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> service.getTimeline(1L, Set.of(), "not-a-cursor", 10));
+    }
+
+    private static List<PatientTimelineItem> before(List<PatientTimelineItem> items, LocalDateTime cursorDate,
+                                                    long cursorId, Limit limit) {
+        return items.stream()
+                .filter(item -> item.occurredAt().isBefore(cursorDate)
+                        || (item.occurredAt().equals(cursorDate) && item.id() < cursorId))
+                .sorted(PatientTimelineService.TIMELINE_ORDER)
+                .limit(limit.max())
+                .toList();
+    }
+}
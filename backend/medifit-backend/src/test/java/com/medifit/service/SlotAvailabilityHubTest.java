@@ -0,0 +1,222 @@
+package com.medifit.service;
+
+import com.medifit.repository.AppointmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SlotAvailabilityHubTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+    private SlotReservationService slotReservationService;
+    private RecordingHub hub;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.findOccupiedSlots(any(), any(), any())).thenReturn(List.of());
+        slotReservationService = new SlotReservationService();
+        ReflectionTestUtils.setField(slotReservationService, "appointmentRepository", appointmentRepository);
+
+        hub = new RecordingHub();
+        ReflectionTestUtils.setField(hub, "slotReservationService", slotReservationService);
+        // 자동 flush/heartbeat는 돌지 않게 하고 테스트에서 직접 flush한다
+        ReflectionTestUtils.setField(hub, "flushMillis", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(hub, "heartbeatSeconds", TimeUnit.HOURS.toSeconds(1));
+        ReflectionTestUtils.setField(hub, "queueCapacity", 2);
+        ReflectionTestUtils.setField(hub, "timeoutMinutes", 1L);
+        hub.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+    }
+
+    @Test
+    void subscribeSendsCurrentSnapshotFirst() throws Exception {
+        assertTrue(slotReservationService.tryReserve(HOSPITAL_ID, DAY.atTime(9, 0), 30));
+
+        RecordingEmitter emitter = (RecordingEmitter) hub.subscribe(HOSPITAL_ID, DAY, 30);
+
+        Map<String, Object> snapshot = emitter.next("snapshot");
+        assertEquals(0L, snapshot.get("version"));
+        assertEquals(List.of("09:00"), snapshot.get("occupied"));
+        assertFalse(((List<?>) snapshot.get("available")).contains("09:00"));
+        assertEquals(1, hub.getStatus().get("subscribers"));
+    }
+
+    @Test
+    void flushSendsOnlyTheChangedSlots() throws Exception {
+        RecordingEmitter emitter = (RecordingEmitter) hub.subscribe(HOSPITAL_ID, DAY, 30);
+        emitter.next("snapshot");
+
+        assertTrue(slotReservationService.tryReserve(HOSPITAL_ID, DAY.atTime(10, 0), 60));
+        slotReservationService.tryReserve(HOSPITAL_ID, DAY.atTime(14, 0), 30);
+        slotReservationService.release(HOSPITAL_ID, DAY.atTime(14, 0), 30);
+        hub.flush();
+
+        // 합쳐진 변경이 하나의 delta로 전달된다
+        Map<String, Object> delta = emitter.next("slots");
+        assertEquals(1L, delta.get("version"));
+        assertEquals(List.of("10:00", "10:30"), delta.get("taken"));
+        assertEquals(List.of(), delta.get("freed"));
+
+        slotReservationService.release(HOSPITAL_ID, DAY.atTime(10, 30), 30);
+        hub.flush();
+        delta = emitter.next("slots");
+        assertEquals(2L, delta.get("version"));
+        assertEquals(List.of("10:30"), delta.get("freed"));
+
+        // 바뀐 것이 없으면 보내지 않는다
+        hub.flush();
+        assertNull(emitter.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void slowClientIsDroppedWithoutBlockingOthers() throws Exception {
+        hub.blockNextEmitter = true;
+        RecordingEmitter slow = (RecordingEmitter) hub.subscribe(HOSPITAL_ID, DAY, 30);
+        RecordingEmitter fast = (RecordingEmitter) hub.subscribe(HOSPITAL_ID, DAY, 30);
+        fast.next("snapshot");
+        assertTrue(slow.sendStarted.await(5, TimeUnit.SECONDS));
+
+        // 느린 구독자는 전송 중인 snapshot에 묶여 있고, 큐(2건)가 넘치면 끊긴다
+        for (int hour = 9; hour < 12; hour++) {
+            slotReservationService.tryReserve(HOSPITAL_ID, DAY.atTime(hour, 0), 30);
+            hub.flush();
+            assertEquals(List.of(String.format("%02d:00", hour)), fast.next("slots").get("taken"));
+        }
+
+        assertEquals(1, hub.getStatus().get("droppedSlowClients"));
+        assertEquals(1, hub.getStatus().get("subscribers"));
+
+        slow.unblockSends();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void resubscribingAfterLastSubscriberLeftReceivesDeltas() throws Exception {
+        RecordingEmitter first = (RecordingEmitter) hub.subscribe(HOSPITAL_ID, DAY, 30);
+        first.next("snapshot");
+        first.failSends();
+        slotReservationService.tryReserve(HOSPITAL_ID, DAY.atTime(9, 0), 30);
+        hub.flush();
+        assertTrue(first.completed.await(5, TimeUnit.SECONDS));
+        waitUntil(() -> (int) hub.getStatus().get("topics") == 0);
+
+        RecordingEmitter second = (RecordingEmitter) hub.subscribe(HOSPITAL_ID, DAY, 30);
+        assertEquals(List.of("09:00"), second.next("snapshot").get("occupied"));
+        slotReservationService.tryReserve(HOSPITAL_ID, DAY.atTime(10, 0), 30);
+        hub.flush();
+        assertEquals(List.of("10:00"), second.next("slots").get("taken"));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "조건을 기다리다 시간 초과");
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class RecordingHub extends SlotAvailabilityHub {
+        boolean blockNextEmitter;
+
+        @Override
+        SseEmitter createEmitter() {
+            RecordingEmitter emitter = new RecordingEmitter();
+            if (blockNextEmitter) {
+                emitter.blockSends();
+                blockNextEmitter = false;
+            }
+            return emitter;
+        }
+    }
+
+    // 전송된 이벤트를 (이름, 데이터)로 기록하는 emitter
+    private static final class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<Object[]> events = new LinkedBlockingQueue<>();
+        final CountDownLatch sendStarted = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+        private volatile boolean failing;
+
+        void blockSends() {
+            gate = new CountDownLatch(1);
+        }
+
+        void unblockSends() {
+            gate.countDown();
+        }
+
+        void failSends() {
+            failing = true;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendStarted.countDown();
+            CountDownLatch current = gate;
+            if (current != null) {
+                try {
+                    current.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing) {
+                throw new IOException("client gone");
+            }
+            String name = null;
+            Object data = null;
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String text && text.startsWith("event:")) {
+                    name = text.substring("event:".length(), text.indexOf('\n'));
+                } else if (part.getData() instanceof Map<?, ?> map) {
+                    data = map;
+                }
+            }
+            if (name != null) {
+                events.add(new Object[]{name, data});
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed.countDown();
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> next(String expectedName) throws InterruptedException {
+            Object[] event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, expectedName + " 이벤트가 오지 않음");
+            assertEquals(expectedName, event[0]);
+            return (Map<String, Object>) event[1];
+        }
+    }
+}
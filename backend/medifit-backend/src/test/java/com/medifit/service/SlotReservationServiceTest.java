@@ -0,0 +1,157 @@
+package com.medifit.service;
+
+import com.medifit.enums.AppointmentStatus;
+import com.medifit.event.AppointmentChangedEvent;
+import com.medifit.event.AppointmentSnapshot;
+import com.medifit.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SlotReservationServiceTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+    private AppointmentRepository appointmentRepository;
+    private SlotReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        List<Object[]> existing = new ArrayList<>();
+        existing.add(new Object[]{DAY.atTime(10, 0), 60});
+        when(appointmentRepository.findOccupiedSlots(eq(HOSPITAL_ID), any(), any())).thenReturn(existing);
+
+        service = new SlotReservationService();
+        ReflectionTestUtils.setField(service, "appointmentRepository", appointmentRepository);
+    }
+
+    @Test
+    void hydratesFromDatabaseIncludingDuration() {
+        assertFalse(service.isAvailable(HOSPITAL_ID, DAY.atTime(10, 0), 30));
+        assertFalse(service.isAvailable(HOSPITAL_ID, DAY.atTime(10, 30), 30));
+        assertTrue(service.isAvailable(HOSPITAL_ID, DAY.atTime(11, 0), 30));
+        verify(appointmentRepository, times(1)).findOccupiedSlots(eq(HOSPITAL_ID), any(), any());
+    }
+
+    @Test
+    void releaseFreesOnlyTheGivenSlots() {
+        assertTrue(service.tryReserve(HOSPITAL_ID, DAY.atTime(14, 0), 60));
+        service.release(HOSPITAL_ID, DAY.atTime(14, 30), 30);
+
+        assertFalse(service.isAvailable(HOSPITAL_ID, DAY.atTime(14, 0), 30));
+        assertTrue(service.tryReserve(HOSPITAL_ID, DAY.atTime(14, 30), 30));
+    }
+
+    @Test
+    void changeEventsMoveAndFreeSlots() {
+        AppointmentSnapshot original = new AppointmentSnapshot(7L, 1L, HOSPITAL_ID, null, "내과",
+                DAY.atTime(10, 0), 60, AppointmentStatus.SCHEDULED, null);
+        AppointmentSnapshot moved = new AppointmentSnapshot(7L, 1L, HOSPITAL_ID, null, "내과",
+                DAY.atTime(10, 30), 60, AppointmentStatus.SCHEDULED, null);
+
+        service.onAppointmentChanged(AppointmentChangedEvent.of(original, moved));
+        assertTrue(service.isAvailable(HOSPITAL_ID, DAY.atTime(10, 0), 30));
+        assertFalse(service.isAvailable(HOSPITAL_ID, DAY.atTime(11, 0), 30));
+
+        service.onAppointmentChanged(AppointmentChangedEvent.of(moved, moved.withStatus(AppointmentStatus.CANCELLED)));
+        assertEquals(0L, service.occupancy(HOSPITAL_ID, DAY));
+    }
+
+    @Test
+    void reviveIntoTakenSlotIsRejectedAndLaterReleaseDoesNotFreeTheOtherBooking() {
+        // 7번은 14:00에 취소된 상태, 그 사이 8번이 같은 시간을 예약했다
+        AppointmentSnapshot cancelled = new AppointmentSnapshot(7L, 1L, HOSPITAL_ID, null, "내과",
+                DAY.atTime(14, 0), 30, AppointmentStatus.CANCELLED, null);
+        AppointmentSnapshot other = new AppointmentSnapshot(8L, 2L, HOSPITAL_ID, null, "내과",
+                DAY.atTime(14, 0), 30, AppointmentStatus.SCHEDULED, null);
+        assertTrue(service.tryReserve(HOSPITAL_ID, DAY.atTime(14, 0), 30));
+
+        // 7번을 되살리거나 8번 시간으로 옮기는 변경은 겹치므로 거절된다
+        assertEquals(-1L, service.tryReserveChange(cancelled, cancelled.withStatus(AppointmentStatus.CONFIRMED)));
+        AppointmentSnapshot existing = new AppointmentSnapshot(9L, 3L, HOSPITAL_ID, null, "내과",
+                DAY.atTime(10, 0), 60, AppointmentStatus.SCHEDULED, null);
+        AppointmentSnapshot onto = new AppointmentSnapshot(9L, 3L, HOSPITAL_ID, null, "내과",
+                DAY.atTime(13, 30), 60, AppointmentStatus.SCHEDULED, null);
+        assertEquals(-1L, service.tryReserveChange(existing, onto));
+
+        // 8번이 취소되면 슬롯은 비고, 이후에는 한 건만 다시 잡을 수 있다
+        service.onAppointmentChanged(AppointmentChangedEvent.of(other, other.withStatus(AppointmentStatus.CANCELLED)));
+        assertTrue(service.isAvailable(HOSPITAL_ID, DAY.atTime(14, 0), 30));
+        assertEquals(1L << 28, service.tryReserveChange(cancelled, cancelled.withStatus(AppointmentStatus.CONFIRMED)));
+        assertFalse(service.tryReserve(HOSPITAL_ID, DAY.atTime(14, 0), 30));
+    }
+
+    @Test
+    void rescheduleClaimsOnlyTheAdditionalSlots() {
+        AppointmentSnapshot original = new AppointmentSnapshot(7L, 1L, HOSPITAL_ID, null, "내과",
+                DAY.atTime(10, 0), 60, AppointmentStatus.SCHEDULED, null);
+        AppointmentSnapshot moved = new AppointmentSnapshot(7L, 1L, HOSPITAL_ID, null, "내과",
+                DAY.atTime(10, 30), 60, AppointmentStatus.SCHEDULED, null);
+
+        assertEquals(1L << 22, service.tryReserveChange(original, moved));
+        assertEquals(0L, service.tryReserveChange(original, original.withStatus(AppointmentStatus.CONFIRMED)));
+
+        // 커밋 이벤트는 이미 선점한 비트를 유지하고 빠진 10:00만 해제한다
+        service.onAppointmentChanged(AppointmentChangedEvent.of(original, moved));
+        assertEquals(0b11L << 21, service.occupancy(HOSPITAL_ID, DAY));
+    }
+
+    @Test
+    void rangeOccupancyHydratesMissingDaysWithOneQuery() {
+        Map<LocalDate, Long> occupancy = service.occupancy(HOSPITAL_ID, DAY.minusDays(3), DAY.plusDays(26));
+
+        assertEquals(30, occupancy.size());
+        assertEquals(0b11L << 20, occupancy.get(DAY));
+        assertEquals(0L, occupancy.get(DAY.plusDays(1)));
+        verify(appointmentRepository, times(1)).findOccupiedSlots(eq(HOSPITAL_ID), any(), any());
+    }
+
+    @Test
+    void slotMaskCoversPartialSlots() {
+        assertEquals(0b11L << 18, SlotReservationService.slotMask(LocalTime.of(9, 15), 20));
+        assertEquals(1L << 47, SlotReservationService.slotMask(LocalTime.of(23, 45), 120));
+    }
+
+    @Test
+    void concurrentBookingsNeverDoubleBook() throws Exception {
+        int threads = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        LocalDateTime slot = DAY.atTime(15, 0);
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return service.tryReserve(HOSPITAL_ID, slot, 30);
+            }));
+        }
+        start.countDown();
+
+        int winners = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) winners++;
+        }
+        executor.shutdown();
+
+        assertEquals(1, winners);
+    }
+}
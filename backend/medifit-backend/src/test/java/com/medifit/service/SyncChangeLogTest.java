@@ -0,0 +1,129 @@
+package com.medifit.service;
+
+import com.medifit.dto.PatientTimelineItem;
+import com.medifit.dto.PatientTimelineItem.Type;
+import com.medifit.entity.SyncChange;
+import com.medifit.enums.MedicationStatus;
+import com.medifit.enums.RecordStatus;
+import com.medifit.enums.SyncOperation;
+import com.medifit.repository.AppointmentRepository;
+import com.medifit.repository.MedicalRecordRepository;
+import com.medifit.repository.MedicationRepository;
+import com.medifit.repository.PrescriptionRepository;
+import com.medifit.repository.SyncChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SyncChangeLogTest {
+
+    private SyncChangeRepository syncChangeRepository;
+    private MedicalRecordRepository medicalRecordRepository;
+    private MedicationRepository medicationRepository;
+    private SyncChangeLog syncChangeLog;
+
+    @BeforeEach
+    void setUp() {
+        syncChangeRepository = mock(SyncChangeRepository.class);
+        medicalRecordRepository = mock(MedicalRecordRepository.class);
+        medicationRepository = mock(MedicationRepository.class);
+
+        syncChangeLog = new SyncChangeLog();
+        ReflectionTestUtils.setField(syncChangeLog, "syncChangeRepository", syncChangeRepository);
+        ReflectionTestUtils.setField(syncChangeLog, "medicalRecordRepository", medicalRecordRepository);
+        ReflectionTestUtils.setField(syncChangeLog, "appointmentRepository", mock(AppointmentRepository.class));
+        ReflectionTestUtils.setField(syncChangeLog, "prescriptionRepository", mock(PrescriptionRepository.class));
+        ReflectionTestUtils.setField(syncChangeLog, "medicationRepository", medicationRepository);
+        ReflectionTestUtils.setField(syncChangeLog, "rescanSeconds", 60L);
+        ReflectionTestUtils.setField(syncChangeLog, "retentionDays", 30L);
+    }
+
+    @Test
+    void requiresResetWithoutTokenOrAfterRetention() {
+        when(syncChangeRepository.findMaxId()).thenReturn(42L);
+
+        SyncChangeLog.SyncResult first = syncChangeLog.getChanges(1L, null, 100);
+        assertTrue(first.resetRequired());
+        assertTrue(first.changes().isEmpty());
+        assertEquals(42L, SyncChangeLog.SyncToken.decode(first.nextToken()).afterId());
+
+        String stale = new SyncChangeLog.SyncToken(10L, LocalDateTime.now().minusDays(31)).encode();
+        assertTrue(syncChangeLog.getChanges(1L, stale, 100).resetRequired());
+        verify(syncChangeRepository, never()).findByPatientIdAndIdGreaterThanOrderByIdAsc(any(), any(), any());
+
+        assertThrows(IllegalArgumentException.class, () -> syncChangeLog.getChanges(1L, "not-a-token", 100));
+    }
+
+    @Test
+    void mergesLateCommitsAndKeepsLatestChangePerEntity() {
+        LocalDateTime now = LocalDateTime.now();
+        SyncChangeLog.SyncToken since = new SyncChangeLog.SyncToken(10L, now.minusMinutes(1));
+
+        // id 9는 토큰보다 작은 id로 늦게 커밋된 행, 복약 7은 그 뒤 삭제되었다
+        when(syncChangeRepository.findLateCommitted(1L, 10L, since.rescanFrom()))
+                .thenReturn(List.of(change(9L, Type.MEDICATION, 7L, SyncOperation.UPSERT, now)));
+        when(syncChangeRepository.findByPatientIdAndIdGreaterThanOrderByIdAsc(1L, 10L, Limit.of(3)))
+                .thenReturn(List.of(
+                        change(11L, Type.MEDICAL_RECORD, 3L, SyncOperation.UPSERT, now),
+                        change(12L, Type.MEDICATION, 8L, SyncOperation.UPSERT, now),
+                        change(13L, Type.MEDICATION, 7L, SyncOperation.DELETE, now)));
+        when(medicalRecordRepository.findTimelineItems(1L, List.of(3L))).thenReturn(List.of(
+                new PatientTimelineItem(3L, now, "내과", "감기", null, RecordStatus.ACTIVE, "병원", null, null)));
+        // 복약 8은 조회 시점에 이미 다른 환자로 옮겨졌다
+        when(medicationRepository.findTimelineItems(1L, List.of(7L, 8L))).thenReturn(List.of(
+                new PatientTimelineItem(7L, LocalDate.of(2025, 1, 10), "약A", "500mg", MedicationStatus.ACTIVE)));
+
+        SyncChangeLog.SyncResult result = syncChangeLog.getChanges(1L, since.encode(), 2);
+
+        assertFalse(result.resetRequired());
+        assertTrue(result.hasMore());
+        assertEquals(List.of(Type.MEDICATION, Type.MEDICAL_RECORD),
+                result.changes().stream().map(SyncChangeLog.Change::type).toList());
+        assertEquals("감기", result.changes().get(1).item().title());
+        assertEquals(12L, SyncChangeLog.SyncToken.decode(result.nextToken()).afterId());
+
+        // 페이지 끝(id 12) 뒤의 삭제는 다음 페이지에서
+        when(syncChangeRepository.findByPatientIdAndIdGreaterThanOrderByIdAsc(1L, 12L, Limit.of(3)))
+                .thenReturn(List.of(change(13L, Type.MEDICATION, 7L, SyncOperation.DELETE, now)));
+        SyncChangeLog.SyncResult next = syncChangeLog.getChanges(1L, result.nextToken(), 2);
+        SyncChangeLog.Change deleted = next.changes().get(next.changes().size() - 1);
+        assertEquals(SyncOperation.DELETE, deleted.operation());
+        assertEquals(7L, deleted.id());
+        assertNull(deleted.item());
+    }
+
+    @Test
+    void recordsMoveBetweenPatientsAsDeleteAndUpsert() {
+        syncChangeLog.recordChanged(Type.MEDICATION, 5L, 1L, 2L);
+        syncChangeLog.recordChanged(Type.MEDICATION, 6L, 1L, 1L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SyncChange>> captor = ArgumentCaptor.forClass(List.class);
+        verify(syncChangeRepository, times(2)).saveAll(captor.capture());
+
+        List<SyncChange> moved = captor.getAllValues().get(0);
+        assertEquals(2, moved.size());
+        assertEquals(List.of(1L, 2L), moved.stream().map(SyncChange::getPatientId).toList());
+        assertEquals(List.of(SyncOperation.DELETE, SyncOperation.UPSERT), moved.stream().map(SyncChange::getOperation).toList());
+
+        List<SyncChange> updated = captor.getAllValues().get(1);
+        assertEquals(1, updated.size());
+        assertEquals(SyncOperation.UPSERT, updated.get(0).getOperation());
+    }
+
+    private static SyncChange change(Long id, Type type, Long entityId, SyncOperation operation, LocalDateTime at) {
+        SyncChange change = new SyncChange(1L, type, entityId, operation, at);
+        change.setId(id);
+        return change;
+    }
+}
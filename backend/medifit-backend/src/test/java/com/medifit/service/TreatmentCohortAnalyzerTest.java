@@ -0,0 +1,82 @@
+package com.medifit.service;
+
+import com.medifit.enums.RecordStatus;
+import com.medifit.event.MedicalRecordChangedEvent;
+import com.medifit.event.MedicalRecordSnapshot;
+import com.medifit.repository.MedicalRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TreatmentCohortAnalyzerTest {
+
+    private static final LocalDateTime VISIT = LocalDateTime.of(2025, 1, 10, 9, 0);
+
+    private MedicalRecordRepository medicalRecordRepository;
+    private TreatmentCohortAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        medicalRecordRepository = mock(MedicalRecordRepository.class);
+        List<Object[]> rows = new ArrayList<>();
+        // patientId, visits, firstVisit, lastVisit, finalStatus
+        rows.add(new Object[]{1L, 3L, VISIT, VISIT.plusDays(14), "COMPLETED"});
+        rows.add(new Object[]{2L, 2L, VISIT, VISIT.plusDays(7), "ACTIVE"});
+        rows.add(new Object[]{3L, 1L, VISIT, VISIT, "COMPLETED"});
+        when(medicalRecordRepository.findTreatmentCohort("%소화불량%", "%약물%")).thenReturn(rows);
+
+        analyzer = new TreatmentCohortAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "medicalRecordRepository", medicalRecordRepository);
+        ReflectionTestUtils.setField(analyzer, "cacheSize", 10);
+    }
+
+    @Test
+    void summarizesPatientCourses() {
+        TreatmentCohortAnalyzer.CohortStats stats = analyzer.analyze("소화불량", "약물");
+
+        assertEquals(6, stats.totalCases());
+        assertEquals(3, stats.patients());
+        // 한 번만 진료받은 3번 환자는 추적 대상이 아니다
+        assertEquals(2, stats.trackedCases());
+        assertEquals(1, stats.improvedCases());
+        assertEquals(50.0, stats.successRate());
+        assertEquals(11, stats.averageTreatmentDays());
+    }
+
+    @Test
+    void cachesUntilRelevantRecordChanges() {
+        analyzer.analyze("소화불량", "약물");
+        analyzer.analyze("소화불량", "약물");
+        verify(medicalRecordRepository, times(1)).findTreatmentCohort(anyString(), anyString());
+
+        // 조건에도 안 걸리고 코호트 환자도 아닌 기록은 캐시를 유지한다
+        analyzer.onMedicalRecordChanged(MedicalRecordChangedEvent.saved(snapshot(9L, "감기", "휴식")));
+        assertEquals(1, analyzer.cachedCohorts());
+
+        // 코호트 환자의 기록은 조건이 바뀌었어도 무효화한다
+        analyzer.onMedicalRecordChanged(MedicalRecordChangedEvent.saved(snapshot(2L, "감기", "휴식")));
+        assertEquals(0, analyzer.cachedCohorts());
+
+        analyzer.analyze("소화불량", "약물");
+        analyzer.onMedicalRecordChanged(MedicalRecordChangedEvent.saved(snapshot(9L, "기능성 소화불량", "약물치료")));
+        assertEquals(0, analyzer.cachedCohorts());
+    }
+
+    @Test
+    void escapesLikeWildcards() {
+        assertEquals("%50!%!_a!!%", TreatmentCohortAnalyzer.likePattern("50%_a!"));
+    }
+
+    private static MedicalRecordSnapshot snapshot(Long patientId, String diagnosis, String treatment) {
+        return new MedicalRecordSnapshot(100L, patientId, 1L, "내과", diagnosis, null, treatment, null,
+                RecordStatus.ACTIVE, VISIT);
+    }
+}
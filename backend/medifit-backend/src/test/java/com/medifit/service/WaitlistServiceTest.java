@@ -0,0 +1,203 @@
+package com.medifit.service;
+
+import com.medifit.entity.Appointment;
+import com.medifit.entity.Patient;
+import com.medifit.entity.User;
+import com.medifit.entity.WaitlistEntry;
+import com.medifit.enums.WaitlistStatus;
+import com.medifit.enums.WaitlistUrgency;
+import com.medifit.repository.AppointmentRepository;
+import com.medifit.repository.WaitlistEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WaitlistServiceTest {
+
+    private static final Long HOSPITAL_ID = 1L;
+    private static final String DEPARTMENT = "내과";
+    private static final LocalDateTime SLOT = LocalDateTime.now().plusDays(3).withHour(10).withMinute(0).withSecond(0).withNano(0);
+
+    private final NoOpTransactionManager transactionManager = new NoOpTransactionManager();
+    private WaitlistEntryRepository waitlistEntryRepository;
+    private AppointmentService appointmentService;
+    private SlotReservationService slotReservationService;
+    private WaitlistService service;
+
+    private WaitlistEntry urgent;
+    private WaitlistEntry normal;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.findOccupiedSlots(any(), any(), any())).thenReturn(List.of());
+        slotReservationService = new SlotReservationService();
+        ReflectionTestUtils.setField(slotReservationService, "appointmentRepository", appointmentRepository);
+
+        urgent = entry(11L, 101L, WaitlistUrgency.URGENT);
+        normal = entry(12L, 102L, WaitlistUrgency.NORMAL);
+        waitlistEntryRepository = mock(WaitlistEntryRepository.class);
+        when(waitlistEntryRepository.findByHospital_IdAndDepartmentAndStatusIn(eq(HOSPITAL_ID), eq(DEPARTMENT), any()))
+                .thenReturn(List.of(normal, urgent));
+        when(waitlistEntryRepository.findById(urgent.getId())).thenReturn(Optional.of(urgent));
+        when(waitlistEntryRepository.findById(normal.getId())).thenReturn(Optional.of(normal));
+
+        appointmentService = mock(AppointmentService.class);
+
+        service = new WaitlistService(transactionManager);
+        ReflectionTestUtils.setField(service, "waitlistEntryRepository", waitlistEntryRepository);
+        ReflectionTestUtils.setField(service, "appointmentService", appointmentService);
+        ReflectionTestUtils.setField(service, "slotReservationService", slotReservationService);
+        ReflectionTestUtils.setField(service, "notificationService", mock(NotificationService.class));
+        ReflectionTestUtils.setField(service, "holdSeconds", 300L);
+        ReflectionTestUtils.setField(service, "maxMissedOffers", 2);
+    }
+
+    @Test
+    void freedSlotIsHeldForTheMostUrgentPatientAndAcceptBooksIt() {
+        WaitlistService.Offer offer = service.offerFreedSlot(HOSPITAL_ID, DEPARTMENT, SLOT, null).orElseThrow();
+
+        assertEquals(urgent.getId(), offer.entryId());
+        assertEquals(WaitlistStatus.OFFERED, urgent.getStatus());
+        assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, SLOT, 30));
+
+        when(appointmentService.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            appointment.setId(500L);
+            return appointment;
+        });
+        Appointment booked = service.accept(offer.id(), urgent.getPatientId());
+
+        assertEquals(SLOT, booked.getAppointmentDate());
+        assertEquals(WaitlistStatus.BOOKED, urgent.getStatus());
+        assertEquals(500L, urgent.getAppointmentId());
+        assertTrue(service.findOfferForEntry(urgent.getId()).isEmpty());
+        // 예약으로 넘어간 슬롯은 계속 점유 상태
+        assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, SLOT, 30));
+    }
+
+    @Test
+    void acceptRejectsOtherPatients() {
+        WaitlistService.Offer offer = service.offerFreedSlot(HOSPITAL_ID, DEPARTMENT, SLOT, null).orElseThrow();
+
+        assertThrows(IllegalArgumentException.class, () -> service.accept(offer.id(), normal.getPatientId()));
+        assertTrue(service.findOfferForEntry(urgent.getId()).isPresent());
+    }
+
+    @Test
+    void expiredOfferIsPassedOnToTheNextPatient() {
+        ReflectionTestUtils.setField(service, "holdSeconds", -60L);
+        WaitlistService.Offer first = service.offerFreedSlot(HOSPITAL_ID, DEPARTMENT, SLOT, null).orElseThrow();
+
+        service.sweepExpired();
+
+        assertTrue(service.findOfferForEntry(urgent.getId()).isEmpty());
+        assertEquals(1, urgent.getMissedOffers());
+        assertEquals(WaitlistStatus.WAITING, urgent.getStatus());
+
+        WaitlistService.Offer next = service.findOfferForEntry(normal.getId()).orElseThrow();
+        assertNotEquals(first.id(), next.id());
+        assertEquals(WaitlistStatus.OFFERED, normal.getStatus());
+        assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, SLOT, 30));
+    }
+
+    @Test
+    void declinePassesTheHeldSlotOn() {
+        WaitlistService.Offer offer = service.offerFreedSlot(HOSPITAL_ID, DEPARTMENT, SLOT, null).orElseThrow();
+
+        service.decline(offer.id(), urgent.getPatientId());
+
+        assertEquals(WaitlistStatus.WAITING, urgent.getStatus());
+        assertTrue(service.findOfferForEntry(normal.getId()).isPresent());
+        assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, SLOT, 30));
+    }
+
+    @Test
+    void failedExpiryRollsBackOnlyThatOffer() {
+        ReflectionTestUtils.setField(service, "holdSeconds", -60L);
+        WaitlistService.Offer broken = service.offerFreedSlot(HOSPITAL_ID, DEPARTMENT, SLOT, null).orElseThrow();
+        WaitlistService.Offer healthy = service.offerFreedSlot(HOSPITAL_ID, DEPARTMENT, SLOT.plusHours(1), null)
+                .orElseThrow();
+        assertEquals(normal.getId(), healthy.entryId());
+        when(waitlistEntryRepository.findById(urgent.getId())).thenThrow(new IllegalStateException("db down"));
+
+        service.sweepExpired();
+
+        // 실패한 제안은 되돌려져 선점을 유지한 채 다음 정리를 기다린다
+        assertEquals(Optional.of(broken), service.findOfferForEntry(urgent.getId()));
+        assertFalse(slotReservationService.isAvailable(HOSPITAL_ID, SLOT, 30));
+
+        // 다른 제안은 정상적으로 회수된다 (넘길 대기 환자가 없으므로 슬롯이 빈다)
+        assertTrue(service.findOfferForEntry(normal.getId()).isEmpty());
+        assertEquals(1, normal.getMissedOffers());
+        assertTrue(slotReservationService.isAvailable(HOSPITAL_ID, SLOT.plusHours(1), 30));
+        assertEquals(1, transactionManager.rollbacks);
+    }
+
+    @Test
+    void rolledBackOfferReleasesTheSlot() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+
+        assertThrows(IllegalStateException.class, () -> template.executeWithoutResult(tx -> {
+            service.offerFreedSlot(HOSPITAL_ID, DEPARTMENT, SLOT, null).orElseThrow();
+            throw new IllegalStateException("commit failed");
+        }));
+
+        assertTrue(service.findOfferForEntry(urgent.getId()).isEmpty());
+        assertTrue(slotReservationService.isAvailable(HOSPITAL_ID, SLOT, 30));
+    }
+
+    private static WaitlistEntry entry(Long id, Long patientId, WaitlistUrgency urgency) {
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        User hospital = new User();
+        hospital.setId(HOSPITAL_ID);
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setId(id);
+        entry.setPatient(patient);
+        entry.setHospital(hospital);
+        entry.setDepartment(DEPARTMENT);
+        entry.setUrgency(urgency);
+        entry.setEarliestDate(SLOT.minusDays(1));
+        entry.setLatestDate(SLOT.plusDays(1));
+        entry.setEstimatedDuration(30);
+        return entry;
+    }
+
+    // 트랜잭션 동기화(afterCommit/afterCompletion)만 실제로 동작하는 테스트용 매니저
+    static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+    }
+}